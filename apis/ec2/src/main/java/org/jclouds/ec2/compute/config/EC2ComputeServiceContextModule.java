@@ -31,8 +31,10 @@ import org.jclouds.compute.config.BaseComputeServiceContextModule;
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.extensions.ImageExtension;
 import org.jclouds.compute.extensions.SecurityGroupExtension;
+import org.jclouds.compute.strategy.SubmitDestroyNodeStrategy;
 import org.jclouds.ec2.compute.domain.RegionAndName;
 import org.jclouds.ec2.compute.loaders.RegionAndIdToImage;
+import org.jclouds.ec2.compute.strategy.EC2SubmitDestroyNodeStrategy;
 import org.jclouds.ec2.compute.suppliers.RegionAndNameToImageSupplier;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.suppliers.SetAndThrowAuthorizationExceptionSupplier;
@@ -61,6 +63,7 @@ public class EC2ComputeServiceContextModule extends BaseComputeServiceContextMod
       installDependencies();
       install(new EC2BindComputeStrategiesByClass());
       install(new EC2BindComputeSuppliersByClass());
+      bind(SubmitDestroyNodeStrategy.class).to(EC2SubmitDestroyNodeStrategy.class);
       super.configure();
    }
    
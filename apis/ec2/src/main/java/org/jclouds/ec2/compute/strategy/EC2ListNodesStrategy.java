@@ -41,6 +41,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.predicates.NodePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.concurrent.RegionFanOut;
 import org.jclouds.ec2.EC2Api;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
@@ -71,6 +72,9 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
    protected final Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata;
    protected final ListeningExecutorService userExecutor;
 
+   @Inject
+   protected RegionFanOut regionFanOut;
+
    @Inject
    protected EC2ListNodesStrategy(EC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
@@ -111,17 +115,17 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
    }
 
    protected Iterable<? extends RunningInstance> pollRunningInstances() {
-      Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
-         = transform(regions.get(), allInstancesInRegion());
-      
-      return concat(concat(reservations));
+      Iterable<Reservation<? extends RunningInstance>> reservations
+         = regionFanOut.concat(regions.get(), allInstancesInRegion());
+
+      return concat(reservations);
    }
 
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
-      Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
-         = transform(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions));
-      
-      return concat(concat(reservations));
+      Iterable<Reservation<? extends RunningInstance>> reservations
+         = regionFanOut.concat(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions));
+
+      return concat(reservations);
    }
 
    protected Function<String, String> splitHandle(final int pos) {
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.aws.util.AWSUtils;
+import org.jclouds.compute.strategy.DestroyNodeStrategy;
+import org.jclouds.compute.strategy.SubmitDestroyNodeStrategy;
+import org.jclouds.ec2.features.InstanceApi;
+import org.jclouds.ec2.reference.EC2Constants;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.InvokeHttpMethod;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Submits {@link InstanceApi#terminateInstancesInRegion} without waiting on a user thread for its response. Elastic
+ * ips have to be released before their instance is terminated, so when they are auto-allocated this runs the
+ * {@link DestroyNodeStrategy} on the user executor instead.
+ */
+@Singleton
+public class EC2SubmitDestroyNodeStrategy implements SubmitDestroyNodeStrategy {
+   private static final Invokable<?, ?> TERMINATE_INSTANCES = method(InstanceApi.class, "terminateInstancesInRegion",
+            String.class, String[].class);
+
+   protected final InvokeHttpMethod invoker;
+   protected final DestroyNodeStrategy destroyNodeStrategy;
+   protected final ListeningExecutorService userExecutor;
+
+   @Inject
+   @Named(EC2Constants.PROPERTY_EC2_AUTO_ALLOCATE_ELASTIC_IPS)
+   @VisibleForTesting
+   boolean autoAllocateElasticIps = false;
+
+   @Inject
+   protected EC2SubmitDestroyNodeStrategy(InvokeHttpMethod invoker, DestroyNodeStrategy destroyNodeStrategy,
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.invoker = checkNotNull(invoker, "invoker");
+      this.destroyNodeStrategy = checkNotNull(destroyNodeStrategy, "destroyNodeStrategy");
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   @Override
+   public ListenableFuture<Void> destroyNode(final String id) {
+      if (autoAllocateElasticIps)
+         return userExecutor.submit(new Callable<Void>() {
+            public Void call() {
+               destroyNodeStrategy.destroyNode(id);
+               return null;
+            }
+
+            public String toString() {
+               return "destroyNode(" + id + ")";
+            }
+         });
+      String[] parts = AWSUtils.parseHandle(id);
+      String region = parts[0];
+      String instanceId = parts[1];
+      return Futures.transform(invoker.submit(Invocation.create(TERMINATE_INSTANCES,
+               ImmutableList.<Object> of(region, new String[] { instanceId }))), Functions.<Void> constant(null));
+   }
+}
@@ -34,6 +34,7 @@ import org.jclouds.ec2.binders.BindUserIdsToIndexedFormParams;
 import org.jclouds.ec2.domain.Image;
 import org.jclouds.ec2.domain.Image.EbsBlockDevice;
 import org.jclouds.ec2.domain.Permission;
+import org.jclouds.ec2.functions.StreamImagesToCallback;
 import org.jclouds.ec2.options.CreateImageOptions;
 import org.jclouds.ec2.options.DescribeImagesOptions;
 import org.jclouds.ec2.options.RegisterImageBackedByEbsOptions;
@@ -42,6 +43,7 @@ import org.jclouds.ec2.xml.BlockDeviceMappingHandler;
 import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
 import org.jclouds.ec2.xml.ImageIdHandler;
 import org.jclouds.ec2.xml.PermissionHandler;
+import org.jclouds.http.functions.ParseStax.Callback;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.location.functions.RegionToEndpointOrProviderIfNull;
 import org.jclouds.rest.annotations.BinderParam;
@@ -49,9 +51,11 @@ import org.jclouds.rest.annotations.EndpointParam;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.FormParams;
 import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.ResponseParser;
 import org.jclouds.rest.annotations.VirtualHost;
 import org.jclouds.rest.annotations.XMLResponseParser;
 
+import com.google.common.annotations.Beta;
 import com.google.common.collect.Multimap;
 
 /**
@@ -113,6 +117,28 @@ public interface AMIApi {
            @BinderParam(BindFiltersToIndexedFormParams.class) Multimap<String, String> filter,
            DescribeImagesOptions... options);
 
+   /**
+    * Like {@link #describeImagesInRegion}, but passes each image to the callback as soon as it has been read instead of
+    * returning them all at once. Use this for large responses, such as the public images of a region, so that only one
+    * image is held in memory at a time.
+    * 
+    * @param region
+    *           AMIs are tied to the Region where its files are located within Amazon S3.
+    * @param callback
+    *           receives the images in the order of the response, and can stop reading it by returning false
+    * @return the number of images passed to the callback
+    * @see DescribeImagesOptions
+    */
+   @Beta
+   @Named("DescribeImages")
+   @POST
+   @Path("/")
+   @FormParams(keys = ACTION, values = "DescribeImages")
+   @ResponseParser(StreamImagesToCallback.class)
+   int describeImagesInRegionWithCallback(
+            @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
+            Callback<? super Image> callback, DescribeImagesOptions... options);
+
    /**
     * Creates an AMI that uses an Amazon EBS root device from a "running" or "stopped" instance.
     * 
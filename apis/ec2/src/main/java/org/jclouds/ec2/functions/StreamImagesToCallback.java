@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.functions;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Predicates.instanceOf;
+import static com.google.common.collect.Iterables.find;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.jclouds.ec2.domain.Image;
+import org.jclouds.ec2.xml.ImageHandler;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseStax;
+import org.jclouds.http.functions.ParseStax.Callback;
+import org.jclouds.http.functions.SaxElementReader;
+import org.jclouds.rest.InvocationContext;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.base.Function;
+
+/**
+ * Passes each image of a DescribeImages response to the {@link Callback} argument of the invocation as soon as it has
+ * been read, so that only one image is held in memory at a time.
+ * 
+ * @see org.jclouds.ec2.features.AMIApi#describeImagesInRegionWithCallback
+ */
+public class StreamImagesToCallback implements Function<HttpResponse, Integer>,
+      InvocationContext<StreamImagesToCallback> {
+
+   private final ParseStax.Factory parseStax;
+   private final Provider<ImageHandler> handlers;
+   private HttpRequest request;
+   private Callback<? super Image> callback;
+
+   @Inject
+   StreamImagesToCallback(ParseStax.Factory parseStax, Provider<ImageHandler> handlers) {
+      this.parseStax = parseStax;
+      this.handlers = handlers;
+   }
+
+   @Override
+   public Integer apply(HttpResponse from) {
+      return parseStax.create(new SaxElementReader<Image>("imagesSet", "item", handlers), callback).setContext(request)
+            .apply(from);
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public StreamImagesToCallback setContext(HttpRequest request) {
+      checkArgument(request instanceof GeneratedHttpRequest, "note this handler requires a GeneratedHttpRequest");
+      this.request = request;
+      this.callback = (Callback<? super Image>) find(GeneratedHttpRequest.class.cast(request).getInvocation()
+            .getArgs(), instanceOf(Callback.class));
+      return this;
+   }
+}
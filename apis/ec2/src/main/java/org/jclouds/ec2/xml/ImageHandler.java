@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.xml;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+
+import javax.inject.Inject;
+
+import org.jclouds.ec2.domain.Image;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.functions.ParseSax;
+import org.xml.sax.Attributes;
+
+/**
+ * Parses a single {@code item} of the {@code imagesSet} of a DescribeImages response, so that large responses, such as
+ * the public images of a region, can be streamed one image at a time.
+ * 
+ * @see DescribeImagesResponseHandler
+ * @see org.jclouds.ec2.features.AMIApi#describeImagesInRegionWithCallback
+ */
+public class ImageHandler extends ParseSax.HandlerForGeneratedRequestWithResult<Image> {
+
+   private final DescribeImagesResponseHandler delegate;
+
+   @Inject
+   public ImageHandler(DescribeImagesResponseHandler delegate) {
+      this.delegate = delegate;
+   }
+
+   /**
+    * @return the image, or null if it was malformed
+    */
+   @Override
+   public Image getResult() {
+      return getOnlyElement(delegate.getResult(), null);
+   }
+
+   @Override
+   public ImageHandler setContext(HttpRequest request) {
+      super.setContext(request);
+      delegate.setContext(request);
+      return this;
+   }
+
+   @Override
+   public void startElement(String uri, String name, String qName, Attributes attrs) {
+      delegate.startElement(uri, name, qName, attrs);
+   }
+
+   @Override
+   public void endElement(String uri, String name, String qName) {
+      delegate.endElement(uri, name, qName);
+   }
+
+   @Override
+   public void characters(char ch[], int start, int length) {
+      delegate.characters(ch, start, length);
+   }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.compute.strategy;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.easymock.Capture;
+import org.jclouds.compute.strategy.DestroyNodeStrategy;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.InvokeHttpMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", singleThreaded = true, testName = "EC2SubmitDestroyNodeStrategyTest")
+public class EC2SubmitDestroyNodeStrategyTest {
+
+   public void testDestroyNodeSubmitsTerminateInstances() throws Exception {
+      InvokeHttpMethod invoker = createMock(InvokeHttpMethod.class);
+      DestroyNodeStrategy destroyNodeStrategy = createMock(DestroyNodeStrategy.class);
+      Capture<Invocation> invocation = new Capture<Invocation>();
+
+      expect(invoker.submit(capture(invocation))).andReturn(Futures.<Object> immediateFuture(ImmutableSet.of()));
+
+      replay(invoker);
+      replay(destroyNodeStrategy);
+
+      EC2SubmitDestroyNodeStrategy destroyer = new EC2SubmitDestroyNodeStrategy(invoker, destroyNodeStrategy,
+               MoreExecutors.sameThreadExecutor());
+
+      assertNull(destroyer.destroyNode("region/i-blah").get());
+      assertEquals(invocation.getValue().getInvokable().getName(), "terminateInstancesInRegion");
+      assertEquals(invocation.getValue().getArgs().get(0), "region");
+      assertEquals((String[]) invocation.getValue().getArgs().get(1), new String[] { "i-blah" });
+
+      verify(invoker);
+      verify(destroyNodeStrategy);
+   }
+
+   public void testDestroyNodeRunsDestroyNodeStrategyWhenElasticIpsAreAutoAllocated() throws Exception {
+      InvokeHttpMethod invoker = createMock(InvokeHttpMethod.class);
+      DestroyNodeStrategy destroyNodeStrategy = createMock(DestroyNodeStrategy.class);
+
+      expect(destroyNodeStrategy.destroyNode("region/i-blah")).andReturn(null);
+
+      replay(invoker);
+      replay(destroyNodeStrategy);
+
+      EC2SubmitDestroyNodeStrategy destroyer = new EC2SubmitDestroyNodeStrategy(invoker, destroyNodeStrategy,
+               MoreExecutors.sameThreadExecutor());
+      destroyer.autoAllocateElasticIps = true;
+
+      assertNull(destroyer.destroyNode("region/i-blah").get());
+
+      verify(invoker);
+      verify(destroyNodeStrategy);
+   }
+}
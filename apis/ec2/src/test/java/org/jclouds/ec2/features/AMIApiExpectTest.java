@@ -19,15 +19,21 @@ package org.jclouds.ec2.features;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
 
+import java.util.List;
+
 import org.jclouds.ec2.EC2Api;
 import org.jclouds.ec2.domain.Image;
 import org.jclouds.ec2.internal.BaseEC2ApiExpectTest;
+import org.jclouds.ec2.xml.DescribeImagesResponseHandlerTest;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseStax.Callback;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 @Test(groups = "unit", testName = "AMIApiExpectTest")
 public class AMIApiExpectTest extends BaseEC2ApiExpectTest<EC2Api> {
@@ -70,4 +76,51 @@ public class AMIApiExpectTest extends BaseEC2ApiExpectTest<EC2Api> {
                       .build()),
               ImmutableSet.of());
    }
+
+   HttpRequest describeImages = HttpRequest.builder().method("POST")
+           .endpoint("https://ec2.us-east-1.amazonaws.com/")
+           .addHeader("Host", "ec2.us-east-1.amazonaws.com")
+           .addFormParam("Action", "DescribeImages")
+           .addFormParam("Signature", "EHvwWff7qvRo1rvyAqBLHsttZVdfyu1IUI1Xo6jmv%2BQ%3D")
+           .addFormParam("SignatureMethod", "HmacSHA256")
+           .addFormParam("SignatureVersion", "2")
+           .addFormParam("Timestamp", "2012-04-16T15%3A54%3A08.897Z")
+           .addFormParam("Version", "2010-08-31")
+           .addFormParam("AWSAccessKeyId", "identity").build();
+
+   HttpResponse describeImagesResponse = HttpResponse.builder().statusCode(200)
+           .payload(payloadFromResourceWithContentType("/amzn_images.xml", "text/xml")).build();
+
+   public void testCallbackReceivesEveryImage() {
+      EC2Api api = requestsSendResponses(describeRegionsRequest, describeRegionsResponse, describeImages,
+              describeImagesResponse);
+      final List<Image> images = Lists.newArrayList();
+
+      int count = api.getAMIApi().get().describeImagesInRegionWithCallback("us-east-1", new Callback<Image>() {
+         public boolean onElement(Image image) {
+            images.add(image);
+            return true;
+         }
+      });
+
+      assertEquals(count, images.size());
+      assertEquals(images, ImmutableList.copyOf(
+              DescribeImagesResponseHandlerTest.parseImages("/amzn_images.xml")));
+   }
+
+   public void testCallbackStopsReading() {
+      EC2Api api = requestsSendResponses(describeRegionsRequest, describeRegionsResponse, describeImages,
+              describeImagesResponse);
+      final List<Image> images = Lists.newArrayList();
+
+      int count = api.getAMIApi().get().describeImagesInRegionWithCallback("us-east-1", new Callback<Image>() {
+         public boolean onElement(Image image) {
+            images.add(image);
+            return false;
+         }
+      });
+
+      assertEquals(count, 1);
+      assertEquals(images.size(), 1);
+   }
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.xml;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.util.List;
+
+import javax.inject.Provider;
+
+import org.jclouds.ec2.compute.functions.EC2ImageParserTest;
+import org.jclouds.ec2.domain.Image;
+import org.jclouds.http.functions.ParseStax;
+import org.jclouds.http.functions.SaxElementReader;
+import org.jclouds.http.functions.config.SaxParserModule;
+import org.jclouds.location.Region;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Tests behavior of {@code ImageHandler}
+ */
+@Test(groups = "unit", testName = "ImageHandlerTest")
+public class ImageHandlerTest {
+
+   public void testStreamingMatchesDescribeImagesResponseHandler() {
+      for (String resource : ImmutableList.of("/describe_images.xml", "/describe_images_windows.xml",
+            "/describe_images_ebs.xml", "/describe_images_tags.xml", "/describe_images_nova.xml", "/amzn_images.xml")) {
+         List<Image> streamed = streamImages(resource);
+         assertEquals(streamed.toString(),
+               ImmutableList.copyOf(DescribeImagesResponseHandlerTest.parseImages(resource)).toString(), resource);
+      }
+   }
+
+   private static List<Image> streamImages(String resource) {
+      final Injector injector = Guice.createInjector(new SaxParserModule(), new AbstractModule() {
+
+         @Override
+         protected void configure() {
+            bind(new TypeLiteral<Supplier<String>>() {
+            }).annotatedWith(Region.class).toInstance(Suppliers.ofInstance("us-east-1"));
+         }
+
+      });
+      final List<Image> images = Lists.newArrayList();
+      ParseStax.Callback<Image> callback = new ParseStax.Callback<Image>() {
+         public boolean onElement(Image image) {
+            images.add(image);
+            return true;
+         }
+      };
+      Provider<ImageHandler> handlers = injector.getProvider(ImageHandler.class);
+      InputStream is = EC2ImageParserTest.class.getResourceAsStream(resource);
+      injector.getInstance(ParseStax.Factory.class)
+            .create(new SaxElementReader<Image>("imagesSet", "item", handlers), callback).parse(is);
+      return images;
+   }
+}
@@ -84,6 +84,11 @@ public class RetryOnRenewTest {
       expect(command.getCurrentRequest()).andReturn(request).anyTimes();
       expect(request.getHeaders()).andStubReturn(null);
 
+      // the waits between renewals are deferred, so that the test does not sleep through them
+      expect(command.isBackoffDeferred()).andReturn(true).anyTimes();
+      command.setDeferredBackoff(5000);
+      expectLastCall().times(RetryOnRenew.NUM_RETRIES - 2);
+
       cache.invalidateAll();
       expectLastCall().anyTimes();
 
@@ -35,6 +35,7 @@ import javax.inject.Named;
 import org.jclouds.compute.ComputeServiceAdapter;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.concurrent.RegionFanOut;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.location.Region;
@@ -82,6 +83,9 @@ public class NovaComputeServiceAdapter implements
    protected final RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate;
    protected final LoadingCache<RegionAndName, KeyPair> keyPairCache;
 
+   @Inject
+   protected RegionFanOut regionFanOut;
+
    @Inject
    public NovaComputeServiceAdapter(NovaApi novaApi, @Region Supplier<Set<String>> regionIds,
             RemoveFloatingIpFromNodeAndDeallocate removeFloatingIpFromNodeAndDeallocate,
@@ -214,19 +218,22 @@ public class NovaComputeServiceAdapter implements
 
    @Override
    public Iterable<ServerInRegion> listNodes() {
-      Builder<ServerInRegion> builder = ImmutableSet.builder();
-      for (final String regionId : regionIds.get()) {
-         builder.addAll(novaApi.getServerApi(regionId).listInDetail().concat()
-                  .transform(new Function<Server, ServerInRegion>() {
+      return ImmutableSet.copyOf(regionFanOut.concat(regionIds.get(), new Function<String, Set<ServerInRegion>>() {
 
-                     @Override
-                     public ServerInRegion apply(Server arg0) {
-                        return new ServerInRegion(arg0, regionId);
-                     }
+         @Override
+         public Set<ServerInRegion> apply(final String regionId) {
+            return novaApi.getServerApi(regionId).listInDetail().concat()
+                     .transform(new Function<Server, ServerInRegion>() {
 
-                  }));
-      }
-      return builder.build();
+                        @Override
+                        public ServerInRegion apply(Server arg0) {
+                           return new ServerInRegion(arg0, regionId);
+                        }
+
+                     }).toSet();
+         }
+
+      }));
    }
 
    @Override
@@ -37,8 +37,8 @@ import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
-import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.ProvisioningPipeline;
 import org.jclouds.compute.strategy.impl.CreateNodesWithGroupEncodedIntoNameThenAddToSet;
 import org.jclouds.openstack.nova.v2_0.NovaApi;
 import org.jclouds.openstack.nova.v2_0.compute.functions.AllocateAndAddFloatingIpToNode;
@@ -73,13 +73,12 @@ public class ApplyNovaTemplateOptionsCreateNodesWithGroupEncodedIntoNameThenAddT
             CreateNodeWithGroupEncodedIntoName addNodeWithTagStrategy,
             ListNodesStrategy listNodesStrategy,
             GroupNamingConvention.Factory namingConvention,
-            CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
+            ProvisioningPipeline pipeline,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
             AllocateAndAddFloatingIpToNode createAndAddFloatingIpToNode,
             LoadingCache<RegionAndName, SecurityGroupInRegion> securityGroupCache,
             LoadingCache<RegionAndName, KeyPair> keyPairCache, NovaApi novaApi) {
-      super(addNodeWithTagStrategy, listNodesStrategy, namingConvention, userExecutor,
-               customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory);
+      super(addNodeWithTagStrategy, listNodesStrategy, namingConvention, userExecutor, pipeline);
       this.securityGroupCache = checkNotNull(securityGroupCache, "securityGroupCache");
       this.keyPairCache = checkNotNull(keyPairCache, "keyPairCache");
       this.createAndAddFloatingIpToNode = checkNotNull(createAndAddFloatingIpToNode,
@@ -39,6 +39,8 @@ import org.jclouds.openstack.nova.v2_0.functions.internal.ParseFlavors;
 import org.jclouds.openstack.v2_0.domain.PaginatedCollection;
 import org.jclouds.openstack.v2_0.domain.Resource;
 import org.jclouds.openstack.v2_0.options.PaginationOptions;
+import org.jclouds.rest.annotations.Cacheable;
+import org.jclouds.rest.annotations.Coalesce;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.RequestFilters;
 import org.jclouds.rest.annotations.ResponseParser;
@@ -53,6 +55,8 @@ import org.jclouds.rest.annotations.WrapWith;
  *
  */
 @RequestFilters(AuthenticateRequest.class)
+@Cacheable(maxAge = 60)
+@Coalesce
 @Consumes(MediaType.APPLICATION_JSON)
 @Path("/flavors")
 public interface FlavorApi {
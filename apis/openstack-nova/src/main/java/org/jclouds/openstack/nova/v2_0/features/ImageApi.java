@@ -45,6 +45,8 @@ import org.jclouds.openstack.nova.v2_0.functions.internal.ParseImageDetails;
 import org.jclouds.openstack.nova.v2_0.functions.internal.ParseImages;
 import org.jclouds.openstack.v2_0.domain.Resource;
 import org.jclouds.openstack.v2_0.options.PaginationOptions;
+import org.jclouds.rest.annotations.Cacheable;
+import org.jclouds.rest.annotations.Coalesce;
 import org.jclouds.rest.annotations.Fallback;
 import org.jclouds.rest.annotations.MapBinder;
 import org.jclouds.rest.annotations.PayloadParam;
@@ -58,6 +60,8 @@ import org.jclouds.rest.binders.BindToJsonPayload;
  * Provides access to the OpenStack Compute (Nova) Image API.
  */
 @RequestFilters(AuthenticateRequest.class)
+@Cacheable
+@Coalesce
 @Consumes(MediaType.APPLICATION_JSON)
 @Path("/images")
 public interface ImageApi {
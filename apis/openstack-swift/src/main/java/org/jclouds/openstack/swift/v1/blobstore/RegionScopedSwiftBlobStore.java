@@ -51,6 +51,7 @@ import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
 import org.jclouds.blobstore.strategy.ClearListStrategy;
+import org.jclouds.blobstore.strategy.MultipartUploadEngine;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
 import org.jclouds.io.ContentMetadata;
@@ -106,10 +107,14 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
             bind(BlobStore.class).toInstance(RegionScopedSwiftBlobStore.this);
          }
       }).getInstance(ClearListStrategy.class);
+      this.multipartUploadEngine = baseGraph.getInstance(MultipartUploadEngine.class);
+      this.multipartUploadAdapter = new StaticLargeObjectUploadAdapter(api, regionId);
    }
 
    private final BlobStoreContext context;
    private final ClearListStrategy clearList;
+   private final MultipartUploadEngine multipartUploadEngine;
+   private final StaticLargeObjectUploadAdapter multipartUploadAdapter;
    private final SwiftApi api;
    private final Location region;
    private final String regionId;
@@ -227,7 +232,7 @@ public class RegionScopedSwiftBlobStore implements BlobStore {
    @Override
    public String putBlob(String container, Blob blob, PutOptions options) {
       if (options.isMultipart()) {
-         throw new UnsupportedOperationException();
+         return multipartUploadEngine.execute(multipartUploadAdapter, container, blob);
       }
       ObjectApi objectApi = api.getObjectApi(regionId, container);
       return objectApi.put(blob.getMetadata().getName(), blob.getPayload(), metadata(blob.getMetadata().getUserMetadata()));
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.v1.blobstore;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.openstack.swift.v1.options.ListContainerOptions.Builder.prefix;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.io.Payload;
+import org.jclouds.openstack.swift.v1.SwiftApi;
+import org.jclouds.openstack.swift.v1.domain.Segment;
+import org.jclouds.openstack.swift.v1.domain.SwiftObject;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Uploads each part as a segment object under {@code <name>/slo/<upload id>/} and assembles them with a static
+ * large object manifest.
+ */
+final class StaticLargeObjectUploadAdapter implements MultipartUploadAdapter {
+
+   /* default min_segment_size, max_manifest_segments and max_file_size of a swift cluster */
+   private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+   private static final int MAX_MANIFEST_SEGMENTS = 1000;
+   private static final long MAX_SEGMENT_SIZE = 5L * 1024 * 1024 * 1024;
+
+   private final SwiftApi api;
+   private final String regionId;
+
+   StaticLargeObjectUploadAdapter(SwiftApi api, String regionId) {
+      this.api = checkNotNull(api, "api");
+      this.regionId = checkNotNull(regionId, "regionId");
+   }
+
+   @Override
+   public long getMinimumPartSize() {
+      return MIN_SEGMENT_SIZE;
+   }
+
+   @Override
+   public long getMaximumPartSize() {
+      return MAX_SEGMENT_SIZE;
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return MAX_MANIFEST_SEGMENTS;
+   }
+
+   @Override
+   public boolean isPartETagContentMD5() {
+      return true;
+   }
+
+   @Override
+   public MultipartUploadSession initiate(String container, BlobMetadata blobMetadata) {
+      return MultipartUploadSession.create(container, blobMetadata.getName(), UUID.randomUUID().toString(),
+            blobMetadata);
+   }
+
+   @Override
+   public MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part) {
+      String eTag = api.getObjectApi(regionId, mpu.containerName()).put(segmentName(mpu, partNumber), part);
+      return MultipartPart.create(partNumber, part.getContentMetadata().getContentLength(), eTag);
+   }
+
+   @Override
+   public String complete(MultipartUploadSession mpu, List<MultipartPart> parts) {
+      ImmutableList.Builder<Segment> segments = ImmutableList.builder();
+      for (MultipartPart part : parts) {
+         segments.add(Segment.builder()
+               .path(mpu.containerName() + "/" + segmentName(mpu, part.partNumber()))
+               .etag(part.partETag())
+               .sizeBytes(part.partSize())
+               .build());
+      }
+      return api.getStaticLargeObjectApi(regionId, mpu.containerName()).replaceManifest(mpu.blobName(),
+            segments.build(), mpu.blobMetadata().getUserMetadata());
+   }
+
+   @Override
+   public void abort(MultipartUploadSession mpu) {
+      for (SwiftObject segment : api.getObjectApi(regionId, mpu.containerName()).list(prefix(segmentPrefix(mpu)))) {
+         api.getObjectApi(regionId, mpu.containerName()).delete(segment.getName());
+      }
+   }
+
+   private static String segmentPrefix(MultipartUploadSession mpu) {
+      return mpu.blobName() + "/slo/" + mpu.id() + "/";
+   }
+
+   private static String segmentName(MultipartUploadSession mpu, int partNumber) {
+      return String.format("%s%08d", segmentPrefix(mpu), partNumber);
+   }
+}
@@ -25,6 +25,7 @@ import javax.inject.Singleton;
 import org.jclouds.blobstore.BlobRequestSigner;
 import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.attr.ConsistencyModel;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
 import org.jclouds.domain.Location;
 import org.jclouds.s3.S3Client;
 import org.jclouds.s3.blobstore.S3BlobRequestSigner;
@@ -34,6 +35,7 @@ import org.jclouds.s3.blobstore.internal.BackoffOnNotFoundWhenGetBucketACL;
 import org.jclouds.s3.blobstore.strategy.AsyncMultipartUploadStrategy;
 import org.jclouds.s3.blobstore.strategy.MultipartUploadStrategy;
 import org.jclouds.s3.blobstore.strategy.internal.ParallelMultipartUploadStrategy;
+import org.jclouds.s3.blobstore.strategy.internal.S3SubmitBlobRequestStrategy;
 import org.jclouds.s3.blobstore.strategy.internal.SequentialMultipartUploadStrategy;
 import org.jclouds.s3.domain.AccessControlList;
 
@@ -53,6 +55,7 @@ public class S3BlobStoreContextModule extends AbstractModule {
       bind(new TypeLiteral<Function<String, Location>>() {
       }).to(LocationFromBucketName.class);
       bindRequestSigner();
+      bindSubmitBlobRequestStrategy();
       bind(MultipartUploadStrategy.class).to(SequentialMultipartUploadStrategy.class);
       bind(AsyncMultipartUploadStrategy.class).to(ParallelMultipartUploadStrategy.class);
    }
@@ -62,6 +65,11 @@ public class S3BlobStoreContextModule extends AbstractModule {
       });
    }
 
+   protected void bindSubmitBlobRequestStrategy() {
+      bind(SubmitBlobRequestStrategy.class).to(new TypeLiteral<S3SubmitBlobRequestStrategy<S3Client>>() {
+      });
+   }
+
    @Provides
    @Singleton
    protected LoadingCache<String, AccessControlList> bucketAcls(BackoffOnNotFoundWhenGetBucketACL loader) {
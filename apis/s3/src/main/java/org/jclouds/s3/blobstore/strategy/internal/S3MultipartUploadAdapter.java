@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.SortedMap;
+
+import javax.inject.Inject;
+
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.io.ContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.blobstore.strategy.MultipartUpload;
+import org.jclouds.s3.domain.ObjectMetadataBuilder;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Maps the steps of a multipart upload onto the S3 multipart upload api.
+ */
+public class S3MultipartUploadAdapter implements MultipartUploadAdapter {
+
+   private final S3Client client;
+
+   @Inject
+   public S3MultipartUploadAdapter(S3Client client) {
+      this.client = checkNotNull(client, "client");
+   }
+
+   @Override
+   public long getMinimumPartSize() {
+      return MultipartUpload.MIN_PART_SIZE;
+   }
+
+   @Override
+   public long getMaximumPartSize() {
+      return MultipartUpload.MAX_PART_SIZE;
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return MultipartUpload.MAX_NUMBER_OF_PARTS;
+   }
+
+   /**
+    * The etag of a part is not its md5 when the bucket encrypts with SSE-KMS or SSE-C, which the adapter cannot
+    * tell from here, so parts carry a Content-MD5 for S3 to verify instead.
+    */
+   @Override
+   public boolean isPartETagContentMD5() {
+      return false;
+   }
+
+   @Override
+   public MultipartUploadSession initiate(String container, BlobMetadata blobMetadata) {
+      String key = blobMetadata.getName();
+      ContentMetadata metadata = blobMetadata.getContentMetadata();
+      ObjectMetadataBuilder builder = ObjectMetadataBuilder.create().key(key)
+         .contentType(metadata.getContentType())
+         .contentDisposition(metadata.getContentDisposition())
+         .contentEncoding(metadata.getContentEncoding())
+         .contentLanguage(metadata.getContentLanguage())
+         .userMetadata(blobMetadata.getUserMetadata());
+      String uploadId = client.initiateMultipartUpload(container, builder.build());
+      return MultipartUploadSession.create(container, key, uploadId, blobMetadata);
+   }
+
+   @Override
+   public MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part) {
+      String eTag = client.uploadPart(mpu.containerName(), mpu.blobName(), partNumber, mpu.id(), part);
+      return MultipartPart.create(partNumber, part.getContentMetadata().getContentLength(), eTag);
+   }
+
+   @Override
+   public String complete(MultipartUploadSession mpu, List<MultipartPart> parts) {
+      SortedMap<Integer, String> eTags = Maps.newTreeMap();
+      for (MultipartPart part : parts) {
+         eTags.put(part.partNumber(), part.partETag());
+      }
+      return client.completeMultipartUpload(mpu.containerName(), mpu.blobName(), mpu.id(), eTags);
+   }
+
+   @Override
+   public void abort(MultipartUploadSession mpu) {
+      client.abortMultipartUpload(mpu.containerName(), mpu.blobName(), mpu.id());
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.reflect.Reflection2.method;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.InvokeHttpMethod;
+import org.jclouds.s3.S3Client;
+import org.jclouds.s3.blobstore.functions.ObjectToBlobMetadata;
+import org.jclouds.s3.domain.ObjectMetadata;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Submits {@link S3Client#headObject} and {@link S3Client#deleteObject} without waiting on a user thread for their
+ * response.
+ */
+@Singleton
+public class S3SubmitBlobRequestStrategy<T extends S3Client> implements SubmitBlobRequestStrategy {
+   protected final InvokeHttpMethod invoker;
+   protected final ObjectToBlobMetadata object2BlobMd;
+
+   protected final Invokable<?, ?> headMethod;
+   protected final Invokable<?, ?> deleteMethod;
+
+   @Inject
+   public S3SubmitBlobRequestStrategy(InvokeHttpMethod invoker, ObjectToBlobMetadata object2BlobMd,
+         Class<T> interfaceClass) {
+      this.invoker = checkNotNull(invoker, "invoker");
+      this.object2BlobMd = checkNotNull(object2BlobMd, "object2BlobMd");
+      this.headMethod = method(interfaceClass, "headObject", String.class, String.class);
+      this.deleteMethod = method(interfaceClass, "deleteObject", String.class, String.class);
+   }
+
+   @Override
+   public ListenableFuture<BlobMetadata> blobMetadata(String container, String key) {
+      return Futures.transform(invoker.submit(Invocation.create(headMethod, ImmutableList.<Object> of(container, key))),
+            new Function<Object, BlobMetadata>() {
+               @Override
+               public BlobMetadata apply(Object input) {
+                  return object2BlobMd.apply(ObjectMetadata.class.cast(input));
+               }
+            });
+   }
+
+   @Override
+   public ListenableFuture<Void> removeBlob(String container, String key) {
+      return Futures.transform(invoker.submit(Invocation.create(deleteMethod, ImmutableList.<Object> of(container,
+            key))), Functions.<Void> constant(null));
+   }
+}
@@ -20,7 +20,6 @@ import static org.jclouds.sqs.config.SQSProperties.CREATE_QUEUE_MAX_RETRIES;
 import static org.jclouds.sqs.config.SQSProperties.CREATE_QUEUE_RETRY_INTERVAL;
 
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
@@ -33,7 +32,6 @@ import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 
 public class SQSErrorRetryHandler extends AWSClientErrorRetryHandler {
@@ -54,7 +52,7 @@ public class SQSErrorRetryHandler extends AWSClientErrorRetryHandler {
    public boolean shouldRetryRequestOnError(HttpCommand command, HttpResponse response, AWSError error) {
       if ("AWS.SimpleQueueService.QueueDeletedRecently".equals(error.getCode())) {
          if (command.incrementFailureCount() - 1 < maxTries) {
-            Uninterruptibles.sleepUninterruptibly(retryInterval, TimeUnit.MILLISECONDS);
+            BackoffLimitedRetryHandler.imposeBackoff(command, retryInterval);
             return true;
          }
          return false;
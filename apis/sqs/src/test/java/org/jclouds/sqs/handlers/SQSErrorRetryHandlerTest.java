@@ -66,6 +66,21 @@ public class SQSErrorRetryHandlerTest {
    
 
    
+   public void testQueueDeletedRecentlyDefersWaitWhenBackoffIsDeferred() {
+
+      SQSErrorRetryHandler retry = new SQSErrorRetryHandler(createMock(AWSUtils.class),
+            createMock(BackoffLimitedRetryHandler.class), ImmutableSet.<String> of(), 60, 100);
+
+      HttpCommand command = createHttpCommandForFailureCount(59);
+      command.deferBackoff();
+
+      Stopwatch watch = Stopwatch.createStarted();
+      assertTrue(retry.shouldRetryRequestOnError(command, response, error));
+      assertEquals(command.getFailureCount(), 60);
+      assertEquals(command.takeDeferredBackoff(), 100);
+      assertTrue(watch.stop().elapsed(TimeUnit.MILLISECONDS) < 100);
+   }
+
    public void testQueueDeletedRecentlyRetriesWhen60DoesntTry() {
 
       SQSErrorRetryHandler retry = new SQSErrorRetryHandler(createMock(AWSUtils.class),
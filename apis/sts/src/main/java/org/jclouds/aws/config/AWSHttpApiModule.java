@@ -50,14 +50,14 @@ public abstract class AWSHttpApiModule<A> extends HttpApiModule<A> {
    @ClientError
    @Singleton
    protected Set<String> provideRetryableCodes() {
-      return ImmutableSet.of("RequestTimeout", "OperationAborted", "SignatureDoesNotMatch");
+      return ImmutableSet.of("RequestTimeout", "OperationAborted", "SignatureDoesNotMatch", "Throttling");
    }
    
    @Provides
    @ServerError
    @Singleton
    protected Set<String> provideRetryableServerCodes() {
-      return ImmutableSet.of("RequestLimitExceeded", "InternalError");
+      return ImmutableSet.of("RequestLimitExceeded", "SlowDown", "InternalError");
    }
 
    @Override
@@ -26,6 +26,7 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 
 import com.google.inject.Inject;
@@ -39,6 +40,9 @@ public class AWSClientErrorRetryHandler implements HttpRetryHandler {
    private final BackoffLimitedRetryHandler backoffLimitedRetryHandler;
    private final Set<String> retryableCodes;
 
+   @Inject(optional = true)
+   AdaptiveRateLimiter rateLimiter;
+
    @Inject
    public AWSClientErrorRetryHandler(AWSUtils utils, BackoffLimitedRetryHandler backoffLimitedRetryHandler,
          @ClientError Set<String> retryableCodes) {
@@ -63,6 +67,8 @@ public class AWSClientErrorRetryHandler implements HttpRetryHandler {
    }
 
    protected boolean shouldRetryRequestOnError(HttpCommand command, HttpResponse response, AWSError error) {
+      if (rateLimiter != null && AWSServerErrorRetryHandler.THROTTLING_CODES.contains(error.getCode()))
+         rateLimiter.throttled(command.getCurrentRequest(), 0);
       if (retryableCodes.contains(error.getCode()))
          return backoffLimitedRetryHandler.shouldRetryRequest(command, response);
       return false;
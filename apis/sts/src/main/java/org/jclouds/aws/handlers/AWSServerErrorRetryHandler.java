@@ -25,8 +25,10 @@ import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.annotation.ServerError;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -36,9 +38,18 @@ import com.google.inject.Singleton;
 @Singleton
 public class AWSServerErrorRetryHandler extends BackoffLimitedRetryHandler {
 
+   /**
+    * error codes AWS services use to throttle requests
+    */
+   static final Set<String> THROTTLING_CODES = ImmutableSet.of("RequestLimitExceeded", "SlowDown", "Throttling",
+         "ThrottlingException");
+
    private final AWSUtils utils;
    private final Set<String> retryableServerCodes;
 
+   @Inject(optional = true)
+   AdaptiveRateLimiter rateLimiter;
+
    @Inject
    public AWSServerErrorRetryHandler(AWSUtils utils,
          @ServerError Set<String> retryableServerCodes) {
@@ -67,6 +78,8 @@ public class AWSServerErrorRetryHandler extends BackoffLimitedRetryHandler {
    }
 
    protected boolean shouldRetryRequestOnError(HttpCommand command, HttpResponse response, AWSError error) {
+      if (rateLimiter != null && THROTTLING_CODES.contains(error.getCode()))
+         rateLimiter.throttled(command.getCurrentRequest(), 0);
       if (retryableServerCodes.contains(error.getCode()))
          return super.shouldRetryRequest(command, response);
       return false;
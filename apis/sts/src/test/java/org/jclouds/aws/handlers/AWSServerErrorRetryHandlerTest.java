@@ -91,6 +91,7 @@ public class AWSServerErrorRetryHandlerTest {
          }
       }).anyTimes();
       expect(command.isReplayable()).andReturn(true).anyTimes();
+      expect(command.isBackoffDeferred()).andReturn(false).anyTimes();
       expect(command.getFailureCount()).andAnswer(new IAnswer<Integer>() {
          @Override
          public Integer answer() throws Throwable {
@@ -121,6 +122,7 @@ public class AWSServerErrorRetryHandlerTest {
       expect(command.getFailureCount()).andReturn(1).anyTimes();
       expect(command.incrementFailureCount()).andReturn(1);
       expect(command.isReplayable()).andReturn(true);
+      expect(command.isBackoffDeferred()).andReturn(false).anyTimes();
 
       replay(utils, command);
 
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.swift.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.openstack.swift.options.ListContainerOptions.Builder.withPrefix;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.BlobImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
+import org.jclouds.openstack.swift.CommonSwiftClient;
+import org.jclouds.openstack.swift.blobstore.functions.BlobToObject;
+import org.jclouds.openstack.swift.blobstore.strategy.MultipartUpload;
+import org.jclouds.openstack.swift.domain.ObjectInfo;
+
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+
+/**
+ * Uploads each part as a segment object named {@code <key>/<part>} and assembles them with a dynamic large object
+ * manifest.
+ */
+public class SwiftMultipartUploadAdapter implements MultipartUploadAdapter {
+
+   private static final Pattern SEGMENT = Pattern.compile(".*/[0-9]+");
+
+   private final CommonSwiftClient client;
+   private final Provider<BlobBuilder> blobBuilders;
+   private final BlobToObject blob2Object;
+   private final MultipartNamingStrategy namingStrategy;
+
+   @Inject
+   public SwiftMultipartUploadAdapter(CommonSwiftClient client, Provider<BlobBuilder> blobBuilders,
+         BlobToObject blob2Object, MultipartNamingStrategy namingStrategy) {
+      this.client = checkNotNull(client, "client");
+      this.blobBuilders = checkNotNull(blobBuilders, "blobBuilders");
+      this.blob2Object = checkNotNull(blob2Object, "blob2Object");
+      this.namingStrategy = checkNotNull(namingStrategy, "namingStrategy");
+   }
+
+   @Override
+   public long getMinimumPartSize() {
+      return MultipartUpload.MIN_PART_SIZE;
+   }
+
+   @Override
+   public long getMaximumPartSize() {
+      return MultipartUpload.MAX_PART_SIZE;
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return MultipartUpload.MAX_NUMBER_OF_PARTS;
+   }
+
+   @Override
+   public boolean isPartETagContentMD5() {
+      return true;
+   }
+
+   @Override
+   public MultipartUploadSession initiate(String container, BlobMetadata blobMetadata) {
+      return MultipartUploadSession.create(container, blobMetadata.getName(), null, blobMetadata);
+   }
+
+   @Override
+   public MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part) {
+      // segments sort by name, so pad every part number to the width of the largest one
+      String partName = namingStrategy.getPartName(mpu.blobName(), partNumber, getMaximumNumberOfParts());
+      Blob blobPart = blobBuilders.get()
+                                  .name(partName)
+                                  .payload(part)
+                                  .contentDisposition(partName)
+                                  .build();
+      String eTag = client.putObject(mpu.containerName(), blob2Object.apply(blobPart));
+      return MultipartPart.create(partNumber, part.getContentMetadata().getContentLength(), eTag);
+   }
+
+   @Override
+   public String complete(MultipartUploadSession mpu, List<MultipartPart> parts) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl(mpu.blobMetadata());
+      Payload empty = Payloads.newByteSourcePayload(ByteSource.empty());
+      empty.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(metadata.getContentMetadata()));
+      // put empty manifest object retaining existing metadata
+      empty.getContentMetadata().setContentLength(0L);
+      empty.getContentMetadata().setContentMD5((HashCode) null);
+      Blob manifest = new BlobImpl(metadata);
+      manifest.setPayload(empty);
+      return client.putObjectManifest(mpu.containerName(), blob2Object.apply(manifest));
+   }
+
+   @Override
+   public void abort(MultipartUploadSession mpu) {
+      for (ObjectInfo segment : client.listObjects(mpu.containerName(), withPrefix(mpu.blobName() + "/"))) {
+         if (SEGMENT.matcher(segment.getName()).matches()
+               && segment.getName().lastIndexOf('/') == mpu.blobName().length()) {
+            client.removeObject(mpu.containerName(), segment.getName());
+         }
+      }
+   }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import static com.google.common.io.Resources.getResource;
+
+import java.io.IOException;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+
+/**
+ * Builds large response bodies out of a single element, so that the parsers are measured on listings of a realistic
+ * size.
+ */
+public final class Bodies {
+
+   /**
+    * @return {@code {"name":[element,...]}} where the element is read from the given classpath resource
+    */
+   public static String jsonList(String resource, String name, int size) throws IOException {
+      String element = Resources.toString(getResource(Bodies.class, resource), Charsets.UTF_8);
+      StringBuilder builder = new StringBuilder(element.length() * size + name.length() + 8);
+      builder.append("{\"").append(name).append("\":[");
+      for (int i = 0; i < size; i++) {
+         if (i > 0)
+            builder.append(',');
+         builder.append(element);
+      }
+      return builder.append("]}").toString();
+   }
+
+   private Bodies() {
+   }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, as {@code org.openjdk.jmh.Main} does, but always with the GC
+ * profiler attached and the results written as JSON. This way every run reports allocation alongside throughput, and
+ * runs from different revisions can be compared without remembering the options.
+ */
+public final class Main {
+
+   static final String RESULT_FILE = "target/jmh-result.json";
+
+   public static void main(String[] argv) throws Exception {
+      CommandLineOptions cmd = new CommandLineOptions(argv);
+      if (cmd.shouldHelp()) {
+         cmd.showHelp();
+         return;
+      }
+      if (cmd.shouldList()) {
+         new Runner(cmd).list();
+         return;
+      }
+      OptionsBuilder options = new OptionsBuilder();
+      options.parent(cmd).addProfiler(GCProfiler.class);
+      if (!cmd.getResult().hasValue())
+         options.result(RESULT_FILE);
+      if (!cmd.getResultFormat().hasValue())
+         options.resultFormat(ResultFormatType.JSON);
+      new Runner(options.build()).run();
+   }
+
+   private Main() {
+   }
+}
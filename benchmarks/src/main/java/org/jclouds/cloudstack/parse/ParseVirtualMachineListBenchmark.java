@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudstack.parse;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.benchmarks.Bodies;
+import org.jclouds.cloudstack.config.CloudStackParserModule;
+import org.jclouds.cloudstack.domain.VirtualMachine;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseFirstJsonValueNamed;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GsonWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Guice;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Parsing CloudStack {@code listVirtualMachines} responses with {@link ParseFirstJsonValueNamed}, as
+ * {@code @SelectJson("virtualmachine")} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseVirtualMachineListBenchmark {
+
+   @Param({ "10", "1000" })
+   public int virtualMachines;
+
+   private ParseFirstJsonValueNamed<Set<VirtualMachine>> parser;
+   private String body;
+
+   @Setup
+   public void setup() throws IOException {
+      GsonWrapper json = Guice.createInjector(new CloudStackParserModule(), new GsonModule())
+            .getInstance(GsonWrapper.class);
+      parser = new ParseFirstJsonValueNamed<Set<VirtualMachine>>(json, new TypeLiteral<Set<VirtualMachine>>() {
+      }, "virtualmachine");
+      body = Bodies.jsonList("/cloudstack-virtualmachine.json", "virtualmachine", virtualMachines);
+   }
+
+   @Benchmark
+   public Set<VirtualMachine> parse() {
+      return parser.apply(HttpResponse.builder().statusCode(200).payload(body).build());
+   }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import static com.google.common.collect.Iterables.filter;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.Processor;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.TemplateBuilder;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.strategy.GetImageStrategy;
+import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Building a template against a synthetic catalog of 200k images, about the size of the public images of an EC2
+ * region. {@code linearScan} filters the whole catalog with the same criteria, as the template builder used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateBuilderImplBenchmark {
+
+   private static final int IMAGES = 200000;
+   private static final OsFamily[] FAMILIES = { OsFamily.UBUNTU, OsFamily.CENTOS, OsFamily.DEBIAN, OsFamily.RHEL,
+         OsFamily.SUSE, OsFamily.WINDOWS, OsFamily.AMZN_LINUX, OsFamily.FEDORA };
+
+   private Set<? extends Location> locations;
+   private Location region;
+   private Set<? extends Image> images;
+   private Set<? extends Hardware> hardwares;
+   private ImageCacheSupplier imageCache;
+
+   @Setup
+   public void setup() {
+      Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2").description("aws-ec2")
+            .build();
+      ImmutableSet.Builder<Location> regions = ImmutableSet.builder();
+      for (int i = 0; i < 10; i++)
+         regions.add(new LocationBuilder().scope(LocationScope.REGION).id("region-" + i).description("region-" + i)
+               .parent(provider).build());
+      locations = regions.build();
+      List<Location> regionList = ImmutableList.copyOf(locations);
+      region = regionList.get(3);
+
+      Random random = new Random(0);
+      ImmutableSet.Builder<Image> builder = ImmutableSet.builder();
+      for (int i = 0; i < IMAGES; i++) {
+         OsFamily family = FAMILIES[random.nextInt(FAMILIES.length)];
+         OperatingSystem os = OperatingSystem.builder().family(family).version(random.nextInt(20) + ".04")
+               .description(family + " image " + i).arch("x86_64").is64Bit(random.nextInt(4) != 0).build();
+         builder.add(new ImageBuilder().id("ami-" + i).providerId("ami-" + i).name("image-" + i)
+               .description("description " + i).version(Integer.toString(i)).operatingSystem(os)
+               .status(Image.Status.AVAILABLE).location(regionList.get(random.nextInt(regionList.size()))).build());
+      }
+      images = builder.build();
+      hardwares = ImmutableSet.of(
+            new HardwareBuilder().ids("small").ram(1024).processor(new Processor(1, 1.0)).build(),
+            new HardwareBuilder().ids("large").ram(8192).processor(new Processor(4, 2.0)).build());
+      imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60);
+      imageCache.get();
+   }
+
+   private TemplateBuilder templateBuilder() {
+      Provider<TemplateOptions> options = new Provider<TemplateOptions>() {
+         public TemplateOptions get() {
+            return new TemplateOptions();
+         }
+      };
+      Provider<TemplateBuilder> none = new Provider<TemplateBuilder>() {
+         public TemplateBuilder get() {
+            throw new UnsupportedOperationException();
+         }
+      };
+      GetImageStrategy getImageStrategy = new GetImageStrategy() {
+         public Image getImage(String id) {
+            return null;
+         }
+      };
+      return new TemplateBuilderImpl(Suppliers.<Set<? extends Location>> ofInstance(locations), imageCache,
+            Suppliers.<Set<? extends Hardware>> ofInstance(hardwares), Suppliers.ofInstance(region), options, none,
+            getImageStrategy);
+   }
+
+   @Benchmark
+   public Template build() {
+      return templateBuilder().locationId("region-3").osFamily(OsFamily.UBUNTU).osVersionMatches("12.04")
+            .os64Bit(true).build();
+   }
+
+   @Benchmark
+   public Template buildByImageId() {
+      return templateBuilder().imageId("ami-" + IMAGES / 2).build();
+   }
+
+   @Benchmark
+   public List<Image> linearScan() {
+      return ImmutableList.<Image> copyOf(filter(images, new Predicate<Image>() {
+         public boolean apply(Image input) {
+            OperatingSystem os = input.getOperatingSystem();
+            return region.equals(input.getLocation()) && os.getFamily() == OsFamily.UBUNTU
+                  && (os.getVersion().contains("12.04") || os.getVersion().matches("12.04")) && os.is64Bit();
+         }
+      }));
+   }
+
+   @Benchmark
+   public ImageCatalog indexCatalog() {
+      return ImageCatalog.of(images);
+   }
+}
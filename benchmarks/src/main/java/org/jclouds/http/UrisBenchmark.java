@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import static org.jclouds.http.Uris.uriBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Building request uris the way {@link org.jclouds.rest.internal.RestAnnotationProcessor} does: from an endpoint, with
+ * appended paths, query parameters and template variables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UrisBenchmark {
+
+   private final URI endpoint = URI.create("https://storage.example.com/v1/AUTH_1234");
+   private final ImmutableMap<String, Object> variables = ImmutableMap.<String, Object> of("container", "photos",
+         "name", "2015/holiday pictures/beach & sea.jpg");
+
+   @Benchmark
+   public URI appendPathAndQuery() {
+      return uriBuilder(endpoint).appendPath("/photos").appendPath("/2015/holiday pictures/beach.jpg")
+            .addQuery("format", "json").addQuery("marker", "2015/holiday pictures/a").addQuery("limit", "1000")
+            .build();
+   }
+
+   @Benchmark
+   public URI expandTemplate() {
+      return uriBuilder(endpoint).appendPath("/{container}/{name}").addQuery("format", "json").build(variables);
+   }
+}
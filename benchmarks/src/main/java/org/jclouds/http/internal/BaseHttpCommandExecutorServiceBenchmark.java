@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.rest.internal.RestAnnotationProcessorBenchmark.Api;
+import org.jclouds.util.Strings2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * A full round trip through {@link BaseHttpCommandExecutorService#invoke} against a local {@link MockWebServer}:
+ * filters, connection handling, the response payload and its release. The server answers every request with the same
+ * small json body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BaseHttpCommandExecutorServiceBenchmark {
+
+   private MockWebServer server;
+   private HttpCommandExecutorService executor;
+   private HttpRequest request;
+
+   @Setup
+   public void setup() throws IOException {
+      // the server logs every request it answers
+      Logger.getLogger(MockWebServer.class.getName()).setLevel(Level.WARNING);
+      server = new MockWebServer();
+      server.setDispatcher(new Dispatcher() {
+         @Override
+         public MockResponse dispatch(RecordedRequest request) {
+            return new MockResponse().addHeader("Content-Type", "application/json").setBody("{\"status\":\"ok\"}");
+         }
+      });
+      server.play();
+      String endpoint = server.getUrl("/").toString();
+      executor = ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(Api.class, endpoint))
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule())).buildInjector()
+            .getInstance(HttpCommandExecutorService.class);
+      request = HttpRequest.builder().method("GET").endpoint(endpoint + "containers/photos").build();
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      server.shutdown();
+   }
+
+   @Benchmark
+   public String invoke() throws IOException {
+      HttpResponse response = executor.invoke(new HttpCommand(request));
+      try {
+         return Strings2.toStringAndClose(response.getPayload().openStream());
+      } finally {
+         closeQuietly(response.getPayload());
+      }
+   }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.reflect.Invocation;
+import org.jclouds.reflect.InvocationSuccess;
+import org.jclouds.reflect.MethodTable;
+import org.jclouds.reflect.Reflection2;
+import org.jclouds.rest.config.SetCaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.inject.Guice;
+
+/**
+ * Overhead of dispatching a call on an api proxy to its invocation function, which here just echoes an argument.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProxyDispatchBenchmark {
+
+   public interface Api {
+      String get(String id);
+
+      String get(String id, String version);
+
+      void delete(String id);
+
+      String list(String marker, int limit);
+   }
+
+   private Api api;
+   private Method get;
+   private MethodTable<Api> methods;
+
+   @Setup
+   public void setup() throws NoSuchMethodException {
+      Function<Invocation, Object> echo = new Function<Invocation, Object>() {
+         public Object apply(Invocation input) {
+            return input.getArgs().get(0);
+         }
+      };
+      Function<InvocationSuccess, Optional<Object>> absent = new Function<InvocationSuccess, Optional<Object>>() {
+         public Optional<Object> apply(InvocationSuccess input) {
+            return Optional.absent();
+         }
+      };
+      DelegatesToInvocationFunction<Api, Function<Invocation, Object>> handler =
+            new DelegatesToInvocationFunction<Api, Function<Invocation, Object>>(Guice.createInjector(),
+                  new SetCaller(), Api.class, absent, echo);
+      api = (Api) Proxy.newProxyInstance(Api.class.getClassLoader(), new Class<?>[] { Api.class }, handler);
+      get = Api.class.getMethod("get", String.class, String.class);
+      methods = MethodTable.of(Api.class);
+   }
+
+   @Benchmark
+   public Object dispatch() {
+      return api.get("id", "v1");
+   }
+
+   @Benchmark
+   public Object resolveWithMethodTable() {
+      return methods.getInvokable(get);
+   }
+
+   @Benchmark
+   public Object resolveWithReflection2() {
+      return Reflection2.method(Api.class, get.getName(), get.getParameterTypes());
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.binders.BindToJsonPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Module;
+
+/**
+ * Turning an api invocation into an http request with {@link RestAnnotationProcessor#apply}, for a call with path,
+ * query and header parameters and for a call with a json payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RestAnnotationProcessorBenchmark {
+
+   @Path("/containers")
+   @Headers(keys = "Accept", values = MediaType.APPLICATION_JSON)
+   public interface Api extends Closeable {
+      @Named("GetObject")
+      @GET
+      @Path("/{container}/{name}")
+      @QueryParams(keys = "format", values = "json")
+      String get(@PathParam("container") String container, @PathParam("name") String name,
+            @QueryParam("version") String version, @HeaderParam("X-Request-Id") String requestId);
+
+      @Named("UpdateMetadata")
+      @PUT
+      @Path("/{container}/{name}/metadata")
+      @Produces(MediaType.APPLICATION_JSON)
+      void updateMetadata(@PathParam("container") String container, @PathParam("name") String name,
+            @BinderParam(BindToJsonPayload.class) Map<String, String> metadata);
+   }
+
+   private RestAnnotationProcessor processor;
+   private Invocation get;
+   private Invocation updateMetadata;
+
+   @Setup
+   public void setup() {
+      processor = ContextBuilder.newBuilder(forApiOnEndpoint(Api.class, "https://storage.example.com/v1"))
+            .modules(ImmutableSet.<Module> of(new NullLoggingModule())).buildInjector()
+            .getInstance(RestAnnotationProcessor.class);
+      get = Invocation.create(method(Api.class, "get", String.class, String.class, String.class, String.class),
+            ImmutableList.<Object> of("photos", "2015/holiday pictures/beach.jpg", "2", "req-1234"));
+      updateMetadata = Invocation.create(method(Api.class, "updateMetadata", String.class, String.class, Map.class),
+            ImmutableList.<Object> of("photos", "beach.jpg", ImmutableMap.of("location", "Mallorca", "year", "2015")));
+   }
+
+   @Benchmark
+   public Object get() {
+      return processor.apply(get);
+   }
+
+   @Benchmark
+   public Object updateMetadata() {
+      return processor.apply(updateMetadata);
+   }
+}
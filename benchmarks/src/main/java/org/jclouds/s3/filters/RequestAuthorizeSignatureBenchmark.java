@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.filters;
+
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.options.GetOptions;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.rest.internal.RestAnnotationProcessor;
+import org.jclouds.s3.S3ApiMetadata;
+import org.jclouds.s3.S3Client;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+/**
+ * Signing an S3 {@code GET Object} request with {@link RequestAuthorizeSignature}: canonicalizing the headers and
+ * resource and computing the HMAC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestAuthorizeSignatureBenchmark {
+
+   private RequestAuthorizeSignature filter;
+   private HttpRequest request;
+
+   @Setup
+   public void setup() {
+      Injector injector = ContextBuilder.newBuilder(new S3ApiMetadata()).endpoint("http://localhost")
+            .credentials("identity", "credential").modules(ImmutableSet.<Module> of(new NullLoggingModule()))
+            .buildInjector();
+      filter = injector.getInstance(RequestAuthorizeSignature.class);
+      request = injector.getInstance(RestAnnotationProcessor.class).createRequest(
+            method(S3Client.class, "getObject", String.class, String.class, GetOptions[].class),
+            ImmutableList.<Object> of("bucket", "2015/holiday pictures/beach.jpg",
+                  GetOptions.Builder.range(0, 1023)));
+   }
+
+   @Benchmark
+   public HttpRequest sign() {
+      return filter.filter(request);
+   }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.s3.xml;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.config.SaxParserModule;
+import org.jclouds.s3.domain.ListBucketResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Charsets;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/**
+ * Parsing S3 bucket listings with {@link ParseSax} and {@link ListBucketHandler}, from a small page up to a full page
+ * of 1000 keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListBucketHandlerBenchmark {
+
+   @Param({ "10", "1000" })
+   public int keys;
+
+   private Injector injector;
+   private ParseSax.Factory factory;
+   private HttpRequest request;
+   private byte[] body;
+
+   @Setup
+   public void setup() {
+      injector = Guice.createInjector(new SaxParserModule());
+      factory = injector.getInstance(ParseSax.Factory.class);
+      request = HttpRequest.builder().method("GET").endpoint("http://bucket.s3.amazonaws.com/?prefix=apps/").build();
+      StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+            .append("<Name>bucket</Name><Prefix>apps/</Prefix><Marker></Marker><MaxKeys>1000</MaxKeys>")
+            .append("<IsTruncated>false</IsTruncated>");
+      for (int i = 0; i < keys; i++) {
+         xml.append("<Contents><Key>apps/").append(i).append("</Key>")
+               .append("<LastModified>2009-05-07T18:27:08.000Z</LastModified>")
+               .append("<ETag>&quot;c82e6a0025c31c5de5947fda62ac51ab&quot;</ETag><Size>8</Size>")
+               .append("<Owner><ID>e1a5f66a480ca99a4fdfe8e318c3020446c9989d7004e7778029fbcc5d990fa0</ID>")
+               .append("<DisplayName>ferncam</DisplayName></Owner><StorageClass>STANDARD</StorageClass></Contents>");
+      }
+      body = xml.append("</ListBucketResult>").toString().getBytes(Charsets.UTF_8);
+   }
+
+   @Benchmark
+   public ListBucketResponse parse() {
+      ListBucketHandler handler = injector.getInstance(ListBucketHandler.class);
+      return factory.create(handler.setContext(request)).parse(new ByteArrayInputStream(body));
+   }
+}
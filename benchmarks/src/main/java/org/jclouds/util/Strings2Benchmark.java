@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.util;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Percent-encoding of path segments and query values with {@link Strings2#urlEncode}, both for values that need no
+ * encoding and for values that do. The {@code *WithUrlEncoder} benchmarks run the {@link URLEncoder} based
+ * implementation {@link PercentEncoder} replaced, as a baseline for allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class Strings2Benchmark {
+
+   private final String plain = "photos-2015.holiday_pictures~beach";
+   private final String reserved = "2015/holiday pictures/beach & sea (1).jpg?version=2";
+
+   @Benchmark
+   public String encodePlain() {
+      return Strings2.urlEncode(plain);
+   }
+
+   @Benchmark
+   public String encodeReserved() {
+      return Strings2.urlEncode(reserved);
+   }
+
+   @Benchmark
+   public String encodeReservedSkippingSlash() {
+      return Strings2.urlEncode(reserved, '/');
+   }
+
+   @Benchmark
+   public String encodePlainWithUrlEncoder() throws UnsupportedEncodingException {
+      return urlEncoder(plain);
+   }
+
+   @Benchmark
+   public String encodeReservedSkippingSlashWithUrlEncoder() throws UnsupportedEncodingException {
+      return urlEncoder(reserved, '/');
+   }
+
+   private static final Pattern URL_ENCODED_PATTERN = Pattern.compile(".*%[a-fA-F0-9][a-fA-F0-9].*");
+
+   public static String urlEncoder(String in, char... skipEncode) throws UnsupportedEncodingException {
+      if (URL_ENCODED_PATTERN.matcher(in).matches())
+         return in;
+      String returnVal = URLEncoder.encode(in, "UTF-8");
+      returnVal = returnVal.replace("+", "%20");
+      returnVal = returnVal.replace("*", "%2A");
+      for (char c : skipEncode) {
+         returnVal = returnVal.replace(URLEncoder.encode(c + "", "UTF-8"), c + "");
+      }
+      return returnVal;
+   }
+}
@@ -16,15 +16,32 @@
  */
 package org.jclouds.blobstore;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import org.jclouds.Constants;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
 import org.jclouds.blobstore.options.ListAllOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.strategy.ParallelDownloadStrategy;
+import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
 
 /**
  * Utilities for using Blob Stores.
@@ -47,6 +64,11 @@ public class BlobStores {
     * produces an Iterable over the entire set of results, not just one
     * page, making multiple calls to BlobStore.list as needed.
     * 
+    * Pages are fetched lazily, when the previous one has been consumed, so
+    * only a page or two of results are held in memory at any time however
+    * large the container is. If listAllOptions.isPrefetch, the next page is
+    * requested on the user thread pool while the caller consumes the current one.
+    * 
     * Note that if listAllOptions.isEager, then the first page will be fetched
     * immediately and cached. Repeatedly iterating will not re-fetch (and thus
     * will not refresh) the first page.
@@ -57,6 +79,7 @@ public class BlobStores {
    public static Iterable<StorageMetadata> listAll(final BlobStore blobStore, final String container,
             final ListContainerOptions containerOptions, final ListAllOptions listAllOptions) {
       final boolean eager = listAllOptions.isEager();
+      final ListeningExecutorService executor = listAllOptions.isPrefetch() ? userExecutor(blobStore) : null;
       final PageSet<? extends StorageMetadata> firstList;
       final String firstMarker;
 
@@ -73,6 +96,7 @@ public class BlobStores {
             return new AbstractIterator<StorageMetadata>() {
                private Iterator<? extends StorageMetadata> iterator;
                private String marker;
+               private ListenableFuture<PageSet<? extends StorageMetadata>> nextList;
 
                public StorageMetadata computeNext() {
                   while (true) {
@@ -81,11 +105,22 @@ public class BlobStores {
                         if (eager && marker == null) {
                            list = firstList;
                            marker = firstMarker;
+                        } else if (nextList != null) {
+                           list = getUninterruptibly(nextList);
+                           nextList = null;
+                           marker = list.getNextMarker();
                         } else {
-                           ListContainerOptions nextOptions = marker == null ? containerOptions : containerOptions.clone().afterMarker(marker);
-                           list = blobStore.list(container, nextOptions);
+                           list = blobStore.list(container, nextOptions(marker));
                            marker = list.getNextMarker();
                         }
+                        if (executor != null && marker != null) {
+                           final ListContainerOptions prefetchOptions = nextOptions(marker);
+                           nextList = executor.submit(new Callable<PageSet<? extends StorageMetadata>>() {
+                              public PageSet<? extends StorageMetadata> call() {
+                                 return blobStore.list(container, prefetchOptions);
+                              }
+                           });
+                        }
                         iterator = list.iterator();
                      }
                      if (iterator.hasNext()) {
@@ -97,9 +132,83 @@ public class BlobStores {
                      iterator = null;
                   }
                }
+
+               private ListContainerOptions nextOptions(String after) {
+                  return after == null ? containerOptions : containerOptions.clone().afterMarker(after);
+               }
             };
          }
       };
    }
 
+   private static <T> T getUninterruptibly(ListenableFuture<T> future) {
+      try {
+         return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
+   }
+
+   private static ListeningExecutorService userExecutor(BlobStore blobStore) {
+      return blobStore.getContext().utils().injector()
+            .getInstance(Key.get(ListeningExecutorService.class, Names.named(Constants.PROPERTY_USER_THREADS)));
+   }
+
+   /**
+    * Downloads a blob into {@code destination}, fetching its ranges concurrently on the user thread pool. The file
+    * is created if needed and truncated to the length of the blob.
+    * 
+    * @return number of bytes downloaded
+    * @throws KeyNotFoundException
+    *            if the blob does not exist
+    * @see ParallelDownloadStrategy#download
+    * @since 1.9.1
+    */
+   @Beta
+   public static long downloadBlob(BlobStore blobStore, String container, String name, File destination) {
+      RandomAccessFile file = null;
+      try {
+         file = new RandomAccessFile(destination, "rw");
+         long length = downloadBlob(blobStore, container, name, file.getChannel());
+         file.setLength(length);
+         return length;
+      } catch (IOException e) {
+         throw new BlobRuntimeException(String.format("could not download %s from container %s into %s", name,
+               container, destination), e);
+      } finally {
+         Closeables2.closeQuietly(file);
+      }
+   }
+
+   /**
+    * Downloads a blob into {@code destination}, writing each range at its offset from the start of the channel.
+    * 
+    * @return number of bytes downloaded
+    * @throws KeyNotFoundException
+    *            if the blob does not exist
+    * @see ParallelDownloadStrategy#download
+    * @since 1.9.1
+    */
+   @Beta
+   public static long downloadBlob(BlobStore blobStore, String container, String name, FileChannel destination) {
+      return parallelDownloadStrategy(blobStore).download(blobStore, container, name, destination);
+   }
+
+   /**
+    * Opens a stream over the content of a blob whose upcoming ranges are fetched concurrently, with a bounded
+    * number of them buffered ahead of the reader. Callers must close the stream.
+    * 
+    * @throws KeyNotFoundException
+    *            if the blob does not exist
+    * @see ParallelDownloadStrategy#stream
+    * @since 1.9.1
+    */
+   @Beta
+   public static InputStream streamBlob(BlobStore blobStore, String container, String name) {
+      return parallelDownloadStrategy(blobStore).stream(blobStore, container, name);
+   }
+
+   private static ParallelDownloadStrategy parallelDownloadStrategy(BlobStore blobStore) {
+      return blobStore.getContext().utils().injector().getInstance(ParallelDownloadStrategy.class);
+   }
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.domain;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+/**
+ * A part of a {@link MultipartUpload} that the provider has accepted.
+ * 
+ * @since 1.9.1
+ */
+public final class MultipartPart {
+
+   public static MultipartPart create(int partNumber, long partSize, @Nullable String partETag) {
+      return new MultipartPart(partNumber, partSize, partETag);
+   }
+
+   private final int partNumber;
+   private final long partSize;
+   private final String partETag;
+
+   private MultipartPart(int partNumber, long partSize, @Nullable String partETag) {
+      checkArgument(partNumber > 0, "partNumber must be positive but was: %s", partNumber);
+      checkArgument(partSize >= 0, "partSize must be non-negative but was: %s", partSize);
+      this.partNumber = partNumber;
+      this.partSize = partSize;
+      this.partETag = partETag;
+   }
+
+   /**
+    * @return one-based position of this part in the assembled blob
+    */
+   public int partNumber() {
+      return partNumber;
+   }
+
+   public long partSize() {
+      return partSize;
+   }
+
+   /**
+    * @return the identifier the provider needs to assemble this part, such as an S3 part ETag or an Azure
+    *         block id
+    */
+   @Nullable
+   public String partETag() {
+      return partETag;
+   }
+
+   @Override
+   public boolean equals(Object object) {
+      if (this == object) {
+         return true;
+      }
+      if (object instanceof MultipartPart) {
+         MultipartPart that = MultipartPart.class.cast(object);
+         return partNumber == that.partNumber && partSize == that.partSize && equal(partETag, that.partETag);
+      }
+      return false;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(partNumber, partSize, partETag);
+   }
+
+   @Override
+   public String toString() {
+      return toStringHelper(this).add("partNumber", partNumber).add("partSize", partSize)
+            .add("partETag", partETag).toString();
+   }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.domain;
+
+import static com.google.common.base.Objects.equal;
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+/**
+ * A multipart upload in progress, as returned by
+ * {@link org.jclouds.blobstore.strategy.MultipartUploadAdapter#initiate}.
+ * 
+ * @since 1.9.1
+ */
+public final class MultipartUploadSession {
+
+   public static MultipartUploadSession create(String containerName, String blobName, @Nullable String id,
+         BlobMetadata blobMetadata) {
+      return new MultipartUploadSession(containerName, blobName, id, blobMetadata);
+   }
+
+   private final String containerName;
+   private final String blobName;
+   private final String id;
+   private final BlobMetadata blobMetadata;
+
+   private MultipartUploadSession(String containerName, String blobName, @Nullable String id,
+         BlobMetadata blobMetadata) {
+      this.containerName = checkNotNull(containerName, "containerName");
+      this.blobName = checkNotNull(blobName, "blobName");
+      this.id = id;
+      this.blobMetadata = checkNotNull(blobMetadata, "blobMetadata");
+   }
+
+   public String containerName() {
+      return containerName;
+   }
+
+   public String blobName() {
+      return blobName;
+   }
+
+   /**
+    * @return the provider's identifier for this upload, or null if the provider does not issue one
+    */
+   @Nullable
+   public String id() {
+      return id;
+   }
+
+   public BlobMetadata blobMetadata() {
+      return blobMetadata;
+   }
+
+   @Override
+   public boolean equals(Object object) {
+      if (this == object) {
+         return true;
+      }
+      if (object instanceof MultipartUploadSession) {
+         MultipartUploadSession that = MultipartUploadSession.class.cast(object);
+         return equal(containerName, that.containerName) && equal(blobName, that.blobName) && equal(id, that.id);
+      }
+      return false;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(containerName, blobName, id);
+   }
+
+   @Override
+   public String toString() {
+      return toStringHelper(this).add("containerName", containerName).add("blobName", blobName).add("id", id)
+            .toString();
+   }
+}
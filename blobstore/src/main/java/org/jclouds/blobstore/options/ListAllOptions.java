@@ -32,6 +32,7 @@ public class ListAllOptions implements Cloneable {
    public static final ImmutableListAllOptions NONE = new ImmutableListAllOptions(new ListAllOptions());
 
    private boolean eager = false;
+   private boolean prefetch = false;
 
    public ListAllOptions() {
    }
@@ -40,6 +41,11 @@ public class ListAllOptions implements Cloneable {
       this.eager = eagerness;
    }
 
+   ListAllOptions(boolean eagerness, boolean prefetch) {
+      this.eager = eagerness;
+      this.prefetch = prefetch;
+   }
+
    public static class ImmutableListAllOptions extends ListAllOptions {
       private final ListAllOptions delegate;
 
@@ -56,6 +62,16 @@ public class ListAllOptions implements Cloneable {
       public ListAllOptions eager(boolean val) {
          throw new UnsupportedOperationException();
       }
+
+      @Override
+      public boolean isPrefetch() {
+         return delegate.isPrefetch();
+      }
+
+      @Override
+      public ListAllOptions prefetch(boolean val) {
+         throw new UnsupportedOperationException();
+      }
    }
 
    public boolean isEager() {
@@ -71,6 +87,22 @@ public class ListAllOptions implements Cloneable {
       return this;
    }
 
+   public boolean isPrefetch() {
+      return prefetch;
+   }
+
+   /**
+    * If prefetch, the next page is requested on the user thread pool as soon as the current one is received, so
+    * that it is usually available by the time the caller has consumed the current page. At most one page is
+    * fetched ahead.
+    * 
+    * @since 1.9.1
+    */
+   public ListAllOptions prefetch(boolean val) {
+      this.prefetch = val;
+      return this;
+   }
+
    public static class Builder {
       /**
        * @see ListAllOptions#eager(boolean)
@@ -79,21 +111,29 @@ public class ListAllOptions implements Cloneable {
          ListAllOptions options = new ListAllOptions();
          return options.eager(eager);
       }
+
+      /**
+       * @see ListAllOptions#prefetch(boolean)
+       */
+      public static ListAllOptions prefetch(boolean prefetch) {
+         ListAllOptions options = new ListAllOptions();
+         return options.prefetch(prefetch);
+      }
    }
 
    @Override
    public ListAllOptions clone() {
-      return new ListAllOptions(isEager());
+      return new ListAllOptions(isEager(), isPrefetch());
    }
 
    @Override
    public String toString() {
-      return "[eager=" + eager + "]";
+      return "[eager=" + eager + ", prefetch=" + prefetch + "]";
    }
 
    @Override
    public int hashCode() {
-      return Objects.hashCode(eager);
+      return Objects.hashCode(eager, prefetch);
    }
 
    @Override
@@ -105,6 +145,6 @@ public class ListAllOptions implements Cloneable {
       if (getClass() != obj.getClass())
          return false;
       ListAllOptions other = (ListAllOptions) obj;
-      return eager == other.eager;
+      return eager == other.eager && prefetch == other.prefetch;
    }
 }
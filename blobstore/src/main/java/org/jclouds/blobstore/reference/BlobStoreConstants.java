@@ -53,6 +53,71 @@ public final class BlobStoreConstants {
     */
    public static final String PROPERTY_USER_METADATA_PREFIX = "jclouds.blobstore.metaprefix";
 
+   /**
+    * Preferred size in bytes of each part of a multipart upload, 32MB by default. Parts grow in multiples of this
+    * size once an upload would need more than {@link #PROPERTY_MPU_PARTS_MAGNITUDE} parts, and are always kept
+    * within the limits of the provider.
+    */
+   public static final String PROPERTY_MPU_PART_SIZE = "jclouds.mpu.parts.size";
+
+   /**
+    * Number of parts an upload may grow to before the part size grows instead, 100 by default.
+    */
+   public static final String PROPERTY_MPU_PARTS_MAGNITUDE = "jclouds.mpu.parts.magnitude";
+
+   /**
+    * Maximum number of bytes of a single multipart upload that are being sent at any time. Defaults to
+    * {@link #PROPERTY_MPU_PARALLEL_DEGREE} times the part size.
+    */
+   public static final String PROPERTY_MPU_PARALLEL_BYTES = "jclouds.mpu.parallel.bytes";
+
+   /**
+    * Number of parts in flight used to derive {@link #PROPERTY_MPU_PARALLEL_BYTES} when it is not set, 4 by
+    * default.
+    */
+   public static final String PROPERTY_MPU_PARALLEL_DEGREE = "jclouds.mpu.parallel.degree";
+
+   /**
+    * Minimum number of failed part uploads tolerated before a multipart upload is aborted, 5 by default.
+    */
+   public static final String PROPERTY_MPU_RETRIES_MIN = "jclouds.mpu.parallel.retries.min";
+
+   /**
+    * Failed part uploads tolerated, as a percentage of the number of parts, when that exceeds
+    * {@link #PROPERTY_MPU_RETRIES_MIN}. 10 by default.
+    */
+   public static final String PROPERTY_MPU_RETRIES_MAX_PERCENT = "jclouds.mpu.parallel.retries.maxpercent";
+
+   /**
+    * Delay in milliseconds before the first retry of a failed part, doubled on each further attempt of the same
+    * part. 100 by default.
+    */
+   public static final String PROPERTY_MPU_RETRY_DELAY_START = "jclouds.mpu.parts.retry.delaystart";
+
+   /**
+    * Whether to check the md5 of each part. Where the etag of a part is its md5, the md5 is computed while sending
+    * the part, which then goes as a stream rather than a zero-copy file region, and compared with the etag.
+    * Otherwise it is computed beforehand and sent so that the provider can reject a corrupted part. True by default.
+    */
+   public static final String PROPERTY_MPU_PART_CHECKSUM = "jclouds.mpu.parts.checksum";
+
+   /**
+    * Size in bytes of the ranges a blob is split into by a parallel download, 32MB by default.
+    * 
+    * @see org.jclouds.blobstore.BlobStores#downloadBlob
+    */
+   public static final String PROPERTY_DOWNLOAD_RANGE_SIZE = "jclouds.download.range.size";
+
+   /**
+    * Number of ranges of a single parallel download that are being fetched or buffered at any time, 4 by default.
+    */
+   public static final String PROPERTY_DOWNLOAD_PARALLEL_DEGREE = "jclouds.download.parallel.degree";
+
+   /**
+    * Number of times a failed range is fetched again before the download fails, 3 by default.
+    */
+   public static final String PROPERTY_DOWNLOAD_RANGE_RETRIES = "jclouds.download.range.retries";
+
    public static final String BLOBSTORE_LOGGER = "jclouds.blobstore";
    public static final String DIRECTORY_BLOB_SUFFIX = "/";
 
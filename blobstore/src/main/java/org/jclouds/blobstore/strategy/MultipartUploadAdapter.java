@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import java.util.List;
+
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.io.Payload;
+
+/**
+ * Provider-specific half of a multipart upload. Implementations only translate each step into the
+ * provider's api; slicing, parallelism, retries and checksums are handled by {@link MultipartUploadEngine}.
+ * <p/>
+ * {@link #uploadPart} is called concurrently from several threads for the same upload.
+ * 
+ * @since 1.9.1
+ */
+public interface MultipartUploadAdapter {
+
+   /**
+    * @return smallest size allowed for any part but the last
+    */
+   long getMinimumPartSize();
+
+   /**
+    * @return largest size allowed for a single part
+    */
+   long getMaximumPartSize();
+
+   /**
+    * @return largest number of parts a single upload may consist of
+    */
+   int getMaximumNumberOfParts();
+
+   /**
+    * @return true if the {@link MultipartPart#partETag() etag} of an uploaded part is always the hex md5 of its
+    *         content, in which case the engine verifies it after each part. Return false where it may not be, such as
+    *         under server-side encryption, so that the engine sends a Content-MD5 for the provider to check instead.
+    */
+   boolean isPartETagContentMD5();
+
+   MultipartUploadSession initiate(String container, BlobMetadata blobMetadata);
+
+   /**
+    * @param partNumber
+    *           one-based position of the part
+    * @param part
+    *           content of the part; its content metadata carries the length and, when checksums are enabled, the
+    *           md5 of the content
+    */
+   MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part);
+
+   /**
+    * @param parts
+    *           all parts of the upload, ordered by part number
+    * @return etag of the assembled blob
+    */
+   String complete(MultipartUploadSession mpu, List<MultipartPart> parts);
+
+   /**
+    * Discards the upload and any parts already stored. Called at most once, after which the upload is not used.
+    */
+   void abort(MultipartUploadSession mpu);
+}
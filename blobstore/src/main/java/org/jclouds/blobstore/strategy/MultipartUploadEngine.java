@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.strategy.internal.ParallelMultipartUploadEngine;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Uploads a blob in parts through a provider's {@link MultipartUploadAdapter}.
+ * 
+ * @see org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_MPU_PART_SIZE
+ * @see org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_MPU_PARALLEL_BYTES
+ * @since 1.9.1
+ */
+@ImplementedBy(ParallelMultipartUploadEngine.class)
+public interface MultipartUploadEngine {
+
+   /**
+    * Uploads the payload of {@code blob}, which must have a content length, and blocks until the provider has
+    * assembled it. The upload is aborted if any part fails permanently.
+    * 
+    * @return etag of the assembled blob
+    */
+   String execute(MultipartUploadAdapter adapter, String container, Blob blob);
+}
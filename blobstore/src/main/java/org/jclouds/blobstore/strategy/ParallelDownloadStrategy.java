@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.strategy.internal.ParallelRangeDownloadStrategy;
+
+import com.google.inject.ImplementedBy;
+
+/**
+ * Downloads a blob as several byte ranges fetched concurrently, so that a single large object is not limited by
+ * the throughput of one connection.
+ * 
+ * @see org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_DOWNLOAD_RANGE_SIZE
+ * @see org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_DOWNLOAD_PARALLEL_DEGREE
+ * @since 1.9.1
+ */
+@ImplementedBy(ParallelRangeDownloadStrategy.class)
+public interface ParallelDownloadStrategy {
+
+   /**
+    * Writes the content of the blob into {@code destination}, each range at its offset from the start of the
+    * channel, and blocks until all ranges are written. The channel is neither truncated nor closed.
+    * 
+    * @return number of bytes written
+    * @throws org.jclouds.blobstore.KeyNotFoundException
+    *            if the blob does not exist
+    */
+   long download(BlobStore blobStore, String container, String name, FileChannel destination);
+
+   /**
+    * Opens a stream over the content of the blob, whose upcoming ranges are fetched ahead of the reader. At most
+    * {@link org.jclouds.blobstore.reference.BlobStoreConstants#PROPERTY_DOWNLOAD_PARALLEL_DEGREE} ranges are
+    * buffered at any time; closing the stream cancels those not yet consumed.
+    * 
+    * @throws org.jclouds.blobstore.KeyNotFoundException
+    *            if the blob does not exist
+    */
+   InputStream stream(BlobStore blobStore, String container, String name);
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.domain.BlobMetadata;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Submits requests about a single blob without waiting for their response, so that bulk strategies such as
+ * {@link org.jclouds.blobstore.strategy.internal.FetchBlobMetadata} and
+ * {@link org.jclouds.blobstore.strategy.internal.DeleteAllKeysInList} need not hold a user thread per request in
+ * flight.
+ * <p/>
+ * Providers bind this where they can submit the underlying api call through
+ * {@link org.jclouds.rest.internal.InvokeHttpMethod#submit}, which waits on no thread when the http driver is an
+ * {@link org.jclouds.http.AsyncHttpCommandExecutorService}. Where it is not bound, the bulk strategies call the
+ * {@link org.jclouds.blobstore.BlobStore} on the user executor instead.
+ * 
+ * @since 1.9.1
+ */
+public interface SubmitBlobRequestStrategy {
+
+   /**
+    * @see org.jclouds.blobstore.BlobStore#blobMetadata
+    */
+   ListenableFuture<BlobMetadata> blobMetadata(String container, String name);
+
+   /**
+    * @see org.jclouds.blobstore.BlobStore#removeBlob
+    */
+   ListenableFuture<Void> removeBlob(String container, String name);
+}
@@ -41,6 +41,7 @@ import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
 import org.jclouds.blobstore.strategy.ClearContainerStrategy;
 import org.jclouds.blobstore.strategy.ClearListStrategy;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
 
@@ -52,7 +53,8 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
 /**
- * Deletes all keys in the container
+ * Deletes all keys in the container. Blobs are removed through the {@link SubmitBlobRequestStrategy} when the
+ * provider binds one, and with a blobstore call per blob on the user executor otherwise.
  */
 @Singleton
 public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStrategy {
@@ -75,6 +77,10 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
    /** Maximum parallel deletes. */
    private int maxParallelDeletes;
 
+   @Inject(optional = true)
+   @VisibleForTesting
+   SubmitBlobRequestStrategy submitter;
+
    @Inject
    DeleteAllKeysInList(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executorService,
          BlobStore blobStore, BackoffLimitedRetryHandler retryHandler,
@@ -193,6 +199,18 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       return blobDelFuture;
    }
 
+   private ListenableFuture<Void> removeBlob(final String containerName, final String name) {
+      if (submitter != null)
+         return submitter.removeBlob(containerName, name);
+      return executorService.submit(new Callable<Void>() {
+         @Override
+         public Void call() {
+            blobStore.removeBlob(containerName, name);
+            return null;
+         }
+      });
+   }
+
    /**
     * Delete the blobs from a given PageSet. The PageSet may contain blobs or
     * directories. If there are directories, they are expected to be empty.
@@ -242,13 +260,7 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          final ListenableFuture<Void> blobDelFuture;
          switch (md.getType()) {
          case BLOB:
-            blobDelFuture = executorService.submit(new Callable<Void>() {
-               @Override
-               public Void call() {
-                  blobStore.removeBlob(containerName, fullPath);
-                  return null;
-               }
-            });
+            blobDelFuture = removeBlob(containerName, fullPath);
             break;
          case FOLDER:
             blobDelFuture = deleteDirectory(options, containerName, fullPath);
@@ -32,6 +32,7 @@ import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
 import org.jclouds.blobstore.domain.internal.PageSetImpl;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.javax.annotation.concurrent.NotThreadSafe;
 import org.jclouds.logging.Logger;
@@ -45,7 +46,8 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
 /**
- * Retrieves all blobmetadata in the list as efficiently as possible
+ * Retrieves all blobmetadata in the list as efficiently as possible: through the {@link SubmitBlobRequestStrategy}
+ * when the provider binds one, and with a blobstore call per blob on the user executor otherwise.
  */
 @NotThreadSafe
 public class FetchBlobMetadata implements Function<PageSet<? extends StorageMetadata>, PageSet<? extends StorageMetadata>> {
@@ -65,6 +67,9 @@ public class FetchBlobMetadata implements Function<PageSet<? extends StorageMeta
    @Named(Constants.PROPERTY_REQUEST_TIMEOUT)
    protected Long maxTime;
 
+   @Inject(optional = true)
+   protected SubmitBlobRequestStrategy submitter;
+
    @Inject
    FetchBlobMetadata(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, BlobStore blobstore,
             BackoffLimitedRetryHandler retryHandler) {
@@ -92,6 +97,8 @@ public class FetchBlobMetadata implements Function<PageSet<? extends StorageMeta
 
          @Override
          public ListenableFuture<BlobMetadata> apply(final StorageMetadata from) {
+            if (submitter != null)
+               return submitter.blobMetadata(container, from.getName());
             return userExecutor.submit(new Callable<BlobMetadata>() {
                @Override public BlobMetadata call() throws Exception {
                   return blobstore.blobMetadata(container, from.getName());
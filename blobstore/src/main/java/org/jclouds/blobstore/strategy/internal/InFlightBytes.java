@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounds the number of bytes of a transfer that are in flight at once. A request larger than the whole budget is
+ * admitted when nothing else is in flight, so that a single oversized part cannot block forever.
+ */
+final class InFlightBytes {
+   private final long capacity;
+   private long used;
+   private volatile boolean failed;
+
+   InFlightBytes(long capacity) {
+      checkArgument(capacity > 0, "capacity must be positive but was: %s", capacity);
+      this.capacity = capacity;
+   }
+
+   synchronized void acquire(long bytes) throws InterruptedException {
+      while (!failed && used > 0 && used + bytes > capacity)
+         wait();
+      used += bytes;
+   }
+
+   synchronized void release(long bytes) {
+      used -= bytes;
+      notifyAll();
+   }
+
+   /**
+    * Marks the transfer as failed, which wakes up any waiter so that it stops submitting work.
+    */
+   synchronized void fail() {
+      failed = true;
+      notifyAll();
+   }
+
+   boolean isFailed() {
+      return failed;
+   }
+
+   synchronized long getUsed() {
+      return used;
+   }
+}
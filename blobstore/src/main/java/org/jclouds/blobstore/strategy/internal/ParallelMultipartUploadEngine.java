@@ -0,0 +1,491 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PARALLEL_BYTES;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PARALLEL_DEGREE;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PARTS_MAGNITUDE;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PART_CHECKSUM;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_PART_SIZE;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_RETRIES_MAX_PERCENT;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_RETRIES_MIN;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_MPU_RETRY_DELAY_START;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.blobstore.strategy.MultipartUploadEngine;
+import org.jclouds.io.Payload;
+import org.jclouds.io.PayloadSlicer;
+import org.jclouds.io.payloads.DelegatingPayload;
+import org.jclouds.logging.Logger;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Inject;
+
+/**
+ * Uploads the parts of a blob concurrently on the user thread pool.
+ * <p/>
+ * Rather than a fixed number of parts, the engine bounds the number of bytes in flight, so that parallelism does
+ * not grow with the part size of very large blobs. A failed part is retried with exponential backoff until the
+ * error budget of the upload is exhausted, after which the parts still uploading are awaited and the upload is
+ * aborted. Payloads that cannot be read twice are uploaded sequentially, without retries or checksums.
+ */
+@Singleton
+public class ParallelMultipartUploadEngine implements MultipartUploadEngine {
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   static final long DEFAULT_PART_SIZE = 33554432; // 32MB
+   @VisibleForTesting
+   static final int DEFAULT_MAGNITUDE_BASE = 100;
+   @VisibleForTesting
+   static final int DEFAULT_PARALLEL_DEGREE = 4;
+   @VisibleForTesting
+   static final int DEFAULT_MIN_RETRIES = 5;
+   @VisibleForTesting
+   static final int DEFAULT_MAX_PERCENT_RETRIES = 10;
+   @VisibleForTesting
+   static final long DEFAULT_RETRY_DELAY_START = 100;
+   private static final long MAX_RETRY_DELAY = 30000;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_PART_SIZE)
+   @VisibleForTesting
+   long defaultPartSize = DEFAULT_PART_SIZE;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_PARTS_MAGNITUDE)
+   @VisibleForTesting
+   int magnitudeBase = DEFAULT_MAGNITUDE_BASE;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_PARALLEL_BYTES)
+   @VisibleForTesting
+   long parallelBytes = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_PARALLEL_DEGREE)
+   @VisibleForTesting
+   int parallelDegree = DEFAULT_PARALLEL_DEGREE;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_RETRIES_MIN)
+   @VisibleForTesting
+   int minRetries = DEFAULT_MIN_RETRIES;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_RETRIES_MAX_PERCENT)
+   @VisibleForTesting
+   int maxPercentRetries = DEFAULT_MAX_PERCENT_RETRIES;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_RETRY_DELAY_START)
+   @VisibleForTesting
+   long retryDelayStart = DEFAULT_RETRY_DELAY_START;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MPU_PART_CHECKSUM)
+   @VisibleForTesting
+   boolean checksum = true;
+
+   private final PayloadSlicer slicer;
+   private final ListeningExecutorService executor;
+
+   @Inject
+   public ParallelMultipartUploadEngine(PayloadSlicer slicer,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor) {
+      this.slicer = checkNotNull(slicer, "slicer");
+      this.executor = checkNotNull(executor, "executor");
+   }
+
+   @Override
+   public String execute(MultipartUploadAdapter adapter, String container, Blob blob) {
+      Payload payload = checkNotNull(blob.getPayload(), "payload");
+      Long length = payload.getContentMetadata().getContentLength();
+      checkNotNull(length,
+            "please invoke payload.getContentMetadata().setContentLength(length) prior to multipart upload");
+      long partSize = partSize(length, defaultPartSize, magnitudeBase, adapter.getMinimumPartSize(),
+            adapter.getMaximumPartSize(), adapter.getMaximumNumberOfParts());
+      int partCount = partCount(length, partSize);
+      MultipartUploadSession mpu = adapter.initiate(container, blob.getMetadata());
+      logger.debug(">> initiated multipart upload of %s to container %s with id %s: %d parts of %d bytes",
+            mpu.blobName(), container, mpu.id(), partCount, partSize);
+      try {
+         List<MultipartPart> parts = payload.isRepeatable() ? uploadInParallel(adapter, mpu, payload, length,
+               partSize, partCount) : uploadInSequence(adapter, mpu, payload, partSize);
+         String eTag = adapter.complete(mpu, parts);
+         logger.debug("<< completed multipart upload of %s to container %s with id %s", mpu.blobName(), container,
+               mpu.id());
+         return eTag;
+      } catch (RuntimeException e) {
+         abortQuietly(adapter, mpu, e);
+         throw e;
+      }
+   }
+
+   private List<MultipartPart> uploadInParallel(MultipartUploadAdapter adapter, MultipartUploadSession mpu,
+         Payload payload, long length, long partSize, int partCount) {
+      int maxErrors = Math.max(minRetries, partCount * maxPercentRetries / 100);
+      long budget = parallelBytes > 0 ? parallelBytes : parallelDegree * partSize;
+      return new ParallelUpload(adapter, mpu, payload, length, partSize, partCount, budget, maxErrors).run();
+   }
+
+   private List<MultipartPart> uploadInSequence(MultipartUploadAdapter adapter, MultipartUploadSession mpu,
+         Payload payload, long partSize) {
+      ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+      int partNumber = 1;
+      for (Payload part : slicer.slice(payload, partSize)) {
+         parts.add(adapter.uploadPart(mpu, partNumber++, part));
+      }
+      return parts.build();
+   }
+
+   /**
+    * Schedules the parts of one upload from the calling thread, which would otherwise only wait for them. Workers
+    * upload a single attempt of a part and report back; the caller keeps the bytes in flight within the budget and
+    * holds failed parts back until their retry is due, so that no worker sleeps through a backoff.
+    */
+   private class ParallelUpload {
+      private final MultipartUploadAdapter adapter;
+      private final MultipartUploadSession mpu;
+      private final Payload payload;
+      private final long length;
+      private final long partSize;
+      private final long budget;
+      private final int maxErrors;
+      private final MultipartPart[] parts;
+      private final Queue<Integer> pending = Lists.newLinkedList();
+      private final PriorityQueue<Retry> retries = new PriorityQueue<Retry>();
+      private final Set<Attempt> running = Sets.newHashSet();
+      private final BlockingQueue<Attempt> finished = new LinkedBlockingQueue<Attempt>();
+      private int completed;
+      private int errors;
+      private long inFlight;
+
+      ParallelUpload(MultipartUploadAdapter adapter, MultipartUploadSession mpu, Payload payload, long length,
+            long partSize, int partCount, long budget, int maxErrors) {
+         this.adapter = adapter;
+         this.mpu = mpu;
+         this.payload = payload;
+         this.length = length;
+         this.partSize = partSize;
+         this.budget = budget;
+         this.maxErrors = maxErrors;
+         this.parts = new MultipartPart[partCount];
+         for (int partNumber = 1; partNumber <= partCount; partNumber++)
+            pending.add(partNumber);
+      }
+
+      List<MultipartPart> run() {
+         try {
+            while (completed < parts.length) {
+               startParts();
+               Attempt attempt;
+               if (retries.isEmpty()) {
+                  attempt = finished.take();
+               } else {
+                  attempt = finished.poll(Math.max(0, retries.peek().due - System.nanoTime()), NANOSECONDS);
+               }
+               if (attempt != null)
+                  onFinished(attempt);
+            }
+            return ImmutableList.copyOf(parts);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            throw Throwables.propagate(e);
+         } catch (RuntimeException e) {
+            stop();
+            throw e;
+         }
+      }
+
+      /**
+       * Starts the retries that are due, then the remaining parts, as long as they fit the budget. A part larger
+       * than the whole budget is started when nothing else is in flight, so that it cannot wait forever.
+       */
+      private void startParts() {
+         long now = System.nanoTime();
+         while (!retries.isEmpty() && retries.peek().due - now <= 0) {
+            if (!start(retries.peek().partNumber, retries.peek().attempt))
+               return;
+            retries.poll();
+         }
+         while (!pending.isEmpty() && start(pending.peek(), 1))
+            pending.poll();
+      }
+
+      private boolean start(int partNumber, int attemptNumber) {
+         long offset = (partNumber - 1) * partSize;
+         long size = Math.min(partSize, length - offset);
+         if (inFlight > 0 && inFlight + size > budget)
+            return false;
+         Attempt attempt = new Attempt(partNumber, attemptNumber, offset, size);
+         attempt.future = executor.submit(attempt);
+         inFlight += size;
+         running.add(attempt);
+         return true;
+      }
+
+      private void onFinished(Attempt attempt) {
+         running.remove(attempt);
+         inFlight -= attempt.size;
+         long elapsed = NANOSECONDS.toMillis(attempt.finished - attempt.started);
+         if (attempt.failure == null) {
+            logger.debug("<< uploaded part %d of %s in %dms", attempt.partNumber, mpu.blobName(), elapsed);
+            parts[attempt.partNumber - 1] = attempt.result;
+            completed++;
+            return;
+         }
+         if (++errors > maxErrors) {
+            throw new BlobRuntimeException(String.format(
+                  "Too many failed parts: %s while multipart upload of %s to container %s with id %s", errors,
+                  mpu.blobName(), mpu.containerName(), mpu.id()), attempt.failure);
+         }
+         long delay = retryDelay(retryDelayStart, attempt.attempt);
+         logger.warn(attempt.failure, "<< attempt %d of part %d of %s failed after %dms; retrying in %dms",
+               attempt.attempt, attempt.partNumber, mpu.blobName(), elapsed, delay);
+         retries.add(new Retry(attempt.partNumber, attempt.attempt + 1, System.nanoTime()
+               + MILLISECONDS.toNanos(delay)));
+      }
+
+      /**
+       * Cancels the parts in flight and waits for those already uploading, so that the upload is not aborted while
+       * parts are still being stored.
+       */
+      private void stop() {
+         for (Iterator<Attempt> it = running.iterator(); it.hasNext();) {
+            Attempt attempt = it.next();
+            attempt.future.cancel(true);
+            if (attempt.claim())
+               it.remove();
+         }
+         while (!running.isEmpty())
+            running.remove(Uninterruptibles.takeUninterruptibly(finished));
+      }
+
+      private class Attempt implements Runnable {
+         private final AtomicBoolean claimed = new AtomicBoolean();
+         private final int partNumber;
+         private final int attempt;
+         private final long offset;
+         private final long size;
+         private Future<?> future;
+         private MultipartPart result;
+         private Throwable failure;
+         private long started;
+         private long finished;
+
+         Attempt(int partNumber, int attempt, long offset, long size) {
+            this.partNumber = partNumber;
+            this.attempt = attempt;
+            this.offset = offset;
+            this.size = size;
+         }
+
+         /**
+          * @return true if the attempt was not running yet and now never will
+          */
+         boolean claim() {
+            return claimed.compareAndSet(false, true);
+         }
+
+         @Override
+         public void run() {
+            if (!claim())
+               return;
+            started = System.nanoTime();
+            try {
+               result = uploadPart(adapter, mpu, slicer.slice(payload, offset, size), partNumber, size);
+            } catch (Throwable t) {
+               failure = t;
+            } finally {
+               this.finished = System.nanoTime();
+               ParallelUpload.this.finished.add(this);
+            }
+         }
+      }
+   }
+
+   private static final class Retry implements Comparable<Retry> {
+      private final int partNumber;
+      private final int attempt;
+      private final long due;
+
+      Retry(int partNumber, int attempt, long due) {
+         this.partNumber = partNumber;
+         this.attempt = attempt;
+         this.due = due;
+      }
+
+      @Override
+      public int compareTo(Retry that) {
+         return Longs.compare(due - that.due, 0);
+      }
+   }
+
+   /**
+    * Uploads a part, checking its md5 when checksums are enabled. Where the part etag is the md5 of the content, the
+    * md5 is computed while the part is sent and compared with the etag afterwards, so the part is read once.
+    * Otherwise the provider can only check a Content-MD5 sent along with the part, which has to be computed by
+    * reading the part before sending it.
+    */
+   private MultipartPart uploadPart(MultipartUploadAdapter adapter, MultipartUploadSession mpu, Payload part,
+         int partNumber, long size) {
+      if (!checksum)
+         return adapter.uploadPart(mpu, partNumber, part);
+      if (!adapter.isPartETagContentMD5()) {
+         part.getContentMetadata().setContentMD5(md5(part));
+         return adapter.uploadPart(mpu, partNumber, part);
+      }
+      HashingPayload hashing = new HashingPayload(part);
+      MultipartPart uploaded = adapter.uploadPart(mpu, partNumber, hashing);
+      HashCode md5 = hashing.hash(size);
+      if (md5 == null) {
+         logger.debug("<< part %d of %s was not sent as a stream; skipping its md5 check", partNumber,
+               mpu.blobName());
+         return uploaded;
+      }
+      String eTag = uploaded.partETag() == null ? null : uploaded.partETag().replace("\"", "");
+      if (!md5.toString().equalsIgnoreCase(eTag))
+         throw new BlobRuntimeException(String.format("md5 mismatch on part %d of %s: sent %s, stored %s",
+               partNumber, mpu.blobName(), md5, eTag));
+      return uploaded;
+   }
+
+   /**
+    * Hashes the content of a part as it is read. Only the last stream opened counts, as earlier ones belong to
+    * attempts the http layer retried.
+    */
+   private static class HashingPayload extends DelegatingPayload {
+      private volatile CountingInputStream counting;
+      private volatile HashingInputStream hashing;
+
+      HashingPayload(Payload delegate) {
+         super(delegate);
+      }
+
+      @Override
+      public InputStream openStream() throws IOException {
+         CountingInputStream counting = new CountingInputStream(super.openStream());
+         HashingInputStream hashing = new HashingInputStream(Hashing.md5(), counting);
+         this.counting = counting;
+         this.hashing = hashing;
+         return hashing;
+      }
+
+      /**
+       * @return md5 of the content, or null if it was not read as a stream from start to end
+       */
+      HashCode hash(long size) {
+         return counting != null && counting.getCount() == size ? hashing.hash() : null;
+      }
+   }
+
+   private static HashCode md5(Payload part) {
+      InputStream is = null;
+      try {
+         is = part.openStream();
+         HashingInputStream hashing = new HashingInputStream(Hashing.md5(), is);
+         ByteStreams.copy(hashing, ByteStreams.nullOutputStream());
+         return hashing.hash();
+      } catch (IOException e) {
+         throw new BlobRuntimeException("could not read part to compute its md5", e);
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+   }
+
+   private void abortQuietly(MultipartUploadAdapter adapter, MultipartUploadSession mpu, Exception cause) {
+      logger.debug("<< aborting multipart upload of %s to container %s with id %s: %s", mpu.blobName(),
+            mpu.containerName(), mpu.id(), cause.getMessage());
+      try {
+         adapter.abort(mpu);
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< could not abort multipart upload of %s with id %s", mpu.blobName(), mpu.id());
+      }
+   }
+
+   /**
+    * Chooses a part size that grows with the blob once it would need more than {@code magnitudeBase} parts of
+    * {@code preferred} size, while staying within the provider limits.
+    * 
+    * @throws IllegalArgumentException
+    *            if the blob cannot be uploaded within {@code maxParts} parts of {@code max} size
+    */
+   @VisibleForTesting
+   static long partSize(long length, long preferred, int magnitudeBase, long min, long max, int maxParts) {
+      checkArgument(length <= LongMath.checkedMultiply(max, maxParts),
+            "%s bytes exceeds the limit of %s parts of %s bytes", length, maxParts, max);
+      long unit = Math.min(Math.max(preferred, min), max);
+      long size = unit * Math.max(1, LongMath.divide(length, unit * magnitudeBase, RoundingMode.CEILING));
+      size = Math.max(size, LongMath.divide(length, maxParts, RoundingMode.CEILING));
+      return Math.max(Math.min(size, max), 1);
+   }
+
+   @VisibleForTesting
+   static int partCount(long length, long partSize) {
+      return (int) Math.max(1, LongMath.divide(length, partSize, RoundingMode.CEILING));
+   }
+
+   @VisibleForTesting
+   static long retryDelay(long start, int attempt) {
+      return Math.min(start << Math.min(attempt - 1, 20), MAX_RETRY_DELAY);
+   }
+}
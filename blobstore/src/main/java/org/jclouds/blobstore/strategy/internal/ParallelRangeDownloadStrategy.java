@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static org.jclouds.blobstore.options.GetOptions.Builder.range;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_DOWNLOAD_PARALLEL_DEGREE;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_DOWNLOAD_RANGE_RETRIES;
+import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_DOWNLOAD_RANGE_SIZE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.strategy.ParallelDownloadStrategy;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.logging.Logger;
+import org.jclouds.util.Closeables2;
+import org.jclouds.util.Throwables2;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.math.LongMath;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Fetches the ranges of a blob concurrently on the user thread pool.
+ * <p/>
+ * The length of the blob is read from its metadata before the first range is requested. Blobs no larger than one
+ * range, or whose length the provider does not report, are fetched with a single request. Each range request is
+ * conditional on the ETag read with the length, so that a blob replaced during the download fails it instead of
+ * mixing the content of two versions. A failed range is fetched again with exponential backoff; once its retries
+ * are exhausted the whole download fails.
+ */
+@Singleton
+public class ParallelRangeDownloadStrategy implements ParallelDownloadStrategy {
+   @Resource
+   @Named(BlobStoreConstants.BLOBSTORE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @VisibleForTesting
+   static final long DEFAULT_RANGE_SIZE = 33554432; // 32MB
+   @VisibleForTesting
+   static final int DEFAULT_PARALLEL_DEGREE = 4;
+   @VisibleForTesting
+   static final int DEFAULT_RETRIES = 3;
+   private static final long RETRY_DELAY_START = 100;
+   private static final int BUFFER_SIZE = 65536;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_DOWNLOAD_RANGE_SIZE)
+   @VisibleForTesting
+   long rangeSize = DEFAULT_RANGE_SIZE;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_DOWNLOAD_PARALLEL_DEGREE)
+   @VisibleForTesting
+   int parallelDegree = DEFAULT_PARALLEL_DEGREE;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_DOWNLOAD_RANGE_RETRIES)
+   @VisibleForTesting
+   int retries = DEFAULT_RETRIES;
+
+   private final ListeningExecutorService executor;
+
+   @Inject
+   public ParallelRangeDownloadStrategy(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executor) {
+      this.executor = checkNotNull(executor, "executor");
+   }
+
+   @Override
+   public long download(BlobStore blobStore, String container, String name, FileChannel destination) {
+      checkNotNull(destination, "destination");
+      BlobMetadata metadata = blobMetadata(blobStore, container, name);
+      Long length = metadata.getContentMetadata().getContentLength();
+      if (length == null || length <= rangeSize) {
+         InputStream in = null;
+         try {
+            in = openBlob(blobStore, container, name);
+            return write(in, destination, 0);
+         } catch (IOException e) {
+            throw new BlobRuntimeException(String.format("could not download %s from container %s", name,
+                  container), e);
+         } finally {
+            Closeables2.closeQuietly(in);
+         }
+      }
+      int rangeCount = rangeCount(length, rangeSize);
+      logger.debug(">> downloading %s from container %s: %d ranges of %d bytes", name, container, rangeCount,
+            rangeSize);
+      InFlightBytes inFlight = new InFlightBytes(parallelDegree * rangeSize);
+      List<ListenableFuture<Long>> futures = Lists.newArrayListWithCapacity(rangeCount);
+      try {
+         for (long offset = 0; offset < length && !inFlight.isFailed(); offset += rangeSize) {
+            long size = Math.min(rangeSize, length - offset);
+            inFlight.acquire(size);
+            if (inFlight.isFailed()) {
+               inFlight.release(size);
+               break;
+            }
+            try {
+               futures.add(executor.submit(new WriteRange(blobStore, container, name, metadata.getETag(), offset, size,
+                     destination, inFlight)));
+            } catch (RuntimeException e) {
+               inFlight.release(size);
+               throw e;
+            }
+         }
+         Futures.allAsList(futures).get();
+         logger.debug("<< downloaded %s from container %s", name, container);
+         return length;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         cancel(futures);
+         throw Throwables.propagate(e);
+      } catch (ExecutionException e) {
+         cancel(futures);
+         throw propagate(e.getCause());
+      } catch (RuntimeException e) {
+         cancel(futures);
+         throw e;
+      }
+   }
+
+   @Override
+   public InputStream stream(BlobStore blobStore, String container, String name) {
+      BlobMetadata metadata = blobMetadata(blobStore, container, name);
+      Long length = metadata.getContentMetadata().getContentLength();
+      if (length == null || length <= rangeSize) {
+         try {
+            return openBlob(blobStore, container, name);
+         } catch (IOException e) {
+            throw new BlobRuntimeException(String.format("could not open %s from container %s", name, container),
+                  e);
+         }
+      }
+      checkArgument(rangeSize <= Integer.MAX_VALUE, "%s bytes is too large to buffer a range", rangeSize);
+      return new RangeInputStream(blobStore, container, name, metadata.getETag(), length);
+   }
+
+   private static BlobMetadata blobMetadata(BlobStore blobStore, String container, String name) {
+      BlobMetadata metadata = blobStore.blobMetadata(container, name);
+      if (metadata == null)
+         throw new KeyNotFoundException(container, name, "while downloading");
+      return metadata;
+   }
+
+   private static boolean isPreconditionFailed(RuntimeException e) {
+      HttpResponseException hre = Throwables2.getFirstThrowableOfType(e, HttpResponseException.class);
+      return hre != null && hre.getResponse() != null && hre.getResponse().getStatusCode() == 412;
+   }
+
+   private static InputStream openBlob(BlobStore blobStore, String container, String name) throws IOException {
+      Blob blob = blobStore.getBlob(container, name);
+      if (blob == null)
+         throw new KeyNotFoundException(container, name, "while downloading");
+      return blob.getPayload().openStream();
+   }
+
+   /**
+    * Copies {@code in} into {@code destination} starting at {@code position}, without moving the position of the
+    * channel so that several ranges can be written at once.
+    */
+   private static long write(InputStream in, FileChannel destination, long position) throws IOException {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      long written = 0;
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+         ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+         while (bytes.hasRemaining())
+            written += destination.write(bytes, position + written);
+      }
+      return written;
+   }
+
+   /**
+    * Fetches one range of a blob, retrying with backoff until {@link #retries} is exhausted. A range whose ETag no
+    * longer matches is not retried, as every other range would be stale too.
+    */
+   private abstract class FetchRange<T> implements Callable<T> {
+      protected final BlobStore blobStore;
+      protected final String container;
+      protected final String name;
+      protected final String eTag;
+      protected final long offset;
+      protected final long size;
+
+      FetchRange(BlobStore blobStore, String container, String name, String eTag, long offset, long size) {
+         this.blobStore = blobStore;
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.offset = offset;
+         this.size = size;
+      }
+
+      /**
+       * Consumes the content of the range, which is limited to {@link #size} bytes.
+       */
+      protected abstract T read(InputStream in) throws IOException;
+
+      @Override
+      public T call() throws Exception {
+         for (int attempt = 1;; attempt++) {
+            long start = System.currentTimeMillis();
+            try {
+               return fetchOnce();
+            } catch (RuntimeException e) {
+               if (isPreconditionFailed(e))
+                  throw new BlobRuntimeException(String.format(
+                        "%s in container %s changed during the download; it no longer matches etag %s", name,
+                        container, eTag), e);
+               if (attempt > retries || e instanceof KeyNotFoundException)
+                  throw e;
+               long delay = ParallelMultipartUploadEngine.retryDelay(RETRY_DELAY_START, attempt);
+               logger.warn(e, "<< attempt %d of range at offset %d of %s failed after %dms; retrying in %dms",
+                     attempt, offset, name, System.currentTimeMillis() - start, delay);
+               Thread.sleep(delay);
+            }
+         }
+      }
+
+      private T fetchOnce() {
+         GetOptions options = range(offset, offset + size - 1);
+         if (eTag != null)
+            options.ifETagMatches(eTag);
+         Blob blob = blobStore.getBlob(container, name, options);
+         if (blob == null)
+            throw new KeyNotFoundException(container, name, "while downloading range at offset " + offset);
+         Long returned = blob.getPayload().getContentMetadata().getContentLength();
+         if (returned != null && returned != size)
+            throw new BlobRuntimeException(String.format(
+                  "expected %d bytes at offset %d of %s, but the provider returned %d", size, offset, name, returned));
+         InputStream in = null;
+         try {
+            in = blob.getPayload().openStream();
+            return read(ByteStreams.limit(in, size));
+         } catch (IOException e) {
+            throw new BlobRuntimeException(String.format("could not read range at offset %d of %s", offset, name), e);
+         } finally {
+            Closeables2.closeQuietly(in);
+         }
+      }
+
+      protected void checkComplete(long read) {
+         if (read != size)
+            throw new BlobRuntimeException(String.format("expected %d bytes at offset %d of %s, but read %d", size,
+                  offset, name, read));
+      }
+   }
+
+   private class WriteRange extends FetchRange<Long> {
+      private final FileChannel destination;
+      private final InFlightBytes inFlight;
+
+      WriteRange(BlobStore blobStore, String container, String name, String eTag, long offset, long size,
+            FileChannel destination, InFlightBytes inFlight) {
+         super(blobStore, container, name, eTag, offset, size);
+         this.destination = destination;
+         this.inFlight = inFlight;
+      }
+
+      @Override
+      public Long call() throws Exception {
+         try {
+            return super.call();
+         } catch (Exception e) {
+            inFlight.fail();
+            throw e;
+         } finally {
+            inFlight.release(size);
+         }
+      }
+
+      @Override
+      protected Long read(InputStream in) throws IOException {
+         long written = write(in, destination, offset);
+         checkComplete(written);
+         return written;
+      }
+   }
+
+   private class BufferRange extends FetchRange<byte[]> {
+      BufferRange(BlobStore blobStore, String container, String name, String eTag, long offset, long size) {
+         super(blobStore, container, name, eTag, offset, size);
+      }
+
+      @Override
+      protected byte[] read(InputStream in) throws IOException {
+         byte[] bytes = ByteStreams.toByteArray(in);
+         checkComplete(bytes.length);
+         return bytes;
+      }
+   }
+
+   /**
+    * Hands out the ranges of a blob in order, while the next {@link #parallelDegree} ranges are fetched ahead.
+    */
+   private class RangeInputStream extends InputStream {
+      private final BlobStore blobStore;
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final long length;
+      private final Deque<ListenableFuture<byte[]>> pending = new ArrayDeque<ListenableFuture<byte[]>>();
+      private long nextOffset;
+      private byte[] current;
+      private int position;
+      private boolean closed;
+
+      RangeInputStream(BlobStore blobStore, String container, String name, String eTag, long length) {
+         this.blobStore = blobStore;
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.length = length;
+         fill();
+      }
+
+      private void fill() {
+         while (pending.size() < parallelDegree && nextOffset < length) {
+            long size = Math.min(rangeSize, length - nextOffset);
+            pending.add(executor.submit(new BufferRange(blobStore, container, name, eTag, nextOffset, size)));
+            nextOffset += size;
+         }
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         checkPositionIndexes(off, off + len, b.length);
+         if (closed)
+            throw new IOException("stream closed");
+         if (len == 0)
+            return 0;
+         while (current == null || position == current.length) {
+            ListenableFuture<byte[]> next = pending.poll();
+            if (next == null)
+               return -1;
+            current = await(next);
+            position = 0;
+            fill();
+         }
+         int n = Math.min(len, current.length - position);
+         System.arraycopy(current, position, b, off, n);
+         position += n;
+         return n;
+      }
+
+      @Override
+      public int available() {
+         return current == null ? 0 : current.length - position;
+      }
+
+      private byte[] await(ListenableFuture<byte[]> future) throws IOException {
+         try {
+            return future.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("interrupted while downloading " + name);
+         } catch (ExecutionException e) {
+            close();
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw propagate(e.getCause());
+         }
+      }
+
+      @Override
+      public void close() {
+         closed = true;
+         current = null;
+         for (ListenableFuture<byte[]> future : pending)
+            future.cancel(true);
+         pending.clear();
+      }
+   }
+
+   private static void cancel(List<ListenableFuture<Long>> futures) {
+      for (ListenableFuture<Long> future : futures)
+         future.cancel(true);
+   }
+
+   private static RuntimeException propagate(Throwable t) {
+      RuntimeException rtex = Throwables2.getFirstThrowableOfType(t, RuntimeException.class);
+      return rtex != null ? rtex : new RuntimeException(t);
+   }
+
+   @VisibleForTesting
+   static int rangeCount(long length, long rangeSize) {
+      return (int) Math.max(1, LongMath.divide(length, rangeSize, RoundingMode.CEILING));
+   }
+}
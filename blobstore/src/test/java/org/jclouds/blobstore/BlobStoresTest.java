@@ -76,15 +76,25 @@ public class BlobStoresTest {
 
    @Test
    public void testListAllFromTransientBlobStore() throws Exception {
-      runListAllFromTransientBlobStore(false);
+      runListAllFromTransientBlobStore(ListAllOptions.Builder.eager(false));
    }
 
    @Test
    public void testListAllFromTransientBlobStoreEagerly() throws Exception {
-      runListAllFromTransientBlobStore(true);
+      runListAllFromTransientBlobStore(ListAllOptions.Builder.eager(true));
    }
 
-   private void runListAllFromTransientBlobStore(boolean eager) throws Exception {
+   @Test
+   public void testListAllFromTransientBlobStoreWithPrefetch() throws Exception {
+      runListAllFromTransientBlobStore(ListAllOptions.Builder.prefetch(true));
+   }
+
+   @Test
+   public void testListAllFromTransientBlobStoreEagerlyWithPrefetch() throws Exception {
+      runListAllFromTransientBlobStore(ListAllOptions.Builder.eager(true).prefetch(true));
+   }
+
+   private void runListAllFromTransientBlobStore(ListAllOptions listAllOptions) throws Exception {
       final int numTimesToIterate = 2;
       final int NUM_BLOBS = 31;
       ListContainerOptions containerOptions = ListContainerOptions.Builder.maxResults(10);
@@ -100,7 +110,6 @@ public class BlobStoresTest {
             expectedNames.add(blobName);
          }
 
-         ListAllOptions listAllOptions = ListAllOptions.Builder.eager(eager);
          Iterable<StorageMetadata> iterable = BlobStores.listAll(blobStore, containerName, containerOptions,
                   listAllOptions);
 
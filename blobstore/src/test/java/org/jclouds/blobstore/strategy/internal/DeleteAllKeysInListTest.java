@@ -33,6 +33,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
@@ -41,9 +42,11 @@ import org.jclouds.blobstore.BlobStore;
 import org.jclouds.blobstore.ContainerNotFoundException;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.util.Closeables2;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -98,6 +101,26 @@ public class DeleteAllKeysInListTest {
       assertEquals(blobstore.countBlobs(containerName), 1111);
    }
 
+   public void testExecuteRemovesBlobsThroughSubmitter() {
+      final AtomicInteger removed = new AtomicInteger();
+      deleter.submitter = new SubmitBlobRequestStrategy() {
+         @Override
+         public ListenableFuture<BlobMetadata> blobMetadata(String container, String name) {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public ListenableFuture<Void> removeBlob(String container, String name) {
+            blobstore.removeBlob(container, name);
+            removed.incrementAndGet();
+            return Futures.immediateFuture(null);
+         }
+      };
+      deleter.execute(containerName, ListContainerOptions.Builder.inDirectory(directoryName));
+      assertEquals(blobstore.countBlobs(containerName), 1111);
+      assertEquals(removed.get(), 2222);
+   }
+
    public void testContainerNotFound() {
       IMocksControl mockControl = createControl();
       BlobStore blobStore = mockControl.createMock(BlobStore.class);
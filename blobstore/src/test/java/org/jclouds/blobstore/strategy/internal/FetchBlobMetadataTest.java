@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+
+@Test(testName = "FetchBlobMetadataTest", singleThreaded = true)
+public class FetchBlobMetadataTest {
+   private BlobStore blobstore;
+   private Injector injector;
+   private final RecordingSubmitter submitter = new RecordingSubmitter();
+
+   @BeforeClass
+   void setupBlobStore() {
+      injector = ContextBuilder.newBuilder("transient").modules(ImmutableSet.<Module> of(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(SubmitBlobRequestStrategy.class).toInstance(submitter);
+         }
+      })).buildInjector();
+      blobstore = injector.getInstance(BlobStore.class);
+      submitter.blobstore = blobstore;
+   }
+
+   @AfterClass
+   void close() {
+      Closeables2.closeQuietly(blobstore.getContext());
+   }
+
+   public void testMetadataIsFetchedThroughSubmitterWhenBound() {
+      blobstore.createContainerInLocation(null, "container");
+      for (int i = 0; i < 10; i++) {
+         blobstore.putBlob("container", blobstore.blobBuilder("blob-" + i).payload("blob-" + i).build());
+      }
+      PageSet<? extends StorageMetadata> listing = injector.getInstance(FetchBlobMetadata.class)
+            .setContainerName("container").apply(blobstore.list("container"));
+      assertEquals(listing.size(), 10);
+      for (StorageMetadata md : listing) {
+         assertEquals(((BlobMetadata) md).getContentMetadata().getContentLength(), Long.valueOf(6));
+      }
+      assertEquals(submitter.fetched.get(), 10);
+   }
+
+   static class RecordingSubmitter implements SubmitBlobRequestStrategy {
+      final AtomicInteger fetched = new AtomicInteger();
+      volatile BlobStore blobstore;
+
+      @Override
+      public ListenableFuture<BlobMetadata> blobMetadata(String container, String name) {
+         fetched.incrementAndGet();
+         return Futures.immediateFuture(blobstore.blobMetadata(container, name));
+      }
+
+      @Override
+      public ListenableFuture<Void> removeBlob(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+   }
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.io.Payload;
+import org.jclouds.io.internal.BasePayloadSlicer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "ParallelMultipartUploadEngineTest")
+public class ParallelMultipartUploadEngineTest {
+   private static final long MB = 1024 * 1024;
+
+   private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors
+         .newFixedThreadPool(8));
+
+   @AfterClass(alwaysRun = true)
+   void shutdown() {
+      executor.shutdownNow();
+   }
+
+   public void testPartSizeIsPreferredSizeForSmallBlobs() {
+      assertEquals(ParallelMultipartUploadEngine.partSize(100 * MB, 32 * MB, 100, 5 * MB, 5000 * MB, 10000),
+            32 * MB);
+   }
+
+   public void testPartSizeGrowsInMultiplesPastMagnitude() {
+      // 101 parts of 32MB would be needed, so use two units per part
+      assertEquals(ParallelMultipartUploadEngine.partSize(3232 * MB, 32 * MB, 100, 5 * MB, 5000 * MB, 10000),
+            64 * MB);
+   }
+
+   public void testPartSizeRespectsProviderLimits() {
+      assertEquals(ParallelMultipartUploadEngine.partSize(100 * MB, 32 * MB, 100, 1, 4 * MB, 50000), 4 * MB);
+      assertEquals(ParallelMultipartUploadEngine.partSize(10, 32 * MB, 100, 64 * MB, 5000 * MB, 10000), 64 * MB);
+      assertEquals(ParallelMultipartUploadEngine.partSize(2000 * MB, 1 * MB, 10000, 1, 5000 * MB, 1000), 2 * MB);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testBlobTooLargeForProvider() {
+      ParallelMultipartUploadEngine.partSize(4 * MB * 10 + 1, 32 * MB, 100, 1, 4 * MB, 10);
+   }
+
+   public void testRetryDelayDoublesUpToLimit() {
+      assertEquals(ParallelMultipartUploadEngine.retryDelay(100, 1), 100);
+      assertEquals(ParallelMultipartUploadEngine.retryDelay(100, 3), 400);
+      assertEquals(ParallelMultipartUploadEngine.retryDelay(100, 40), 30000);
+   }
+
+   public void testInFlightBytesAdmitsOversizedRequestAlone() throws InterruptedException {
+      InFlightBytes inFlight = new InFlightBytes(10);
+      inFlight.acquire(25);
+      assertEquals(inFlight.getUsed(), 25);
+      inFlight.release(25);
+      assertEquals(inFlight.getUsed(), 0);
+   }
+
+   public void testUploadsAllPartsInOrderWithinByteBudget() throws IOException {
+      byte[] data = randomBytes(10 * 1000 + 7);
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 3000);
+
+      assertEquals(engine.execute(adapter, "container", blob(data)), "etag");
+
+      assertEquals(adapter.completed.size(), 11);
+      for (int i = 0; i < adapter.completed.size(); i++)
+         assertEquals(adapter.completed.get(i).partNumber(), i + 1);
+      assertEquals(adapter.assemble(), data);
+      assertTrue(adapter.maxInFlight.get() <= 3000, "in flight: " + adapter.maxInFlight.get());
+      assertFalse(adapter.aborted.get());
+   }
+
+   public void testRetriesFailedPart() throws IOException {
+      byte[] data = randomBytes(5000);
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.failuresOfPart3.set(2);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 2000);
+
+      engine.execute(adapter, "container", blob(data));
+
+      assertEquals(adapter.attemptsOfPart3.get(), 3);
+      assertEquals(adapter.assemble(), data);
+      assertFalse(adapter.aborted.get());
+   }
+
+   public void testAbortsWhenRetriesAreExhausted() {
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.failuresOfPart3.set(Integer.MAX_VALUE);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 2000);
+      try {
+         engine.execute(adapter, "container", blob(randomBytes(5000)));
+         fail("expected upload to fail");
+      } catch (BlobRuntimeException e) {
+         assertTrue(adapter.aborted.get());
+         assertEquals(adapter.attemptsOfPart3.get(), engine.minRetries + 1);
+      }
+   }
+
+   public void testChecksumMismatchIsRetriedThenFails() {
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.corruptETags.set(true);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 1000);
+      try {
+         engine.execute(adapter, "container", blob(randomBytes(3000)));
+         fail("expected upload to fail");
+      } catch (BlobRuntimeException e) {
+         assertTrue(adapter.aborted.get());
+      }
+   }
+
+   public void testAbortWaitsForPartsStillUploading() {
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.failuresOfPart3.set(Integer.MAX_VALUE);
+      adapter.delayMillis = 50;
+      ParallelMultipartUploadEngine engine = newEngine(1000, 4000);
+      engine.minRetries = 0;
+      try {
+         engine.execute(adapter, "container", blob(randomBytes(8000)));
+         fail("expected upload to fail");
+      } catch (BlobRuntimeException e) {
+         assertTrue(adapter.aborted.get());
+         assertEquals(adapter.inFlightAtAbort.get(), 0);
+      }
+   }
+
+   public void testPartIsHashedWhileSentWhenETagIsMD5() throws IOException {
+      byte[] data = randomBytes(3000);
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 1000);
+
+      engine.execute(adapter, "container", blob(data));
+
+      assertEquals(adapter.partsWithContentMD5.get(), 0);
+      assertEquals(adapter.assemble(), data);
+   }
+
+   public void testContentMD5IsSentWhenETagIsNotMD5() throws IOException {
+      byte[] data = randomBytes(3000);
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.md5ETags = false;
+      ParallelMultipartUploadEngine engine = newEngine(1000, 1000);
+
+      engine.execute(adapter, "container", blob(data));
+
+      assertEquals(adapter.partsWithContentMD5.get(), 3);
+      assertEquals(adapter.assemble(), data);
+   }
+
+   public void testETagThatIsNotTheMD5IsAccepted() throws IOException {
+      byte[] data = randomBytes(3000);
+      RecordingAdapter adapter = new RecordingAdapter(1000);
+      adapter.md5ETags = false;
+      adapter.opaqueETags.set(true);
+      ParallelMultipartUploadEngine engine = newEngine(1000, 1000);
+
+      engine.execute(adapter, "container", blob(data));
+
+      assertFalse(adapter.aborted.get());
+      assertEquals(adapter.partsWithContentMD5.get(), 3);
+      assertEquals(adapter.assemble(), data);
+   }
+
+   private ParallelMultipartUploadEngine newEngine(long partSize, long parallelBytes) {
+      ParallelMultipartUploadEngine engine = new ParallelMultipartUploadEngine(new BasePayloadSlicer(), executor);
+      engine.defaultPartSize = partSize;
+      engine.parallelBytes = parallelBytes;
+      engine.retryDelayStart = 1;
+      return engine;
+   }
+
+   private static Blob blob(byte[] data) {
+      return new BlobBuilderImpl().name("blob").payload(data).build();
+   }
+
+   private static byte[] randomBytes(int length) {
+      byte[] data = new byte[length];
+      new Random(length).nextBytes(data);
+      return data;
+   }
+
+   static class RecordingAdapter implements MultipartUploadAdapter {
+      final long partSize;
+      final Map<Integer, byte[]> stored = new ConcurrentHashMap<Integer, byte[]>();
+      final AtomicLong inFlight = new AtomicLong();
+      final AtomicLong maxInFlight = new AtomicLong();
+      final AtomicInteger failuresOfPart3 = new AtomicInteger();
+      final AtomicInteger attemptsOfPart3 = new AtomicInteger();
+      final AtomicBoolean corruptETags = new AtomicBoolean();
+      final AtomicBoolean opaqueETags = new AtomicBoolean();
+      final AtomicBoolean aborted = new AtomicBoolean();
+      final AtomicLong inFlightAtAbort = new AtomicLong(-1);
+      final AtomicInteger partsWithContentMD5 = new AtomicInteger();
+      volatile boolean md5ETags = true;
+      volatile long delayMillis = 5;
+      volatile List<MultipartPart> completed;
+
+      RecordingAdapter(long partSize) {
+         this.partSize = partSize;
+      }
+
+      @Override
+      public long getMinimumPartSize() {
+         return partSize;
+      }
+
+      @Override
+      public long getMaximumPartSize() {
+         return partSize;
+      }
+
+      @Override
+      public int getMaximumNumberOfParts() {
+         return 10000;
+      }
+
+      @Override
+      public boolean isPartETagContentMD5() {
+         return md5ETags;
+      }
+
+      @Override
+      public MultipartUploadSession initiate(String container, BlobMetadata blobMetadata) {
+         return MultipartUploadSession.create(container, blobMetadata.getName(), "id", blobMetadata);
+      }
+
+      @Override
+      public MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part) {
+         long size = part.getContentMetadata().getContentLength();
+         long now = inFlight.addAndGet(size);
+         try {
+            long max;
+            while ((max = maxInFlight.get()) < now && !maxInFlight.compareAndSet(max, now))
+               ;
+            if (partNumber == 3) {
+               attemptsOfPart3.incrementAndGet();
+               if (failuresOfPart3.getAndDecrement() > 0)
+                  throw new RuntimeException("simulated failure");
+            }
+            if (part.getContentMetadata().getContentMD5AsHashCode() != null)
+               partsWithContentMD5.incrementAndGet();
+            byte[] bytes = ByteStreams.toByteArray(part.openStream());
+            Thread.sleep(delayMillis);
+            stored.put(partNumber, bytes);
+            String eTag = corruptETags.get() ? "00" : Hashing.md5().hashBytes(bytes).toString();
+            if (opaqueETags.get()) // as with SSE-KMS, which returns an etag of the same shape that is not the md5
+               eTag = Hashing.md5().hashString("kms" + partNumber, Charsets.UTF_8).toString();
+            return MultipartPart.create(partNumber, bytes.length, "\"" + eTag + "\"");
+         } catch (IOException e) {
+            throw new RuntimeException(e);
+         } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+         } finally {
+            inFlight.addAndGet(-size);
+         }
+      }
+
+      @Override
+      public String complete(MultipartUploadSession mpu, List<MultipartPart> parts) {
+         completed = parts;
+         return "etag";
+      }
+
+      @Override
+      public void abort(MultipartUploadSession mpu) {
+         inFlightAtAbort.set(inFlight.get());
+         aborted.set(true);
+      }
+
+      byte[] assemble() throws IOException {
+         ByteSource all = ByteSource.empty();
+         for (MultipartPart part : completed)
+            all = ByteSource.concat(all, ByteSource.wrap(stored.get(part.partNumber())));
+         return all.read();
+      }
+   }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.BlobStores;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "ParallelRangeDownloadStrategyTest", singleThreaded = true)
+public class ParallelRangeDownloadStrategyTest {
+   private static final String CONTAINER = "downloads";
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ListeningExecutorService executor;
+   private ParallelRangeDownloadStrategy strategy;
+   private byte[] content;
+
+   @BeforeClass
+   void setupBlobStore() {
+      Properties overrides = new Properties();
+      overrides.setProperty(BlobStoreConstants.PROPERTY_DOWNLOAD_RANGE_SIZE, "7");
+      context = ContextBuilder.newBuilder("transient").overrides(overrides).build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      blobStore.createContainerInLocation(null, CONTAINER);
+      content = new byte[100];
+      new Random(0).nextBytes(content);
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("large").payload(content).build());
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("empty").payload(new byte[0]).build());
+
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(3));
+      strategy = new ParallelRangeDownloadStrategy(executor);
+      strategy.rangeSize = 7;
+      strategy.parallelDegree = 3;
+   }
+
+   @AfterClass
+   void close() {
+      if (executor != null)
+         executor.shutdownNow();
+      if (context != null)
+         Closeables2.closeQuietly(context);
+   }
+
+   public void testDownloadWritesEachRangeAtItsOffset() throws IOException {
+      File file = File.createTempFile("download", ".bin");
+      RandomAccessFile out = new RandomAccessFile(file, "rw");
+      try {
+         assertEquals(strategy.download(blobStore, CONTAINER, "large", out.getChannel()), content.length);
+      } finally {
+         out.close();
+      }
+      try {
+         assertEquals(Files.toByteArray(file), content);
+      } finally {
+         file.delete();
+      }
+   }
+
+   public void testDownloadBlobSmallerThanOneRange() throws IOException {
+      strategy.rangeSize = 1000;
+      File file = File.createTempFile("download", ".bin");
+      RandomAccessFile out = new RandomAccessFile(file, "rw");
+      try {
+         assertEquals(strategy.download(blobStore, CONTAINER, "large", out.getChannel()), content.length);
+         assertEquals(Files.toByteArray(file), content);
+      } finally {
+         strategy.rangeSize = 7;
+         out.close();
+         file.delete();
+      }
+   }
+
+   public void testStreamReturnsRangesInOrder() throws IOException {
+      InputStream in = strategy.stream(blobStore, CONTAINER, "large");
+      try {
+         assertEquals(ByteStreams.toByteArray(in), content);
+      } finally {
+         in.close();
+      }
+   }
+
+   public void testStreamEmptyBlob() throws IOException {
+      InputStream in = strategy.stream(blobStore, CONTAINER, "empty");
+      try {
+         assertEquals(in.read(), -1);
+      } finally {
+         in.close();
+      }
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testStreamRejectsReadAfterClose() throws IOException {
+      InputStream in = strategy.stream(blobStore, CONTAINER, "large");
+      in.read();
+      in.close();
+      in.read();
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testDownloadMissingBlob() throws IOException {
+      File file = File.createTempFile("download", ".bin");
+      RandomAccessFile out = new RandomAccessFile(file, "rw");
+      try {
+         strategy.download(blobStore, CONTAINER, "missing", out.getChannel());
+      } finally {
+         out.close();
+         file.delete();
+      }
+   }
+
+   public void testBlobStoresDownloadTruncatesExistingFile() throws IOException {
+      File file = File.createTempFile("download", ".bin");
+      try {
+         Files.write(new byte[200], file);
+         assertEquals(BlobStores.downloadBlob(blobStore, CONTAINER, "large", file), content.length);
+         assertEquals(Files.toByteArray(file), content);
+      } finally {
+         file.delete();
+      }
+   }
+
+   public void testBlobStoresStreamBlob() throws IOException {
+      InputStream in = BlobStores.streamBlob(blobStore, CONTAINER, "large");
+      try {
+         assertEquals(ByteStreams.toByteArray(in), content);
+      } finally {
+         in.close();
+      }
+   }
+
+   @Test(expectedExceptions = BlobRuntimeException.class, expectedExceptionsMessageRegExp = ".*changed during.*")
+   public void testDownloadFailsWhenBlobChanges() throws IOException {
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("changing").payload(content).build());
+      File file = File.createTempFile("download", ".bin");
+      RandomAccessFile out = new RandomAccessFile(file, "rw");
+      try {
+         strategy.download(replacingOnFirstRange("changing"), CONTAINER, "changing", out.getChannel());
+      } finally {
+         out.close();
+         file.delete();
+      }
+   }
+
+   @Test(expectedExceptions = BlobRuntimeException.class, expectedExceptionsMessageRegExp = ".*changed during.*")
+   public void testStreamFailsWhenBlobChanges() throws IOException {
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("changing").payload(content).build());
+      InputStream in = strategy.stream(replacingOnFirstRange("changing"), CONTAINER, "changing");
+      try {
+         ByteStreams.toByteArray(in);
+      } finally {
+         in.close();
+      }
+   }
+
+   /**
+    * Returns a view of {@link #blobStore} that overwrites {@code name} with new content before the first range of it
+    * is fetched.
+    */
+   private BlobStore replacingOnFirstRange(final String name) {
+      final AtomicBoolean replaced = new AtomicBoolean();
+      return (BlobStore) Proxy.newProxyInstance(BlobStore.class.getClassLoader(), new Class<?>[] { BlobStore.class },
+            new InvocationHandler() {
+               @Override
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                  if (method.getName().equals("getBlob") && args.length == 3 && args[2] instanceof GetOptions
+                        && replaced.compareAndSet(false, true)) {
+                     byte[] changed = new byte[content.length];
+                     blobStore.putBlob(CONTAINER, blobStore.blobBuilder(name).payload(changed).build());
+                  }
+                  try {
+                     return method.invoke(blobStore, args);
+                  } catch (InvocationTargetException e) {
+                     throw e.getCause();
+                  }
+               }
+            });
+   }
+
+   public void testRangeCount() {
+      assertEquals(ParallelRangeDownloadStrategy.rangeCount(0, 7), 1);
+      assertEquals(ParallelRangeDownloadStrategy.rangeCount(7, 7), 1);
+      assertEquals(ParallelRangeDownloadStrategy.rangeCount(8, 7), 2);
+      assertEquals(ParallelRangeDownloadStrategy.rangeCount(100, 7), 15);
+   }
+}
@@ -29,6 +29,7 @@ import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpRetryHandler;
+import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
 import org.jclouds.openstack.domain.AuthenticationResponse;
 import org.jclouds.openstack.reference.AuthHeaders;
@@ -38,7 +39,6 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Multimap;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -106,7 +106,7 @@ public class RetryOnRenew implements HttpRetryHandler {
                         retryCountMap.put(command, count + 1);
                         // Wait between retries
                         authenticationResponseCache.invalidateAll();
-                        Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
+                        BackoffLimitedRetryHandler.imposeBackoff(command, TimeUnit.SECONDS.toMillis(5));
                         retry = true;
                      }
                   }
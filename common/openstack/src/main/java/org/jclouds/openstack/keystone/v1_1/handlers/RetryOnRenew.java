@@ -39,7 +39,6 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Multimap;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -111,7 +110,7 @@ public class RetryOnRenew implements HttpRetryHandler {
                         retryCountMap.put(command, count + 1);
                         // Wait between retries
                         authenticationResponseCache.invalidateAll();
-                        Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
+                        BackoffLimitedRetryHandler.imposeBackoff(command, TimeUnit.SECONDS.toMillis(5));
                         retry = true;
                      }
                   }
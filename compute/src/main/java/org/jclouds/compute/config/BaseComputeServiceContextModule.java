@@ -51,7 +51,6 @@ import org.jclouds.compute.functions.TemplateOptionsToStatement;
 import org.jclouds.compute.options.RunScriptOptions;
 import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants;
-import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
 import org.jclouds.config.ValueOfConfigurationKeyOrNull;
@@ -81,6 +80,7 @@ import com.google.inject.name.Names;
 public abstract class BaseComputeServiceContextModule extends AbstractModule {
 
    @Override
+   @SuppressWarnings("deprecation")
    protected void configure() {
       bind(AdminAccess.Configuration.class).to(AdminAccessConfiguration.class);
       install(new ComputeServiceTimeoutsModule());
@@ -102,11 +102,12 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
 
       install(new PersistNodeCredentialsModule());
 
+      // still bound for code that customizes nodes itself; jclouds provisions through ProvisioningPipeline
       install(new FactoryModuleBuilder().implement(new TypeLiteral<Callable<Void>>() {
-      }, CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.class)
+      }, org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.class)
             .implement(new TypeLiteral<Function<AtomicReference<NodeMetadata>, Void>>() {
-            }, CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.class)
-            .build(CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory.class));
+            }, org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.class)
+            .build(org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory.class));
 
       install(new FactoryModuleBuilder().implement(new TypeLiteral<Callable<RunScriptOnNode>>() {
       }, InitializeRunScriptOnNodeOrPlaceInBadMap.class).build(InitializeRunScriptOnNodeOrPlaceInBadMap.Factory.class));
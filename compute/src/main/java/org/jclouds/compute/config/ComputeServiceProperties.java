@@ -118,6 +118,30 @@ public final class ComputeServiceProperties {
     */
    public static final String SOCKET_FINDER_ALLOWED_INTERFACES = "jclouds.compute.socket-finder-allowed-interfaces";
 
+   /**
+    * maximum number of nodes {@link org.jclouds.compute.strategy.ProvisioningPipeline} asks the provider to create at
+    * the same time; others wait in line. 0, the default, means no limit.
+    */
+   public static final String PROVISIONING_CREATE_THREADS = "jclouds.compute.provisioning.create-threads";
+
+   /**
+    * maximum number of nodes waited on to become running at the same time; others wait in line. Defaults to 50; 0
+    * means no limit.
+    */
+   public static final String PROVISIONING_RUNNING_THREADS = "jclouds.compute.provisioning.running-threads";
+
+   /**
+    * maximum number of nodes bootstrapped over ssh at the same time; others wait in line. Defaults to 20; 0 means no
+    * limit.
+    */
+   public static final String PROVISIONING_SCRIPT_THREADS = "jclouds.compute.provisioning.script-threads";
+
+   /**
+    * maximum number of nodes waited on for the port of {@link org.jclouds.compute.options.TemplateOptions#blockOnPort}
+    * at the same time; others wait in line. Defaults to 50; 0 means no limit.
+    */
+   public static final String PROVISIONING_PORT_THREADS = "jclouds.compute.provisioning.port-threads";
+
    private ComputeServiceProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An immutable set of images, indexed once so that a search for a template only scans the images that can match.
+ * <p/>
+ * Images are grouped by each {@link Attribute}. A search evaluates its criteria once per distinct value of an
+ * attribute, rather than once per image, and returns the images of the groups that matched, in the order of the set.
+ * The result is a superset of the matching images, as only the indexed attributes are considered.
+ */
+@Beta
+public final class ImageCatalog {
+
+   /**
+    * The attributes images are indexed by.
+    */
+   public enum Attribute implements Function<Image, Object> {
+      LOCATION {
+         @Override
+         public Object apply(Image input) {
+            return input.getLocation();
+         }
+      },
+      OS_FAMILY {
+         @Override
+         public Object apply(Image input) {
+            OperatingSystem os = input.getOperatingSystem();
+            return os == null ? null : os.getFamily();
+         }
+      },
+      OS_VERSION {
+         @Override
+         public Object apply(Image input) {
+            OperatingSystem os = input.getOperatingSystem();
+            return os == null ? null : os.getVersion();
+         }
+      },
+      OS_64_BIT {
+         @Override
+         public Object apply(Image input) {
+            OperatingSystem os = input.getOperatingSystem();
+            return os == null ? null : os.is64Bit();
+         }
+      };
+   }
+
+   public static ImageCatalog of(Iterable<? extends Image> images) {
+      return new ImageCatalog(ImmutableSet.copyOf(images));
+   }
+
+   private final ImmutableSet<Image> images;
+   private final ImmutableList<Image> byPosition;
+   private final Map<String, Image> byId;
+   private final Map<Attribute, Map<Object, int[]>> indexes = new EnumMap<Attribute, Map<Object, int[]>>(
+         Attribute.class);
+
+   private ImageCatalog(ImmutableSet<Image> images) {
+      this.images = images;
+      this.byPosition = images.asList();
+      Map<String, Image> byId = new LinkedHashMap<String, Image>();
+      for (Image image : byPosition) {
+         if (!byId.containsKey(image.getId()))
+            byId.put(image.getId(), image);
+      }
+      this.byId = byId;
+      for (Attribute attribute : Attribute.values())
+         indexes.put(attribute, index(attribute));
+   }
+
+   private Map<Object, int[]> index(Attribute attribute) {
+      // keys may be null, so the groups are not kept in an ImmutableMap
+      Map<Object, int[]> sizes = new LinkedHashMap<Object, int[]>();
+      Object[] keys = new Object[byPosition.size()];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = attribute.apply(byPosition.get(i));
+         int[] size = sizes.get(keys[i]);
+         if (size == null)
+            sizes.put(keys[i], size = new int[1]);
+         size[0]++;
+      }
+      Map<Object, int[]> index = new LinkedHashMap<Object, int[]>();
+      for (Map.Entry<Object, int[]> size : sizes.entrySet()) {
+         index.put(size.getKey(), new int[size.getValue()[0]]);
+         size.getValue()[0] = 0;
+      }
+      for (int i = 0; i < keys.length; i++)
+         index.get(keys[i])[sizes.get(keys[i])[0]++] = i;
+      return index;
+   }
+
+   public Set<? extends Image> getImages() {
+      return images;
+   }
+
+   /**
+    * @return the first image with the id, or null if there is none
+    */
+   @Nullable
+   public Image get(String id) {
+      return byId.get(checkNotNull(id, "id"));
+   }
+
+   /**
+    * Narrows the images to those whose attributes match the criteria.
+    * 
+    * @param criteria
+    *           predicates on images that only depend on the attribute they are keyed by; each is applied to one image
+    *           of every group of that attribute
+    * @return the images of the groups that matched every criterion, in the order of {@link #getImages()}
+    */
+   public List<Image> candidates(Map<Attribute, ? extends Predicate<? super Image>> criteria) {
+      if (criteria.isEmpty())
+         return byPosition;
+      BitSet candidates = null;
+      for (Map.Entry<Attribute, ? extends Predicate<? super Image>> criterion : criteria.entrySet()) {
+         BitSet matches = new BitSet(byPosition.size());
+         for (int[] group : indexes.get(criterion.getKey()).values()) {
+            if (criterion.getValue().apply(byPosition.get(group[0]))) {
+               for (int position : group)
+                  matches.set(position);
+            }
+         }
+         if (candidates == null)
+            candidates = matches;
+         else
+            candidates.and(matches);
+         if (candidates.isEmpty())
+            return ImmutableList.of();
+      }
+      ImmutableList.Builder<Image> builder = ImmutableList.builder();
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+         builder.add(byPosition.get(i));
+      return builder.build();
+   }
+
+   @Override
+   public String toString() {
+      return "ImageCatalog(images=" + images.size() + ")";
+   }
+}
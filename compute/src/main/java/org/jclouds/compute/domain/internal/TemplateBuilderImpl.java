@@ -19,9 +19,9 @@ package org.jclouds.compute.domain.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.and;
+import static com.google.common.base.Predicates.compose;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
-import static com.google.common.collect.Iterables.size;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 import static com.google.common.collect.Lists.newArrayList;
@@ -33,6 +33,7 @@ import static org.jclouds.compute.util.ComputeServiceUtils.getSpace;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -51,6 +52,7 @@ import org.jclouds.compute.domain.OsFamily;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.TemplateBuilder;
 import org.jclouds.compute.domain.TemplateBuilderSpec;
+import org.jclouds.compute.domain.internal.ImageCatalog.Attribute;
 import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.GetImageStrategy;
@@ -70,6 +72,7 @@ import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.primitives.Doubles;
 
@@ -651,6 +654,15 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       return this;
    }
 
+   private static final Function<Image, OperatingSystem> imageToOperatingSystem = new Function<Image, OperatingSystem>() {
+
+      @Override
+      public OperatingSystem apply(Image arg0) {
+         return arg0.getOperatingSystem();
+      }
+
+   };
+
    private static final Function<Image, String> imageToId = new Function<Image, String>() {
 
       @Override
@@ -723,20 +735,50 @@ public class TemplateBuilderImpl implements TemplateBuilder {
       return new TemplateImpl(image, hardware, location, options);
    }
 
-   private Iterable<? extends Image> findSupportedImages(Set<? extends Image> images) {
+   private List<Image> findSupportedImages(Set<? extends Image> images) {
       Predicate<Image> imagePredicate = buildImagePredicate();
-      Iterable<? extends Image> supportedImages = filter(images, imagePredicate);
-      if (size(supportedImages) == 0) {
+      // filtered once, as the hardware and image resolution below iterate the result several times
+      List<Image> supportedImages = ImmutableList.<Image> copyOf(filter(candidateImages(images), imagePredicate));
+      if (supportedImages.isEmpty()) {
          throw throwNoSuchElementExceptionAfterLoggingImageIds(
                format("no image matched predicate: %s", imagePredicate), images);
       }
       return supportedImages;
    }
 
+   /**
+    * Narrows the images to search with the index of the image cache, when they are the cached images.
+    */
+   private Iterable<? extends Image> candidateImages(Set<? extends Image> images) {
+      ImageCatalog catalog = this.images.getCatalog(images);
+      // subclasses may search other images, or the cache may have been refreshed since
+      if (catalog == null)
+         return images;
+      Map<Attribute, Predicate<? super Image>> criteria = Maps.newEnumMap(Attribute.class);
+      if (location != null)
+         criteria.put(Attribute.LOCATION, locationPredicate);
+      if (osFamily != null)
+         criteria.put(Attribute.OS_FAMILY, compose(osFamilyPredicate, imageToOperatingSystem));
+      if (osVersion != null)
+         criteria.put(Attribute.OS_VERSION, compose(osVersionPredicate, imageToOperatingSystem));
+      if (os64Bit != null)
+         criteria.put(Attribute.OS_64_BIT, compose(os64BitPredicate, imageToOperatingSystem));
+      return catalog.candidates(criteria);
+   }
+
    private Image findImageWithId(Set<? extends Image> images) {
       // Try to find the image in the cache and fallback to the GetImageStrategy
       // see https://issues.apache.org/jira/browse/JCLOUDS-570
-      Optional<? extends Image> image = tryFind(images, idPredicate);
+      Optional<? extends Image> image;
+      ImageCatalog catalog = this.images.getCatalog(images);
+      if (catalog != null) {
+         image = Optional.fromNullable(catalog.get(imageId));
+         // match our input params so that the later predicates pass, as idPredicate does.
+         if (image.isPresent())
+            fromImage(image.get());
+      } else {
+         image = tryFind(images, idPredicate);
+      }
       if (image.isPresent()) {
          return image.get();
       }
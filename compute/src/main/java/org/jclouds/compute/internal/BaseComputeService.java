@@ -79,6 +79,7 @@ import org.jclouds.compute.strategy.ListNodesStrategy;
 import org.jclouds.compute.strategy.RebootNodeStrategy;
 import org.jclouds.compute.strategy.ResumeNodeStrategy;
 import org.jclouds.compute.strategy.RunScriptOnNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.SubmitDestroyNodeStrategy;
 import org.jclouds.compute.strategy.SuspendNodeStrategy;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.Location;
@@ -92,6 +93,7 @@ import org.jclouds.scriptbuilder.functions.InitAdminAccess;
 import org.jclouds.util.Maps2;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
@@ -101,6 +103,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.Atomics;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
@@ -139,6 +142,9 @@ public class BaseComputeService implements ComputeService {
    private final Optional<ImageExtension> imageExtension;
    private final Optional<SecurityGroupExtension> securityGroupExtension;
 
+   @com.google.inject.Inject(optional = true)
+   private SubmitDestroyNodeStrategy submitDestroyNodeStrategy;
+
    @Inject
    protected BaseComputeService(ComputeServiceContext context, Map<String, Credentials> credentialStore,
             @Memoized Supplier<Set<? extends Image>> images,
@@ -251,7 +257,8 @@ public class BaseComputeService implements ComputeService {
    @Override
    public Set<? extends NodeMetadata> destroyNodesMatching(Predicate<NodeMetadata> filter) {
       logger.debug(">> destroying nodes matching(%s)", filter);
-      Set<NodeMetadata> destroyNodes = ImmutableSet.copyOf(transformParallel(nodesMatchingFilterAndNotTerminated(filter),
+      Set<NodeMetadata> destroyNodes = submitDestroyNodeStrategy != null ? submitDestroyNodesMatching(filter)
+            : ImmutableSet.copyOf(transformParallel(nodesMatchingFilterAndNotTerminated(filter),
             new Function<NodeMetadata, ListenableFuture<? extends NodeMetadata>>() {
 
                // TODO make an async interface instead of re-wrapping
@@ -275,6 +282,30 @@ public class BaseComputeService implements ComputeService {
       return destroyNodes;
    }
 
+   /**
+    * submits every termination without holding a user thread per node, then waits for each node in turn to terminate.
+    */
+   private Set<NodeMetadata> submitDestroyNodesMatching(Predicate<NodeMetadata> filter) {
+      Set<NodeMetadata> destroyNodes = ImmutableSet.copyOf(transformParallel(nodesMatchingFilterAndNotTerminated(filter),
+            new Function<NodeMetadata, ListenableFuture<? extends NodeMetadata>>() {
+
+               @Override
+               public ListenableFuture<NodeMetadata> apply(NodeMetadata from) {
+                  logger.debug(">> destroying node(%s)", from.getId());
+                  return Futures.transform(submitDestroyNodeStrategy.destroyNode(from.getId()),
+                        Functions.constant(from));
+               }
+
+            }, userExecutor, null, logger, "destroyNodesMatching(" + filter + ")"));
+      for (NodeMetadata node : destroyNodes) {
+         boolean successful = nodeTerminated.apply(Atomics.newReference(node));
+         if (successful)
+            credentialStore.remove("node#" + node.getId());
+         logger.debug("<< destroyed node(%s) success(%s)", node.getId(), successful);
+      }
+      return destroyNodes;
+   }
+
    /**
     *
     * @param id
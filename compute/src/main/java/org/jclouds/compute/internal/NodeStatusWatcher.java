@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Refreshes the nodes that callers are waiting on with one {@link ListNodesStrategy#listNodesByIds} call for all of
+ * them, rather than one {@link GetNodeMetadataStrategy#getNode} call per node.
+ * <p/>
+ * Each caller of {@link #getNode} registers the id it waits on. The first of them polls on behalf of all: it lists the
+ * pending nodes at once and sets the future of each. A poll happens right away when none happened recently; after
+ * it, the next one waits {@link PollPeriod#pollInitialPeriod} for each node just polled, up to
+ * {@link PollPeriod#pollMaxPeriod}, so that callers arriving meanwhile are batched and a large group of nodes is
+ * refreshed at most once per max period.
+ * <p/>
+ * As the callers do the polling, no thread is started, but each caller still blocks its own thread while it waits,
+ * as do the {@link org.jclouds.util.Predicates2#retry} loops that call this. This batches the calls to the provider;
+ * it does not make waiting event-driven.
+ * <p/>
+ * A node missing from the listing, or every node of a listing that failed, is refreshed with
+ * {@link GetNodeMetadataStrategy#getNode}, since listings may leave out nodes the provider has only just created.
+ */
+@Beta
+@Singleton
+public class NodeStatusWatcher implements GetNodeMetadataStrategy {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final ListNodesStrategy listNodes;
+   private final GetNodeMetadataStrategy getNode;
+   private final PollPeriod period;
+   private final ConcurrentMap<String, SettableFuture<NodeMetadata>> pending = Maps.newConcurrentMap();
+   private final AtomicBoolean polling = new AtomicBoolean();
+   private volatile long nextPoll = System.nanoTime();
+
+   @Inject
+   public NodeStatusWatcher(ListNodesStrategy listNodes, GetNodeMetadataStrategy getNode, PollPeriod period) {
+      this.listNodes = checkNotNull(listNodes, "listNodes");
+      this.getNode = checkNotNull(getNode, "getNode");
+      this.period = checkNotNull(period, "period");
+   }
+
+   /**
+    * Blocks until the next poll has refreshed the node.
+    * 
+    * @return the node, or null if the provider no longer knows it
+    */
+   @Override
+   public NodeMetadata getNode(String id) {
+      SettableFuture<NodeMetadata> future = SettableFuture.create();
+      SettableFuture<NodeMetadata> existing = pending.putIfAbsent(checkNotNull(id, "id"), future);
+      if (existing != null)
+         future = existing;
+      try {
+         while (!future.isDone()) {
+            if (polling.compareAndSet(false, true)) {
+               try {
+                  TimeUnit.NANOSECONDS.sleep(nextPoll - System.nanoTime());
+                  int polled = poll();
+                  nextPoll = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interval(polled));
+               } finally {
+                  polling.set(false);
+               }
+            } else {
+               try {
+                  return future.get(period.pollMaxPeriod, TimeUnit.MILLISECONDS);
+               } catch (TimeoutException e) {
+                  // the poll in progress started before we joined; take over if nobody else has
+               }
+            }
+         }
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * @return how long to wait before the next poll, after a poll of {@code pendingCount} nodes
+    */
+   @VisibleForTesting
+   long interval(int pendingCount) {
+      return Math.min(period.pollMaxPeriod, period.pollInitialPeriod * Math.max(1, pendingCount));
+   }
+
+   /**
+    * @return the number of nodes polled
+    */
+   @VisibleForTesting
+   int poll() {
+      Map<String, SettableFuture<NodeMetadata>> batch = Maps.newLinkedHashMap();
+      for (String id : pending.keySet()) {
+         SettableFuture<NodeMetadata> future = pending.remove(id);
+         if (future != null)
+            batch.put(id, future);
+      }
+      try {
+         Map<String, NodeMetadata> listed = batch.size() > 1 ? list(batch.keySet())
+               : ImmutableMap.<String, NodeMetadata> of();
+         for (Map.Entry<String, SettableFuture<NodeMetadata>> entry : batch.entrySet()) {
+            NodeMetadata node = listed.get(entry.getKey());
+            try {
+               entry.getValue().set(node != null ? node : getNode.getNode(entry.getKey()));
+            } catch (RuntimeException e) {
+               entry.getValue().setException(e);
+            }
+         }
+      } finally {
+         for (SettableFuture<NodeMetadata> future : batch.values())
+            future.cancel(false);
+      }
+      return batch.size();
+   }
+
+   private Map<String, NodeMetadata> list(Iterable<String> ids) {
+      Map<String, NodeMetadata> listed = Maps.newHashMap();
+      try {
+         for (NodeMetadata node : listNodes.listNodesByIds(ids)) {
+            if (node != null)
+               listed.put(node.getId(), node);
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "error listing nodes %s; getting them one at a time", ids);
+      }
+      return listed;
+   }
+}
@@ -25,6 +25,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Credentials;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.json.Json;
 import org.jclouds.logging.Logger.LoggerFactory;
 import org.jclouds.rest.HttpClient;
@@ -45,8 +46,9 @@ public class UtilsImpl extends org.jclouds.rest.internal.UtilsImpl implements Ut
 
    @Inject UtilsImpl(Injector injector, Json json, XMLParser xml, HttpClient simpleClient, Crypto encryption,
          DateService date, EventBus eventBus, Map<String, Credentials> credentialStore, LoggerFactory loggerFactory,
-         Function<NodeMetadata, SshClient> sshForNode) {
-      super(injector, json, xml, simpleClient, encryption, date, eventBus, credentialStore, loggerFactory);
+         Instrumentation instrumentation, Function<NodeMetadata, SshClient> sshForNode) {
+      super(injector, json, xml, simpleClient, encryption, date, eventBus, credentialStore, loggerFactory,
+            instrumentation);
       this.sshForNode = sshForNode;
    }
 
@@ -20,6 +20,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.internal.NodeStatusWatcher;
 import org.jclouds.compute.predicates.internal.RefreshNodeAndDoubleCheckOnFailUnlessStatusInvalid;
 import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
 
@@ -32,7 +33,14 @@ import com.google.common.collect.ImmutableSet;
 @Singleton
 public class AtomicNodeRunning extends RefreshNodeAndDoubleCheckOnFailUnlessStatusInvalid {
 
+   /**
+    * Refreshes the node along with every other node being waited on.
+    */
    @Inject
+   public AtomicNodeRunning(NodeStatusWatcher watcher) {
+      this((GetNodeMetadataStrategy) watcher);
+   }
+
    public AtomicNodeRunning(GetNodeMetadataStrategy client) {
       super(Status.RUNNING, ImmutableSet.of(Status.ERROR, Status.TERMINATED), client);
    }
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.internal.NodeStatusWatcher;
 import org.jclouds.compute.predicates.internal.TrueIfNullOrDeletedRefreshAndDoubleCheckOnFalse;
 import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
 
@@ -29,7 +30,14 @@ public class AtomicNodeTerminated extends TrueIfNullOrDeletedRefreshAndDoubleChe
 
    private final GetNodeMetadataStrategy client;
 
+   /**
+    * Refreshes the node along with every other node being waited on.
+    */
    @Inject
+   public AtomicNodeTerminated(NodeStatusWatcher watcher) {
+      this((GetNodeMetadataStrategy) watcher);
+   }
+
    public AtomicNodeTerminated(GetNodeMetadataStrategy client) {
       super(Status.TERMINATED);
       this.client = checkNotNull(client, "client");
@@ -46,6 +46,11 @@ import com.google.common.collect.Multimap;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 
+/**
+ * @deprecated since 1.9.1; use {@link ProvisioningPipeline#customize}, which limits each step of the customization
+ *             separately.
+ */
+@Deprecated
 public class CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap implements Callable<Void>,
       Function<AtomicReference<NodeMetadata>, Void> {
 
@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.getRootCause;
+import static org.jclouds.compute.config.ComputeServiceProperties.PROVISIONING_CREATE_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.PROVISIONING_PORT_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.PROVISIONING_RUNNING_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.PROVISIONING_SCRIPT_THREADS;
+import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+import static org.jclouds.compute.util.ComputeServiceUtils.formatStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.compute.callables.RunScriptOnNode;
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.ExecResponse;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.util.OpenSocketFinder;
+import org.jclouds.instrumentation.ConcurrentHistogram;
+import org.jclouds.instrumentation.HistogramSnapshot;
+import org.jclouds.logging.Logger;
+import org.jclouds.scriptbuilder.domain.Statement;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Provisions nodes in stages, each with its own limit on how many nodes it works on at the same time. Nodes beyond the
+ * limit wait in the stage's queue without holding a thread, and move on to the next stage as soon as they leave the
+ * current one. A large group can then be created at a pace the provider accepts, while the nodes already created are
+ * bootstrapped over ssh as fast as they come.
+ * <p/>
+ * The stages are, in order:
+ * <ol>
+ * <li>{@link Stage#CREATE}: {@link CreateNodeWithGroupEncodedIntoName creating} the node,
+ * {@link org.jclouds.compute.config.ComputeServiceProperties#PROVISIONING_CREATE_THREADS}</li>
+ * <li>{@link Stage#RUNNING}: waiting for it to be running,
+ * {@link org.jclouds.compute.config.ComputeServiceProperties#PROVISIONING_RUNNING_THREADS}</li>
+ * <li>{@link Stage#SCRIPT}: connecting over ssh with the node's credentials and running the init script,
+ * {@link org.jclouds.compute.config.ComputeServiceProperties#PROVISIONING_SCRIPT_THREADS}</li>
+ * <li>{@link Stage#PORT}: waiting for the port of {@link TemplateOptions#blockOnPort},
+ * {@link org.jclouds.compute.config.ComputeServiceProperties#PROVISIONING_PORT_THREADS}</li>
+ * </ol>
+ * Node creation is unlimited unless configured, as the provider throttles it itself. The other stages hold a user
+ * thread and a connection per node, so they are limited by default, and a burst of nodes waits in their queues rather
+ * than growing the user executor without bound.
+ * <p/>
+ * Stages run on the user executor. {@link #getMetrics()} reports how long nodes waited for and spent in each stage.
+ */
+@Beta
+@Singleton
+public class ProvisioningPipeline {
+
+   public enum Stage {
+      CREATE, RUNNING, SCRIPT, PORT;
+   }
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROVISIONING_CREATE_THREADS)
+   @VisibleForTesting
+   int createThreads = 0;
+
+   @Inject(optional = true)
+   @Named(PROVISIONING_RUNNING_THREADS)
+   @VisibleForTesting
+   int runningThreads = 50;
+
+   @Inject(optional = true)
+   @Named(PROVISIONING_SCRIPT_THREADS)
+   @VisibleForTesting
+   int scriptThreads = 20;
+
+   @Inject(optional = true)
+   @Named(PROVISIONING_PORT_THREADS)
+   @VisibleForTesting
+   int portThreads = 50;
+
+   private final ListeningExecutorService userExecutor;
+   private final Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>> pollNodeRunning;
+   private final OpenSocketFinder openSocketFinder;
+   private final Function<TemplateOptions, Statement> templateOptionsToStatement;
+   private final InitializeRunScriptOnNodeOrPlaceInBadMap.Factory initScriptRunnerFactory;
+   private final Map<Stage, StageQueue> stages = new EnumMap<Stage, StageQueue>(Stage.class);
+
+   @Inject
+   public ProvisioningPipeline(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named(TIMEOUT_NODE_RUNNING) Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>> pollNodeRunning,
+         OpenSocketFinder openSocketFinder, Function<TemplateOptions, Statement> templateOptionsToStatement,
+         InitializeRunScriptOnNodeOrPlaceInBadMap.Factory initScriptRunnerFactory) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.pollNodeRunning = checkNotNull(pollNodeRunning, "pollNodeRunning");
+      this.openSocketFinder = checkNotNull(openSocketFinder, "openSocketFinder");
+      this.templateOptionsToStatement = checkNotNull(templateOptionsToStatement, "templateOptionsToStatement");
+      this.initScriptRunnerFactory = checkNotNull(initScriptRunnerFactory, "initScriptRunnerFactory");
+      for (Stage stage : Stage.values())
+         stages.put(stage, new StageQueue(stage));
+   }
+
+   /**
+    * Metrics of a stage. Durations are in nanoseconds.
+    */
+   public static final class StageMetrics {
+      private final HistogramSnapshot queueTime;
+      private final HistogramSnapshot runTime;
+      private final long failures;
+      private final int queued;
+      private final int running;
+      private final double throughput;
+
+      private StageMetrics(HistogramSnapshot queueTime, HistogramSnapshot runTime, long failures, int queued,
+            int running, double throughput) {
+         this.queueTime = queueTime;
+         this.runTime = runTime;
+         this.failures = failures;
+         this.queued = queued;
+         this.running = running;
+         this.throughput = throughput;
+      }
+
+      /**
+       * @return time each node waited in the queue of the stage
+       */
+      public HistogramSnapshot getQueueTime() {
+         return queueTime;
+      }
+
+      /**
+       * @return time each node spent in the stage, whether it succeeded or failed
+       */
+      public HistogramSnapshot getRunTime() {
+         return runTime;
+      }
+
+      public long getCompleted() {
+         return runTime.getCount();
+      }
+
+      public long getFailures() {
+         return failures;
+      }
+
+      /**
+       * @return nodes waiting in the queue of the stage now
+       */
+      public int getQueued() {
+         return queued;
+      }
+
+      /**
+       * @return nodes in the stage now
+       */
+      public int getRunning() {
+         return running;
+      }
+
+      /**
+       * @return nodes completed per second, between the first node entering the queue and the last one leaving the
+       *         stage
+       */
+      public double getThroughput() {
+         return throughput;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("queueTime", queueTime).add("runTime", runTime)
+               .add("failures", failures).add("queued", queued).add("running", running)
+               .add("throughput", throughput).toString();
+      }
+   }
+
+   /**
+    * Runs tasks on the user executor, no more than the limit of its stage at a time.
+    */
+   private final class StageQueue {
+      private final Stage stage;
+      private final Queue<Task<?>> queue = new ConcurrentLinkedQueue<Task<?>>();
+      private final AtomicInteger queued = new AtomicInteger();
+      private final AtomicInteger running = new AtomicInteger();
+      private final ConcurrentHistogram queueTime = new ConcurrentHistogram();
+      private final ConcurrentHistogram runTime = new ConcurrentHistogram();
+      private final AtomicLong failures = new AtomicLong();
+      private final AtomicLong firstQueued = new AtomicLong();
+      private final AtomicLong lastCompleted = new AtomicLong();
+
+      private StageQueue(Stage stage) {
+         this.stage = stage;
+      }
+
+      private final class Task<T> implements Runnable {
+         private final Callable<T> callable;
+         private final SettableFuture<T> result = SettableFuture.create();
+         private final long queuedAt = System.nanoTime();
+
+         private Task(Callable<T> callable) {
+            this.callable = callable;
+         }
+
+         @Override
+         public void run() {
+            long started = System.nanoTime();
+            queueTime.record(started - queuedAt);
+            T value = null;
+            Throwable failure = null;
+            try {
+               value = callable.call();
+            } catch (Throwable e) {
+               failures.incrementAndGet();
+               failure = e;
+            } finally {
+               // record before completing the result, so whoever waits on it sees the metrics of this task
+               long completed = System.nanoTime();
+               runTime.record(completed - started);
+               lastCompleted.set(completed);
+               running.decrementAndGet();
+            }
+            if (failure != null)
+               result.setException(failure);
+            else
+               result.set(value);
+            startQueued();
+         }
+      }
+
+      <T> ListenableFuture<T> submit(Callable<T> callable) {
+         Task<T> task = new Task<T>(callable);
+         firstQueued.compareAndSet(0, task.queuedAt);
+         queued.incrementAndGet();
+         queue.add(task);
+         startQueued();
+         return task.result;
+      }
+
+      private void startQueued() {
+         while (!queue.isEmpty()) {
+            int limit = threads(stage);
+            int current = running.get();
+            if (limit > 0 && current >= limit)
+               return;
+            if (!running.compareAndSet(current, current + 1))
+               continue;
+            Task<?> next = queue.poll();
+            if (next == null) {
+               running.decrementAndGet();
+               continue;
+            }
+            queued.decrementAndGet();
+            try {
+               userExecutor.execute(next);
+            } catch (RejectedExecutionException e) {
+               running.decrementAndGet();
+               failures.incrementAndGet();
+               next.result.setException(e);
+            }
+         }
+      }
+
+      StageMetrics metrics() {
+         long first = firstQueued.get();
+         long last = lastCompleted.get();
+         HistogramSnapshot completed = runTime.snapshot();
+         double throughput = first != 0 && last - first > 0 ? completed.getCount()
+               / ((double) (last - first) / TimeUnit.SECONDS.toNanos(1)) : 0;
+         return new StageMetrics(queueTime.snapshot(), completed, failures.get(), queued.get(), running.get(),
+               throughput);
+      }
+   }
+
+   @VisibleForTesting
+   int threads(Stage stage) {
+      switch (stage) {
+         case CREATE:
+            return createThreads;
+         case RUNNING:
+            return runningThreads;
+         case SCRIPT:
+            return scriptThreads;
+         default:
+            return portThreads;
+      }
+   }
+
+   /**
+    * Runs the task in the given stage as soon as the stage has room for it.
+    */
+   public <T> ListenableFuture<T> submit(Stage stage, Callable<T> task) {
+      return stages.get(checkNotNull(stage, "stage")).submit(checkNotNull(task, "task"));
+   }
+
+   /**
+    * @return metrics recorded so far for each stage
+    */
+   public Map<Stage, StageMetrics> getMetrics() {
+      ImmutableMap.Builder<Stage, StageMetrics> metrics = ImmutableMap.builder();
+      for (Map.Entry<Stage, StageQueue> stage : stages.entrySet())
+         metrics.put(stage.getKey(), stage.getValue().metrics());
+      return metrics.build();
+   }
+
+   /**
+    * Creates a node in the {@link Stage#CREATE} stage.
+    * 
+    * @return node that is created, yet not necessarily running
+    */
+   public ListenableFuture<AtomicReference<NodeMetadata>> create(final CreateNodeWithGroupEncodedIntoName strategy,
+         final String group, final String name, final Template template) {
+      return submit(Stage.CREATE, addNode(strategy, group, name, template));
+   }
+
+   /**
+    * @return task that creates a node when called, in the calling thread and regardless of the stage limits
+    */
+   public Callable<AtomicReference<NodeMetadata>> addNode(final CreateNodeWithGroupEncodedIntoName strategy,
+         final String group, final String name, final Template template) {
+      checkNotNull(strategy, "strategy");
+      checkNotNull(group, "group");
+      checkNotNull(name, "name");
+      checkNotNull(template, "template");
+      return new Callable<AtomicReference<NodeMetadata>>() {
+
+         @Override
+         public AtomicReference<NodeMetadata> call() {
+            logger.debug(">> adding node location(%s) name(%s) image(%s) hardware(%s)", template.getLocation()
+                  .getId(), name, template.getImage().getProviderId(), template.getHardware().getProviderId());
+            NodeMetadata node = strategy.createNodeWithGroupEncodedIntoName(group, name, template);
+            logger.debug("<< %s node(%s)", formatStatus(node), node.getId());
+            return new AtomicReference<NodeMetadata>(node);
+         }
+
+         @Override
+         public String toString() {
+            return Objects.toStringHelper("AddNode").add("name", name).add("group", group)
+                  .add("template", template).toString();
+         }
+      };
+   }
+
+   /**
+    * Takes a node through the stages after {@link Stage#CREATE} that the options ask for, then adds it to
+    * {@code goodNodes}, or to {@code badNodes} with the exception of the stage that failed.
+    * 
+    * @return future that completes once the node is in either map, or fails if the node could not be created
+    */
+   public ListenableFuture<Void> customize(ListenableFuture<AtomicReference<NodeMetadata>> created,
+         final TemplateOptions options, final Set<NodeMetadata> goodNodes, final Map<NodeMetadata, Exception> badNodes,
+         final Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+      return Futures.transform(created, new AsyncFunction<AtomicReference<NodeMetadata>, Void>() {
+
+         @Override
+         public ListenableFuture<Void> apply(AtomicReference<NodeMetadata> node) {
+            return customize(node, options, goodNodes, badNodes, customizationResponses);
+         }
+      });
+   }
+
+   private ListenableFuture<Void> customize(final AtomicReference<NodeMetadata> node, final TemplateOptions options,
+         final Set<NodeMetadata> goodNodes, final Map<NodeMetadata, Exception> badNodes,
+         final Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
+      final String originalId = node.get().getId();
+      final Statement statement = templateOptionsToStatement.apply(checkNotNull(options, "options"));
+      ListenableFuture<Void> stages = Futures.immediateFuture(null);
+      if (options.shouldBlockUntilRunning()) {
+         stages = then(stages, Stage.RUNNING, new Callable<Void>() {
+
+            @Override
+            public Void call() {
+               pollNodeRunning.apply(node);
+               return null;
+            }
+         });
+         if (statement != null) {
+            stages = then(stages, Stage.SCRIPT, new Callable<Void>() {
+
+               @Override
+               public Void call() throws Exception {
+                  RunScriptOnNode runner = initScriptRunnerFactory.create(node.get(), statement, options, badNodes)
+                        .call();
+                  if (runner != null) {
+                     ExecResponse exec = runner.call();
+                     customizationResponses.put(node.get(), exec);
+                  }
+                  return null;
+               }
+            });
+         }
+         if (options.getPort() > 0) {
+            stages = then(stages, Stage.PORT, new Callable<Void>() {
+
+               @Override
+               public Void call() {
+                  openSocketFinder.findOpenSocketOnNode(node.get(), options.getPort(), options.getSeconds(),
+                        TimeUnit.SECONDS);
+                  return null;
+               }
+            });
+         }
+      }
+      final SettableFuture<Void> customized = SettableFuture.create();
+      Futures.addCallback(stages, new FutureCallback<Void>() {
+
+         @Override
+         public void onSuccess(Void result) {
+            logger.debug("<< customized node(%s)", originalId);
+            goodNodes.add(node.get());
+            customized.set(null);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            logger.error(t, "<< problem customizing node(%s): ", originalId, getRootCause(t).getMessage());
+            badNodes.put(node.get(), t instanceof Exception ? (Exception) t : new ExecutionException(t));
+            customized.set(null);
+         }
+      });
+      return customized;
+   }
+
+   private ListenableFuture<Void> then(ListenableFuture<Void> previous, final Stage stage, final Callable<Void> task) {
+      return Futures.transform(previous, new AsyncFunction<Void, Void>() {
+
+         @Override
+         public ListenableFuture<Void> apply(Void ignored) {
+            return submit(stage, task);
+         }
+      });
+   }
+}
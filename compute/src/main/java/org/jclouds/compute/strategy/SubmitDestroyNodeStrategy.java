@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * submits the request to terminate the node without waiting on a user thread for its response.
+ * <p/>
+ * Providers bind this where they can submit the underlying api call through
+ * {@link org.jclouds.rest.internal.InvokeHttpMethod#submit}. Where it is bound,
+ * {@link org.jclouds.compute.ComputeService#destroyNodesMatching} submits every termination before waiting for any of
+ * the nodes to terminate; otherwise it calls {@link DestroyNodeStrategy} on the user executor.
+ * 
+ * @since 1.9.1
+ */
+public interface SubmitDestroyNodeStrategy {
+
+   /**
+    * @return a future that completes once the node was asked to terminate, or was not found
+    */
+   ListenableFuture<Void> destroyNode(String id);
+
+}
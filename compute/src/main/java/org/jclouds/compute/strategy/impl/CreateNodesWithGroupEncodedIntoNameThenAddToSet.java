@@ -21,7 +21,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
-import static org.jclouds.compute.util.ComputeServiceUtils.formatStatus;
 
 import java.util.Map;
 import java.util.Set;
@@ -42,15 +41,14 @@ import org.jclouds.compute.functions.GroupNamingConvention;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
 import org.jclouds.compute.strategy.CreateNodesInGroupThenAddToSet;
-import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.compute.strategy.ProvisioningPipeline;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
-import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 
@@ -60,6 +58,11 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 @Singleton
 public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNodesInGroupThenAddToSet {
 
+   /**
+    * @deprecated since 1.9.1; nodes are created through {@link ProvisioningPipeline#create}, and this delegates to
+    *             the same task, which does not wait for the limit of the {@link ProvisioningPipeline.Stage#CREATE} stage.
+    */
+   @Deprecated
    protected class AddNode implements Callable<AtomicReference<NodeMetadata>> {
       private final String name;
       private final String group;
@@ -73,12 +76,7 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
 
       @Override
       public AtomicReference<NodeMetadata> call() throws Exception {
-         NodeMetadata node = null;
-         logger.debug(">> adding node location(%s) name(%s) image(%s) hardware(%s)", template.getLocation().getId(),
-                  name, template.getImage().getProviderId(), template.getHardware().getProviderId());
-         node = addNodeWithGroupStrategy.createNodeWithGroupEncodedIntoName(group, name, template);
-         logger.debug("<< %s node(%s)", formatStatus(node), node.getId());
-         return new AtomicReference<NodeMetadata>(node);
+         return pipeline.addNode(addNodeWithGroupStrategy, group, name, template).call();
       }
 
       public String toString() {
@@ -94,7 +92,7 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
    protected final ListNodesStrategy listNodesStrategy;
    protected final GroupNamingConvention.Factory namingConvention;
    protected final ListeningExecutorService userExecutor;
-   protected final CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
+   protected final ProvisioningPipeline pipeline;
 
    @Inject
    protected CreateNodesWithGroupEncodedIntoNameThenAddToSet(
@@ -102,26 +100,25 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
             ListNodesStrategy listNodesStrategy,
             GroupNamingConvention.Factory namingConvention,
             @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
-            CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory) {
+            ProvisioningPipeline pipeline) {
       this.addNodeWithGroupStrategy = addNodeWithGroupStrategy;
       this.listNodesStrategy = listNodesStrategy;
       this.namingConvention = namingConvention;
       this.userExecutor = userExecutor;
-      this.customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory = customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
+      this.pipeline = pipeline;
    }
 
    /**
     * This implementation gets a list of acceptable node names to encode the group into, then it
-    * simultaneously runs the nodes and applies options to them.
+    * runs the nodes and applies options to them through the stages of the {@link ProvisioningPipeline}.
     */
    @Override
    public Map<?, ListenableFuture<Void>> execute(String group, int count, Template template, Set<NodeMetadata> goodNodes,
             Map<NodeMetadata, Exception> badNodes, Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
       Map<String, ListenableFuture<Void>> responses = newLinkedHashMap();
       for (String name : getNextNames(group, template, count)) {
-         responses.put(name, Futures.transform(createNodeInGroupWithNameAndTemplate(group, name, template),
-                  customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory.create(template.getOptions(), goodNodes,
-                           badNodes, customizationResponses), userExecutor));
+         responses.put(name, pipeline.customize(createNodeInGroupWithNameAndTemplate(group, name, template),
+                  template.getOptions(), goodNodes, badNodes, customizationResponses));
       }
       return responses;
    }
@@ -164,7 +161,7 @@ public class CreateNodesWithGroupEncodedIntoNameThenAddToSet implements CreateNo
     */
    protected ListenableFuture<AtomicReference<NodeMetadata>> createNodeInGroupWithNameAndTemplate(String group, String name,
             Template template) {
-      return userExecutor.submit(new AddNode(name, group, template));
+      return pipeline.create(addNodeWithGroupStrategy, group, name, template);
    }
 
    /**
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.concat;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -27,11 +28,13 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.internal.ImageCatalog;
+import org.jclouds.javax.annotation.Nullable;
 
 import com.google.common.base.Supplier;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 
 /**
@@ -49,6 +52,23 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
 
    private final Cache<String, Image> uncachedImages;
 
+   private volatile Snapshot snapshot;
+
+   /**
+    * The catalog of the images cached and registered when it was built.
+    */
+   private static final class Snapshot {
+      private final Set<? extends Image> cached;
+      private final Map<String, Image> registered;
+      private final ImageCatalog catalog;
+
+      private Snapshot(Set<? extends Image> cached, Map<String, Image> registered, ImageCatalog catalog) {
+         this.cached = cached;
+         this.registered = registered;
+         this.catalog = catalog;
+      }
+   }
+
    @Inject
    public ImageCacheSupplier(@Named("imageCache") Supplier<Set<? extends Image>> imageCache,
          @Named(PROPERTY_SESSION_INTERVAL) long sessionIntervalSeconds) {
@@ -61,7 +81,35 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>> {
 
    @Override
    public Set<? extends Image> get() {
-      return ImmutableSet.copyOf(concat(imageCache.get(), uncachedImages.asMap().values()));
+      return getCatalog().getImages();
+   }
+
+   /**
+    * Returns the cached and registered images, indexed for searching.
+    * <p>
+    * The catalog is only rebuilt when the image cache is refreshed or the registered images change, so repeated calls
+    * between refreshes return the same catalog, and the same set from {@link #get()}.
+    */
+   public ImageCatalog getCatalog() {
+      Set<? extends Image> cached = imageCache.get();
+      Map<String, Image> registered = ImmutableMap.copyOf(uncachedImages.asMap());
+      Snapshot current = snapshot;
+      if (current != null && current.cached == cached && current.registered.equals(registered))
+         return current.catalog;
+      ImageCatalog catalog = ImageCatalog.of(concat(cached, registered.values()));
+      snapshot = new Snapshot(cached, registered, catalog);
+      return catalog;
+   }
+
+   /**
+    * Returns the catalog of a set returned by {@link #get()}, without loading the images.
+    * 
+    * @return the catalog, or null if the set is not the current one returned by {@link #get()}
+    */
+   @Nullable
+   public ImageCatalog getCatalog(Set<? extends Image> images) {
+      Snapshot current = snapshot;
+      return current != null && current.catalog.getImages() == images ? current.catalog : null;
    }
 
    /**
@@ -23,30 +23,24 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
-import javax.inject.Named;
 import javax.inject.Singleton;
 
-import org.jclouds.Constants;
 import org.jclouds.compute.config.CustomizationResponse;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.options.TemplateOptions;
-import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
+import org.jclouds.compute.strategy.ProvisioningPipeline;
 
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
 
 @Singleton
 public class ComputeUtils {
-   private final CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
-   private final ListeningExecutorService userExecutor;
+   private final ProvisioningPipeline pipeline;
 
    @Inject
-   public ComputeUtils(
-            CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap.Factory customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory,
-            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
-      this.customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory = customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory;
-      this.userExecutor = userExecutor;
+   public ComputeUtils(ProvisioningPipeline pipeline) {
+      this.pipeline = pipeline;
    }
 
    public Map<?, ListenableFuture<Void>> customizeNodesAndAddToGoodMapOrPutExceptionIntoBadMap(TemplateOptions options,
@@ -54,8 +48,8 @@ public class ComputeUtils {
             Multimap<NodeMetadata, CustomizationResponse> customizationResponses) {
       Map<NodeMetadata, ListenableFuture<Void>> responses = newLinkedHashMap();
       for (NodeMetadata node : runningNodes) {
-         responses.put(node, userExecutor.submit(customizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapFactory.create(
-                  options, new AtomicReference<NodeMetadata>(node), goodNodes, badNodes, customizationResponses)));
+         responses.put(node, pipeline.customize(Futures.immediateFuture(new AtomicReference<NodeMetadata>(node)),
+                  options, goodNodes, badNodes, customizationResponses));
       }
       return responses;
    }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Atomics.newReference;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.compute.config.ComputeServiceProperties.SOCKET_FINDER_ALLOWED_INTERFACES;
+import static org.jclouds.compute.config.ComputeServiceProperties.TIMEOUT_NODE_RUNNING;
+import static org.jclouds.compute.util.ConcurrentOpenSocketFinder.checkNodeHasIps;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.util.ConcurrentOpenSocketFinder.AllowedInterfaces;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HostAndPort;
+import com.google.inject.Inject;
+
+/**
+ * Finds an open socket like {@link ConcurrentOpenSocketFinder}, but probes the addresses of every node with
+ * non-blocking connects watched by a single selector thread, rather than with one blocking connect per address on the
+ * user executor. Bringing up many nodes at once then does not tie up a thread per address while waiting for ssh.
+ * <p/>
+ * Connects go directly to the node, so this finder does not honour the {@code jclouds.proxy-*} settings. To use it,
+ * bind it in a module passed to the context:
+ * 
+ * <pre>
+ * bind(OpenSocketFinder.class).to(SelectorOpenSocketFinder.class);
+ * </pre>
+ */
+@Beta
+public class SelectorOpenSocketFinder implements OpenSocketFinder {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   private Logger logger = Logger.NULL;
+
+   private final SocketChannelProber prober;
+   private final Predicate<AtomicReference<NodeMetadata>> nodeRunning;
+
+   @Inject(optional = true)
+   @Named(SOCKET_FINDER_ALLOWED_INTERFACES)
+   private AllowedInterfaces allowedInterfaces = AllowedInterfaces.ALL;
+
+   @Inject(optional = true)
+   @Named("org.jclouds.socket_timeout")
+   @VisibleForTesting
+   int connectTimeout = 2000;
+
+   @Inject
+   @VisibleForTesting
+   SelectorOpenSocketFinder(SocketChannelProber prober,
+         @Named(TIMEOUT_NODE_RUNNING) Predicate<AtomicReference<NodeMetadata>> nodeRunning) {
+      this.prober = checkNotNull(prober, "prober");
+      this.nodeRunning = checkNotNull(nodeRunning, "nodeRunning");
+   }
+
+   @Override
+   public HostAndPort findOpenSocketOnNode(NodeMetadata node, final int port, long timeout, TimeUnit timeUnits) {
+      ImmutableSet<HostAndPort> sockets = checkNodeHasIps(node, allowedInterfaces).transform(
+            new Function<String, HostAndPort>() {
+
+               @Override
+               public HostAndPort apply(String from) {
+                  return HostAndPort.fromParts(from, port);
+               }
+            }).toSet();
+
+      logger.debug(">> probing sockets %s for %d %s", sockets, timeout, timeUnits);
+      long deadline = System.nanoTime() + timeUnits.toNanos(timeout);
+      for (long remaining = timeUnits.toNanos(timeout); remaining > 0; remaining = deadline - System.nanoTime()) {
+         HostAndPort open = firstOpen(sockets, Math.min(connectTimeout, NANOSECONDS.toMillis(remaining)));
+         if (open != null) {
+            logger.debug("<< socket %s opened", open);
+            return open;
+         }
+         if (!nodeRunning.apply(newReference(node)))
+            throw new IllegalStateException(node.getId() + " is no longer running; aborting socket open loop");
+         // retry every second, as ConcurrentOpenSocketFinder does
+         sleep(Math.min(1000, NANOSECONDS.toMillis(deadline - System.nanoTime())));
+      }
+      logger.warn("<< sockets %s didn't open after %d %s", sockets, timeout, timeUnits);
+      throw new NoSuchElementException(format("could not connect to any ip address port %d on node %s", port, node));
+   }
+
+   private static void sleep(long millis) {
+      try {
+         MILLISECONDS.sleep(millis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      }
+   }
+
+   private HostAndPort firstOpen(Iterable<HostAndPort> sockets, long timeoutMillis) {
+      try {
+         // the prober times out each connect, so this only guards against it being closed meanwhile
+         return prober.firstOpen(sockets, timeoutMillis).get(timeoutMillis + 1000, MILLISECONDS);
+      } catch (TimeoutException e) {
+         return null;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+}
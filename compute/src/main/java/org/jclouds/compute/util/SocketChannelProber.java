@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tests whether sockets accept connections using non-blocking connects, all of them watched by a single selector
+ * thread. The thread is started on first use and stopped when the context is closed.
+ */
+@Singleton
+class SocketChannelProber implements Closeable {
+
+   /**
+    * How often the selector thread checks for probes that timed out.
+    */
+   private static final long TICK_MILLIS = 100;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   private Logger logger = Logger.NULL;
+
+   private final Queue<Probe> toRegister = new ConcurrentLinkedQueue<Probe>();
+   private Selector selector;
+   private Thread thread;
+   private boolean closed;
+
+   @Inject
+   SocketChannelProber(Closer closer) {
+      closer.addToClose(this);
+   }
+
+   private static class Probe {
+      private final HostAndPort socket;
+      private final SocketChannel channel;
+      private final SettableFuture<Boolean> open = SettableFuture.create();
+      private final long deadline;
+
+      private Probe(HostAndPort socket, SocketChannel channel, long deadline) {
+         this.socket = socket;
+         this.channel = channel;
+         this.deadline = deadline;
+      }
+
+      private void complete(boolean connected) {
+         try {
+            channel.close();
+         } catch (IOException e) {
+            // no work to do
+         }
+         open.set(connected);
+      }
+   }
+
+   /**
+    * @return a future set to true once the socket accepts a connection, or to false if it refuses it or does not
+    *         answer within {@code timeoutMillis}
+    */
+   ListenableFuture<Boolean> probe(HostAndPort socket, long timeoutMillis) {
+      SocketChannel channel = null;
+      try {
+         Selector selector = selector();
+         channel = SocketChannel.open();
+         channel.configureBlocking(false);
+         Probe probe = new Probe(socket, channel, System.nanoTime() + MILLISECONDS.toNanos(timeoutMillis));
+         if (channel.connect(new InetSocketAddress(socket.getHostText(), socket.getPort()))) {
+            probe.complete(true);
+         } else {
+            toRegister.add(probe);
+            selector.wakeup();
+         }
+         return probe.open;
+      } catch (IOException e) {
+         return closedSocket(channel);
+      } catch (IllegalArgumentException e) {
+         // unresolved or unsupported address
+         return closedSocket(channel);
+      }
+   }
+
+   /**
+    * @return a future set to the first of the sockets that accepts a connection, or to null if none of them does
+    *         within {@code timeoutMillis}
+    */
+   ListenableFuture<HostAndPort> firstOpen(Iterable<HostAndPort> sockets, long timeoutMillis) {
+      final SettableFuture<HostAndPort> first = SettableFuture.create();
+      List<ListenableFuture<Boolean>> probes = Lists.newArrayList();
+      for (final HostAndPort socket : sockets) {
+         final ListenableFuture<Boolean> probe = probe(socket, timeoutMillis);
+         probe.addListener(new Runnable() {
+            @Override
+            public void run() {
+               if (Futures.getUnchecked(probe))
+                  first.set(socket);
+            }
+         }, sameThreadExecutor());
+         probes.add(probe);
+      }
+      // runs after the listeners above, so only sets null if no socket was open
+      Futures.allAsList(probes).addListener(new Runnable() {
+         @Override
+         public void run() {
+            first.set(null);
+         }
+      }, sameThreadExecutor());
+      return first;
+   }
+
+   private static ListenableFuture<Boolean> closedSocket(SocketChannel channel) {
+      if (channel != null) {
+         try {
+            channel.close();
+         } catch (IOException e) {
+            // no work to do
+         }
+      }
+      return Futures.immediateFuture(false);
+   }
+
+   private synchronized Selector selector() throws IOException {
+      checkState(!closed, "socket prober is closed");
+      if (selector == null) {
+         final Selector opened = Selector.open();
+         thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+               select(opened);
+            }
+         }, "socket prober");
+         thread.setDaemon(true);
+         thread.start();
+         selector = opened;
+      }
+      return selector;
+   }
+
+   private void select(Selector selector) {
+      try {
+         while (!Thread.currentThread().isInterrupted()) {
+            for (Probe probe = toRegister.poll(); probe != null; probe = toRegister.poll()) {
+               try {
+                  probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+               } catch (IOException e) {
+                  probe.complete(false);
+               }
+            }
+            selector.select(TICK_MILLIS);
+            for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext();) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               Probe probe = (Probe) key.attachment();
+               try {
+                  if (probe.channel.finishConnect()) {
+                     logger.trace("socket %s open", probe.socket);
+                     probe.complete(true);
+                  }
+               } catch (IOException e) {
+                  logger.trace("socket %s closed: %s", probe.socket, e.getMessage());
+                  probe.complete(false);
+               }
+            }
+            long now = System.nanoTime();
+            for (SelectionKey key : selector.keys()) {
+               Probe probe = (Probe) key.attachment();
+               if (key.isValid() && now - probe.deadline >= 0)
+                  probe.complete(false);
+            }
+         }
+      } catch (IOException e) {
+         logger.warn(e, "socket prober stopped");
+      } finally {
+         for (SelectionKey key : selector.keys())
+            ((Probe) key.attachment()).complete(false);
+         for (Probe probe = toRegister.poll(); probe != null; probe = toRegister.poll())
+            probe.complete(false);
+         try {
+            selector.close();
+         } catch (IOException e) {
+            // no work to do
+         }
+      }
+   }
+
+   @Override
+   public synchronized void close() {
+      closed = true;
+      if (thread != null) {
+         thread.interrupt();
+         selector.wakeup();
+      }
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.domain.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.Map;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.compute.domain.internal.ImageCatalog.Attribute;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "ImageCatalogTest")
+public class ImageCatalogTest {
+
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region").description("region")
+         .build();
+   private final Location other = new LocationBuilder().scope(LocationScope.REGION).id("other").description("other")
+         .build();
+
+   private final Image ubuntu64 = image("1", region, OsFamily.UBUNTU, "12.04", true);
+   private final Image centos64 = image("2", region, OsFamily.CENTOS, "6.5", true);
+   private final Image ubuntu32 = image("3", region, OsFamily.UBUNTU, "12.04", false);
+   private final Image ubuntuElsewhere = image("4", other, OsFamily.UBUNTU, "14.04", true);
+   private final Image unknown = image("5", null, null, null, true);
+
+   private final ImageCatalog catalog = ImageCatalog.of(ImmutableList.of(ubuntu64, centos64, ubuntu32,
+         ubuntuElsewhere, unknown));
+
+   private static Image image(String id, Location location, OsFamily family, String version, boolean is64Bit) {
+      OperatingSystem os = OperatingSystem.builder().family(family).version(version).description("os")
+            .is64Bit(is64Bit).build();
+      return new ImageBuilder().id(id).name("image" + id).operatingSystem(os).status(Image.Status.AVAILABLE)
+            .location(location).build();
+   }
+
+   private static Predicate<Image> is(final Attribute attribute, final Object value) {
+      return new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            return value.equals(attribute.apply(input));
+         }
+      };
+   }
+
+   public void testNoCriteriaReturnsAllImagesInOrder() {
+      assertEquals(catalog.candidates(ImmutableMap.<Attribute, Predicate<Image>> of()),
+            ImmutableList.copyOf(catalog.getImages()));
+   }
+
+   public void testCriteriaAreIntersected() {
+      Map<Attribute, Predicate<Image>> criteria = ImmutableMap.of(Attribute.OS_FAMILY,
+            is(Attribute.OS_FAMILY, OsFamily.UBUNTU), Attribute.OS_64_BIT, is(Attribute.OS_64_BIT, true));
+      assertEquals(catalog.candidates(criteria), ImmutableList.of(ubuntu64, ubuntuElsewhere));
+   }
+
+   public void testGroupsWithNullValuesAreMatchedByTheCriteria() {
+      Map<Attribute, Predicate<Image>> criteria = ImmutableMap.<Attribute, Predicate<Image>> of(Attribute.LOCATION,
+            new Predicate<Image>() {
+               @Override
+               public boolean apply(Image input) {
+                  return input.getLocation() == null || input.getLocation().equals(region);
+               }
+            });
+      assertEquals(catalog.candidates(criteria), ImmutableList.of(ubuntu64, centos64, ubuntu32, unknown));
+   }
+
+   public void testCriteriaAreEvaluatedOncePerGroup() {
+      final int[] evaluations = new int[1];
+      catalog.candidates(ImmutableMap.<Attribute, Predicate<Image>> of(Attribute.OS_VERSION, new Predicate<Image>() {
+         @Override
+         public boolean apply(Image input) {
+            evaluations[0]++;
+            return true;
+         }
+      }));
+      // 12.04, 6.5, 14.04 and null
+      assertEquals(evaluations[0], 4);
+   }
+
+   public void testNoMatchReturnsEmptyList() {
+      Map<Attribute, Predicate<Image>> criteria = ImmutableMap.of(Attribute.OS_FAMILY,
+            is(Attribute.OS_FAMILY, OsFamily.CENTOS), Attribute.LOCATION, is(Attribute.LOCATION, other));
+      assertEquals(catalog.candidates(criteria), ImmutableList.of());
+   }
+
+   public void testGetById() {
+      assertSame(catalog.get("3"), ubuntu32);
+      assertNull(catalog.get("missing"));
+   }
+
+   public void testDuplicatesAreRemoved() {
+      assertEquals(ImageCatalog.of(ImmutableList.of(ubuntu64, ubuntu64)).getImages(), ImmutableSet.of(ubuntu64));
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.internal;
+
+import static org.jclouds.compute.predicates.NodePredicates.TERMINATED;
+import static org.jclouds.compute.predicates.NodePredicates.all;
+import static org.jclouds.compute.predicates.NodePredicates.inGroup;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.compute.ComputeService;
+import org.jclouds.compute.ComputeServiceContext;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.strategy.DestroyNodeStrategy;
+import org.jclouds.compute.strategy.SubmitDestroyNodeStrategy;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.AbstractModule;
+import com.google.inject.Module;
+
+@Test(groups = "unit", testName = "BaseComputeServiceTest")
+public class BaseComputeServiceTest {
+
+   static class RecordingSubmitDestroyNodeStrategy implements SubmitDestroyNodeStrategy {
+      static final Set<String> submitted = Sets.newConcurrentHashSet();
+      private final DestroyNodeStrategy destroyNodeStrategy;
+
+      @Inject
+      RecordingSubmitDestroyNodeStrategy(DestroyNodeStrategy destroyNodeStrategy) {
+         this.destroyNodeStrategy = destroyNodeStrategy;
+      }
+
+      @Override
+      public ListenableFuture<Void> destroyNode(String id) {
+         submitted.add(id);
+         destroyNodeStrategy.destroyNode(id);
+         return Futures.immediateFuture(null);
+      }
+   }
+
+   public void testDestroyNodesMatchingGoesThroughSubmitDestroyNodeStrategyWhenBound() throws Exception {
+      ComputeServiceContext context = ContextBuilder.newBuilder("stub")
+            .modules(ImmutableSet.<Module> of(new AbstractModule() {
+               @Override
+               protected void configure() {
+                  bind(SubmitDestroyNodeStrategy.class).to(RecordingSubmitDestroyNodeStrategy.class);
+               }
+            })).buildView(ComputeServiceContext.class);
+      try {
+         ComputeService compute = context.getComputeService();
+         Set<String> created = Sets.newHashSet();
+         for (NodeMetadata node : compute.createNodesInGroup("submit", 3))
+            created.add(node.getId());
+
+         Set<String> destroyed = Sets.newHashSet();
+         for (NodeMetadata node : compute.destroyNodesMatching(inGroup("submit")))
+            destroyed.add(node.getId());
+
+         assertEquals(destroyed, created);
+         assertEquals(RecordingSubmitDestroyNodeStrategy.submitted, created);
+         assertEquals(Iterables.size(Iterables.filter(compute.listNodesDetailsMatching(all()),
+               Predicates.and(inGroup("submit"), Predicates.not(TERMINATED)))), 0);
+      } finally {
+         context.close();
+      }
+   }
+}
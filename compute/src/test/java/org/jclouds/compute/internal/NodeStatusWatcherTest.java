@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.GetNodeMetadataStrategy;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+@Test(groups = "unit", testName = "NodeStatusWatcherTest", singleThreaded = true)
+public class NodeStatusWatcherTest {
+
+   private final ExecutorService executor = Executors.newCachedThreadPool();
+
+   @AfterClass
+   void shutdown() {
+      executor.shutdownNow();
+   }
+
+   private static NodeMetadata node(String id) {
+      return new NodeMetadataBuilder().id(id).status(Status.RUNNING).build();
+   }
+
+   /**
+    * Lists the nodes it knows, and counts its calls.
+    */
+   private static class FakeProvider implements ListNodesStrategy, GetNodeMetadataStrategy {
+      private final Map<String, NodeMetadata> nodes = Maps.newConcurrentMap();
+      private final List<Iterable<String>> listed = Lists.newCopyOnWriteArrayList();
+      private final List<String> got = Lists.newCopyOnWriteArrayList();
+      private boolean listingFails;
+
+      FakeProvider(String... ids) {
+         for (String id : ids)
+            nodes.put(id, node(id));
+      }
+
+      @Override
+      public NodeMetadata getNode(String id) {
+         got.add(id);
+         return nodes.get(id);
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
+         listed.add(ImmutableSet.copyOf(ids));
+         if (listingFails)
+            throw new IllegalStateException("listing failed");
+         List<NodeMetadata> result = Lists.newArrayList();
+         for (String id : ids) {
+            if (nodes.containsKey(id))
+               result.add(nodes.get(id));
+         }
+         return result;
+      }
+
+      @Override
+      public Iterable<? extends ComputeMetadata> listNodes() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Iterable<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<ComputeMetadata> filter) {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   private static NodeStatusWatcher watcher(FakeProvider provider, long initialPeriod, long maxPeriod) {
+      PollPeriod period = new PollPeriod();
+      period.pollInitialPeriod = initialPeriod;
+      period.pollMaxPeriod = maxPeriod;
+      return new NodeStatusWatcher(provider, provider, period);
+   }
+
+   /**
+    * Polls once first, so that the callers below arrive while the next poll waits and are refreshed together.
+    */
+   private Map<String, NodeMetadata> getConcurrently(final NodeStatusWatcher watcher, String... ids) throws Exception {
+      watcher.getNode("warm-up");
+      Map<String, Future<NodeMetadata>> futures = Maps.newLinkedHashMap();
+      for (final String id : ids) {
+         futures.put(id, executor.submit(new Callable<NodeMetadata>() {
+            @Override
+            public NodeMetadata call() {
+               return watcher.getNode(id);
+            }
+         }));
+      }
+      Map<String, NodeMetadata> nodes = Maps.newLinkedHashMap();
+      for (Map.Entry<String, Future<NodeMetadata>> entry : futures.entrySet())
+         nodes.put(entry.getKey(), entry.getValue().get());
+      return nodes;
+   }
+
+   public void testSingleNodeIsRefreshedWithGetNode() {
+      FakeProvider provider = new FakeProvider("a");
+      assertEquals(watcher(provider, 1, 10).getNode("a"), node("a"));
+      assertEquals(provider.got, ImmutableList.of("a"));
+      assertEquals(provider.listed.size(), 0);
+   }
+
+   public void testPollsFirstThenWaitsBeforeTheNextPoll() {
+      NodeStatusWatcher watcher = watcher(new FakeProvider("a"), 300, 1000);
+      Stopwatch watch = Stopwatch.createStarted();
+      watcher.getNode("a");
+      assertTrue(watch.elapsed(TimeUnit.MILLISECONDS) < 300, "first poll waited " + watch);
+      watcher.getNode("a");
+      // sleeps may wake a little early
+      assertTrue(watch.elapsed(TimeUnit.MILLISECONDS) >= 250, "second poll did not wait: " + watch);
+   }
+
+   public void testConcurrentWaitsShareOneListing() throws Exception {
+      FakeProvider provider = new FakeProvider("a", "b", "c", "d");
+      Map<String, NodeMetadata> nodes = getConcurrently(watcher(provider, 500, 2000), "a", "b", "c", "d");
+      assertEquals(nodes.get("c"), node("c"));
+      assertEquals(provider.listed, ImmutableList.of(ImmutableSet.of("a", "b", "c", "d")));
+      assertEquals(provider.got, ImmutableList.of("warm-up"));
+   }
+
+   public void testNodeMissingFromListingIsConfirmedWithGetNode() throws Exception {
+      FakeProvider provider = new FakeProvider("a", "b");
+      Map<String, NodeMetadata> nodes = getConcurrently(watcher(provider, 500, 2000), "a", "b", "gone");
+      assertEquals(nodes.get("a"), node("a"));
+      assertNull(nodes.get("gone"));
+      assertEquals(provider.listed.size(), 1);
+      assertEquals(provider.got, ImmutableList.of("warm-up", "gone"));
+   }
+
+   public void testFailedListingFallsBackToGetNode() throws Exception {
+      FakeProvider provider = new FakeProvider("a", "b");
+      provider.listingFails = true;
+      Map<String, NodeMetadata> nodes = getConcurrently(watcher(provider, 500, 2000), "a", "b");
+      assertEquals(nodes.get("b"), node("b"));
+      assertEquals(ImmutableSet.copyOf(provider.got), ImmutableSet.of("warm-up", "a", "b"));
+   }
+
+   public void testIntervalGrowsWithPendingNodesUpToMaxPeriod() {
+      NodeStatusWatcher watcher = watcher(new FakeProvider(), 50, 1000);
+      assertEquals(watcher.interval(1), 50);
+      assertEquals(watcher.interval(4), 200);
+      assertEquals(watcher.interval(300), 1000);
+   }
+}
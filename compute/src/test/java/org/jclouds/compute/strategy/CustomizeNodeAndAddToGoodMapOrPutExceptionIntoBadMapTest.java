@@ -48,6 +48,7 @@ import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Atomics;
 
 @Test(groups = "unit", testName = "CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapTest")
+@SuppressWarnings("deprecation")
 public class CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMapTest {
 
    public void testBreakOnIllegalStateExceptionDuringPollNode() {
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.config.CustomizationResponse;
+import org.jclouds.compute.domain.Hardware;
+import org.jclouds.compute.domain.HardwareBuilder;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.domain.internal.TemplateImpl;
+import org.jclouds.compute.functions.TemplateOptionsToStatement;
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.strategy.ProvisioningPipeline.Stage;
+import org.jclouds.compute.strategy.ProvisioningPipeline.StageMetrics;
+import org.jclouds.compute.util.OpenSocketFinder;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "ProvisioningPipelineTest", singleThreaded = true)
+public class ProvisioningPipelineTest {
+
+   private final NodeMetadata pendingNode = new NodeMetadataBuilder().ids("id").status(Status.PENDING).build();
+   private final NodeMetadata runningNode = new NodeMetadataBuilder().ids("id").status(Status.RUNNING).build();
+
+   private final Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>> becomesRunning = new Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>>() {
+
+      @Override
+      public AtomicReference<NodeMetadata> apply(AtomicReference<NodeMetadata> node) {
+         node.set(runningNode);
+         return node;
+      }
+   };
+
+   private final Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>> staysPending = new Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>>() {
+
+      @Override
+      public AtomicReference<NodeMetadata> apply(AtomicReference<NodeMetadata> node) {
+         throw new IllegalStateException("bad state!");
+      }
+   };
+
+   private ListeningExecutorService userExecutor;
+
+   @BeforeClass
+   void startExecutor() {
+      userExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+   }
+
+   @AfterClass(alwaysRun = true)
+   void stopExecutor() {
+      userExecutor.shutdownNow();
+   }
+
+   private ProvisioningPipeline pipeline(ListeningExecutorService executor,
+         Function<AtomicReference<NodeMetadata>, AtomicReference<NodeMetadata>> pollNodeRunning,
+         OpenSocketFinder openSocketFinder) {
+      return new ProvisioningPipeline(executor, pollNodeRunning, openSocketFinder, new TemplateOptionsToStatement(),
+            createMock(InitializeRunScriptOnNodeOrPlaceInBadMap.Factory.class));
+   }
+
+   private Template template() {
+      Location location = new LocationBuilder().scope(LocationScope.PROVIDER).id("location")
+            .description("location").build();
+      Image image = new ImageBuilder().id("imageId").providerId("imageId").name("imageName")
+            .operatingSystem(OperatingSystem.builder().description("os").build()).status(Image.Status.AVAILABLE)
+            .location(location).build();
+      Hardware hardware = new HardwareBuilder().id("hardwareId").providerId("hardwareId").build();
+      return new TemplateImpl(image, hardware, location, new TemplateOptions());
+   }
+
+   public void testStageRunsNoMoreThanItsThreadsAtATime() throws Exception {
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, createMock(OpenSocketFinder.class));
+      pipeline.createThreads = 2;
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch started = new CountDownLatch(2);
+      ImmutableList.Builder<ListenableFuture<Integer>> futures = ImmutableList.builder();
+      for (int i = 0; i < 6; i++) {
+         final int task = i;
+         futures.add(pipeline.submit(Stage.CREATE, new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws InterruptedException {
+               int now = running.incrementAndGet();
+               while (true) {
+                  int max = maxRunning.get();
+                  if (now <= max || maxRunning.compareAndSet(max, now))
+                     break;
+               }
+               started.countDown();
+               release.await(10, TimeUnit.SECONDS);
+               running.decrementAndGet();
+               return task;
+            }
+         }));
+      }
+      // both tasks the limit allows are running before any is released
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      StageMetrics queued = pipeline.getMetrics().get(Stage.CREATE);
+      assertEquals(queued.getQueued() + queued.getRunning() + queued.getCompleted(), 6);
+      assertTrue(queued.getRunning() <= 2, queued.toString());
+      release.countDown();
+
+      assertEquals(Futures.allAsList(futures.build()).get(10, TimeUnit.SECONDS), ImmutableList.of(0, 1, 2, 3, 4, 5));
+      assertEquals(maxRunning.get(), 2);
+      StageMetrics create = pipeline.getMetrics().get(Stage.CREATE);
+      assertEquals(create.getCompleted(), 6);
+      assertEquals(create.getFailures(), 0);
+      assertEquals(create.getQueued(), 0);
+      assertEquals(create.getRunning(), 0);
+      assertEquals(create.getQueueTime().getCount(), 6);
+      assertTrue(create.getThroughput() > 0, create.toString());
+   }
+
+   public void testStageWithoutLimitRunsEveryTaskAtOnce() throws Exception {
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, createMock(OpenSocketFinder.class));
+      final CyclicBarrier barrier = new CyclicBarrier(4);
+      ImmutableList.Builder<ListenableFuture<Integer>> futures = ImmutableList.builder();
+      for (int i = 0; i < 4; i++) {
+         futures.add(pipeline.submit(Stage.CREATE, new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+               // only returns once all four tasks run at the same time
+               return barrier.await(10, TimeUnit.SECONDS);
+            }
+         }));
+      }
+      assertEquals(ImmutableSet.copyOf(Futures.allAsList(futures.build()).get(10, TimeUnit.SECONDS)),
+            ImmutableSet.of(0, 1, 2, 3));
+   }
+
+   public void testStagesAfterCreateAreLimitedByDefault() {
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, createMock(OpenSocketFinder.class));
+      assertEquals(pipeline.threads(Stage.CREATE), 0);
+      assertEquals(pipeline.threads(Stage.RUNNING), 50);
+      assertEquals(pipeline.threads(Stage.SCRIPT), 20);
+      assertEquals(pipeline.threads(Stage.PORT), 50);
+   }
+
+   public void testBurstWaitsInLineOfDefaultLimits() throws Exception {
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, createMock(OpenSocketFinder.class));
+      for (Stage stage : ImmutableList.of(Stage.RUNNING, Stage.SCRIPT, Stage.PORT)) {
+         int limit = pipeline.threads(stage);
+         int burst = limit * 4;
+         final AtomicInteger running = new AtomicInteger();
+         final AtomicInteger maxRunning = new AtomicInteger();
+         final CountDownLatch release = new CountDownLatch(1);
+         final CountDownLatch started = new CountDownLatch(limit);
+         ImmutableList.Builder<ListenableFuture<Void>> futures = ImmutableList.builder();
+         for (int i = 0; i < burst; i++) {
+            futures.add(pipeline.submit(stage, new Callable<Void>() {
+
+               @Override
+               public Void call() throws InterruptedException {
+                  int now = running.incrementAndGet();
+                  while (true) {
+                     int max = maxRunning.get();
+                     if (now <= max || maxRunning.compareAndSet(max, now))
+                        break;
+                  }
+                  started.countDown();
+                  release.await(10, TimeUnit.SECONDS);
+                  running.decrementAndGet();
+                  return null;
+               }
+            }));
+         }
+         assertTrue(started.await(10, TimeUnit.SECONDS), stage.toString());
+         StageMetrics during = pipeline.getMetrics().get(stage);
+         assertEquals(during.getRunning(), limit, during.toString());
+         assertEquals(during.getQueued(), burst - limit, during.toString());
+         release.countDown();
+
+         assertEquals(Futures.allAsList(futures.build()).get(10, TimeUnit.SECONDS).size(), burst);
+         assertEquals(maxRunning.get(), limit, stage.toString());
+         assertEquals(pipeline.getMetrics().get(stage).getCompleted(), burst);
+      }
+   }
+
+   public void testCustomizeTakesNodeThroughRunningAndPortStages() throws Exception {
+      OpenSocketFinder openSocketFinder = createMock(OpenSocketFinder.class);
+      expect(openSocketFinder.findOpenSocketOnNode(runningNode, 22, 2, TimeUnit.SECONDS)).andReturn(
+            HostAndPort.fromParts("127.0.0.1", 22));
+      replay(openSocketFinder);
+
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, openSocketFinder);
+      Set<NodeMetadata> goodNodes = Sets.newConcurrentHashSet();
+      Map<NodeMetadata, Exception> badNodes = Maps.newConcurrentMap();
+      Multimap<NodeMetadata, CustomizationResponse> customizationResponses = LinkedHashMultimap.create();
+
+      pipeline.customize(Futures.immediateFuture(new AtomicReference<NodeMetadata>(pendingNode)),
+            new TemplateOptions().blockOnPort(22, 2), goodNodes, badNodes, customizationResponses).get(10,
+            TimeUnit.SECONDS);
+
+      assertEquals(goodNodes, ImmutableSet.of(runningNode));
+      assertEquals(badNodes.size(), 0);
+      assertEquals(customizationResponses.size(), 0);
+      Map<Stage, StageMetrics> metrics = pipeline.getMetrics();
+      assertEquals(metrics.get(Stage.CREATE).getCompleted(), 0);
+      assertEquals(metrics.get(Stage.RUNNING).getCompleted(), 1);
+      assertEquals(metrics.get(Stage.SCRIPT).getCompleted(), 0);
+      assertEquals(metrics.get(Stage.PORT).getCompleted(), 1);
+      verify(openSocketFinder);
+   }
+
+   public void testFailedStagePutsNodeInBadNodesAndSkipsTheRest() throws Exception {
+      OpenSocketFinder openSocketFinder = createMock(OpenSocketFinder.class);
+      replay(openSocketFinder);
+
+      ProvisioningPipeline pipeline = pipeline(userExecutor, staysPending, openSocketFinder);
+      Set<NodeMetadata> goodNodes = Sets.newConcurrentHashSet();
+      Map<NodeMetadata, Exception> badNodes = Maps.newConcurrentMap();
+      Multimap<NodeMetadata, CustomizationResponse> customizationResponses = LinkedHashMultimap.create();
+
+      pipeline.customize(Futures.immediateFuture(new AtomicReference<NodeMetadata>(pendingNode)),
+            new TemplateOptions().blockOnPort(22, 2), goodNodes, badNodes, customizationResponses).get(10,
+            TimeUnit.SECONDS);
+
+      assertEquals(goodNodes.size(), 0);
+      assertEquals(badNodes.keySet(), ImmutableSet.of(pendingNode));
+      assertEquals(badNodes.get(pendingNode).getMessage(), "bad state!");
+      Map<Stage, StageMetrics> metrics = pipeline.getMetrics();
+      assertEquals(metrics.get(Stage.RUNNING).getFailures(), 1);
+      assertEquals(metrics.get(Stage.PORT).getCompleted(), 0);
+      verify(openSocketFinder);
+   }
+
+   public void testCreateFailurePropagates() throws Exception {
+      final NoSuchElementException exception = new NoSuchElementException("no capacity");
+      CreateNodeWithGroupEncodedIntoName strategy = new CreateNodeWithGroupEncodedIntoName() {
+
+         @Override
+         public NodeMetadata createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
+            throw exception;
+         }
+      };
+      ProvisioningPipeline pipeline = pipeline(userExecutor, becomesRunning, createMock(OpenSocketFinder.class));
+      Set<NodeMetadata> goodNodes = Sets.newConcurrentHashSet();
+      Map<NodeMetadata, Exception> badNodes = Maps.newConcurrentMap();
+      Template template = template();
+
+      try {
+         pipeline.customize(pipeline.create(strategy, "group", "group-1", template), template.getOptions(),
+               goodNodes, badNodes, LinkedHashMultimap.<NodeMetadata, CustomizationResponse> create()).get(10,
+               TimeUnit.SECONDS);
+         fail("expected the creation failure");
+      } catch (ExecutionException e) {
+         assertSame(e.getCause(), exception);
+      }
+      assertEquals(goodNodes.size(), 0);
+      assertEquals(badNodes.size(), 0);
+      assertEquals(pipeline.getMetrics().get(Stage.CREATE).getFailures(), 1);
+   }
+
+   public void testCreateWithoutBlockingAddsCreatedNode() throws Exception {
+      CreateNodeWithGroupEncodedIntoName strategy = new CreateNodeWithGroupEncodedIntoName() {
+
+         @Override
+         public NodeMetadata createNodeWithGroupEncodedIntoName(String group, String name, Template template) {
+            return pendingNode;
+         }
+      };
+      ProvisioningPipeline pipeline = pipeline(userExecutor, staysPending, createMock(OpenSocketFinder.class));
+      Set<NodeMetadata> goodNodes = Sets.newConcurrentHashSet();
+      Template template = template();
+
+      pipeline.customize(pipeline.create(strategy, "group", "group-1", template),
+            template.getOptions().blockUntilRunning(false), goodNodes, Maps.<NodeMetadata, Exception> newConcurrentMap(),
+            LinkedHashMultimap.<NodeMetadata, CustomizationResponse> create()).get(10, TimeUnit.SECONDS);
+
+      assertEquals(goodNodes, ImmutableSet.of(pendingNode));
+      assertEquals(pipeline.getMetrics().get(Stage.CREATE).getCompleted(), 1);
+      assertEquals(pipeline.getMetrics().get(Stage.RUNNING).getCompleted(), 0);
+   }
+
+   public void testRejectedTaskFailsItsFuture() throws Exception {
+      ListeningExecutorService stopped = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      stopped.shutdown();
+      ProvisioningPipeline pipeline = pipeline(stopped, becomesRunning, createMock(OpenSocketFinder.class));
+      try {
+         pipeline.submit(Stage.CREATE, new Callable<Void>() {
+
+            @Override
+            public Void call() {
+               return null;
+            }
+         }).get(10, TimeUnit.SECONDS);
+         fail("expected the executor to reject the task");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof RejectedExecutionException, e.toString());
+      }
+      assertEquals(pipeline.getMetrics().get(Stage.CREATE).getRunning(), 0);
+   }
+}
@@ -17,12 +17,16 @@
 package org.jclouds.compute.suppliers;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 import java.util.Set;
 
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.domain.ImageBuilder;
 import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.internal.ImageCatalog;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
@@ -74,4 +78,19 @@ public class ImageCacheSupplierTest {
 
       assertEquals(imageCache.get().size(), 2);
    }
+
+   @Test
+   public void testCatalogIsReusedUntilTheImagesChange() {
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60);
+      ImageCatalog catalog = imageCache.getCatalog();
+      assertSame(imageCache.getCatalog(), catalog);
+      assertSame(imageCache.get(), catalog.getImages());
+      assertSame(imageCache.getCatalog(imageCache.get()), catalog);
+      assertNull(imageCache.getCatalog(images));
+
+      imageCache.registerImage(ImageBuilder.fromImage(image).id("newimage").build());
+
+      assertNotSame(imageCache.getCatalog(), catalog);
+      assertEquals(imageCache.getCatalog().get("newimage").getId(), "newimage");
+   }
 }
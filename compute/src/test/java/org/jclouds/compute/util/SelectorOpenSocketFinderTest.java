@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.util;
+
+import static com.google.common.base.Predicates.alwaysFalse;
+import static com.google.common.base.Predicates.alwaysTrue;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.compute.domain.NodeMetadata.Status.RUNNING;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.lifecycle.Closer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "SelectorOpenSocketFinderTest", singleThreaded = true)
+public class SelectorOpenSocketFinderTest {
+
+   /**
+    * prevent test failures on slow build slaves
+    */
+   private static final long SLOW_GRACE = 700;
+   private static final long EARLY_GRACE = 10;
+
+   private static final String OPEN_IP = "127.0.0.1";
+   private static final String CLOSED_IP = "127.0.0.2";
+
+   private ServerSocket server;
+   private int openPort;
+   private int closedPort;
+   private Closer closer;
+   private SocketChannelProber prober;
+
+   @BeforeClass
+   public void setUp() throws IOException {
+      server = new ServerSocket(0, 200, InetAddress.getByName(OPEN_IP));
+      openPort = server.getLocalPort();
+      ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName(OPEN_IP));
+      closedPort = closed.getLocalPort();
+      closed.close();
+      closer = new Closer();
+      prober = new SocketChannelProber(closer);
+   }
+
+   @AfterClass(alwaysRun = true)
+   public void tearDown() throws IOException {
+      if (closer != null)
+         closer.close();
+      if (server != null)
+         server.close();
+   }
+
+   private final NodeMetadata node = new NodeMetadataBuilder().id("myid").status(RUNNING)
+         .publicAddresses(ImmutableSet.of(CLOSED_IP)).privateAddresses(ImmutableSet.of(OPEN_IP)).build();
+   private final Predicate<AtomicReference<NodeMetadata>> nodeRunning = alwaysTrue();
+   private final Predicate<AtomicReference<NodeMetadata>> nodeNotRunning = alwaysFalse();
+
+   public void testProbesShareOneSelectorThread() throws Exception {
+      List<ListenableFuture<Boolean>> probes = Lists.newArrayList();
+      for (int i = 0; i < 100; i++)
+         probes.add(prober.probe(HostAndPort.fromParts(OPEN_IP, openPort), 2000));
+      assertEquals(ImmutableSet.copyOf(Futures.allAsList(probes).get()), ImmutableSet.of(true));
+      int selectorThreads = 0;
+      for (Thread thread : Thread.getAllStackTraces().keySet()) {
+         if (thread.getName().equals("socket prober"))
+            selectorThreads++;
+      }
+      assertTrue(selectorThreads <= 1, "selector threads: " + selectorThreads);
+   }
+
+   public void testClosedSocketProbesFalse() throws Exception {
+      assertFalse(prober.probe(HostAndPort.fromParts(OPEN_IP, closedPort), 2000).get());
+      assertNull(prober.firstOpen(ImmutableList.of(HostAndPort.fromParts(OPEN_IP, closedPort)), 2000).get());
+   }
+
+   public void testReturnsReachable() {
+      SelectorOpenSocketFinder finder = new SelectorOpenSocketFinder(prober, nodeRunning);
+      HostAndPort result = finder.findOpenSocketOnNode(node, openPort, 2000, MILLISECONDS);
+      assertEquals(result, HostAndPort.fromParts(OPEN_IP, openPort));
+   }
+
+   public void testRespectsTimeout() {
+      final long timeoutMs = 1000;
+      SelectorOpenSocketFinder finder = new SelectorOpenSocketFinder(prober, nodeRunning);
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      try {
+         finder.findOpenSocketOnNode(node, closedPort, timeoutMs, MILLISECONDS);
+         fail();
+      } catch (NoSuchElementException success) {
+         // expected
+      }
+      long timetaken = stopwatch.elapsed(MILLISECONDS);
+      assertTrue(timetaken >= timeoutMs - EARLY_GRACE && timetaken <= timeoutMs + SLOW_GRACE, "timetaken=" + timetaken);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = ".*no longer running.*")
+   public void testAbortsWhenNodeNoLongerRunning() {
+      SelectorOpenSocketFinder finder = new SelectorOpenSocketFinder(prober, nodeNotRunning);
+      finder.findOpenSocketOnNode(node, closedPort, 2000, MILLISECONDS);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testClosedProberRejectsProbes() throws IOException {
+      Closer closer = new Closer();
+      SocketChannelProber closedProber = new SocketChannelProber(closer);
+      closer.close();
+      closedProber.probe(HostAndPort.fromParts(OPEN_IP, closedPort), 2000);
+   }
+}
@@ -58,10 +58,21 @@ public final class Constants {
     * Integer property. default (0)
     * <p/>
     * Limits the amount of connections per host. 0 means indirectly limited by
-    * {@link #PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}.
+    * {@link #PROPERTY_MAX_CONNECTIONS_PER_CONTEXT}. Requests over the limit wait, in arrival order, for a
+    * request to the same host to complete.
+    * 
+    * @see #PROPERTY_CONNECTION_QUEUE_TIMEOUT
     */
    public static final String PROPERTY_MAX_CONNECTIONS_PER_HOST = "jclouds.max-connections-per-host";
 
+   /**
+    * Long property. default (0)
+    * <p/>
+    * How many milliseconds a request waits for a connection to its host when
+    * {@link #PROPERTY_MAX_CONNECTIONS_PER_HOST} are already in use. 0 means infinity.
+    */
+   public static final String PROPERTY_CONNECTION_QUEUE_TIMEOUT = "jclouds.connection-queue-timeout";
+
    /**
     * Integer property. default (2)
     * <p/>
@@ -166,6 +177,68 @@ public final class Constants {
     * backoff algorithm. Default value for this property is 50 milliseconds.
     */
    public static final String PROPERTY_RETRY_DELAY_START = "jclouds.retries-delay-start";
+   /**
+    * Double property. default (0.2)
+    * <p/>
+    * Retries to an endpoint are limited to this fraction of the requests that succeeded against it in the last ten
+    * seconds, on top of {@link #PROPERTY_RETRY_BUDGET_MIN_RETRIES}. This keeps retries from multiplying the load on an
+    * endpoint that is failing. A negative value disables the budget.
+    */
+   public static final String PROPERTY_RETRY_BUDGET_RATIO = "jclouds.retry-budget.ratio";
+   /**
+    * Integer property. default (10)
+    * <p/>
+    * Retries per second to an endpoint that are always allowed, regardless of
+    * {@link #PROPERTY_RETRY_BUDGET_RATIO}, so that endpoints with little traffic can still be retried.
+    */
+   public static final String PROPERTY_RETRY_BUDGET_MIN_RETRIES = "jclouds.retry-budget.min-retries-per-second";
+   /**
+    * Double property. default (0)
+    * <p/>
+    * Once this fraction of the requests to an endpoint in the last ten seconds failed with a server error or an
+    * {@link java.io.IOException}, the circuit breaker opens and requests to the endpoint fail fast for
+    * {@link #PROPERTY_CIRCUIT_BREAKER_OPEN_TIME}. 0 disables the circuit breaker.
+    * 
+    * @see #PROPERTY_CIRCUIT_BREAKER_MIN_REQUESTS
+    */
+   public static final String PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE = "jclouds.circuit-breaker.failure-rate";
+   /**
+    * Integer property. default (20)
+    * <p/>
+    * The circuit breaker of an endpoint only opens after this many requests to it in the last ten seconds.
+    */
+   public static final String PROPERTY_CIRCUIT_BREAKER_MIN_REQUESTS = "jclouds.circuit-breaker.min-requests";
+   /**
+    * Long property. default (10000)
+    * <p/>
+    * Milliseconds an open circuit breaker fails requests before it lets a single request through to probe the
+    * endpoint.
+    */
+   public static final String PROPERTY_CIRCUIT_BREAKER_OPEN_TIME = "jclouds.circuit-breaker.open-time";
+   /**
+    * Double property. default (0)
+    * <p/>
+    * Requests per second allowed to each host and api before the provider ever throttled us. 0 means no limit until
+    * a throttling response is received; from then on the rate adapts to the one the provider allows.
+    * 
+    * @see org.jclouds.http.handlers.AdaptiveRateLimiter
+    */
+   public static final String PROPERTY_RATE_LIMIT = "jclouds.rate-limit";
+   /**
+    * Double property. default (1)
+    * <p/>
+    * Throttling responses never lower the rate of a host and api below this many requests per second.
+    */
+   public static final String PROPERTY_RATE_LIMIT_MIN = "jclouds.rate-limit.min";
+   /**
+    * Integer property. default (0)
+    * <p/>
+    * Maximum number of parsed responses kept for api methods annotated with
+    * {@link org.jclouds.rest.annotations.Cacheable}. 0 disables the response cache.
+    *
+    * @see org.jclouds.rest.internal.ResponseCache
+    */
+   public static final String PROPERTY_RESPONSE_CACHE_SIZE = "jclouds.response-cache.size";
    /**
     * Integer property.
     * <p/>
@@ -312,6 +385,24 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_PARALLEL_DELETES = "jclouds.max-parallel-deletes";
 
+   /**
+    * Integer property. default (10)
+    * <p/>
+    * The maximum number of regions or zones a region-scoped listing calls at the same time. 1 calls them one after
+    * another.
+    *
+    * @see org.jclouds.concurrent.RegionFanOut
+    */
+   public static final String PROPERTY_REGION_PARALLELISM = "jclouds.region-parallelism";
+
+   /**
+    * Long property. default (120000)
+    * <p/>
+    * Milliseconds a region-scoped listing waits for the call to a single region or zone before it reports that region
+    * as failed. 0 waits as long as the call takes.
+    */
+   public static final String PROPERTY_REGION_TIMEOUT = "jclouds.region-timeout";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -17,6 +17,7 @@
 package org.jclouds;
 
 import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.containsPattern;
 import static com.google.common.base.Predicates.instanceOf;
@@ -59,6 +60,7 @@ import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.config.BindApiContextWithWildcardExtendsExplicitAndRawType;
 import org.jclouds.config.BindNameToContext;
 import org.jclouds.config.BindPropertiesToExpandedValues;
+import org.jclouds.config.SharedParentInjector;
 import org.jclouds.domain.Credentials;
 import org.jclouds.events.config.ConfiguresEventBus;
 import org.jclouds.events.config.EventBusModule;
@@ -82,6 +84,7 @@ import org.jclouds.rest.config.HttpApiModule;
 import org.jclouds.rest.config.RestModule;
 import org.jclouds.rest.internal.InvokeHttpMethod;
 
+import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
@@ -98,12 +101,15 @@ import com.google.common.collect.Iterables;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.ExecutionList;
 import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Stage;
 import com.google.inject.TypeLiteral;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
 
 /**
  * Creates {@link Context} or {@link Injector} configured to an api and
@@ -160,6 +166,13 @@ public class ContextBuilder {
     *            if the id was not configured.
     */
    public static ContextBuilder newBuilder(String providerOrApi) throws NoSuchElementException {
+      // both build-time indexes are consulted before either ServiceLoader scan
+      Optional<ProviderMetadata> indexedProvider = Providers.indexedWithId(providerOrApi);
+      if (indexedProvider.isPresent())
+         return ContextBuilder.newBuilder(indexedProvider.get());
+      Optional<ApiMetadata> indexedApi = Apis.indexedWithId(providerOrApi);
+      if (indexedApi.isPresent())
+         return ContextBuilder.newBuilder(indexedApi.get());
       try {
          try {
             return ContextBuilder.newBuilder(Providers.withId(providerOrApi));
@@ -204,6 +217,7 @@ public class ContextBuilder {
    protected String buildVersion;
    protected Optional<Properties> overrides = Optional.absent();
    protected List<Module> modules = newArrayListWithCapacity(3);
+   protected Optional<Injector> sharedParent = Optional.absent();
 
    @Override
    public String toString() {
@@ -284,6 +298,24 @@ public class ContextBuilder {
       return this;
    }
 
+   /**
+    * Builds the context as a child injector that reuses the credential-independent singletons of an injector built
+    * for the same api or provider, modules and overrides, instead of creating new ones. These include the executors,
+    * {@code Gson}, the SAX parser factory and the per-host connection limits. Use this to cheaply build a context per
+    * set of credentials.
+    * <p/>
+    * The parent owns the shared singletons, so it must not be closed before the contexts built against it.
+    * 
+    * @throws IllegalArgumentException
+    *            on build, if the parent was built for another api or provider
+    * @see SharedParentInjector
+    */
+   @Beta
+   public ContextBuilder sharedParent(Injector parent) {
+      this.sharedParent = Optional.of(checkNotNull(parent, "parent"));
+      return this;
+   }
+
    public static String searchPropertiesForProviderScopedProperty(Properties mutable, String prov, String key) throws NoSuchElementException {
       try {
          return find(newArrayList(mutable.getProperty(prov + "." + key), mutable.getProperty("jclouds." + key)),
@@ -325,7 +357,7 @@ public class ContextBuilder {
       // is used to be something readable.
       return buildInjector(name.or(String.valueOf(Objects.hashCode(providerMetadata.getId(),
             providerMetadata.getEndpoint(), providerMetadata.getApiMetadata().getVersion(), credentialsSupplier))),
-            providerMetadata, credentialsSupplier, modules);
+            providerMetadata, credentialsSupplier, modules, sharedParent);
    }
 
    protected Supplier<Credentials> buildCredentialsSupplier(Properties expanded) {
@@ -383,6 +415,11 @@ public class ContextBuilder {
    }
 
    public static Injector buildInjector(String name, ProviderMetadata providerMetadata, Supplier<Credentials> creds, List<Module> inputModules) {
+      return buildInjector(name, providerMetadata, creds, inputModules, Optional.<Injector> absent());
+   }
+
+   static Injector buildInjector(String name, ProviderMetadata providerMetadata, Supplier<Credentials> creds,
+         List<Module> inputModules, Optional<Injector> sharedParent) {
       List<Module> modules = newArrayList();
       modules.addAll(inputModules);
       boolean apiModuleSpecifiedByUser = apiModulePresent(inputModules);
@@ -399,11 +436,36 @@ public class ContextBuilder {
       modules.add(new LifeCycleModule());
       modules.add(new BindProviderMetadataContextAndCredentials(providerMetadata, creds));
       modules.add(new BindNameToContext(name));
-      Injector returnVal = Guice.createInjector(GUICE_STAGE, modules);
+      Injector returnVal = sharedParent.isPresent() ? buildChildInjector(sharedParent.get(), providerMetadata,
+            modules) : Guice.createInjector(GUICE_STAGE, modules);
       returnVal.getInstance(ExecutionList.class).execute();
       return returnVal;
    }
 
+   /**
+    * Creates the context as a child of the injector shared by the contexts built against {@code parent}, with only
+    * the bindings that injector does not have.
+    */
+   private static Injector buildChildInjector(Injector parent, ProviderMetadata providerMetadata, List<Module> modules) {
+      Binding<ProviderMetadata> parentMetadata = parent.getExistingBinding(Key.get(ProviderMetadata.class));
+      checkArgument(parentMetadata != null, "the shared parent was not built by a ContextBuilder");
+      ProviderMetadata parentProvider = parentMetadata.getProvider().get();
+      checkArgument(parentProvider.getId().equals(providerMetadata.getId())
+            && parentProvider.getApiMetadata().getId().equals(providerMetadata.getApiMetadata().getId()),
+            "the shared parent was built for provider %s of api %s, not provider %s of api %s",
+            parentProvider.getId(), parentProvider.getApiMetadata().getId(), providerMetadata.getId(),
+            providerMetadata.getApiMetadata().getId());
+      Injector shared = parent.getInstance(SharedParentInjector.class).get();
+      final Set<Key<?>> sharedKeys = shared.getBindings().keySet();
+      Iterable<Element> elements = filter(Elements.getElements(GUICE_STAGE, modules), new Predicate<Element>() {
+         @Override
+         public boolean apply(Element input) {
+            return !(input instanceof Binding && sharedKeys.contains(Binding.class.cast(input).getKey()));
+         }
+      });
+      return shared.createChildInjector(Elements.getModule(elements));
+   }
+
    static Properties resolveProperties(Properties mutable, String providerId, Set<String> keys, Set<String> optionalKeys) throws NoSuchElementException {
       for (String key : keys) {
          String scopedProperty = Iterables.get(Splitter.on('.').split(key), 1);
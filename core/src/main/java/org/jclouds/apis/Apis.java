@@ -25,9 +25,12 @@ import java.util.NoSuchElementException;
 import java.util.ServiceLoader;
 
 import org.jclouds.View;
+import org.jclouds.internal.MetadataIndex;
 import org.jclouds.osgi.ApiRegistry;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -52,6 +55,8 @@ public class Apis {
       return IdFunction.INSTANCE;
    }
 
+   private static final MetadataIndex<ApiMetadata> INDEX = MetadataIndex.create(ApiMetadata.class, idFunction());
+
    /**
     * Returns the apis located on the classpath via {@link java.util.ServiceLoader}.
     * 
@@ -73,7 +78,8 @@ public class Apis {
    }
 
    /**
-    * Returns the first api with the provided id
+    * Returns the first api with the provided id. The build-time index is consulted first, so that only the matching
+    * api is instantiated; anything it does not cover is found by scanning {@link #all()}.
     * 
     * @param id
     *           the id of the api to return
@@ -84,8 +90,24 @@ public class Apis {
     *            whenever there are no apis with the provided id
     */
    public static ApiMetadata withId(String id) throws NoSuchElementException {
+      Optional<ApiMetadata> indexed = indexedWithId(id);
+      if (indexed.isPresent())
+         return indexed.get();
       return find(all(), ApiPredicates.id(id));
    }
+
+   /**
+    * Looks the api up in the build-time index only, without scanning {@link #all()}.
+    * 
+    * @param id
+    *           the id of the api to return
+    * 
+    * @return the api with the given id, or absent if it is not indexed
+    */
+   @Beta
+   public static Optional<ApiMetadata> indexedWithId(String id) {
+      return INDEX.find(id);
+   }
    
    /**
     * Returns all apis who's contexts are assignable from the parameter
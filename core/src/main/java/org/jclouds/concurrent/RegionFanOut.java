@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static org.jclouds.Constants.PROPERTY_REGION_PARALLELISM;
+import static org.jclouds.Constants.PROPERTY_REGION_TIMEOUT;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.util.Throwables2.propagateAuthorizationOrOriginalException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Calls a function for each region or zone concurrently, so that listing resources across regions takes as long as
+ * the slowest region rather than the sum of all of them.
+ * <p/>
+ * At most {@link org.jclouds.Constants#PROPERTY_REGION_PARALLELISM} regions are called at once, and each call is
+ * given {@link org.jclouds.Constants#PROPERTY_REGION_TIMEOUT} to complete. A region that fails or times out does not
+ * fail the others: its error is reported in the {@link Results} next to the values of the regions that succeeded.
+ * The calling thread waits for the calls itself, so a fan-out only takes threads of the user executor for the regions
+ * being called.
+ */
+@Beta
+@Singleton
+public class RegionFanOut {
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_REGION_PARALLELISM)
+   @VisibleForTesting
+   int parallelism = 10;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_REGION_TIMEOUT)
+   @VisibleForTesting
+   long timeoutMillis = 120000;
+
+   private final ListeningExecutorService userExecutor;
+
+   @Inject
+   public RegionFanOut(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   /**
+    * The values of the regions that succeeded and the errors of those that did not, both in the order the regions
+    * were given.
+    */
+   public static final class Results<T> {
+      private final Map<String, T> values;
+      private final Map<String, Exception> errors;
+
+      private Results(Map<String, T> values, Map<String, Exception> errors) {
+         this.values = values;
+         this.errors = errors;
+      }
+
+      /**
+       * @return the value of each region that succeeded; regions whose call returned null are left out
+       */
+      public Map<String, T> getValues() {
+         return values;
+      }
+
+      /**
+       * @return the error of each region that failed or timed out
+       */
+      public Map<String, Exception> getErrors() {
+         return errors;
+      }
+
+      /**
+       * Throws the errors when no region succeeded, as partial results are only useful if there are some.
+       * 
+       * @return these results, if at least one region succeeded or there were no regions
+       */
+      public Results<T> throwIfAllFailed() {
+         if (values.isEmpty() && !errors.isEmpty())
+            propagateAuthorizationOrOriginalException(new TransformParallelException(
+                  ImmutableMap.<Object, Future<?>> of(), errors, "calling regions"));
+         return this;
+      }
+
+      /**
+       * Like {@link #throwIfAllFailed()}, but also throws when only some regions failed. The
+       * {@link TransformParallelException} then carries the values of the regions that succeeded next to the errors.
+       * 
+       * @return these results, if every region succeeded
+       */
+      public Results<T> throwIfAnyFailed() {
+         throwIfAllFailed();
+         if (!errors.isEmpty()) {
+            ImmutableMap.Builder<Object, Future<?>> succeeded = ImmutableMap.builder();
+            for (Map.Entry<String, T> value : values.entrySet())
+               succeeded.put(value.getKey(), Futures.immediateFuture(value.getValue()));
+            throw new TransformParallelException(succeeded.build(), errors, "calling regions");
+         }
+         return this;
+      }
+
+      @Override
+      public String toString() {
+         return "Results(values=" + values.keySet() + ", errors=" + errors + ")";
+      }
+   }
+
+   public <T> Results<T> apply(Iterable<String> regions, Function<? super String, ? extends T> perRegion) {
+      List<String> regionList = ImmutableList.copyOf(regions);
+      List<T> values = Lists.newArrayList(Collections.<T> nCopies(regionList.size(), null));
+      List<Exception> errors = Lists.newArrayList(Collections.<Exception> nCopies(regionList.size(), null));
+      if (timeoutMillis <= 0 && Math.min(parallelism, regionList.size()) <= 1) {
+         for (int i = 0; i < regionList.size(); i++) {
+            try {
+               values.set(i, perRegion.apply(regionList.get(i)));
+            } catch (Exception e) {
+               errors.set(i, e);
+            }
+         }
+      } else {
+         callConcurrently(regionList, perRegion, values, errors);
+      }
+      ImmutableMap.Builder<String, T> succeeded = ImmutableMap.builder();
+      ImmutableMap.Builder<String, Exception> failed = ImmutableMap.builder();
+      for (int i = 0; i < regionList.size(); i++) {
+         if (errors.get(i) != null) {
+            logger.warn(errors.get(i), "error calling region %s", regionList.get(i));
+            failed.put(regionList.get(i), errors.get(i));
+         } else if (values.get(i) != null) {
+            succeeded.put(regionList.get(i), values.get(i));
+         }
+      }
+      return new Results<T>(succeeded.build(), failed.build());
+   }
+
+   /**
+    * Calls the function for each region and concatenates the values of the regions. If any region failed, throws a
+    * {@link TransformParallelException} carrying the values of the regions that succeeded and the errors of the
+    * others, or the {@link org.jclouds.rest.AuthorizationException} if all of them failed on one.
+    */
+   public <T> Iterable<T> concat(Iterable<String> regions,
+         Function<? super String, ? extends Iterable<? extends T>> perRegion) {
+      Results<Iterable<? extends T>> results = apply(regions, perRegion);
+      return Iterables.concat(results.throwIfAnyFailed().getValues().values());
+   }
+
+   /**
+    * Submits one task per region, keeping at most {@link #parallelism} of them running, and waits for each with what
+    * is left of its timeout. Tasks start in order, so the oldest running task is always the next to time out.
+    */
+   private <T> void callConcurrently(List<String> regionList, final Function<? super String, ? extends T> perRegion,
+         List<T> values, List<Exception> errors) {
+      int size = regionList.size();
+      int workers = Math.max(1, Math.min(parallelism, size));
+      List<ListenableFuture<T>> futures = Lists.newArrayListWithCapacity(size);
+      long[] deadlines = new long[size];
+      final BlockingQueue<Integer> completed = new LinkedBlockingQueue<Integer>();
+      Deque<Integer> running = new ArrayDeque<Integer>(workers);
+      int finished = 0;
+      try {
+         while (finished < size) {
+            while (running.size() < workers && futures.size() < size) {
+               final int index = futures.size();
+               final String region = regionList.get(index);
+               ListenableFuture<T> future = userExecutor.submit(new Callable<T>() {
+                  @Override
+                  public T call() {
+                     return perRegion.apply(region);
+                  }
+               });
+               deadlines[index] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+               future.addListener(new Runnable() {
+                  @Override
+                  public void run() {
+                     completed.add(index);
+                  }
+               }, sameThreadExecutor());
+               futures.add(future);
+               running.add(index);
+            }
+            Integer done = timeoutMillis > 0
+                  ? completed.poll(deadlines[running.peek()] - System.nanoTime(), TimeUnit.NANOSECONDS)
+                  : completed.take();
+            if (done == null) {
+               int late = running.remove();
+               futures.get(late).cancel(true);
+               errors.set(late, timeout(regionList.get(late)));
+               finished++;
+            } else if (running.remove(done)) { // not a task that was cancelled when it timed out
+               try {
+                  values.set(done, getUninterruptibly(futures.get(done)));
+               } catch (ExecutionException e) {
+                  Throwables.propagateIfInstanceOf(e.getCause(), Error.class);
+                  errors.set(done, (Exception) e.getCause());
+               }
+               finished++;
+            }
+         }
+      } catch (InterruptedException e) {
+         for (int index : running)
+            futures.get(index).cancel(true);
+         Thread.currentThread().interrupt();
+         throw Throwables.propagate(e);
+      }
+   }
+
+   private TimeoutException timeout(String region) {
+      return new TimeoutException(String.format("region %s did not respond in %dms", region, timeoutMillis));
+   }
+}
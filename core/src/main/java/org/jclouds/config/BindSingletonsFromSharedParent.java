@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.internal.HostConnectionLimiter;
+import org.jclouds.json.Json;
+import org.jclouds.location.Provider;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ForwardingListeningExecutorService;
+import com.google.common.util.concurrent.ListenableScheduledFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.TimeLimiter;
+import com.google.gson.Gson;
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.ConfigurationException;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.matcher.Matchers;
+import com.google.inject.name.Names;
+import com.google.inject.spi.TypeEncounter;
+import com.google.inject.spi.TypeListener;
+
+/**
+ * Configures the injector that the contexts built against a shared parent context are created as children of. It binds
+ * the credential-independent singletons of that context, and nothing else.
+ * <p/>
+ * The executors are bound through views that ignore {@code shutdown}, so that closing a child leaves them running for
+ * the parent and its other children.
+ * <p/>
+ * Guice creates the just-in-time bindings of a child in its parent whenever it can. Once {@link #refuseJustInTimeBindings}
+ * is called, this injector refuses them, so that they are created in each child with its credentials, handlers and
+ * properties.
+ * 
+ * @see SharedParentInjector
+ */
+public class BindSingletonsFromSharedParent extends AbstractModule {
+
+   private static final Key<ListeningExecutorService> USER_EXECUTOR = Key.get(ListeningExecutorService.class,
+         Names.named(PROPERTY_USER_THREADS));
+   private static final Key<ListeningScheduledExecutorService> SCHEDULED_EXECUTOR = Key.get(
+         ListeningScheduledExecutorService.class, Names.named(PROPERTY_SCHEDULER_THREADS));
+
+   /**
+    * Singletons that are shared as is, when the parent has them.
+    */
+   static final Set<Key<?>> SHARED = ImmutableSet.<Key<?>> of(Key.get(TimeLimiter.class), Key.get(Gson.class),
+         Key.get(Json.class), Key.get(SAXParserFactory.class), Key.get(HostConnectionLimiter.class));
+
+   /**
+    * Bound in every context, and never in the shared parent.
+    */
+   private static final Key<Supplier<Credentials>> CREDENTIALS = Key.get(new TypeLiteral<Supplier<Credentials>>() {
+   }, Provider.class);
+
+   private final Injector parent;
+   private final AtomicBoolean refuseJustInTimeBindings = new AtomicBoolean();
+
+   public BindSingletonsFromSharedParent(Injector parent) {
+      this.parent = checkNotNull(parent, "parent");
+   }
+
+   /**
+    * Makes the injector configured by this module refuse the just-in-time bindings of its children.
+    */
+   public void refuseJustInTimeBindings() {
+      refuseJustInTimeBindings.set(true);
+   }
+
+   @Override
+   protected void configure() {
+      ListeningExecutorService userExecutor = parent.getInstance(USER_EXECUTOR);
+      bind(USER_EXECUTOR).toInstance(new UnclosableListeningExecutorService(userExecutor));
+      bind(Key.get(ExecutorService.class, Names.named(PROPERTY_USER_THREADS))).to(USER_EXECUTOR);
+      if (parent.getExistingBinding(SCHEDULED_EXECUTOR) != null) {
+         ListeningScheduledExecutorService scheduledExecutor = parent.getInstance(SCHEDULED_EXECUTOR);
+         bind(SCHEDULED_EXECUTOR).toInstance(new UnclosableListeningScheduledExecutorService(scheduledExecutor));
+         bind(Key.get(ScheduledExecutorService.class, Names.named(PROPERTY_SCHEDULER_THREADS))).to(
+               SCHEDULED_EXECUTOR);
+      }
+      for (Key<?> key : SHARED) {
+         bindFromParent(key);
+      }
+      bindListener(Matchers.any(), new TypeListener() {
+         @Override
+         public <I> void hear(TypeLiteral<I> type, TypeEncounter<I> encounter) {
+            if (!refuseJustInTimeBindings.get())
+               return;
+            try {
+               // lookups are immediate once an injector is built, and only children have credentials
+               encounter.getProvider(CREDENTIALS);
+            } catch (ConfigurationException e) {
+               encounter.addError("%s must be bound in the context built against the shared parent", type);
+            }
+         }
+      });
+   }
+
+   private <T> void bindFromParent(Key<T> key) {
+      Binding<T> binding = parent.getExistingBinding(key);
+      if (binding != null)
+         bind(key).toInstance(binding.getProvider().get());
+   }
+
+   private static class UnclosableListeningExecutorService extends ForwardingListeningExecutorService {
+      private final ListeningExecutorService delegate;
+
+      private UnclosableListeningExecutorService(ListeningExecutorService delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      protected ListeningExecutorService delegate() {
+         return delegate;
+      }
+
+      @Override
+      public void shutdown() {
+         // owned by the parent
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+         return ImmutableList.of();
+      }
+   }
+
+   private static class UnclosableListeningScheduledExecutorService extends UnclosableListeningExecutorService
+         implements ListeningScheduledExecutorService {
+      private final ListeningScheduledExecutorService delegate;
+
+      private UnclosableListeningScheduledExecutorService(ListeningScheduledExecutorService delegate) {
+         super(delegate);
+         this.delegate = delegate;
+      }
+
+      @Override
+      public ListenableScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+         return delegate.schedule(command, delay, unit);
+      }
+
+      @Override
+      public <V> ListenableScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+         return delegate.schedule(callable, delay, unit);
+      }
+
+      @Override
+      public ListenableScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+            TimeUnit unit) {
+         return delegate.scheduleAtFixedRate(command, initialDelay, period, unit);
+      }
+
+      @Override
+      public ListenableScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+            TimeUnit unit) {
+         return delegate.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+      }
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.config;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Stage;
+
+/**
+ * The injector that contexts built against this context with {@link org.jclouds.ContextBuilder#sharedParent} are
+ * created as children of. It is created once per context, on first use.
+ * 
+ * @see BindSingletonsFromSharedParent
+ */
+@Singleton
+public class SharedParentInjector implements Supplier<Injector> {
+
+   private final Supplier<Injector> injector;
+
+   @Inject
+   SharedParentInjector(final Injector context) {
+      this.injector = Suppliers.memoize(new Supplier<Injector>() {
+         @Override
+         public Injector get() {
+            BindSingletonsFromSharedParent module = new BindSingletonsFromSharedParent(context);
+            Injector injector = Guice.createInjector(Stage.PRODUCTION, module);
+            module.refuseJustInTimeBindings();
+            return injector;
+         }
+      });
+   }
+
+   @Override
+   public Injector get() {
+      return injector.get();
+   }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import java.util.Date;
+
+import javax.inject.Singleton;
+
+import org.jclouds.date.DateService;
+
+/**
+ * Formats and parses the GMT based date formats with hand-written code, so that concurrent callers
+ * never contend on a shared {@link java.text.SimpleDateFormat}.
+ * <p/>
+ * Only canonical input, as produced by the formatters themselves and by the providers jclouds talks
+ * to, is handled here. Anything else, such as lenient field values, unusual time zone notations or
+ * dates before 1900, is passed to {@link SimpleDateFormatDateService}, so results are always the same
+ * as with that implementation. RFC 1123 formatting depends on the default time zone and is delegated
+ * as well.
+ */
+@Singleton
+public class LockFreeDateService implements DateService {
+
+   private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep",
+         "Oct", "Nov", "Dec" };
+
+   private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+   // 1900-01-01T00:00:00.000Z, well after the julian to gregorian cutover
+   private static final long MIN_MILLIS = -2208988800000L;
+   // 9999-12-31T23:59:59.999Z
+   private static final long MAX_MILLIS = 253402300799999L;
+
+   private final DateService fallback = new SimpleDateFormatDateService();
+
+   /**
+    * Most recently formatted second for {@link #rfc822DateFormat()}. Replaced, never mutated, so
+    * readers need no synchronization; a racing update only costs a redundant format.
+    */
+   private volatile FormattedSecond currentRfc822 = new FormattedSecond(Long.MIN_VALUE, null);
+
+   private static final class FormattedSecond {
+      private final long second;
+      private final String formatted;
+
+      private FormattedSecond(long second, String formatted) {
+         this.second = second;
+         this.formatted = formatted;
+      }
+   }
+
+   @Override
+   public final String cDateFormat(Date date) {
+      long millis = date.getTime();
+      if (!inRange(millis))
+         return fallback.cDateFormat(date);
+      // EEE MMM dd HH:mm:ss +0000 yyyy
+      char[] buf = new char[30];
+      int[] ymd = civilFromMillis(millis);
+      append(buf, 0, DAYS[dayOfWeek(millis)]);
+      buf[3] = ' ';
+      append(buf, 4, MONTHS[ymd[1] - 1]);
+      buf[7] = ' ';
+      appendDigits(buf, 8, ymd[2], 2);
+      buf[10] = ' ';
+      appendTime(buf, 11, millis);
+      append(buf, 19, " +0000 ");
+      appendDigits(buf, 26, ymd[0], 4);
+      return new String(buf);
+   }
+
+   @Override
+   public final String cDateFormat() {
+      return cDateFormat(new Date());
+   }
+
+   @Override
+   public final Date cDateParse(String toParse) {
+      // EEE MMM dd HH:mm:ss Z yyyy
+      if (toParse != null && toParse.length() == 30 && isDay(toParse, 0) && toParse.charAt(3) == ' '
+            && toParse.charAt(7) == ' ' && toParse.charAt(10) == ' ' && toParse.charAt(19) == ' '
+            && toParse.charAt(25) == ' ') {
+         int month = parseMonth(toParse, 4);
+         int day = parseDigits(toParse, 8, 2);
+         int offset = parseOffset(toParse, 20, 25);
+         int year = parseDigits(toParse, 26, 4);
+         long millis = toMillis(year, month, day, toParse, 11);
+         if (month > 0 && day >= 0 && offset != Integer.MIN_VALUE && year >= 0 && millis != Long.MIN_VALUE)
+            return new Date(millis - offset);
+      }
+      return fallback.cDateParse(toParse);
+   }
+
+   @Override
+   public final String rfc822DateFormat(Date date) {
+      long millis = date.getTime();
+      if (!inRange(millis))
+         return fallback.rfc822DateFormat(date);
+      return formatRfc822(millis);
+   }
+
+   @Override
+   public final String rfc822DateFormat() {
+      long now = System.currentTimeMillis();
+      long second = now / 1000;
+      FormattedSecond cached = currentRfc822;
+      if (cached.second == second)
+         return cached.formatted;
+      String formatted = formatRfc822(now);
+      currentRfc822 = new FormattedSecond(second, formatted);
+      return formatted;
+   }
+
+   private static String formatRfc822(long millis) {
+      // EEE, dd MMM yyyy HH:mm:ss GMT
+      char[] buf = new char[29];
+      int[] ymd = civilFromMillis(millis);
+      append(buf, 0, DAYS[dayOfWeek(millis)]);
+      append(buf, 3, ", ");
+      appendDigits(buf, 5, ymd[2], 2);
+      buf[7] = ' ';
+      append(buf, 8, MONTHS[ymd[1] - 1]);
+      buf[11] = ' ';
+      appendDigits(buf, 12, ymd[0], 4);
+      buf[16] = ' ';
+      appendTime(buf, 17, millis);
+      append(buf, 25, " GMT");
+      return new String(buf);
+   }
+
+   @Override
+   public final Date rfc822DateParse(String toParse) {
+      // EEE, dd MMM yyyy HH:mm:ss GMT
+      if (toParse != null && toParse.length() == 29 && isDay(toParse, 0) && toParse.charAt(3) == ','
+            && toParse.charAt(4) == ' ' && toParse.charAt(7) == ' ' && toParse.charAt(11) == ' '
+            && toParse.charAt(16) == ' ' && toParse.endsWith(" GMT")) {
+         int day = parseDigits(toParse, 5, 2);
+         int month = parseMonth(toParse, 8);
+         int year = parseDigits(toParse, 12, 4);
+         long millis = toMillis(year, month, day, toParse, 17);
+         if (day >= 0 && month > 0 && year >= 0 && millis != Long.MIN_VALUE)
+            return new Date(millis);
+      }
+      return fallback.rfc822DateParse(toParse);
+   }
+
+   @Override
+   public final String iso8601SecondsDateFormat() {
+      return iso8601SecondsDateFormat(new Date());
+   }
+
+   @Override
+   public final String iso8601DateFormat(Date date) {
+      long millis = date.getTime();
+      if (!inRange(millis))
+         return fallback.iso8601DateFormat(date);
+      // yyyy-MM-ddTHH:mm:ss.SSSZ
+      char[] buf = new char[24];
+      appendIso8601Seconds(buf, millis);
+      buf[19] = '.';
+      appendDigits(buf, 20, (int) floorMod(millis, 1000), 3);
+      buf[23] = 'Z';
+      return new String(buf);
+   }
+
+   @Override
+   public final String iso8601DateFormat() {
+      return iso8601DateFormat(new Date());
+   }
+
+   @Override
+   public final Date iso8601DateParse(String toParse) {
+      // yyyy-MM-dd[T ]HH:mm:ss.SSS[SSS...][tz]
+      if (toParse != null && toParse.length() >= 23 && toParse.charAt(19) == '.'
+            && (toParse.charAt(10) == 'T' || toParse.charAt(10) == ' ')) {
+         int fractionEnd = 20;
+         while (fractionEnd < toParse.length() && isDigit(toParse.charAt(fractionEnd)))
+            fractionEnd++;
+         // fewer than three fraction digits are interpreted literally by SimpleDateFormat
+         if (fractionEnd >= 23) {
+            long millis = parseIso8601Seconds(toParse);
+            int fraction = parseDigits(toParse, 20, 3);
+            int offset = parseIso8601Offset(toParse, fractionEnd);
+            if (millis != Long.MIN_VALUE && offset != Integer.MIN_VALUE)
+               return new Date(millis + fraction - offset);
+         }
+      }
+      return fallback.iso8601DateParse(toParse);
+   }
+
+   @Override
+   public final Date iso8601SecondsDateParse(String toParse) throws IllegalArgumentException {
+      // yyyy-MM-ddTHH:mm:ss[tz]
+      if (toParse != null && toParse.length() >= 19 && toParse.charAt(10) == 'T') {
+         long millis = parseIso8601Seconds(toParse);
+         int offset = parseIso8601Offset(toParse, 19);
+         if (millis != Long.MIN_VALUE && offset != Integer.MIN_VALUE)
+            return new Date(millis - offset);
+      }
+      return fallback.iso8601SecondsDateParse(toParse);
+   }
+
+   @Override
+   public Date iso8601DateOrSecondsDateParse(String toParse) throws IllegalArgumentException {
+      try {
+         return iso8601DateParse(toParse);
+      } catch (IllegalArgumentException orig) {
+         try {
+            return iso8601SecondsDateParse(toParse);
+         } catch (IllegalArgumentException ignored) {
+            throw orig;
+         }
+      }
+   }
+
+   @Override
+   public String iso8601SecondsDateFormat(Date date) {
+      long millis = date.getTime();
+      if (!inRange(millis))
+         return fallback.iso8601SecondsDateFormat(date);
+      // yyyy-MM-ddTHH:mm:ssZ
+      char[] buf = new char[20];
+      appendIso8601Seconds(buf, millis);
+      buf[19] = 'Z';
+      return new String(buf);
+   }
+
+   @Override
+   public final String rfc1123DateFormat(Date date) {
+      return fallback.rfc1123DateFormat(date);
+   }
+
+   @Override
+   public final String rfc1123DateFormat() {
+      return rfc1123DateFormat(new Date());
+   }
+
+   @Override
+   public final Date rfc1123DateParse(String toParse) throws IllegalArgumentException {
+      return fallback.rfc1123DateParse(toParse);
+   }
+
+   private static boolean inRange(long millis) {
+      return millis >= MIN_MILLIS && millis <= MAX_MILLIS;
+   }
+
+   private static void appendIso8601Seconds(char[] buf, long millis) {
+      int[] ymd = civilFromMillis(millis);
+      appendDigits(buf, 0, ymd[0], 4);
+      buf[4] = '-';
+      appendDigits(buf, 5, ymd[1], 2);
+      buf[7] = '-';
+      appendDigits(buf, 8, ymd[2], 2);
+      buf[10] = 'T';
+      appendTime(buf, 11, millis);
+   }
+
+   /**
+    * appends {@code HH:mm:ss}
+    */
+   private static void appendTime(char[] buf, int pos, long millis) {
+      int secondOfDay = (int) (floorMod(millis, MILLIS_PER_DAY) / 1000);
+      appendDigits(buf, pos, secondOfDay / 3600, 2);
+      buf[pos + 2] = ':';
+      appendDigits(buf, pos + 3, (secondOfDay / 60) % 60, 2);
+      buf[pos + 5] = ':';
+      appendDigits(buf, pos + 6, secondOfDay % 60, 2);
+   }
+
+   private static void append(char[] buf, int pos, String value) {
+      value.getChars(0, value.length(), buf, pos);
+   }
+
+   private static void appendDigits(char[] buf, int pos, int value, int width) {
+      for (int i = pos + width - 1; i >= pos; i--) {
+         buf[i] = (char) ('0' + value % 10);
+         value /= 10;
+      }
+   }
+
+   /**
+    * @return millis since the epoch of the {@code yyyy-MM-ddTHH:mm:ss} prefix, or {@link Long#MIN_VALUE}
+    */
+   private static long parseIso8601Seconds(String in) {
+      if (in.charAt(4) != '-' || in.charAt(7) != '-')
+         return Long.MIN_VALUE;
+      return toMillis(parseDigits(in, 0, 4), parseDigits(in, 5, 2), parseDigits(in, 8, 2), in, 11);
+   }
+
+   /**
+    * Parses the time zone at the end of an iso8601 date starting at {@code pos}: nothing, {@code Z},
+    * {@code +hhmm} or {@code +hh:mm} (or negative). Hour-only offsets are rejected by
+    * {@link SimpleDateFormatDateService}, so they are left to it.
+    *
+    * @return offset from GMT in millis, or {@link Integer#MIN_VALUE} if not one of these forms
+    */
+   private static int parseIso8601Offset(String in, int pos) {
+      switch (in.length() - pos) {
+      case 0:
+         return 0;
+      case 1:
+         return in.charAt(pos) == 'Z' ? 0 : Integer.MIN_VALUE;
+      case 5:
+         return parseOffset(in, pos, in.length());
+      case 6:
+         if (in.charAt(pos + 3) != ':')
+            return Integer.MIN_VALUE;
+         return parseOffset(new StringBuilder(5).append(in, pos, pos + 3).append(in, pos + 4, pos + 6).toString(),
+               0, 5);
+      default:
+         return Integer.MIN_VALUE;
+      }
+   }
+
+   /**
+    * parses a {@code +hhmm} or {@code -hhmm} offset between {@code start} and {@code end}.
+    */
+   private static int parseOffset(String in, int start, int end) {
+      char sign = in.charAt(start);
+      if (sign != '+' && sign != '-')
+         return Integer.MIN_VALUE;
+      int hours = parseDigits(in, start + 1, 2);
+      int minutes = parseDigits(in, start + 3, 2);
+      if (end - start != 5 || hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+         return Integer.MIN_VALUE;
+      int offset = (hours * 60 + minutes) * 60 * 1000;
+      return sign == '-' ? -offset : offset;
+   }
+
+   private static boolean isDay(String in, int pos) {
+      for (String day : DAYS) {
+         if (in.regionMatches(pos, day, 0, 3))
+            return true;
+      }
+      return false;
+   }
+
+   private static int parseMonth(String in, int pos) {
+      for (int i = 0; i < MONTHS.length; i++) {
+         if (in.regionMatches(pos, MONTHS[i], 0, 3))
+            return i + 1;
+      }
+      return -1;
+   }
+
+   /**
+    * @return the non-negative value of {@code width} decimal digits, or -1 if any character isn't a digit
+    */
+   private static int parseDigits(String in, int pos, int width) {
+      int value = 0;
+      for (int i = pos; i < pos + width; i++) {
+         char c = in.charAt(i);
+         if (!isDigit(c))
+            return -1;
+         value = value * 10 + (c - '0');
+      }
+      return value;
+   }
+
+   private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   /**
+    * combines a date with the {@code HH:mm:ss} found at {@code timePos}.
+    *
+    * @return millis since the epoch in GMT, or {@link Long#MIN_VALUE} if any field is out of range
+    */
+   private static long toMillis(int year, int month, int day, String in, int timePos) {
+      if (in.charAt(timePos + 2) != ':' || in.charAt(timePos + 5) != ':')
+         return Long.MIN_VALUE;
+      int hour = parseDigits(in, timePos, 2);
+      int minute = parseDigits(in, timePos + 3, 2);
+      int second = parseDigits(in, timePos + 6, 2);
+      if (year < 1900 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0
+            || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+         return Long.MIN_VALUE;
+      return daysFromCivil(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+   }
+
+   private static int daysInMonth(int year, int month) {
+      switch (month) {
+      case 2:
+         return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+         return 30;
+      default:
+         return 31;
+      }
+   }
+
+   private static int dayOfWeek(long millis) {
+      // 1970-01-01 was a thursday
+      return (int) floorMod(floorDiv(millis, MILLIS_PER_DAY) + 4, 7);
+   }
+
+   /**
+    * days since 1970-01-01 of a proleptic gregorian date.
+    *
+    * @see <a href="http://howardhinnant.github.io/date_algorithms.html">chrono-Compatible Low-Level Date
+    *      Algorithms</a>
+    */
+   private static long daysFromCivil(int year, int month, int day) {
+      long y = month <= 2 ? year - 1 : year;
+      long era = floorDiv(y, 400);
+      long yearOfEra = y - era * 400;
+      long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+      long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097 + dayOfEra - 719468;
+   }
+
+   /**
+    * @return year, month (1-12) and day of month in GMT
+    */
+   private static int[] civilFromMillis(long millis) {
+      long z = floorDiv(millis, MILLIS_PER_DAY) + 719468;
+      long era = floorDiv(z, 146097);
+      long dayOfEra = z - era * 146097;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      long mp = (5 * dayOfYear + 2) / 153;
+      int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+      int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+      int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+      return new int[] { year, month, day };
+   }
+
+   private static long floorDiv(long x, long y) {
+      long q = x / y;
+      return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+   }
+
+   private static long floorMod(long x, long y) {
+      return x - floorDiv(x, y) * y;
+   }
+}
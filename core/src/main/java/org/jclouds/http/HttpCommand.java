@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
 
 /**
@@ -32,6 +33,8 @@ public class HttpCommand {
    private volatile int failureCount;
    private volatile int redirectCount;
    private volatile Exception exception;
+   private volatile boolean backoffDeferred;
+   private volatile long deferredBackoff;
 
    public HttpCommand(HttpRequest request) {
       this.request = checkNotNull(request, "request");
@@ -71,6 +74,43 @@ public class HttpCommand {
       return exception;
    }
 
+   /**
+    * Asks retry handlers to record the delay before the next attempt with {@link #setDeferredBackoff(long)}, instead
+    * of sleeping on the calling thread. Used by executors that schedule their retries.
+    */
+   @Beta
+   public void deferBackoff() {
+      this.backoffDeferred = true;
+   }
+
+   /**
+    * @see #deferBackoff
+    */
+   @Beta
+   public boolean isBackoffDeferred() {
+      return backoffDeferred;
+   }
+
+   /**
+    * Sets the milliseconds to wait before the next attempt of a command whose backoff is deferred.
+    */
+   @Beta
+   public void setDeferredBackoff(long millis) {
+      this.deferredBackoff = millis;
+   }
+
+   /**
+    * Returns and clears the milliseconds to wait before the next attempt.
+    * 
+    * @see #setDeferredBackoff
+    */
+   @Beta
+   public long takeDeferredBackoff() {
+      long millis = deferredBackoff;
+      deferredBackoff = 0;
+      return millis;
+   }
+
    /**
     * increments the current number of redirect attempts for this command.
     * 
@@ -20,8 +20,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Map;
 
-import com.google.common.collect.Lists;
-
 public class UriTemplates {
 
    /**
@@ -37,11 +35,14 @@ public class UriTemplates {
       if (checkNotNull(template, "template").length() < 3)
          return template.toString(); // skip expansion if there's no valid variables set. ex. {a} is the first valid
       checkNotNull(variables, "variables for %s", template);
+      if (template.indexOf('{') == -1)
+         return template;
 
       boolean inVar = false;
       StringBuilder var = new StringBuilder();
-      StringBuilder builder = new StringBuilder();
-      for (char c : Lists.charactersOf(template)) {
+      StringBuilder builder = new StringBuilder(template.length() * 2);
+      for (int i = 0; i < template.length(); i++) {
+         char c = template.charAt(i);
          switch (c) {
          case '{':
             inVar = true;
@@ -49,7 +50,7 @@ public class UriTemplates {
          case '}':
             inVar = false;
             String key = var.toString();
-            Object value = variables.get(var.toString());
+            Object value = variables.get(key);
             if (value != null)
                builder.append(value);
             else
@@ -23,7 +23,6 @@ import static org.jclouds.http.utils.Queries.buildQueryLine;
 import static org.jclouds.http.utils.Queries.encodeQueryLine;
 import static org.jclouds.http.utils.Queries.queryParser;
 import static org.jclouds.util.Strings2.urlDecode;
-import static org.jclouds.util.Strings2.urlEncode;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -32,12 +31,12 @@ import java.util.Collection;
 import java.util.Map;
 
 import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.util.PercentEncoder;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.collect.ForwardingMultimap;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
@@ -98,7 +97,9 @@ public final class Uris {
     */
    public static final class UriBuilder {
       // colon for urns, semicolon & equals for matrix params
-      private Iterable<Character> skipPathEncoding = Lists.charactersOf("/:;=");
+      private static final PercentEncoder DEFAULT_PATH_ENCODER = PercentEncoder.skipping('/', ':', ';', '=');
+
+      private PercentEncoder pathEncoder = DEFAULT_PATH_ENCODER;
       private String scheme;
       private String host;
       private Integer port;
@@ -111,7 +112,7 @@ public final class Uris {
        *           scheme to set or replace
        */
       public UriBuilder skipPathEncoding(Iterable<Character> skipPathEncoding) {
-         this.skipPathEncoding = ImmutableSet.copyOf(checkNotNull(skipPathEncoding, "skipPathEncoding"));
+         this.pathEncoder = PercentEncoder.skipping(checkNotNull(skipPathEncoding, "skipPathEncoding"));
          return this;
       }
 
@@ -220,11 +221,11 @@ public final class Uris {
 
       private static String escapeSpecialChars(CharSequence uri) {
          // skip encoding if there's no valid variables set. ex. {a} is the left valid
-         if (uri.length() < 3)
-            return uri.toString();
+         String in = uri.toString();
+         if (in.length() < 3 || (in.indexOf('{') == -1 && in.indexOf('}') == -1))
+            return in;
 
-         // duplicates memory even if there are no special characters, however only requires a single scan.
-         StringBuilder builder = new StringBuilder();
+         StringBuilder builder = new StringBuilder(in.length() + 8);
          for (char c : Lists.charactersOf(uri)) {
             switch (c) {
             case '{':
@@ -243,9 +244,12 @@ public final class Uris {
       private static String unescapeSpecialChars(CharSequence uri) {
          if (uri.length() < 5) // skip encoding if there's no valid variables set. ex. ((a)) is the left valid
             return uri.toString();
+         String in = uri.toString();
+         if (in.indexOf("((") == -1 && in.indexOf("))") == -1)
+            return in;
 
-         char last = uri.charAt(0);  // duplicates even if there are no special characters, but only requires 1 scan
-         StringBuilder builder = new StringBuilder();
+         char last = uri.charAt(0);
+         StringBuilder builder = new StringBuilder(in.length());
          for (char c : Lists.charactersOf(uri)) {
             switch (c) {
             case '(':
@@ -298,7 +302,8 @@ public final class Uris {
       }
 
       private String expand(Map<String, ?> variables) {
-         StringBuilder b = new StringBuilder();
+         // sized so that typical uris are built without growing the builder
+         StringBuilder b = new StringBuilder(64 + (path != null ? path.length() * 2 : 0) + query.size() * 32);
          if (scheme != null)
             b.append(scheme).append("://");
          if (host != null)
@@ -306,7 +311,7 @@ public final class Uris {
          if (port != null)
             b.append(':').append(port);
          if (path != null)
-            b.append(urlEncode(UriTemplates.expand(path, variables), skipPathEncoding));
+            pathEncoder.appendEncoded(b, UriTemplates.expand(path, variables));
          if (!query.isEmpty())
             b.append('?').append(encodeQueryLine(query));
          return b.toString();
@@ -16,10 +16,13 @@
  */
 package org.jclouds.http.functions;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.http.HttpUtils.releasePayload;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
 
 import javax.annotation.Resource;
@@ -29,15 +32,20 @@ import javax.inject.Singleton;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.json.Json;
+import org.jclouds.json.StreamingJson;
 import org.jclouds.logging.Logger;
-import org.jclouds.util.Strings2;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.io.CharStreams;
 import com.google.inject.TypeLiteral;
 
 /**
  * This object will parse the body of an HttpResponse and return the result of
  * type <T> back to the caller.
+ * <p/>
+ * When the bound {@link Json} is a {@link StreamingJson}, the body is read as a stream, so heap use does
+ * not grow with the size of the response beyond what the parsed result itself needs.
  */
 @Singleton
 public class ParseJson<T> implements Function<HttpResponse, T> {
@@ -77,13 +85,15 @@ public class ParseJson<T> implements Function<HttpResponse, T> {
       return (T) apply(stream, type.getType());
    }
 
-   @SuppressWarnings("unchecked")
    public <V> V apply(InputStream stream, Type type) throws IOException {
+      checkNotNull(stream, "stream");
+      Reader reader = new InputStreamReader(stream, Charsets.UTF_8);
       try {
-         return (V) json.fromJson(Strings2.toStringAndClose(stream), type);
+         if (json instanceof StreamingJson)
+            return StreamingJson.class.cast(json).<V> fromJson(reader, type);
+         return json.<V> fromJson(CharStreams.toString(reader), type);
       } finally {
-         if (stream != null)
-            stream.close();
+         reader.close();
       }
    }
 }
@@ -54,6 +54,7 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    private Logger logger = Logger.NULL;
 
    private final XMLReader parser;
+   private final XMLReaderPool readers;
    private final HandlerWithResult<T> handler;
    private HttpRequest request;
 
@@ -63,6 +64,16 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
 
    public ParseSax(XMLReader parser, HandlerWithResult<T> handler) {
       this.parser = checkNotNull(parser, "parser");
+      this.readers = null;
+      this.handler = checkNotNull(handler, "handler");
+   }
+
+   /**
+    * Parses with a reader borrowed from the pool for the duration of each parse, instead of a dedicated one.
+    */
+   public ParseSax(XMLReaderPool readers, HandlerWithResult<T> handler) {
+      this.parser = null;
+      this.readers = checkNotNull(readers, "readers");
       this.handler = checkNotNull(handler, "handler");
    }
 
@@ -135,9 +146,13 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    protected T doParse(InputSource from) throws IOException, SAXException {
       checkNotNull(from, "xml inputsource");
       from.setEncoding("UTF-8");
-      parser.setContentHandler(getHandler());
+      XMLReader reader = readers != null ? readers.acquire() : parser;
+      reader.setContentHandler(getHandler());
       // This method should accept documents with a BOM (Byte-order mark)
-      parser.parse(from);
+      reader.parse(from);
+      // a reader that failed is not returned to the pool
+      if (readers != null)
+         readers.release(reader);
       return getHandler().getResult();
    }
 
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import javax.annotation.Resource;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.InvocationContext;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+
+/**
+ * Streams the entries of a list response to a {@link Callback} as they are read, instead of building the whole
+ * result set like {@link ParseSax} does. Only the entry being read is held in memory, which matters for responses
+ * such as the public images of EC2, whose xml is tens of megabytes.
+ * <p/>
+ * Applying this to a response returns the number of entries passed to the callback.
+ */
+@Beta
+public class ParseStax<T> implements Function<HttpResponse, Integer>, InvocationContext<ParseStax<T>> {
+
+   @Resource
+   private Logger logger = Logger.NULL;
+
+   private final XMLInputFactory factory;
+   private final ElementReader<T> reader;
+   private final Callback<? super T> callback;
+   private HttpRequest request;
+
+   public interface Factory {
+      <T> ParseStax<T> create(ElementReader<T> reader, Callback<? super T> callback);
+   }
+
+   /**
+    * Receives the entries of a list response in document order.
+    */
+   public interface Callback<T> {
+      /**
+       * @return false to stop reading the response
+       */
+      boolean onElement(T element);
+   }
+
+   /**
+    * Reads the entries of a list out of a streaming parser.
+    */
+   public abstract static class ElementReader<T> implements InvocationContext<ElementReader<T>> {
+      private HttpRequest request;
+
+      protected HttpRequest getRequest() {
+         return request;
+      }
+
+      /**
+       * @param parent
+       *           local name of the enclosing element, or null for the document element
+       * @param localName
+       *           local name of the element that starts
+       * @return true if the element is an entry of the list
+       */
+      public abstract boolean isElement(String parent, String localName);
+
+      /**
+       * Reads the entry the parser is positioned at, leaving it positioned at the end of that entry.
+       * 
+       * @return the entry, or null to skip it
+       */
+      public abstract T read(XMLStreamReader parser) throws XMLStreamException;
+
+      @Override
+      public ElementReader<T> setContext(HttpRequest request) {
+         this.request = request;
+         return this;
+      }
+   }
+
+   public ParseStax(XMLInputFactory factory, ElementReader<T> reader, Callback<? super T> callback) {
+      this.factory = checkNotNull(factory, "factory");
+      this.reader = checkNotNull(reader, "reader");
+      this.callback = checkNotNull(callback, "callback");
+   }
+
+   public Integer apply(HttpResponse from) {
+      checkNotNull(from, "http response");
+      checkNotNull(from.getPayload(), "payload in " + from);
+      InputStream is = null;
+      try {
+         is = from.getPayload().openStream();
+         return read(is);
+      } catch (Exception e) {
+         return addDetailsAndPropagate(from, e);
+      } finally {
+         Closeables2.closeQuietly(is);
+         from.getPayload().release();
+      }
+   }
+
+   /**
+    * Reads the list entries from the stream, which is left open.
+    */
+   public int parse(InputStream from) {
+      try {
+         return read(checkNotNull(from, "xml inputstream"));
+      } catch (XMLStreamException e) {
+         return addDetailsAndPropagate(null, e);
+      }
+   }
+
+   private int read(InputStream from) throws XMLStreamException {
+      // the parser detects the encoding, skipping any byte order mark
+      XMLStreamReader parser = factory.createXMLStreamReader(from);
+      try {
+         return doParse(parser);
+      } finally {
+         parser.close();
+      }
+   }
+
+   protected int doParse(XMLStreamReader parser) throws XMLStreamException {
+      Deque<String> parents = new ArrayDeque<String>();
+      int count = 0;
+      while (parser.hasNext()) {
+         int event = parser.next();
+         if (event == START_ELEMENT) {
+            String localName = parser.getLocalName();
+            if (reader.isElement(parents.peek(), localName)) {
+               T element = reader.read(parser);
+               if (element == null)
+                  continue;
+               count++;
+               if (!callback.onElement(element)) {
+                  logger.trace("stopped reading after %d entries", count);
+                  break;
+               }
+            } else {
+               parents.push(localName);
+            }
+         } else if (event == END_ELEMENT) {
+            parents.pop();
+         }
+      }
+      return count;
+   }
+
+   private int addDetailsAndPropagate(HttpResponse response, Exception e) {
+      StringBuilder message = new StringBuilder();
+      if (request != null)
+         message.append("request: ").append(request.getRequestLine());
+      if (response != null) {
+         if (message.length() != 0)
+            message.append("; ");
+         message.append("response: ").append(response.getStatusLine());
+      }
+      if (message.length() == 0)
+         throw Throwables.propagate(e);
+      message.append("; cause: ").append(e.toString());
+      throw new RuntimeException(message.toString(), e);
+   }
+
+   public ElementReader<T> getReader() {
+      return reader;
+   }
+
+   @Override
+   public ParseStax<T> setContext(HttpRequest request) {
+      reader.setContext(request);
+      this.request = request;
+      return this;
+   }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import javax.inject.Provider;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.http.functions.ParseSax.HandlerWithResult;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Reads each entry of a list by replaying its elements to a new {@link HandlerWithResult}, so that the sax handlers
+ * that parse a single entry can be used to stream a list with {@link ParseStax}.
+ * <p/>
+ * Elements are replayed as the non namespace aware parsers of {@link ParseSax} report them: by qualified name, with
+ * empty uri and local name.
+ */
+@Beta
+public class SaxElementReader<T> extends ParseStax.ElementReader<T> {
+
+   private final String parent;
+   private final String localName;
+   private final Provider<? extends HandlerWithResult<T>> handlers;
+
+   /**
+    * @param parent
+    *           local name of the list element, ex. {@code imagesSet}
+    * @param localName
+    *           local name of its entries, ex. {@code item}
+    * @param handlers
+    *           supplies a new handler for each entry
+    */
+   public SaxElementReader(String parent, String localName, Provider<? extends HandlerWithResult<T>> handlers) {
+      this.parent = checkNotNull(parent, "parent");
+      this.localName = checkNotNull(localName, "localName");
+      this.handlers = checkNotNull(handlers, "handlers");
+   }
+
+   @Override
+   public boolean isElement(String parent, String localName) {
+      return this.localName.equals(localName) && this.parent.equals(parent);
+   }
+
+   @Override
+   public T read(XMLStreamReader parser) throws XMLStreamException {
+      HandlerWithResult<T> handler = handlers.get();
+      if (getRequest() != null)
+         handler.setContext(getRequest());
+      AttributesImpl attributes = new AttributesImpl();
+      int depth = 0;
+      try {
+         for (int event = parser.getEventType();; event = parser.next()) {
+            switch (event) {
+               case START_ELEMENT:
+                  depth++;
+                  attributes.clear();
+                  for (int i = 0; i < parser.getAttributeCount(); i++)
+                     attributes.addAttribute("", "", qName(parser.getAttributePrefix(i),
+                           parser.getAttributeLocalName(i)), "CDATA", parser.getAttributeValue(i));
+                  handler.startElement("", "", qName(parser.getPrefix(), parser.getLocalName()), attributes);
+                  break;
+               case CHARACTERS:
+               case CDATA:
+               case SPACE:
+                  handler.characters(parser.getTextCharacters(), parser.getTextStart(), parser.getTextLength());
+                  break;
+               case END_ELEMENT:
+                  depth--;
+                  handler.endElement("", "", qName(parser.getPrefix(), parser.getLocalName()));
+                  break;
+               default:
+                  break;
+            }
+            if (depth == 0)
+               return handler.getResult();
+         }
+      } catch (SAXException e) {
+         throw new XMLStreamException(e);
+      }
+   }
+
+   private static String qName(String prefix, String localName) {
+      return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Throwables;
+
+/**
+ * Keeps one idle {@link XMLReader} per thread, so that parsing a response does not build a new parser each time.
+ * <p/>
+ * A reader is confined to the thread that acquired it until it is {@link #release released}. Readers acquired while
+ * the thread's reader is in use, for example by a handler parsing a nested document, are new ones. A reader is reset
+ * on release so that it does not hold on to the handler, and therefore the result, of its last parse. Readers that
+ * failed to parse should not be released, as their state is unknown.
+ */
+@Beta
+@Singleton
+public class XMLReaderPool {
+
+   private static final DefaultHandler NO_OP = new DefaultHandler();
+
+   private static final class Slot {
+      XMLReader idle;
+   }
+
+   private final SAXParserFactory factory;
+   private final ThreadLocal<Slot> slots = new ThreadLocal<Slot>() {
+      @Override
+      protected Slot initialValue() {
+         return new Slot();
+      }
+   };
+
+   @Inject
+   public XMLReaderPool(SAXParserFactory factory) {
+      this.factory = checkNotNull(factory, "factory");
+   }
+
+   /**
+    * @return the idle reader of this thread, or a new one if it is in use
+    */
+   public XMLReader acquire() {
+      Slot slot = slots.get();
+      XMLReader reader = slot.idle;
+      if (reader != null) {
+         slot.idle = null;
+         return reader;
+      }
+      try {
+         return factory.newSAXParser().getXMLReader();
+      } catch (Exception e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   /**
+    * Resets a reader that completed its parse and makes it the idle reader of this thread.
+    */
+   public void release(XMLReader reader) {
+      reader.setContentHandler(NO_OP);
+      slots.get().idle = reader;
+   }
+}
@@ -18,14 +18,16 @@ package org.jclouds.http.functions.config;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
 
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
-import org.xml.sax.XMLReader;
+import org.jclouds.http.functions.ParseStax;
+import org.jclouds.http.functions.ParseStax.Callback;
+import org.jclouds.http.functions.ParseStax.ElementReader;
+import org.jclouds.http.functions.XMLReaderPool;
 
-import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -38,31 +40,41 @@ public class SaxParserModule extends AbstractModule {
 
    protected void configure() {
       bind(ParseSax.Factory.class).to(Factory.class).in(Scopes.SINGLETON);
+      bind(ParseStax.Factory.class).to(StaxFactory.class).in(Scopes.SINGLETON);
    }
 
    static class Factory implements ParseSax.Factory {
-      private final SAXParserFactory factory;
+      private final XMLReaderPool readers;
       private final Injector i;
 
       @Inject
-      Factory(SAXParserFactory factory, Injector i) {
-         this.factory = factory;
+      Factory(XMLReaderPool readers, Injector i) {
+         this.readers = readers;
          this.i = i;
       }
 
       public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
-         SAXParser saxParser;
-         try {
-            saxParser = factory.newSAXParser();
-            XMLReader parser = saxParser.getXMLReader();
-            // TODO: switch to @AssistedInject
-            ParseSax<T> returnVal = new ParseSax<T>(parser, handler);
-            i.injectMembers(returnVal);
-            return returnVal;
-         } catch (Exception e) {
-            throw Throwables.propagate(e);
-         }
+         // TODO: switch to @AssistedInject
+         ParseSax<T> returnVal = new ParseSax<T>(readers, handler);
+         i.injectMembers(returnVal);
+         return returnVal;
+      }
+   }
+
+   static class StaxFactory implements ParseStax.Factory {
+      private final XMLInputFactory factory;
+      private final Injector i;
+
+      @Inject
+      StaxFactory(XMLInputFactory factory, Injector i) {
+         this.factory = factory;
+         this.i = i;
+      }
 
+      public <T> ParseStax<T> create(ElementReader<T> reader, Callback<? super T> callback) {
+         ParseStax<T> returnVal = new ParseStax<T>(factory, reader, callback);
+         i.injectMembers(returnVal);
+         return returnVal;
       }
    }
 
@@ -75,4 +87,13 @@ public class SaxParserModule extends AbstractModule {
       return factory;
    }
 
+   @Provides
+   @Singleton
+   XMLInputFactory provideXMLInputFactory() {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      return factory;
+   }
 }
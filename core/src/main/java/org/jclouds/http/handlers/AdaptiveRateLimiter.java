@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_MIN;
+import static org.jclouds.http.internal.HostConnectionLimiter.hostKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.date.DateCodecFactory;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
+
+/**
+ * Caps the rate of requests to each host and api across all threads of a context, and adapts the cap to the rate
+ * the provider allows.
+ * <p/>
+ * Requests are counted per host (which, for most providers, is per region) and per api interface of the invoked
+ * method, so that throttling of one family of operations does not slow down the others. When the provider throttles
+ * us, with a {@code 429} response, a {@code Retry-After} header or a provider specific error reported through
+ * {@link #throttled(HttpRequest, long)}, the rate is halved and requests wait out the {@code Retry-After} delay. After
+ * each second without throttling it grows again by 5%, at least one request per second. Callers sharing the context
+ * then converge to the allowed rate instead of alternately flooding the provider and backing off.
+ * 
+ * @see org.jclouds.Constants#PROPERTY_RATE_LIMIT
+ * @see org.jclouds.Constants#PROPERTY_RATE_LIMIT_MIN
+ */
+@Beta
+@Singleton
+public class AdaptiveRateLimiter {
+   /**
+    * longest {@code Retry-After} delay honored; later dates are most likely clock skew
+    */
+   static final long MAX_PAUSE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+   private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+   private static final int REQUEST = 0;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT)
+   @VisibleForTesting
+   double maxRate = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_MIN)
+   @VisibleForTesting
+   double minRate = 1;
+
+   private final DateCodecFactory dateCodecs;
+   private final Ticker ticker;
+   private final ConcurrentMap<String, Bucket> buckets = Maps.newConcurrentMap();
+
+   @Inject
+   AdaptiveRateLimiter(DateCodecFactory dateCodecs) {
+      this(dateCodecs, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   AdaptiveRateLimiter(DateCodecFactory dateCodecs, Ticker ticker) {
+      this.dateCodecs = checkNotNull(dateCodecs, "dateCodecs");
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Blocks until the request may be sent: until the {@code Retry-After} delay of its host and api has passed and a
+    * permit is available at the current rate.
+    */
+   public void acquire(HttpRequest request) throws InterruptedException {
+      Bucket bucket = bucket(keyOf(request));
+      RateLimiter limiter;
+      long pause;
+      synchronized (bucket) {
+         bucket.window.increment(REQUEST);
+         limiter = bucket.limiter;
+         pause = bucket.pausedUntil - ticker.read();
+      }
+      if (pause > 0)
+         TimeUnit.NANOSECONDS.sleep(pause);
+      if (limiter != null)
+         limiter.acquire();
+   }
+
+   /**
+    * Admits the request if it may be sent now, without blocking, for callers that would rather schedule the request
+    * again than hold a thread while it waits.
+    * 
+    * @return 0 if the request was admitted, otherwise the nanoseconds to wait before asking again
+    */
+   public long tryAcquire(HttpRequest request) {
+      Bucket bucket = bucket(keyOf(request));
+      synchronized (bucket) {
+         long pause = bucket.pausedUntil - ticker.read();
+         if (pause > 0)
+            return pause;
+         if (bucket.limiter != null && !bucket.limiter.tryAcquire())
+            return max(1, (long) (SECOND_NANOS / bucket.rate));
+         bucket.window.increment(REQUEST);
+         return 0;
+      }
+   }
+
+   /**
+    * Feeds a response to the limiter: throttling responses lower the rate of the host and api of the request,
+    * others let it recover.
+    */
+   public void received(HttpRequest request, HttpResponse response) {
+      int statusCode = response.getStatusCode();
+      String retryAfter = response.getFirstHeaderOrNull(HttpHeaders.RETRY_AFTER);
+      if (statusCode == 429 || (retryAfter != null && (statusCode == 413 || statusCode == 503))) {
+         throttled(request, retryAfter != null ? retryAfterMillis(retryAfter) : 0);
+      } else if (statusCode < 400) {
+         Bucket bucket = buckets.get(keyOf(request));
+         if (bucket != null)
+            increase(bucket);
+      }
+   }
+
+   /**
+    * Lowers the rate of the host and api of the request, for instance on a provider specific throttling error.
+    * 
+    * @param retryAfterMillis
+    *           how long to hold back requests, 0 if the provider did not say
+    */
+   public void throttled(HttpRequest request, long retryAfterMillis) {
+      String key = keyOf(request);
+      Bucket bucket = bucket(key);
+      synchronized (bucket) {
+         long now = ticker.read();
+         bucket.throttled++;
+         if (retryAfterMillis > 0) {
+            long until = now + TimeUnit.MILLISECONDS.toNanos(min(retryAfterMillis, MAX_PAUSE_MILLIS));
+            if (until - bucket.pausedUntil > 0)
+               bucket.pausedUntil = until;
+         }
+         // requests in flight when the provider started throttling are all rejected at once: count them as one
+         if (bucket.limiter != null && now - bucket.lastDecrease < SECOND_NANOS)
+            return;
+         double current = bucket.limiter != null ? bucket.rate : bucket.window.sum(REQUEST)
+               / (double) RollingWindow.SECONDS;
+         setRate(bucket, max(minRate, current / 2));
+         bucket.lastDecrease = now;
+         bucket.lastIncrease = now;
+         logger.warn("throttled by %s, lowering the rate to %.2f requests per second%s", key, bucket.rate,
+               retryAfterMillis > 0 ? " and pausing for " + retryAfterMillis + "ms" : "");
+      }
+   }
+
+   /**
+    * @return a snapshot of the limits of every host and api a request has been sent to, keyed on
+    *         {@code host:port/Api}
+    */
+   public Map<String, RateStats> getStats() {
+      ImmutableMap.Builder<String, RateStats> stats = ImmutableMap.builder();
+      long now = ticker.read();
+      for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+         Bucket bucket = entry.getValue();
+         synchronized (bucket) {
+            stats.put(entry.getKey(), new RateStats(bucket.limiter != null ? bucket.rate : 0, bucket.throttled,
+                  TimeUnit.NANOSECONDS.toMillis(max(0, bucket.pausedUntil - now))));
+         }
+      }
+      return stats.build();
+   }
+
+   private void increase(Bucket bucket) {
+      synchronized (bucket) {
+         if (bucket.limiter == null)
+            return;
+         long now = ticker.read();
+         if (now - bucket.lastIncrease < SECOND_NANOS)
+            return;
+         double rate = bucket.rate + max(1, bucket.rate / 20);
+         setRate(bucket, maxRate > 0 ? min(maxRate, rate) : rate);
+         bucket.lastIncrease = now;
+      }
+   }
+
+   private static void setRate(Bucket bucket, double rate) {
+      bucket.rate = rate;
+      if (bucket.limiter == null)
+         bucket.limiter = RateLimiter.create(rate);
+      else
+         bucket.limiter.setRate(rate);
+   }
+
+   long retryAfterMillis(String retryAfter) {
+      // https://tools.ietf.org/html/rfc7231#section-7.1.3
+      if (retryAfter.matches("^[0-9]+$"))
+         return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter));
+      try {
+         return max(0, dateCodecs.rfc822().toDate(retryAfter).getTime() - System.currentTimeMillis());
+      } catch (IllegalArgumentException e) {
+         return 0;
+      }
+   }
+
+   @VisibleForTesting
+   static String keyOf(HttpRequest request) {
+      String host = hostKey(request.getEndpoint());
+      if (request instanceof GeneratedHttpRequest)
+         return host + "/" + GeneratedHttpRequest.class.cast(request).getInvocation().getInvokable().getOwnerType()
+               .getRawType().getSimpleName();
+      return host;
+   }
+
+   private Bucket bucket(String key) {
+      Bucket bucket = buckets.get(key);
+      if (bucket == null) {
+         Bucket created = new Bucket(new RollingWindow(ticker, 1), ticker.read());
+         if (maxRate > 0)
+            setRate(created, maxRate);
+         bucket = buckets.putIfAbsent(key, created);
+         if (bucket == null)
+            bucket = created;
+      }
+      return bucket;
+   }
+
+   private static final class Bucket {
+      private final RollingWindow window;
+      private RateLimiter limiter;
+      private double rate;
+      private long pausedUntil;
+      private long lastDecrease;
+      private long lastIncrease;
+      private long throttled;
+
+      Bucket(RollingWindow window, long now) {
+         this.window = window;
+         this.pausedUntil = now;
+         this.lastDecrease = now - SECOND_NANOS;
+         this.lastIncrease = now;
+      }
+   }
+
+   /**
+    * Limits of a single host and api.
+    */
+   public static final class RateStats {
+      private final double rate;
+      private final long throttled;
+      private final long pausedMillis;
+
+      RateStats(double rate, long throttled, long pausedMillis) {
+         this.rate = rate;
+         this.throttled = throttled;
+         this.pausedMillis = pausedMillis;
+      }
+
+      /**
+       * @return requests per second currently allowed, or 0 if unlimited
+       */
+      public double getRate() {
+         return rate;
+      }
+
+      /**
+       * @return throttling responses received since the context was created
+       */
+      public long getThrottled() {
+         return throttled;
+      }
+
+      /**
+       * @return milliseconds left of the current {@code Retry-After} delay
+       */
+      public long getPausedMillis() {
+         return pausedMillis;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("rate", rate).add("throttled", throttled)
+               .add("pausedMillis", pausedMillis).toString();
+      }
+   }
+}
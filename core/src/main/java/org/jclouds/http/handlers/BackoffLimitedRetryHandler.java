@@ -20,6 +20,7 @@ import static java.lang.Math.max;
 
 import java.io.IOException;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -33,6 +34,7 @@ import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 
 /**
@@ -86,6 +88,11 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
    @Named(Constants.PROPERTY_RETRY_DELAY_START)
    private long delayStart = 50L;
 
+   /**
+    * The command whose deferred backoff is being computed on this thread.
+    */
+   private final ThreadLocal<HttpCommand> deferringCommand = new ThreadLocal<HttpCommand>();
+
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -108,11 +115,59 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
                   command);
          return false;
       } else {
-         imposeBackoffExponentialDelay(command.getFailureCount(), "server error: " + command.toString());
+         imposeBackoffExponentialDelay(command, command.getFailureCount(), "server error: " + command.toString());
          return true;
       }
    }
 
+   /**
+    * Like {@link #imposeBackoffExponentialDelay(int, String)}, but only records the delay on the command if its
+    * backoff is {@link HttpCommand#deferBackoff() deferred}. Subclasses overriding the other
+    * {@code imposeBackoffExponentialDelay} methods still shape the delay.
+    */
+   public void imposeBackoffExponentialDelay(HttpCommand command, int failureCount, String commandDescription) {
+      if (!command.isBackoffDeferred()) {
+         imposeBackoffExponentialDelay(failureCount, commandDescription);
+         return;
+      }
+      deferringCommand.set(command);
+      try {
+         imposeBackoffExponentialDelay(failureCount, commandDescription);
+      } finally {
+         deferringCommand.remove();
+      }
+   }
+
+   /**
+    * Like {@link #imposeBackoffExponentialDelay(long, int, int, int, String)}, but only records the delay on the
+    * command if its backoff is {@link HttpCommand#deferBackoff() deferred}.
+    */
+   public void imposeBackoffExponentialDelay(HttpCommand command, long period, int pow, int failureCount, int max,
+            String commandDescription) {
+      if (!command.isBackoffDeferred()) {
+         imposeBackoffExponentialDelay(period, pow, failureCount, max, commandDescription);
+         return;
+      }
+      deferringCommand.set(command);
+      try {
+         imposeBackoffExponentialDelay(period, pow, failureCount, max, commandDescription);
+      } finally {
+         deferringCommand.remove();
+      }
+   }
+
+   /**
+    * Waits {@code delayMs} before the command is retried, for retry handlers whose delay is fixed rather than
+    * exponential: records the delay on the command if its backoff is {@link HttpCommand#deferBackoff() deferred},
+    * and sleeps otherwise.
+    */
+   public static void imposeBackoff(HttpCommand command, long delayMs) {
+      if (command.isBackoffDeferred())
+         command.setDeferredBackoff(delayMs);
+      else
+         Uninterruptibles.sleepUninterruptibly(delayMs, TimeUnit.MILLISECONDS);
+   }
+
    public void imposeBackoffExponentialDelay(int failureCount, String commandDescription) {
       imposeBackoffExponentialDelay(delayStart, 2, failureCount, retryCountLimit, commandDescription);
    }
@@ -123,10 +178,20 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
 
    public void imposeBackoffExponentialDelay(long period, long maxPeriod, int pow, int failureCount, int max,
             String commandDescription) {
+      long delayMs = backoffDelay(period, maxPeriod, pow, failureCount, max, commandDescription);
+      HttpCommand command = deferringCommand.get();
+      if (command != null)
+         command.setDeferredBackoff(delayMs);
+      else
+         sleep(delayMs);
+   }
+
+   private long backoffDelay(long period, long maxPeriod, int pow, int failureCount, int max,
+            String commandDescription) {
       if (period == 0) {
          // Essentially disables the exponential backoff
          logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, 0, commandDescription);
-         return;
+         return 0;
       }
       long delayMs = (long) (period * Math.pow(failureCount, pow));
       // Add random delay to avoid thundering herd problem when multiple
@@ -135,6 +200,12 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
       delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
       delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
       logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, delayMs, commandDescription);
+      return delayMs;
+   }
+
+   private static void sleep(long delayMs) {
+      if (delayMs == 0)
+         return;
       try {
          Thread.sleep(delayMs);
       } catch (InterruptedException e) {
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE;
+import static org.jclouds.Constants.PROPERTY_CIRCUIT_BREAKER_MIN_REQUESTS;
+import static org.jclouds.Constants.PROPERTY_CIRCUIT_BREAKER_OPEN_TIME;
+import static org.jclouds.http.internal.HostConnectionLimiter.hostKey;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Fails requests to a host fast while too many of its recent requests failed, instead of piling more load and
+ * retries onto it.
+ * <p/>
+ * The circuit of a host opens once at least {@link org.jclouds.Constants#PROPERTY_CIRCUIT_BREAKER_MIN_REQUESTS}
+ * requests were sent to it in the last ten seconds and the fraction that failed with a server error or an
+ * {@link java.io.IOException} reaches {@link org.jclouds.Constants#PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE}. After
+ * {@link org.jclouds.Constants#PROPERTY_CIRCUIT_BREAKER_OPEN_TIME} a single request is let through: if it succeeds the
+ * circuit closes again, otherwise it stays open for another period.
+ * <p/>
+ * The circuit breaker is disabled unless {@link org.jclouds.Constants#PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE} is set.
+ */
+@Beta
+@Singleton
+public class CircuitBreaker {
+
+   public static enum State {
+      /**
+       * requests are sent
+       */
+      CLOSED,
+      /**
+       * requests fail without being sent
+       */
+      OPEN,
+      /**
+       * a single request is probing the host, others fail without being sent
+       */
+      HALF_OPEN;
+   }
+
+   private static final int SUCCESS = 0;
+   private static final int FAILURE = 1;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_CIRCUIT_BREAKER_FAILURE_RATE)
+   @VisibleForTesting
+   double failureRate = 0;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_CIRCUIT_BREAKER_MIN_REQUESTS)
+   @VisibleForTesting
+   int minRequests = 20;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_CIRCUIT_BREAKER_OPEN_TIME)
+   @VisibleForTesting
+   long openTime = 10000;
+
+   private final Ticker ticker;
+   private final ConcurrentMap<String, Circuit> hosts = Maps.newConcurrentMap();
+
+   @Inject
+   CircuitBreaker() {
+      this(Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   CircuitBreaker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * @return false, if the circuit of the host of {@code endpoint} is open and the request must not be sent
+    */
+   public boolean allowRequest(URI endpoint) {
+      if (failureRate <= 0)
+         return true;
+      Circuit circuit = circuit(hostKey(endpoint));
+      synchronized (circuit) {
+         if (circuit.state == State.CLOSED)
+            return true;
+         long now = ticker.read();
+         // a probe that never reported back does not keep the circuit half open forever
+         if (now - circuit.openedAt < TimeUnit.MILLISECONDS.toNanos(openTime))
+            return false;
+         circuit.state = State.HALF_OPEN;
+         circuit.openedAt = now;
+         return true;
+      }
+   }
+
+   /**
+    * Records a request to the host of {@code endpoint} that did not fail with a server error.
+    */
+   public void recordSuccess(URI endpoint) {
+      if (failureRate <= 0)
+         return;
+      String host = hostKey(endpoint);
+      Circuit circuit = circuit(host);
+      synchronized (circuit) {
+         if (circuit.state == State.HALF_OPEN) {
+            logger.info("closing circuit of %s", host);
+            circuit.state = State.CLOSED;
+            circuit.window.clear();
+         }
+         circuit.window.increment(SUCCESS);
+      }
+   }
+
+   /**
+    * Records a request to the host of {@code endpoint} that failed with a server error or an
+    * {@link java.io.IOException}.
+    */
+   public void recordFailure(URI endpoint) {
+      if (failureRate <= 0)
+         return;
+      String host = hostKey(endpoint);
+      Circuit circuit = circuit(host);
+      synchronized (circuit) {
+         circuit.window.increment(FAILURE);
+         if (circuit.state == State.HALF_OPEN) {
+            logger.warn("probe of %s failed, keeping its circuit open for %sms", host, openTime);
+            open(circuit);
+         } else if (circuit.state == State.CLOSED) {
+            long failures = circuit.window.sum(FAILURE);
+            long requests = failures + circuit.window.sum(SUCCESS);
+            if (requests >= minRequests && failures >= failureRate * requests) {
+               logger.warn("%s of the last %s requests to %s failed, opening its circuit for %sms", failures,
+                     requests, host, openTime);
+               open(circuit);
+            }
+         }
+      }
+   }
+
+   /**
+    * @return the state of the circuit of the host of {@code endpoint}
+    */
+   public State getState(URI endpoint) {
+      Circuit circuit = hosts.get(hostKey(endpoint));
+      if (circuit == null)
+         return State.CLOSED;
+      synchronized (circuit) {
+         return circuit.state;
+      }
+   }
+
+   /**
+    * @return the state of the circuit of every host a request has been recorded for, keyed on {@code host:port}
+    */
+   public Map<String, State> getStates() {
+      ImmutableMap.Builder<String, State> states = ImmutableMap.builder();
+      for (Map.Entry<String, Circuit> entry : hosts.entrySet()) {
+         synchronized (entry.getValue()) {
+            states.put(entry.getKey(), entry.getValue().state);
+         }
+      }
+      return states.build();
+   }
+
+   private void open(Circuit circuit) {
+      circuit.state = State.OPEN;
+      circuit.openedAt = ticker.read();
+   }
+
+   private Circuit circuit(String host) {
+      Circuit circuit = hosts.get(host);
+      if (circuit == null) {
+         Circuit created = new Circuit(new RollingWindow(ticker, 2));
+         circuit = hosts.putIfAbsent(host, created);
+         if (circuit == null)
+            circuit = created;
+      }
+      return circuit;
+   }
+
+   private static final class Circuit {
+      private final RollingWindow window;
+      private State state = State.CLOSED;
+      private long openedAt;
+
+      Circuit(RollingWindow window) {
+         this.window = window;
+      }
+   }
+}
@@ -16,6 +16,11 @@
  */
 package org.jclouds.http.handlers;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.net.URI;
+
+import javax.annotation.Resource;
 import javax.inject.Singleton;
 
 import org.jclouds.http.HttpCommand;
@@ -24,6 +29,7 @@ import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
 import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
+import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
@@ -31,10 +37,16 @@ import com.google.inject.Inject;
 /**
  * Delegates to {@link HttpRetryHandler HttpRetryHandlers} who are annotated according to the
  * response codes they relate to.
+ * <p>
+ * Errors are not retried while the {@link CircuitBreaker} of their endpoint is open, or once its
+ * {@link RetryBudget} is exhausted.
  */
 @Singleton
 public class DelegatingRetryHandler implements HttpRetryHandler {
 
+   @Resource
+   protected Logger logger = Logger.NULL;
+
    @VisibleForTesting
    @Inject(optional = true)
    @Redirection
@@ -50,12 +62,17 @@ public class DelegatingRetryHandler implements HttpRetryHandler {
    @ServerError
    HttpRetryHandler serverErrorRetryHandler;
 
+   private final CircuitBreaker circuitBreaker;
+   private final RetryBudget retryBudget;
+
    @Inject
    public DelegatingRetryHandler(BackoffLimitedRetryHandler backOff,
-            RedirectionRetryHandler redirectionRetryHandler) {
+            RedirectionRetryHandler redirectionRetryHandler, CircuitBreaker circuitBreaker, RetryBudget retryBudget) {
       this.serverErrorRetryHandler = backOff;
       this.redirectionRetryHandler = redirectionRetryHandler;
       this.clientErrorRetryHandler = HttpRetryHandler.NEVER_RETRY;
+      this.circuitBreaker = checkNotNull(circuitBreaker, "circuitBreaker");
+      this.retryBudget = checkNotNull(retryBudget, "retryBudget");
    }
 
    public boolean shouldRetryRequest(HttpCommand command, HttpResponse response) {
@@ -64,13 +81,33 @@ public class DelegatingRetryHandler implements HttpRetryHandler {
       if (statusCode >= 300 && statusCode < 400) {
          retryRequest = redirectionRetryHandler.shouldRetryRequest(command, response);
       } else if (statusCode >= 400 && statusCode < 500) {
-         retryRequest = clientErrorRetryHandler.shouldRetryRequest(command, response);
+         retryRequest = isCircuitClosed(command) && clientErrorRetryHandler.shouldRetryRequest(command, response)
+                  && tryRetry(command);
       } else if (statusCode >= 500) {
-         retryRequest = serverErrorRetryHandler.shouldRetryRequest(command, response);
+         retryRequest = isCircuitClosed(command) && serverErrorRetryHandler.shouldRetryRequest(command, response)
+                  && tryRetry(command);
       }
       return retryRequest;
    }
 
+   private boolean isCircuitClosed(HttpCommand command) {
+      if (circuitBreaker.getState(command.getCurrentRequest().getEndpoint()) == CircuitBreaker.State.CLOSED)
+         return true;
+      logger.error("Cannot retry after error, circuit of the endpoint is open: %1$s", command);
+      return false;
+   }
+
+   /**
+    * Takes the retry from the budget of the endpoint, once the delegate decided to retry.
+    */
+   private boolean tryRetry(HttpCommand command) {
+      URI endpoint = command.getCurrentRequest().getEndpoint();
+      if (retryBudget.tryRetry(endpoint))
+         return true;
+      logger.error("Cannot retry after error, retry budget of the endpoint is exhausted: %1$s", command);
+      return false;
+   }
+
    public HttpRetryHandler getRedirectionRetryHandler() {
       return redirectionRetryHandler;
    }
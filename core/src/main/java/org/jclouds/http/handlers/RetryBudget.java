@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_RETRY_BUDGET_MIN_RETRIES;
+import static org.jclouds.Constants.PROPERTY_RETRY_BUDGET_RATIO;
+import static org.jclouds.http.internal.HostConnectionLimiter.hostKey;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Limits the retries to each host to a fraction of the requests that recently succeeded against it, so that callers
+ * retrying independently cannot multiply the load on a host that is failing. A minimum number of retries per second is
+ * always allowed.
+ * 
+ * @see org.jclouds.Constants#PROPERTY_RETRY_BUDGET_RATIO
+ * @see org.jclouds.Constants#PROPERTY_RETRY_BUDGET_MIN_RETRIES
+ */
+@Beta
+@Singleton
+public class RetryBudget {
+   private static final int SUCCESS = 0;
+   private static final int RETRY = 1;
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RETRY_BUDGET_RATIO)
+   @VisibleForTesting
+   double ratio = 0.2;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RETRY_BUDGET_MIN_RETRIES)
+   @VisibleForTesting
+   int minRetriesPerSecond = 10;
+
+   private final Ticker ticker;
+   private final ConcurrentMap<String, RollingWindow> hosts = Maps.newConcurrentMap();
+
+   @Inject
+   RetryBudget() {
+      this(Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   RetryBudget(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Records a request to the host of {@code endpoint} that did not fail with a server error.
+    */
+   public void recordSuccess(URI endpoint) {
+      if (ratio >= 0)
+         window(hostKey(endpoint)).increment(SUCCESS);
+   }
+
+   /**
+    * Takes a retry from the budget of the host of {@code endpoint}.
+    * 
+    * @return false, if the budget is exhausted and the request should not be retried
+    */
+   public boolean tryRetry(URI endpoint) {
+      if (ratio < 0)
+         return true;
+      String host = hostKey(endpoint);
+      RollingWindow window = window(host);
+      synchronized (window) {
+         long retries = window.sum(RETRY);
+         if (retries >= allowed(window)) {
+            logger.warn("retry budget of %s exhausted: %s retries for %s successful requests in the last %ss", host,
+                  retries, window.sum(SUCCESS), RollingWindow.SECONDS);
+            return false;
+         }
+         window.increment(RETRY);
+         return true;
+      }
+   }
+
+   /**
+    * @return a snapshot of the budget of every host a request has been recorded for, keyed on {@code host:port}
+    */
+   public Map<String, BudgetStats> getStats() {
+      ImmutableMap.Builder<String, BudgetStats> stats = ImmutableMap.builder();
+      for (Map.Entry<String, RollingWindow> entry : hosts.entrySet()) {
+         RollingWindow window = entry.getValue();
+         synchronized (window) {
+            stats.put(entry.getKey(), new BudgetStats(window.sum(SUCCESS), window.sum(RETRY), allowed(window)));
+         }
+      }
+      return stats.build();
+   }
+
+   private long allowed(RollingWindow window) {
+      return (long) (minRetriesPerSecond * RollingWindow.SECONDS + ratio * window.sum(SUCCESS));
+   }
+
+   private RollingWindow window(String host) {
+      RollingWindow window = hosts.get(host);
+      if (window == null) {
+         RollingWindow created = new RollingWindow(ticker, 2);
+         window = hosts.putIfAbsent(host, created);
+         if (window == null)
+            window = created;
+      }
+      return window;
+   }
+
+   /**
+    * Counters of the budget of a single host over the last ten seconds.
+    */
+   public static final class BudgetStats {
+      private final long successes;
+      private final long retries;
+      private final long allowedRetries;
+
+      BudgetStats(long successes, long retries, long allowedRetries) {
+         this.successes = successes;
+         this.retries = retries;
+         this.allowedRetries = allowedRetries;
+      }
+
+      /**
+       * @return requests that did not fail with a server error
+       */
+      public long getSuccesses() {
+         return successes;
+      }
+
+      /**
+       * @return retries taken from the budget
+       */
+      public long getRetries() {
+         return retries;
+      }
+
+      /**
+       * @return retries the budget allows at the moment, including those already taken
+       */
+      public long getAllowedRetries() {
+         return allowedRetries;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("successes", successes).add("retries", retries)
+               .add("allowedRetries", allowedRetries).toString();
+      }
+   }
+}
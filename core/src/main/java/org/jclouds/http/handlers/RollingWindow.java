@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Counts events of a few kinds over the last {@link #SECONDS} seconds, in one second buckets.
+ */
+final class RollingWindow {
+   static final int SECONDS = 10;
+
+   private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   private final Ticker ticker;
+   private final long[][] counts;
+   private final long[] buckets = new long[SECONDS];
+
+   RollingWindow(Ticker ticker, int kinds) {
+      this.ticker = ticker;
+      this.counts = new long[kinds][SECONDS];
+      Arrays.fill(buckets, Long.MIN_VALUE);
+   }
+
+   synchronized void increment(int kind) {
+      long bucket = ticker.read() / BUCKET_NANOS;
+      // nanoTime may be negative
+      int slot = (int) ((bucket % SECONDS + SECONDS) % SECONDS);
+      if (buckets[slot] != bucket) {
+         buckets[slot] = bucket;
+         for (long[] count : counts)
+            count[slot] = 0;
+      }
+      counts[kind][slot]++;
+   }
+
+   synchronized long sum(int kind) {
+      long oldest = ticker.read() / BUCKET_NANOS - SECONDS;
+      long sum = 0;
+      for (int slot = 0; slot < SECONDS; slot++) {
+         if (buckets[slot] > oldest)
+            sum += counts[kind][slot];
+      }
+      return sum;
+   }
+
+   synchronized void clear() {
+      Arrays.fill(buckets, Long.MIN_VALUE);
+   }
+}
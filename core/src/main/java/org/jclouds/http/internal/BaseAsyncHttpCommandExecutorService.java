@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
+import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+
+import org.jclouds.Constants;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
+import org.jclouds.instrumentation.Instrumentation;
+import org.jclouds.io.ContentMetadataCodec;
+
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Base for drivers whose native client completes requests asynchronously.
+ * <p>
+ * {@link #submit(HttpCommand)} follows the same retry, redirect and error handling as
+ * {@link #invoke(HttpCommand)}, but runs each step as a callback when the native response arrives. Error and retry
+ * handlers read the response body, so they are never run on the driver's I/O threads.
+ * <p>
+ * When the {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule scheduler} is bound, the callbacks run
+ * on it, and the user executor is left to the callers fanning requests out and to the parsing of their responses.
+ * Retry handlers are then asked to {@link HttpCommand#deferBackoff() defer} their backoff, and the next attempt is
+ * scheduled rather than slept for. Without a scheduler, the callbacks run on the user executor and backoffs are
+ * slept there.
+ * <p>
+ * The calling thread never waits for the rate and connection limits either. A request queued for a connection to
+ * its host resumes on the callback executor once one is released, and a request held back by the rate limiter is
+ * attempted again once the wait is over.
+ */
+public abstract class BaseAsyncHttpCommandExecutorService<Q> extends BaseHttpCommandExecutorService<Q> implements
+      AsyncHttpCommandExecutorService {
+
+   protected final ListeningExecutorService userExecutor;
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_SCHEDULER_THREADS)
+   protected ListeningScheduledExecutorService scheduler;
+
+   protected BaseAsyncHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, HostConnectionLimiter connectionLimiter,
+         AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RetryBudget retryBudget,
+         Instrumentation instrumentation, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, connectionLimiter,
+            rateLimiter, circuitBreaker, retryBudget, instrumentation);
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+   }
+
+   /**
+    * @return the executor that runs the retry, redirect and error handling of submitted commands
+    */
+   protected Executor callbackExecutor() {
+      return scheduler != null ? scheduler : userExecutor;
+   }
+
+   @Override
+   public ListenableFuture<HttpResponse> submit(HttpCommand command) {
+      SettableFuture<HttpResponse> result = SettableFuture.create();
+      if (scheduler != null)
+         command.deferBackoff();
+      attempt(command, result);
+      return result;
+   }
+
+   private void attempt(final HttpCommand command, final SettableFuture<HttpResponse> result) {
+      if (result.isCancelled())
+         return;
+      HttpRequest request = command.getCurrentRequest();
+      if (!circuitBreaker.allowRequest(request.getEndpoint())) {
+         command.setException(circuitOpen(command));
+         result.setException(command.getException());
+         return;
+      }
+      long wait = rateLimiter.tryAcquire(request);
+      if (wait > 0) {
+         attemptLater(command, result, wait);
+         return;
+      }
+      final ListenableFuture<String> host = connectionLimiter.acquireAsync(request.getEndpoint(), scheduler);
+      if (!host.isDone()) {
+         result.addListener(new Runnable() {
+            @Override
+            public void run() {
+               if (result.isCancelled())
+                  host.cancel(false);
+            }
+         }, sameThreadExecutor());
+      }
+      Futures.addCallback(host, new FutureCallback<String>() {
+         @Override
+         public void onSuccess(String key) {
+            send(command, result, key);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            if (!result.isCancelled())
+               failed(command, result, invokableOf(command.getCurrentRequest()), command.getCurrentRequest(), t);
+         }
+      }, host.isDone() ? sameThreadExecutor() : callbackExecutor());
+   }
+
+   /**
+    * Filters and sends the request, once a connection to its host is ours.
+    */
+   private void send(final HttpCommand command, final SettableFuture<HttpResponse> result, final String host) {
+      if (result.isCancelled()) {
+         connectionLimiter.release(host);
+         return;
+      }
+      HttpRequest request = command.getCurrentRequest();
+      final Invokable<?, ?> method = invokableOf(request);
+      try {
+         long filterStart = System.nanoTime();
+         for (HttpRequestFilter filter : request.getFilters()) {
+            request = filter.filter(request);
+         }
+         if (method != null)
+            instrumentation.requestFiltered(method, System.nanoTime() - filterStart);
+         checkRequestHasContentLengthOrChunkedEncoding(request,
+               "After filtering, the request has neither chunked encoding nor content length: " + request);
+         logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+         wirePayloadIfEnabled(wire, request);
+         utils.logRequest(headerLog, request, ">>");
+      } catch (Exception e) {
+         connectionLimiter.release(host);
+         failed(command, result, method, request, e);
+         return;
+      }
+
+      final HttpRequest filtered = request;
+      final Q nativeRequest;
+      final ListenableFuture<HttpResponse> response;
+      try {
+         nativeRequest = convert(filtered);
+         response = invokeAsync(nativeRequest);
+      } catch (Exception e) {
+         connectionLimiter.release(host);
+         failed(command, result, method, filtered, e);
+         return;
+      }
+
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled())
+               response.cancel(true);
+         }
+      }, sameThreadExecutor());
+      Futures.addCallback(response, new FutureCallback<HttpResponse>() {
+         @Override
+         public void onSuccess(HttpResponse response) {
+            try {
+               received(command, result, method, filtered, connectionLimiter.releaseWithPayload(host, response));
+            } catch (Exception e) {
+               failed(command, result, method, filtered, e);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            connectionLimiter.release(host);
+            cleanup(nativeRequest);
+            failed(command, result, method, filtered, t);
+         }
+      }, callbackExecutor());
+   }
+
+   private void received(HttpCommand command, SettableFuture<HttpResponse> result, Invokable<?, ?> method,
+         HttpRequest request, HttpResponse response) {
+      if (method != null)
+         instrumentation.bytesTransferred(method, contentLength(request.getPayload()),
+               contentLength(response.getPayload()));
+      logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+      utils.logResponse(headerLog, response, "<<");
+      if (response.getPayload() != null && wire.enabled())
+         wire.input(response);
+      recordResponse(request, response);
+      if (response.getStatusCode() >= 300 && shouldContinue(command, response)) {
+         if (method != null)
+            instrumentation.requestRetried(method);
+         retry(command, result);
+      } else if (command.getException() != null) {
+         result.setException(command.getException());
+      } else {
+         result.set(response);
+      }
+   }
+
+   private void failed(HttpCommand command, SettableFuture<HttpResponse> result, Invokable<?, ?> method,
+         HttpRequest request, Throwable t) {
+      IOException ioe = getFirstThrowableOfType(t, IOException.class);
+      if (ioe != null)
+         circuitBreaker.recordFailure(request.getEndpoint());
+      if (ioe != null && shouldContinue(command, ioe)) {
+         if (method != null)
+            instrumentation.requestRetried(method);
+         retry(command, result);
+         return;
+      }
+      command.setException(new HttpResponseException(t.getMessage() + " connecting to "
+            + command.getCurrentRequest().getRequestLine(), command, null, t));
+      result.setException(command.getException());
+   }
+
+   /**
+    * Sends the next attempt of the command, after the backoff the retry handler deferred to us, if any.
+    */
+   private void retry(final HttpCommand command, final SettableFuture<HttpResponse> result) {
+      long backoff = command.takeDeferredBackoff();
+      if (backoff <= 0) {
+         attempt(command, result);
+         return;
+      }
+      attemptLater(command, result, TimeUnit.MILLISECONDS.toNanos(backoff));
+   }
+
+   /**
+    * Sends the next attempt of the command after {@code delayNanos}, scheduling it when the scheduler is bound and
+    * sleeping on a user thread otherwise.
+    */
+   private void attemptLater(final HttpCommand command, final SettableFuture<HttpResponse> result,
+         final long delayNanos) {
+      final Runnable attempt = new Runnable() {
+         @Override
+         public void run() {
+            attempt(command, result);
+         }
+      };
+      if (scheduler != null) {
+         scheduler.schedule(attempt, delayNanos, TimeUnit.NANOSECONDS);
+         return;
+      }
+      userExecutor.execute(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               result.setException(e);
+               return;
+            }
+            attempt.run();
+         }
+      });
+   }
+
+   /**
+    * Blocks on {@link #invokeAsync(Object)}, so that {@link #invoke(HttpCommand)} works unchanged on this driver.
+    */
+   @Override
+   protected HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException {
+      ListenableFuture<HttpResponse> response = invokeAsync(nativeRequest);
+      try {
+         return response.get();
+      } catch (InterruptedException e) {
+         response.cancel(true);
+         throw e;
+      } catch (ExecutionException e) {
+         IOException ioe = getFirstThrowableOfType(e, IOException.class);
+         if (ioe != null)
+            throw ioe;
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * Sends the request, returning a future that completes once the response status and headers have arrived. The
+    * response payload may still be streaming from the server when the future completes.
+    */
+   protected abstract ListenableFuture<HttpResponse> invokeAsync(Q nativeRequest);
+
+}
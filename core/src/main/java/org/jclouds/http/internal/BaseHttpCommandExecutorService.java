@@ -39,13 +39,20 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.Payload;
 import org.jclouds.logging.Logger;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
 
 public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
    private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
@@ -64,17 +71,29 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
    protected Logger headerLog = Logger.NULL;
 
    protected final HttpWire wire;
+   protected final HostConnectionLimiter connectionLimiter;
+   protected final AdaptiveRateLimiter rateLimiter;
+   protected final CircuitBreaker circuitBreaker;
+   protected final RetryBudget retryBudget;
+   protected final Instrumentation instrumentation;
 
    @Inject
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
-         DelegatingErrorHandler errorHandler, HttpWire wire) {
+         DelegatingErrorHandler errorHandler, HttpWire wire, HostConnectionLimiter connectionLimiter,
+         AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RetryBudget retryBudget,
+         Instrumentation instrumentation) {
       this.utils = checkNotNull(utils, "utils");
       this.contentMetadataCodec = checkNotNull(contentMetadataCodec, "contentMetadataCodec");
       this.retryHandler = checkNotNull(retryHandler, "retryHandler");
       this.ioRetryHandler = checkNotNull(ioRetryHandler, "ioRetryHandler");
       this.errorHandler = checkNotNull(errorHandler, "errorHandler");
       this.wire = checkNotNull(wire, "wire");
+      this.connectionLimiter = checkNotNull(connectionLimiter, "connectionLimiter");
+      this.rateLimiter = checkNotNull(rateLimiter, "rateLimiter");
+      this.circuitBreaker = checkNotNull(circuitBreaker, "circuitBreaker");
+      this.retryBudget = checkNotNull(retryBudget, "retryBudget");
+      this.instrumentation = checkNotNull(instrumentation, "instrumentation");
    }
 
    @Override
@@ -82,36 +101,68 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       HttpResponse response = null;
       for (;;) {
          HttpRequest request = command.getCurrentRequest();
+         Invokable<?, ?> method = invokableOf(request);
          Q nativeRequest = null;
          try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
+            if (!circuitBreaker.allowRequest(request.getEndpoint())) {
+               command.setException(circuitOpen(command));
+               break;
+            }
+            // wait for limits before filtering, so that signatures and dates are fresh when the request is sent
+            rateLimiter.acquire(request);
+            String host = connectionLimiter.acquire(request.getEndpoint());
+            try {
+               long filterStart = System.nanoTime();
+               for (HttpRequestFilter filter : request.getFilters()) {
+                  request = filter.filter(request);
+               }
+               if (method != null)
+                  instrumentation.requestFiltered(method, System.nanoTime() - filterStart);
+               checkRequestHasContentLengthOrChunkedEncoding(request,
+                     "After filtering, the request has neither chunked encoding nor content length: " + request);
+               logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+               wirePayloadIfEnabled(wire, request);
+               utils.logRequest(headerLog, request, ">>");
+               nativeRequest = convert(request);
+               response = connectionLimiter.releaseWithPayload(host, invoke(nativeRequest));
+               host = null;
+            } finally {
+               connectionLimiter.release(host);
             }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
-            nativeRequest = convert(request);
-            response = invoke(nativeRequest);
 
+            if (method != null)
+               instrumentation.bytesTransferred(method, contentLength(request.getPayload()),
+                     contentLength(response.getPayload()));
             logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
             utils.logResponse(headerLog, response, "<<");
             if (response.getPayload() != null && wire.enabled())
                wire.input(response);
             nativeRequest = null; // response took ownership of streams
+            recordResponse(request, response);
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
-               if (shouldContinue(command, response))
+               if (shouldContinue(command, response)) {
+                  if (method != null)
+                     instrumentation.requestRetried(method);
                   continue;
-               else
+               } else {
                   break;
+               }
             } else {
                break;
             }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.setException(new HttpResponseException("interrupted while sending "
+                  + command.getCurrentRequest().getRequestLine(), command, null, e));
+            break;
          } catch (Exception e) {
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
+            if (ioe != null)
+               circuitBreaker.recordFailure(request.getEndpoint());
             if (ioe != null && shouldContinue(command, ioe)) {
+               if (method != null)
+                  instrumentation.requestRetried(method);
                continue;
             }
             command.setException(new HttpResponseException(e.getMessage() + " connecting to "
@@ -127,6 +178,24 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       return response;
    }
 
+   /**
+    * Feeds the status of a response to the rate limiter, circuit breaker and retry budget of its endpoint.
+    */
+   void recordResponse(HttpRequest request, HttpResponse response) {
+      rateLimiter.received(request, response);
+      if (response.getStatusCode() >= 500) {
+         circuitBreaker.recordFailure(request.getEndpoint());
+      } else {
+         circuitBreaker.recordSuccess(request.getEndpoint());
+         retryBudget.recordSuccess(request.getEndpoint());
+      }
+   }
+
+   static HttpResponseException circuitOpen(HttpCommand command) {
+      return new HttpResponseException("circuit breaker is open, not sending "
+            + command.getCurrentRequest().getRequestLine(), command, null);
+   }
+
    @VisibleForTesting
    boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
@@ -142,7 +211,12 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
    }
 
    boolean shouldContinue(HttpCommand command, IOException response) {
-      return isIdempotent(command) && ioRetryHandler.shouldRetryRequest(command, response);
+      if (!isIdempotent(command) || !ioRetryHandler.shouldRetryRequest(command, response))
+         return false;
+      if (retryBudget.tryRetry(command.getCurrentRequest().getEndpoint()))
+         return true;
+      logger.error("Cannot retry after IOException, retry budget of the endpoint is exhausted: %1$s", command);
+      return false;
    }
 
    private boolean isIdempotent(HttpCommand command) {
@@ -155,6 +229,18 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       }
    }
 
+   static Invokable<?, ?> invokableOf(HttpRequest request) {
+      return request instanceof GeneratedHttpRequest ? GeneratedHttpRequest.class.cast(request).getInvocation()
+            .getInvokable() : null;
+   }
+
+   static long contentLength(Payload payload) {
+      if (payload == null)
+         return 0;
+      Long length = payload.getContentMetadata().getContentLength();
+      return length != null ? length : 0;
+   }
+
    protected abstract Q convert(HttpRequest request) throws IOException, InterruptedException;
 
    protected abstract HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException;
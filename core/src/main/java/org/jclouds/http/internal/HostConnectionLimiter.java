@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.jclouds.Constants.PROPERTY_CONNECTION_QUEUE_TIMEOUT;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.DelegatingPayload;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+
+/**
+ * Admits at most {@link HttpUtils#getMaxConnectionsPerHost()} concurrent requests to each host, so that a slow
+ * host cannot occupy every connection of a context shared between several endpoints. Requests over the limit wait
+ * in arrival order, for up to {@link org.jclouds.Constants#PROPERTY_CONNECTION_QUEUE_TIMEOUT} milliseconds.
+ * <p/>
+ * A request holds its place from the moment its connection is opened until its response payload is released, as
+ * the connection stays busy while the payload streams in. A limit of zero disables admission control entirely.
+ */
+@Singleton
+public class HostConnectionLimiter {
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_CONNECTION_QUEUE_TIMEOUT)
+   @VisibleForTesting
+   long queueTimeout = 0;
+
+   private final int maxPerHost;
+   private final ConcurrentMap<String, HostQueue> hosts = Maps.newConcurrentMap();
+
+   @Inject
+   HostConnectionLimiter(HttpUtils utils) {
+      this(utils.getMaxConnectionsPerHost());
+   }
+
+   @VisibleForTesting
+   HostConnectionLimiter(int maxPerHost) {
+      this.maxPerHost = maxPerHost;
+   }
+
+   /**
+    * Blocks until a request to the host of {@code endpoint} may be sent. Every successful call must be followed by
+    * {@link #release(String)} with the returned key.
+    * 
+    * @return the key of the host, or null if admission control is disabled
+    * @throws TimeoutException
+    *            if no connection to the host became available within the queue timeout
+    */
+   public String acquire(URI endpoint) throws InterruptedException, TimeoutException {
+      if (maxPerHost <= 0)
+         return null;
+      String host = hostKey(checkNotNull(endpoint, "endpoint"));
+      HostQueue queue = queue(host);
+      if (queue.permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+         queue.acquired.incrementAndGet();
+         return host;
+      }
+      long start = System.nanoTime();
+      queue.waiting.incrementAndGet();
+      boolean acquired = false;
+      try {
+         if (queueTimeout > 0) {
+            acquired = queue.permits.tryAcquire(queueTimeout, TimeUnit.MILLISECONDS);
+         } else {
+            queue.permits.acquire();
+            acquired = true;
+         }
+      } finally {
+         int waiting = queue.waiting.decrementAndGet();
+         long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+         queue.recordWait(waited);
+         if (acquired) {
+            queue.acquired.incrementAndGet();
+            logger.debug("waited %sms for a connection to %s; %s requests still queued", waited, host, waiting);
+         }
+      }
+      if (!acquired) {
+         queue.timedOut.incrementAndGet();
+         throw new TimeoutException(String.format("timed out after %sms waiting for one of %s connections to %s",
+               queueTimeout, maxPerHost, host));
+      }
+      return host;
+   }
+
+   /**
+    * Like {@link #acquire(URI)}, but returns at once: the future completes with the key of the host once a request
+    * to it may be sent, so that no thread is blocked while the request is queued. The future completes on the thread
+    * that {@link #release(String) released} the connection. Cancelling it gives up the place in the queue; once it
+    * has completed, the caller owns the connection and must release it.
+    * 
+    * @param timer
+    *           fails the future with a {@link TimeoutException} after the queue timeout; if null, the request waits
+    *           as long as it takes
+    */
+   public ListenableFuture<String> acquireAsync(URI endpoint, @Nullable ScheduledExecutorService timer) {
+      if (maxPerHost <= 0)
+         return Futures.immediateFuture(null);
+      final String host = hostKey(checkNotNull(endpoint, "endpoint"));
+      final HostQueue queue = queue(host);
+      if (queue.permits.tryAcquire()) {
+         queue.acquired.incrementAndGet();
+         return Futures.immediateFuture(host);
+      }
+      final long start = System.nanoTime();
+      final SettableFuture<String> waiter = SettableFuture.create();
+      queue.waiting.incrementAndGet();
+      waiter.addListener(new Runnable() {
+         @Override
+         public void run() {
+            queue.waiters.remove(waiter);
+            int waiting = queue.waiting.decrementAndGet();
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            queue.recordWait(waited);
+            if (!waiter.isCancelled())
+               logger.debug("waited %sms for a connection to %s; %s requests still queued", waited, host, waiting);
+         }
+      }, sameThreadExecutor());
+      queue.waiters.add(waiter);
+      // a connection released while we were queueing must not be missed
+      drain(host, queue);
+      if (timer != null && queueTimeout > 0 && !waiter.isDone()) {
+         timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+               if (waiter.setException(new TimeoutException(String.format(
+                     "timed out after %sms waiting for one of %s connections to %s", queueTimeout, maxPerHost, host))))
+                  queue.timedOut.incrementAndGet();
+            }
+         }, queueTimeout, TimeUnit.MILLISECONDS);
+      }
+      return waiter;
+   }
+
+   /**
+    * Hands the place of a request over to the payload of its response: the next queued request to {@code host}
+    * proceeds once the payload is released or closed, or a stream opened on it is closed. A response without a
+    * payload releases the place at once.
+    * 
+    * @param host
+    *           key returned by {@link #acquire(URI)}; null leaves {@code response} as is
+    * @return {@code response}, or a copy of it whose payload releases the place of the request
+    */
+   public HttpResponse releaseWithPayload(String host, HttpResponse response) {
+      if (host == null)
+         return response;
+      if (response.getPayload() == null) {
+         release(host);
+         return response;
+      }
+      return response.toBuilder().payload(new ReleasingPayload(response.getPayload(), host)).build();
+   }
+
+   /**
+    * Lets the next queued request to {@code host} proceed.
+    * 
+    * @param host
+    *           key returned by {@link #acquire(URI)}; null is ignored
+    */
+   public void release(String host) {
+      if (host == null)
+         return;
+      HostQueue queue = hosts.get(host);
+      queue.permits.release();
+      drain(host, queue);
+   }
+
+   /**
+    * Hands free connections to the requests queued by {@link #acquireAsync(URI, ScheduledExecutorService)}. Called
+    * after each change to either, so that a connection and a request waiting for one are never both left behind.
+    */
+   private static void drain(String host, HostQueue queue) {
+      while (!queue.waiters.isEmpty() && queue.permits.tryAcquire()) {
+         SettableFuture<String> waiter = queue.waiters.poll();
+         if (waiter != null && waiter.set(host))
+            queue.acquired.incrementAndGet();
+         else
+            queue.permits.release();
+      }
+   }
+
+   /**
+    * @return a snapshot of the queue of every host a request has been sent to, keyed on {@code host:port}
+    */
+   public Map<String, HostStats> getStats() {
+      ImmutableMap.Builder<String, HostStats> stats = ImmutableMap.builder();
+      for (Map.Entry<String, HostQueue> entry : hosts.entrySet())
+         stats.put(entry.getKey(), entry.getValue().snapshot());
+      return stats.build();
+   }
+
+   private HostQueue queue(String host) {
+      HostQueue queue = hosts.get(host);
+      if (queue == null) {
+         HostQueue created = new HostQueue(maxPerHost);
+         queue = hosts.putIfAbsent(host, created);
+         if (queue == null)
+            queue = created;
+      }
+      return queue;
+   }
+
+   /**
+    * @return {@code host:port} of the endpoint, with the default port of its scheme if it has none
+    */
+   public static String hostKey(URI endpoint) {
+      int port = endpoint.getPort();
+      if (port == -1)
+         port = "https".equalsIgnoreCase(endpoint.getScheme()) ? 443 : 80;
+      return endpoint.getHost() + ":" + port;
+   }
+
+   /**
+    * Releases the place of its request the first time it, or a stream opened on it, is released or closed.
+    */
+   private final class ReleasingPayload extends DelegatingPayload {
+      private final String host;
+      private final AtomicBoolean released = new AtomicBoolean();
+
+      ReleasingPayload(Payload delegate, String host) {
+         super(delegate);
+         this.host = host;
+         setSensitive(delegate.isSensitive());
+      }
+
+      @Override
+      public InputStream openStream() throws IOException {
+         return new FilterInputStream(super.openStream()) {
+            @Override
+            public void close() throws IOException {
+               try {
+                  super.close();
+               } finally {
+                  releaseHost();
+               }
+            }
+         };
+      }
+
+      @Override
+      public Object getRawContent() {
+         return getInput();
+      }
+
+      @Override
+      public void release() {
+         try {
+            super.release();
+         } finally {
+            releaseHost();
+         }
+      }
+
+      @Override
+      public void close() throws IOException {
+         try {
+            super.close();
+         } finally {
+            releaseHost();
+         }
+      }
+
+      private void releaseHost() {
+         if (released.compareAndSet(false, true))
+            HostConnectionLimiter.this.release(host);
+      }
+   }
+
+   private static final class HostQueue {
+      private final int maxPerHost;
+      private final Semaphore permits;
+      private final Queue<SettableFuture<String>> waiters = new ConcurrentLinkedQueue<SettableFuture<String>>();
+      private final AtomicInteger waiting = new AtomicInteger();
+      private final AtomicLong acquired = new AtomicLong();
+      private final AtomicLong timedOut = new AtomicLong();
+      private final AtomicLong waits = new AtomicLong();
+      private final AtomicLong totalWaitMillis = new AtomicLong();
+      private final AtomicLong maxWaitMillis = new AtomicLong();
+
+      HostQueue(int maxPerHost) {
+         this.maxPerHost = maxPerHost;
+         this.permits = new Semaphore(maxPerHost, true);
+      }
+
+      void recordWait(long millis) {
+         waits.incrementAndGet();
+         totalWaitMillis.addAndGet(millis);
+         for (long max = maxWaitMillis.get(); millis > max; max = maxWaitMillis.get()) {
+            if (maxWaitMillis.compareAndSet(max, millis))
+               break;
+         }
+      }
+
+      HostStats snapshot() {
+         return new HostStats(maxPerHost - permits.availablePermits(), waiting.get(), acquired.get(),
+               timedOut.get(), waits.get(), totalWaitMillis.get(), maxWaitMillis.get());
+      }
+   }
+
+   /**
+    * Counters of the requests to a single host.
+    */
+   public static final class HostStats {
+      private final int inFlight;
+      private final int queueDepth;
+      private final long acquired;
+      private final long timedOut;
+      private final long waits;
+      private final long totalWaitMillis;
+      private final long maxWaitMillis;
+
+      HostStats(int inFlight, int queueDepth, long acquired, long timedOut, long waits, long totalWaitMillis,
+            long maxWaitMillis) {
+         this.inFlight = inFlight;
+         this.queueDepth = queueDepth;
+         this.acquired = acquired;
+         this.timedOut = timedOut;
+         this.waits = waits;
+         this.totalWaitMillis = totalWaitMillis;
+         this.maxWaitMillis = maxWaitMillis;
+      }
+
+      /**
+       * @return requests currently holding a connection to the host
+       */
+      public int getInFlight() {
+         return inFlight;
+      }
+
+      /**
+       * @return requests currently waiting for a connection to the host
+       */
+      public int getQueueDepth() {
+         return queueDepth;
+      }
+
+      /**
+       * @return requests admitted since the context was created
+       */
+      public long getAcquired() {
+         return acquired;
+      }
+
+      /**
+       * @return requests that gave up waiting after the queue timeout
+       */
+      public long getTimedOut() {
+         return timedOut;
+      }
+
+      /**
+       * @return requests that had to wait before being admitted or timing out
+       */
+      public long getWaits() {
+         return waits;
+      }
+
+      public long getTotalWaitMillis() {
+         return totalWaitMillis;
+      }
+
+      public long getMaxWaitMillis() {
+         return maxWaitMillis;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("inFlight", inFlight).add("queueDepth", queueDepth)
+               .add("acquired", acquired).add("timedOut", timedOut).add("waits", waits)
+               .add("totalWaitMillis", totalWaitMillis).add("maxWaitMillis", maxWaitMillis).toString();
+      }
+   }
+}
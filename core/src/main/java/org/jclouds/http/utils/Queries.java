@@ -17,13 +17,14 @@
 package org.jclouds.http.utils;
 
 import static org.jclouds.util.Strings2.urlDecode;
-import static org.jclouds.util.Strings2.urlEncode;
 
 import java.util.Map.Entry;
 
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.util.PercentEncoder;
+
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 
@@ -61,6 +62,8 @@ public class Queries {
       map.put(urlDecode(key), urlDecode(value));
    }
 
+   private static final PercentEncoder DEFAULT_ENCODER = PercentEncoder.skipping('/', ',');
+
    /**
     * percent encodes the query parameters, excep {@code /} and {@code ,} characters.
     * 
@@ -70,7 +73,7 @@ public class Queries {
    public static String encodeQueryLine(Multimap<String, ?> queryParams) {
       if (queryParams.isEmpty())
          return null;
-      return buildQueryLine(queryParams, new EncodeAndAppendParam());
+      return buildQueryLine(queryParams, DEFAULT_ENCODER);
    }
    
    /**
@@ -82,65 +85,41 @@ public class Queries {
    public static String encodeQueryLine(Multimap<String, ?> queryParams, Iterable<Character> skips) {
       if (queryParams.isEmpty())
          return null;
-      return buildQueryLine(queryParams, new EncodeAndAppendParam(skips));
+      return buildQueryLine(queryParams, PercentEncoder.skipping(skips));
    }
 
    public static String buildQueryLine(Multimap<String, ?> queryParams) {
       if (queryParams.isEmpty())
          return null;
-      return buildQueryLine(queryParams, new AppendParam());
+      return buildQueryLine(queryParams, null);
    }
 
-   private static String buildQueryLine(Multimap<String, ?> queryParams, AppendParam appendParam) {
-      StringBuilder queryBuilder = appendParam.b;
+   /**
+    * appends the parameters straight to a builder sized for typical query apis, encoding them if an encoder is
+    * passed
+    */
+   private static String buildQueryLine(Multimap<String, ?> queryParams, @Nullable PercentEncoder encoder) {
+      StringBuilder queryBuilder = new StringBuilder(queryParams.size() * 32);
+      boolean first = true;
       for (Entry<String, ?> pair : queryParams.entries()) {
-         queryBuilder.append('&');
-         appendParam.appendKey(pair.getKey());
-         if (pair.getValue() != null)
+         if (!first)
+            queryBuilder.append('&');
+         first = false;
+         append(queryBuilder, pair.getKey(), encoder);
+         Object value = pair.getValue();
+         if (value != null)
             queryBuilder.append('=');
-         if (pair.getValue() != null && !pair.getValue().equals("")) {
-            appendParam.appendValue(pair.getValue());
+         if (value != null && !value.equals("")) {
+            append(queryBuilder, value.toString(), encoder);
          }
       }
-      queryBuilder.deleteCharAt(0);
       return queryBuilder.toString();
    }
 
-   private static class AppendParam {
-      final StringBuilder b;
-
-      private AppendParam() {
-         this.b = new StringBuilder();
-      }
-
-      private void appendKey(String key) {
-         append(key);
-      }
-
-      private void appendValue(Object val) {
-         append(val);
-      }
-
-      void append(Object in) {
-         b.append(in.toString());
-      }
-   }
-
-   private static class EncodeAndAppendParam extends AppendParam {
-      private Iterable<Character> skips;
-
-      private EncodeAndAppendParam() {
-         this(ImmutableList.of('/', ','));
-      }
-
-      private EncodeAndAppendParam(Iterable<Character> skips) {
-         this.skips = skips;
-      }
-
-      @Override
-      void append(Object in) {
-         super.append(urlEncode(in.toString(), skips));
-      }
+   private static void append(StringBuilder queryBuilder, String in, @Nullable PercentEncoder encoder) {
+      if (encoder == null)
+         queryBuilder.append(in);
+      else
+         encoder.appendEncoded(queryBuilder, in);
    }
-
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Records durations in nanoseconds into log-linear buckets without locking, in the manner of HdrHistogram. Values
+ * above {@link #MAX_VALUE}, about 18 minutes, are counted as {@link #MAX_VALUE}.
+ * 
+ * @since 1.9.1
+ */
+@Beta
+public final class ConcurrentHistogram {
+   public static final long MAX_VALUE = (1L << 40) - 1;
+   private static final int BUCKETS = HistogramSnapshot.bucketIndex(MAX_VALUE) + 1;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+   private final AtomicLong max = new AtomicLong();
+   private final AtomicLong sum = new AtomicLong();
+
+   public void record(long value) {
+      checkArgument(value >= 0, "value must not be negative: %s", value);
+      value = Math.min(value, MAX_VALUE);
+      counts.incrementAndGet(HistogramSnapshot.bucketIndex(value));
+      sum.addAndGet(value);
+      for (long current = min.get(); value < current; current = min.get()) {
+         if (min.compareAndSet(current, value))
+            break;
+      }
+      for (long current = max.get(); value > current; current = max.get()) {
+         if (max.compareAndSet(current, value))
+            break;
+      }
+   }
+
+   /**
+    * Copies the recorded values. Values recorded while the copy is made may be only partly reflected, for example
+    * in the count but not in the mean.
+    */
+   public HistogramSnapshot snapshot() {
+      long[] copy = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++)
+         copy[i] = counts.get(i);
+      return new HistogramSnapshot(copy, min.get(), max.get(), sum.get());
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+
+/**
+ * An immutable copy of a histogram of durations in nanoseconds. Values are counted in buckets whose width is at
+ * most 1/32 of their lower bound, so percentiles are accurate to about 3%.
+ * 
+ * @since 1.9.1
+ */
+@Beta
+public final class HistogramSnapshot {
+   static final int SUB_BUCKET_BITS = 5;
+   static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   private final long[] counts;
+   private final long count;
+   private final long min;
+   private final long max;
+   private final long sum;
+
+   HistogramSnapshot(long[] counts, long min, long max, long sum) {
+      this.counts = counts;
+      long total = 0;
+      for (long c : counts)
+         total += c;
+      this.count = total;
+      this.min = total == 0 ? 0 : min;
+      this.max = total == 0 ? 0 : max;
+      this.sum = sum;
+   }
+
+   public long getCount() {
+      return count;
+   }
+
+   public long getMin() {
+      return min;
+   }
+
+   public long getMax() {
+      return max;
+   }
+
+   public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+   }
+
+   /**
+    * @param percentile
+    *           between 0 and 100, for example 99.9
+    * @return the largest value that {@code percentile} percent of the recorded values do not exceed, within the
+    *         precision of the histogram, or 0 if nothing was recorded
+    */
+   public long getValueAtPercentile(double percentile) {
+      checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100: %s", percentile);
+      if (count == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+         seen += counts[i];
+         if (seen >= rank)
+            return Math.max(min, Math.min(max, highestEquivalentValue(i)));
+      }
+      return max;
+   }
+
+   static int bucketIndex(long value) {
+      if (value < SUB_BUCKETS)
+         return (int) value;
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+   }
+
+   static long lowestEquivalentValue(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+      return subBucket << (exponent - SUB_BUCKET_BITS);
+   }
+
+   static long highestEquivalentValue(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      return lowestEquivalentValue(index) + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("count", count).add("min", min).add("mean", (long) getMean())
+            .add("p50", getValueAtPercentile(50)).add("p99", getValueAtPercentile(99))
+            .add("p999", getValueAtPercentile(99.9)).add("max", max).toString();
+   }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation;
+
+import java.util.Map;
+
+import org.jclouds.instrumentation.internal.InMemoryInstrumentation;
+
+import com.google.common.annotations.Beta;
+import com.google.common.reflect.Invokable;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Receives timings and counters from the invocation of api methods over http. Calls are keyed on the
+ * {@link Invokable} of the api method that issued the request, and are made on the calling thread, so
+ * implementations must be thread-safe and should return quickly.
+ * <p/>
+ * The implementation is bound in {@link org.jclouds.rest.config.RestModule} and can be queried through
+ * {@link org.jclouds.rest.Utils#instrumentation()}.
+ * 
+ * @since 1.9.1
+ */
+@Beta
+@ImplementedBy(InMemoryInstrumentation.class)
+public interface Instrumentation {
+
+   /**
+    * Invoked once per api method call, after its response was parsed or it failed, before any fallback applies.
+    * 
+    * @param nanos
+    *           time from building the request until the result was available, including retries
+    * @param failed
+    *           true if the call raised an exception, even if a fallback turned it into a result
+    */
+   void invocationCompleted(Invokable<?, ?> method, long nanos, boolean failed);
+
+   /**
+    * Invoked for every attempt, after the request filters, such as signers, were applied.
+    */
+   void requestFiltered(Invokable<?, ?> method, long nanos);
+
+   /**
+    * Invoked for every attempt that received a response.
+    * 
+    * @param sent
+    *           content length of the request payload, or 0 if none or unknown
+    * @param received
+    *           content length of the response payload, or 0 if none or unknown
+    */
+   void bytesTransferred(Invokable<?, ?> method, long sent, long received);
+
+   /**
+    * Invoked when a failed attempt is about to be retried, whether after an error response or an
+    * {@link java.io.IOException}.
+    */
+   void requestRetried(Invokable<?, ?> method);
+
+   /**
+    * Invoked after a successful response was transformed into the result of the api method.
+    */
+   void responseParsed(Invokable<?, ?> method, long nanos);
+
+   /**
+    * @return metrics recorded so far for each api method that was invoked, or an empty map if this implementation
+    *         publishes them elsewhere
+    */
+   Map<Invokable<?, ?>, MethodMetrics> getMetrics();
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+
+/**
+ * Metrics recorded for a single api method. Durations are in nanoseconds.
+ * 
+ * @since 1.9.1
+ */
+@Beta
+public final class MethodMetrics {
+   private final HistogramSnapshot latency;
+   private final HistogramSnapshot filterTime;
+   private final HistogramSnapshot parseTime;
+   private final long failures;
+   private final long retries;
+   private final long bytesSent;
+   private final long bytesReceived;
+
+   public MethodMetrics(HistogramSnapshot latency, HistogramSnapshot filterTime, HistogramSnapshot parseTime,
+         long failures, long retries, long bytesSent, long bytesReceived) {
+      this.latency = checkNotNull(latency, "latency");
+      this.filterTime = checkNotNull(filterTime, "filterTime");
+      this.parseTime = checkNotNull(parseTime, "parseTime");
+      this.failures = failures;
+      this.retries = retries;
+      this.bytesSent = bytesSent;
+      this.bytesReceived = bytesReceived;
+   }
+
+   /**
+    * @return duration of each call of the method, including retries and response parsing
+    */
+   public HistogramSnapshot getLatency() {
+      return latency;
+   }
+
+   /**
+    * @return time spent applying request filters, such as signing, on each attempt
+    */
+   public HistogramSnapshot getFilterTime() {
+      return filterTime;
+   }
+
+   /**
+    * @return time spent transforming successful responses into results
+    */
+   public HistogramSnapshot getParseTime() {
+      return parseTime;
+   }
+
+   public long getInvocations() {
+      return latency.getCount();
+   }
+
+   /**
+    * @return calls that raised an exception, including those a fallback turned into a result
+    */
+   public long getFailures() {
+      return failures;
+   }
+
+   public long getRetries() {
+      return retries;
+   }
+
+   public long getBytesSent() {
+      return bytesSent;
+   }
+
+   public long getBytesReceived() {
+      return bytesReceived;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("latency", latency).add("filterTime", filterTime)
+            .add("parseTime", parseTime).add("failures", failures).add("retries", retries)
+            .add("bytesSent", bytesSent).add("bytesReceived", bytesReceived).toString();
+   }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.jclouds.instrumentation.ConcurrentHistogram;
+import org.jclouds.instrumentation.Instrumentation;
+import org.jclouds.instrumentation.MethodMetrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
+
+/**
+ * Keeps latency histograms and counters for each api method in memory, for the lifetime of the context.
+ */
+@Singleton
+public class InMemoryInstrumentation implements Instrumentation {
+
+   private final ConcurrentMap<Invokable<?, ?>, Recorder> recorders = Maps.newConcurrentMap();
+
+   @Override
+   public void invocationCompleted(Invokable<?, ?> method, long nanos, boolean failed) {
+      Recorder recorder = recorder(method);
+      recorder.latency.record(nanos);
+      if (failed)
+         recorder.failures.incrementAndGet();
+   }
+
+   @Override
+   public void requestFiltered(Invokable<?, ?> method, long nanos) {
+      recorder(method).filterTime.record(nanos);
+   }
+
+   @Override
+   public void bytesTransferred(Invokable<?, ?> method, long sent, long received) {
+      Recorder recorder = recorder(method);
+      recorder.bytesSent.addAndGet(sent);
+      recorder.bytesReceived.addAndGet(received);
+   }
+
+   @Override
+   public void requestRetried(Invokable<?, ?> method) {
+      recorder(method).retries.incrementAndGet();
+   }
+
+   @Override
+   public void responseParsed(Invokable<?, ?> method, long nanos) {
+      recorder(method).parseTime.record(nanos);
+   }
+
+   @Override
+   public Map<Invokable<?, ?>, MethodMetrics> getMetrics() {
+      ImmutableMap.Builder<Invokable<?, ?>, MethodMetrics> metrics = ImmutableMap.builder();
+      for (Map.Entry<Invokable<?, ?>, Recorder> entry : recorders.entrySet())
+         metrics.put(entry.getKey(), entry.getValue().snapshot());
+      return metrics.build();
+   }
+
+   private Recorder recorder(Invokable<?, ?> method) {
+      Recorder recorder = recorders.get(checkNotNull(method, "method"));
+      if (recorder == null) {
+         Recorder created = new Recorder();
+         recorder = recorders.putIfAbsent(method, created);
+         if (recorder == null)
+            recorder = created;
+      }
+      return recorder;
+   }
+
+   private static final class Recorder {
+      private final ConcurrentHistogram latency = new ConcurrentHistogram();
+      private final ConcurrentHistogram filterTime = new ConcurrentHistogram();
+      private final ConcurrentHistogram parseTime = new ConcurrentHistogram();
+      private final AtomicLong failures = new AtomicLong();
+      private final AtomicLong retries = new AtomicLong();
+      private final AtomicLong bytesSent = new AtomicLong();
+      private final AtomicLong bytesReceived = new AtomicLong();
+
+      MethodMetrics snapshot() {
+         return new MethodMetrics(latency.snapshot(), filterTime.snapshot(), parseTime.snapshot(), failures.get(),
+               retries.get(), bytesSent.get(), bytesReceived.get());
+      }
+   }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closeables;
+
+/**
+ * Looks up {@code ApiMetadata} and {@code ProviderMetadata} by id without instantiating every implementation on the
+ * classpath.
+ * <p/>
+ * The index resources are written at build time by the {@code org.jclouds.processor.MetadataIndexProcessor} in
+ * jclouds-metadata-index-processor, and read once per class loader. A lookup instantiates only the indexed class, and
+ * returns it only if its id still matches. Callers fall back to the {@link java.util.ServiceLoader} scan when the
+ * lookup is absent.
+ */
+@Beta
+public final class MetadataIndex<T> {
+
+   /**
+    * Directory holding one index per service, named after the service interface.
+    */
+   public static final String INDEX_DIRECTORY = "META-INF/jclouds/index/";
+
+   public static <T> MetadataIndex<T> create(Class<T> service, Function<? super T, String> idFunction) {
+      return new MetadataIndex<T>(service, idFunction);
+   }
+
+   private final Class<T> service;
+   private final Function<? super T, String> idFunction;
+   private final LoadingCache<ClassLoader, Map<String, String>> classNamesById = CacheBuilder.newBuilder()
+         .weakKeys().build(new CacheLoader<ClassLoader, Map<String, String>>() {
+            @Override
+            public Map<String, String> load(ClassLoader loader) {
+               return read(loader);
+            }
+         });
+
+   private MetadataIndex(Class<T> service, Function<? super T, String> idFunction) {
+      this.service = checkNotNull(service, "service");
+      this.idFunction = checkNotNull(idFunction, "idFunction");
+   }
+
+   /**
+    * Finds the metadata with the given id using the same class loader as {@link java.util.ServiceLoader#load(Class)}.
+    * 
+    * @return the metadata, or absent if the id is not indexed or the index is stale
+    */
+   public Optional<T> find(String id) {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      return find(loader != null ? loader : ClassLoader.getSystemClassLoader(), id);
+   }
+
+   Optional<T> find(ClassLoader loader, String id) {
+      String className = classNamesById.getUnchecked(loader).get(checkNotNull(id, "id"));
+      if (className == null)
+         return Optional.absent();
+      T metadata;
+      try {
+         metadata = service.cast(Class.forName(className, true, loader).newInstance());
+      } catch (Exception e) {
+         return Optional.absent();
+      } catch (LinkageError e) {
+         return Optional.absent();
+      }
+      return id.equals(idFunction.apply(metadata)) ? Optional.of(metadata) : Optional.<T> absent();
+   }
+
+   private Map<String, String> read(ClassLoader loader) {
+      Map<String, String> classNamesById = new LinkedHashMap<String, String>();
+      try {
+         Enumeration<URL> indexes = loader.getResources(INDEX_DIRECTORY + service.getName());
+         while (indexes.hasMoreElements()) {
+            Reader reader = new InputStreamReader(indexes.nextElement().openStream(), Charsets.UTF_8);
+            for (Map.Entry<String, String> entry : parse(reader).entrySet()) {
+               // the first jar on the classpath wins, as with the ServiceLoader scan
+               if (!classNamesById.containsKey(entry.getKey()))
+                  classNamesById.put(entry.getKey(), entry.getValue());
+            }
+         }
+      } catch (IOException e) {
+         // a partial index only means more lookups fall back to the full scan
+      }
+      return ImmutableMap.copyOf(classNamesById);
+   }
+
+   /**
+    * Parses {@code id=className} lines, ignoring blank lines and {@code #} comments, and closes the reader.
+    */
+   static Map<String, String> parse(Reader reader) throws IOException {
+      Map<String, String> classNamesById = new LinkedHashMap<String, String>();
+      BufferedReader lines = new BufferedReader(reader);
+      try {
+         for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            line = line.trim();
+            int separator = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator <= 0)
+               continue;
+            classNamesById.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+         }
+      } finally {
+         Closeables.close(lines, true);
+      }
+      return classNamesById;
+   }
+}
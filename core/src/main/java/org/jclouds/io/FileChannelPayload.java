@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A payload backed by a region of a file, which drivers with access to the socket can send with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} instead of copying it through an
+ * {@link java.io.InputStream}.
+ */
+@Beta
+public interface FileChannelPayload extends Payload {
+
+   /**
+    * Opens a new read-only channel to the file. The caller is responsible for closing it.
+    */
+   FileChannel openChannel() throws IOException;
+
+   /**
+    * Offset in the file of the first byte of the payload.
+    */
+   long getPosition();
+
+   /**
+    * Number of bytes of the file in the payload, starting at {@link #getPosition()}.
+    */
+   long getLength();
+
+   /**
+    * Transfers the payload into {@code target}, returning the number of bytes written.
+    */
+   long transferTo(WritableByteChannel target) throws IOException;
+}
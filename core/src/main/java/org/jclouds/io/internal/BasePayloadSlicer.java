@@ -34,13 +34,13 @@ import org.jclouds.io.Payloads;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.io.payloads.FileRegionPayload;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
 import com.google.common.hash.HashCode;
 import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
-import com.google.common.io.Files;
 
 @Singleton
 public class BasePayloadSlicer implements PayloadSlicer {
@@ -190,6 +190,55 @@ public class BasePayloadSlicer implements PayloadSlicer {
       }
    }
 
+   private static class FileRegionPayloadIterator implements Iterable<Payload>, Iterator<Payload> {
+      private final File file;
+      private final ContentMetadata metaData;
+      private final long end;
+      private final long readLen;
+      private long offset;
+
+      FileRegionPayloadIterator(File file, long position, long length, ContentMetadata metaData) {
+         this.file = checkNotNull(file, "file");
+         this.metaData = checkNotNull(metaData, "metaData");
+         this.readLen = checkNotNull(this.metaData.getContentLength(), "content-length").longValue();
+         checkArgument(readLen > 0, "content-length must be positive but was: %s", readLen);
+         this.offset = position;
+         this.end = position + length;
+      }
+
+      @Override
+      public boolean hasNext() {
+         return offset < end;
+      }
+
+      @Override
+      public Payload next() {
+         if (!hasNext()) {
+            throw new NoSuchElementException();
+         }
+
+         long size = Math.min(readLen, end - offset);
+         Payload nextPayload = new FileRegionPayload(file, offset, size);
+         ContentMetadata cm = metaData.toBuilder()
+               .contentLength(size)
+               .contentMD5((HashCode) null)
+               .build();
+         nextPayload.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(cm));
+         offset += size;
+         return nextPayload;
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException("Payload iterator does not support removal");
+      }
+
+      @Override
+      public Iterator<Payload> iterator() {
+         return this;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -199,7 +248,10 @@ public class BasePayloadSlicer implements PayloadSlicer {
       checkArgument(offset >= 0, "offset is negative");
       checkArgument(length >= 0, "length is negative");
       Payload returnVal;
-      if (input.getRawContent() instanceof File) {
+      if (input instanceof FileRegionPayload) {
+         FileRegionPayload region = (FileRegionPayload) input;
+         returnVal = doSlice(region.getFile(), region.getPosition() + offset, length);
+      } else if (input.getRawContent() instanceof File) {
          returnVal = doSlice((File) input.getRawContent(), offset, length);
       } else if (input.getRawContent() instanceof String) {
          returnVal = doSlice((String) input.getRawContent(), offset, length);
@@ -223,8 +275,11 @@ public class BasePayloadSlicer implements PayloadSlicer {
       return doSlice(content.getBytes(), offset, length);
    }
 
+   /**
+    * Returns a {@link FileRegionPayload}, which drivers can send without copying the file through the heap.
+    */
    protected Payload doSlice(File content, long offset, long length) {
-      return doSlice(Files.asByteSource(content), offset, length);
+      return new FileRegionPayload(content, offset, length);
    }
 
    protected Payload doSlice(InputStream content, long offset, long length) {
@@ -264,7 +319,10 @@ public class BasePayloadSlicer implements PayloadSlicer {
                                                        .contentMD5((HashCode) null)
                                                        .build();
       Object rawContent = input.getRawContent();
-      if (rawContent instanceof File) {
+      if (input instanceof FileRegionPayload) {
+         FileRegionPayload region = (FileRegionPayload) input;
+         return new FileRegionPayloadIterator(region.getFile(), region.getPosition(), region.getLength(), meta);
+      } else if (rawContent instanceof File) {
          return doSlice((File) rawContent, meta);
       } else if (rawContent instanceof String) {
          return doSlice((String) rawContent, meta);
@@ -293,7 +351,7 @@ public class BasePayloadSlicer implements PayloadSlicer {
    }
 
    protected Iterable<Payload> doSlice(File rawContent, ContentMetadata meta) {
-      return doSlice(Files.asByteSource(rawContent), meta);
+      return new FileRegionPayloadIterator(rawContent, 0, rawContent.length(), meta);
    }
 
    protected Iterable<Payload> doSlice(InputStream rawContent, ContentMetadata meta) {
@@ -22,9 +22,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
+import org.jclouds.io.FileChannelPayload;
 
-public class FilePayload extends BasePayload<File> {
+public class FilePayload extends BasePayload<File> implements FileChannelPayload {
 
    public FilePayload(File content) {
       super(content);
@@ -40,4 +43,24 @@ public class FilePayload extends BasePayload<File> {
       return new FileInputStream(content);
    }
 
+   @Override
+   public FileChannel openChannel() throws IOException {
+      return FileRegionPayload.openChannel(content);
+   }
+
+   @Override
+   public long getPosition() {
+      return 0;
+   }
+
+   @Override
+   public long getLength() {
+      return content.length();
+   }
+
+   @Override
+   public long transferTo(WritableByteChannel target) throws IOException {
+      return FileRegionPayload.transferTo(content, 0, content.length(), target);
+   }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.jclouds.io.FileChannelPayload;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+/**
+ * A repeatable payload of {@code length} bytes of a file starting at {@code position}.
+ * <p>
+ * The raw content is a {@link ByteSource} over the region rather than the {@link File}, so that code which handles
+ * raw files treats this payload as the region and not the whole file.
+ */
+public class FileRegionPayload extends BasePayload<ByteSource> implements FileChannelPayload {
+   private final File file;
+   private final long position;
+   private final long length;
+
+   public FileRegionPayload(File file, long position, long length) {
+      super(Files.asByteSource(checkNotNull(file, "file")).slice(position, length));
+      checkArgument(position >= 0, "position is negative");
+      checkArgument(length >= 0, "length is negative");
+      this.file = file;
+      this.position = position;
+      this.length = length;
+      getContentMetadata().setContentLength(length);
+   }
+
+   public File getFile() {
+      return file;
+   }
+
+   @Override
+   public long getPosition() {
+      return position;
+   }
+
+   @Override
+   public long getLength() {
+      return length;
+   }
+
+   @Override
+   public FileChannel openChannel() throws IOException {
+      return openChannel(file);
+   }
+
+   @Override
+   public long transferTo(WritableByteChannel target) throws IOException {
+      return transferTo(file, position, length, target);
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      return content.openStream();
+   }
+
+   @Override
+   public boolean isRepeatable() {
+      return true;
+   }
+
+   static FileChannel openChannel(File file) throws IOException {
+      return new RandomAccessFile(file, "r").getChannel();
+   }
+
+   static long transferTo(File file, long position, long length, WritableByteChannel target) throws IOException {
+      FileChannel channel = openChannel(file);
+      try {
+         long transferred = 0;
+         while (transferred < length) {
+            long count = channel.transferTo(position + transferred, length - transferred, target);
+            if (count <= 0 && position + transferred >= channel.size())
+               throw new EOFException(file + " ended after " + transferred + " of " + length + " bytes");
+            transferred += count;
+         }
+         return transferred;
+      } finally {
+         closeQuietly(channel);
+      }
+   }
+}
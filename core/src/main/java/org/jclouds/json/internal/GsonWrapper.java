@@ -16,18 +16,19 @@
  */
 package org.jclouds.json.internal;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
-import org.jclouds.json.Json;
+import org.jclouds.json.StreamingJson;
 
 import com.google.common.collect.ForwardingObject;
 import com.google.gson.Gson;
 
 @Singleton
-public class GsonWrapper extends ForwardingObject implements Json  {
+public class GsonWrapper extends ForwardingObject implements StreamingJson  {
 
    private final Gson gson;
 
@@ -47,6 +48,12 @@ public class GsonWrapper extends ForwardingObject implements Json  {
       return gson.fromJson(json, classOfT);
    }
 
+   @SuppressWarnings("unchecked")
+   @Override
+   public <T> T fromJson(Reader json, Type type) {
+      return (T) gson.fromJson(json, type);
+   }
+
    @Override
    public String toJson(Object src) {
       return gson.toJson(src);
@@ -25,9 +25,12 @@ import java.util.ServiceLoader;
 import org.jclouds.Context;
 import org.jclouds.View;
 import org.jclouds.apis.ApiMetadata;
+import org.jclouds.internal.MetadataIndex;
 import org.jclouds.osgi.ProviderRegistry;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableSet;
@@ -52,6 +55,8 @@ public class Providers {
       return IdFunction.INSTANCE;
    }
 
+   private static final MetadataIndex<ProviderMetadata> INDEX = MetadataIndex.create(ProviderMetadata.class, idFunction());
+
    public static class ApiMetadataFunction implements Function<ProviderMetadata, ApiMetadata> {
       @Override
       public ApiMetadata apply(ProviderMetadata input) {
@@ -85,7 +90,8 @@ public class Providers {
    }
 
    /**
-    * Returns the first provider with the provided id
+    * Returns the first provider with the provided id. The build-time index is consulted first, so that only the matching
+    * provider is instantiated; anything it does not cover is found by scanning {@link #all()}.
     * 
     * @param id
     *           the id of the provider to return
@@ -96,9 +102,25 @@ public class Providers {
     *            whenever there are no providers with the provided id
     */
    public static ProviderMetadata withId(String id) throws NoSuchElementException {
+      Optional<ProviderMetadata> indexed = indexedWithId(id);
+      if (indexed.isPresent())
+         return indexed.get();
       return find(all(), ProviderPredicates.id(id));
    }
 
+   /**
+    * Looks the provider up in the build-time index only, without scanning {@link #all()}.
+    * 
+    * @param id
+    *           the id of the provider to return
+    * 
+    * @return the provider with the given id, or absent if it is not indexed
+    */
+   @Beta
+   public static Optional<ProviderMetadata> indexedWithId(String id) {
+      return INDEX.find(id);
+   }
+
    /**
     * Returns the providers that are of the provided viewableAs.
     * 
@@ -22,7 +22,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.all;
-import static org.jclouds.reflect.Reflection2.method;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import static org.jclouds.util.Throwables2.propagateIfPossible;
 
@@ -36,7 +35,6 @@ import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.reflect.Invokable;
 import com.google.common.reflect.TypeToken;
 
 /**
@@ -98,10 +96,12 @@ public final class FunctionalReflection {
          com.google.common.reflect.AbstractInvocationHandler {
       private final TypeToken<T> enclosingType;
       private final Function<Invocation, Object> invocationFunction;
+      private final MethodTable<? super T> methods;
 
       private FunctionalInvocationHandler(TypeToken<T> enclosingType, Function<Invocation, Object> invocationFunction) {
          this.enclosingType = enclosingType;
          this.invocationFunction = invocationFunction;
+         this.methods = MethodTable.of(enclosingType.getRawType());
       }
 
       @Override
@@ -111,8 +111,9 @@ public final class FunctionalReflection {
             args = ImmutableList.copyOf(args);
          else
             args = Collections.unmodifiableList(args);
-         Invokable<T, Object> invokable = method(enclosingType, invoked);
-         Invocation invocation = Invocation.create(invokable, args);
+         int index = methods.indexOf(invoked);
+         Invocation invocation = index != -1 ? Invocation.create(methods, index, args) : Invocation.create(
+               methods.getInvokable(invoked), args);
          try {
             return invocationFunction.apply(invocation);
          } catch (RuntimeException e) {
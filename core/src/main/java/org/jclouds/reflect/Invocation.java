@@ -22,6 +22,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
 
+import org.jclouds.javax.annotation.Nullable;
+
 import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
@@ -38,7 +40,17 @@ public final class Invocation {
     *           as these represent parameters, can contain nulls
     */
    public static Invocation create(Invokable<?, ?> invokable, List<Object> args) {
-      return new Invocation(invokable, args);
+      return new Invocation(invokable, args, null, -1);
+   }
+
+   /**
+    * invocation of the method at {@code index} in {@code methods}
+    *
+    * @param args
+    *           as these represent parameters, can contain nulls
+    */
+   public static Invocation create(MethodTable<?> methods, int index, List<Object> args) {
+      return new Invocation(methods.getInvokable(index), args, methods, index);
    }
 
    /**
@@ -56,10 +68,15 @@ public final class Invocation {
 
    private final Invokable<?, ?> invokable;
    private final List<Object> args;
+   @Nullable
+   private final MethodTable<?> methods;
+   private final int index;
 
-   private Invocation(Invokable<?, ?> invokable, List<Object> args) {
+   private Invocation(Invokable<?, ?> invokable, List<Object> args, @Nullable MethodTable<?> methods, int index) {
       this.invokable = checkNotNull(invokable, "invokable");
       this.args = checkNotNull(args, "args");
+      this.methods = methods;
+      this.index = index;
    }
 
    /**
@@ -79,6 +96,21 @@ public final class Invocation {
       return args;
    }
 
+   /**
+    * the table {@link #getInvokable()} was resolved from, or null if this invocation was not created from one
+    */
+   @Nullable
+   public MethodTable<?> getMethodTable() {
+      return methods;
+   }
+
+   /**
+    * index of {@link #getInvokable()} in {@link #getMethodTable()}, or {@code -1}
+    */
+   public int getMethodIndex() {
+      return index;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (this == o)
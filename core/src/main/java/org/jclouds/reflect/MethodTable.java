@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.reflect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static org.jclouds.reflect.Reflection2.method;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * The {@link Invokable}s of an interface, computed once per interface and stored in a flat list indexed by method.
+ * <p/>
+ * Dynamic proxies use this to resolve the {@link Method} they are called with, instead of looking it up in the
+ * {@link Reflection2} caches, which hash the owner type and parameter types on every call. The {@link Invocation}s
+ * they create carry the index, so that what is computed per method can be looked up through a {@link Memo}.
+ */
+@Beta
+public final class MethodTable<T> {
+
+   private static final LoadingCache<Class<?>, MethodTable<?>> tables = CacheBuilder.newBuilder().build(
+         new CacheLoader<Class<?>, MethodTable<?>>() {
+            public MethodTable<?> load(Class<?> key) {
+               return new MethodTable<Object>(key);
+            }
+         });
+
+   /**
+    * Returns the table of the given interface, creating it on first use.
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> MethodTable<T> of(Class<T> ownerType) {
+      checkArgument(checkNotNull(ownerType, "ownerType").isInterface(), "%s is not an interface", ownerType);
+      return (MethodTable<T>) tables.getUnchecked(ownerType);
+   }
+
+   private final Class<?> ownerType;
+   private final Method[] methods;
+   private final ImmutableList<Invokable<T, Object>> invokables;
+   private final ConcurrentMap<Memo<?>, AtomicReferenceArray<Object>> memos = Maps.newConcurrentMap();
+   // open addressing on Method.hashCode, whose slots hold indexes into methods or -1
+   private final int[] slots;
+
+   private MethodTable(Class<?> ownerType) {
+      this.ownerType = ownerType;
+      this.methods = ownerType.getMethods();
+      ImmutableList.Builder<Invokable<T, Object>> invokables = ImmutableList.builder();
+      for (Method method : methods) {
+         @SuppressWarnings("unchecked")
+         Invokable<T, Object> invokable = (Invokable<T, Object>) method(ownerType, method.getName(),
+               method.getParameterTypes());
+         invokables.add(invokable);
+      }
+      this.invokables = invokables.build();
+      this.slots = new int[Integer.highestOneBit(Math.max(methods.length, 1) * 2) * 2];
+      Arrays.fill(slots, -1);
+      for (int index = 0; index < methods.length; index++) {
+         int slot = firstSlot(methods[index]);
+         while (slots[slot] != -1)
+            slot = (slot + 1) & (slots.length - 1);
+         slots[slot] = index;
+      }
+   }
+
+   private int firstSlot(Method method) {
+      int hash = method.hashCode();
+      return (hash ^ (hash >>> 16)) & (slots.length - 1);
+   }
+
+   /**
+    * Returns the index of the given method, or {@code -1} if it is not a public method of the interface.
+    */
+   public int indexOf(Method method) {
+      for (int slot = firstSlot(method); slots[slot] != -1; slot = (slot + 1) & (slots.length - 1)) {
+         Method candidate = methods[slots[slot]];
+         if (candidate == method || candidate.equals(method))
+            return slots[slot];
+      }
+      return -1;
+   }
+
+   /**
+    * Returns the {@link Invokable} of the given method, as {@link Reflection2#method(Class, String, Class...)} would,
+    * without going through its cache for methods of this interface.
+    */
+   @SuppressWarnings("unchecked")
+   public Invokable<T, Object> getInvokable(Method method) {
+      int index = indexOf(method);
+      if (index != -1)
+         return invokables.get(index);
+      return (Invokable<T, Object>) method(ownerType, method.getName(), method.getParameterTypes());
+   }
+
+   public Invokable<T, Object> getInvokable(int index) {
+      return invokables.get(index);
+   }
+
+   @SuppressWarnings("unchecked")
+   private <V> V get(Memo<V> memo, int index) {
+      AtomicReferenceArray<Object> values = memos.get(memo);
+      if (values == null) {
+         AtomicReferenceArray<Object> created = new AtomicReferenceArray<Object>(size());
+         values = memos.putIfAbsent(memo, created);
+         if (values == null)
+            values = created;
+      }
+      Object value = values.get(index);
+      if (value == null) {
+         values.compareAndSet(index, null, checkNotNull(memo.function.apply(invokables.get(index)), "%s(%s)",
+               memo.function, invokables.get(index)));
+         value = values.get(index);
+      }
+      return (V) value;
+   }
+
+   /**
+    * Number of methods indexed, which bounds the indexes returned by {@link #indexOf(Method)}.
+    */
+   public int size() {
+      return methods.length;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper("").add("ownerType", ownerType.getName()).add("size", size()).toString();
+   }
+
+   /**
+    * A value computed once per method from its {@link Invokable}. Invocations created through a table find it by
+    * index. Others fall back to a cache keyed by invokable.
+    */
+   public static final class Memo<V> {
+      private final Function<? super Invokable<?, ?>, V> function;
+      private final LoadingCache<Invokable<?, ?>, V> byInvokable;
+
+      public Memo(final Function<? super Invokable<?, ?>, V> function) {
+         this.function = checkNotNull(function, "function");
+         this.byInvokable = CacheBuilder.newBuilder().build(new CacheLoader<Invokable<?, ?>, V>() {
+            @Override
+            public V load(Invokable<?, ?> invokable) {
+               return function.apply(invokable);
+            }
+         });
+      }
+
+      public V get(Invocation invocation) {
+         MethodTable<?> methods = invocation.getMethodTable();
+         if (methods != null)
+            return methods.get(this, invocation.getMethodIndex());
+         return get(invocation.getInvokable());
+      }
+
+      public V get(Invokable<?, ?> invokable) {
+         try {
+            return byInvokable.getUnchecked(invokable);
+         } catch (UncheckedExecutionException e) {
+            throw propagate(e.getCause());
+         }
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper("").add("function", function).toString();
+      }
+   }
+}
@@ -206,8 +206,11 @@ public class Reflection2 {
             }
          });
 
+   /**
+    * Not bounded, as apis with more methods than the bound would recompute parameters on every call.
+    */
    private static final LoadingCache<Invokable<?, ?>, ImmutableList<Parameter>> invokableParamsCache =
-      CacheBuilder.newBuilder().maximumSize(100).build(new CacheLoader<Invokable<?, ?>, ImmutableList<Parameter>>() {
+      CacheBuilder.newBuilder().build(new CacheLoader<Invokable<?, ?>, ImmutableList<Parameter>>() {
             @Override
             public ImmutableList<Parameter> load(Invokable<?, ?> invokable) {
                return invokable.getParameters();
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Credentials;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.json.Json;
 import org.jclouds.logging.Logger.LoggerFactory;
 import org.jclouds.rest.internal.UtilsImpl;
@@ -69,4 +70,11 @@ public interface Utils {
    Injector injector();
 
    XMLParser xml();
+
+   /**
+    * @return timings and counters of the api methods invoked through this context
+    * @since 1.9.1
+    */
+   @Beta
+   Instrumentation instrumentation();
 }
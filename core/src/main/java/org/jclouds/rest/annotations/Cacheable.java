@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.annotations;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Keeps the parsed results of a {@code GET} method, or of all the {@code GET} methods of an api, in the response
+ * cache of the context. Results are revalidated with {@code If-None-Match} or {@code If-Modified-Since} once older
+ * than {@link #maxAge()}, so the server only sends the body again when it changed.
+ * <p/>
+ * Cached results are shared by all callers and must not be modified.
+ * 
+ * @see NotCacheable
+ * @see org.jclouds.Constants#PROPERTY_RESPONSE_CACHE_SIZE
+ */
+@Beta
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+public @interface Cacheable {
+
+   /**
+    * how long a result is returned without asking the server. The default, 0, revalidates it on every call, and
+    * results of responses without {@code ETag} or {@code Last-Modified} header are then not kept.
+    */
+   long maxAge() default 0;
+
+   TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
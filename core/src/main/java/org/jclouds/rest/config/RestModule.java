@@ -28,6 +28,8 @@ import org.jclouds.functions.IdentityFunction;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.config.SaxParserModule;
+import org.jclouds.instrumentation.Instrumentation;
+import org.jclouds.instrumentation.internal.InMemoryInstrumentation;
 import org.jclouds.internal.FilterStringsBoundToInjectorByName;
 import org.jclouds.json.config.GsonModule;
 import org.jclouds.location.config.LocationModule;
@@ -51,6 +53,13 @@ public class RestModule extends AbstractModule {
       install(new LocationModule());
    }
 
+   /**
+    * Override to publish the timings and counters of api methods somewhere other than memory.
+    */
+   protected void bindInstrumentation() {
+      bind(Instrumentation.class).to(InMemoryInstrumentation.class);
+   }
+
    @Override
    protected void configure() {
       install(new SaxParserModule());
@@ -72,5 +81,6 @@ public class RestModule extends AbstractModule {
       bind(new TypeLiteral<Function<URI, Proxy>>() {
       }).to(ProxyForURI.class);
       installLocations();
+      bindInstrumentation();
    }
 }
@@ -46,6 +46,8 @@ import org.jclouds.lifecycle.Closer;
 import org.jclouds.reflect.FunctionalReflection;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.reflect.InvocationSuccess;
+import org.jclouds.reflect.MethodTable;
+import org.jclouds.reflect.MethodTable.Memo;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.annotations.Delegate;
 import org.jclouds.rest.config.SetCaller;
@@ -117,8 +119,9 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
          args = ImmutableList.copyOf(args);
       else
          args = Collections.unmodifiableList(args);
-      Invokable<?, Object> invokable = method(ownerType, invoked);
-      Invocation invocation = Invocation.create(invokable, args);
+      int index = methods.indexOf(invoked);
+      Invocation invocation = index != -1 ? Invocation.create(methods, index, args) : Invocation.create(
+            method(ownerType, invoked), args);
       try {
          return handle(invocation);
       } catch (Throwable e) {
@@ -139,20 +142,40 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
       }
    }
 
+   /**
+    * How a method of the proxied interface is handled, which only depends on its declaration.
+    */
+   private static enum Handler {
+      CLOSE, PROVIDES, DELEGATE, INVOKE;
+   }
+
+   private static final Memo<Handler> HANDLERS = new Memo<Handler>(new Function<Invokable<?, ?>, Handler>() {
+      @Override
+      public Handler apply(Invokable<?, ?> invokable) {
+         if (isCloseMethod(invokable))
+            return Handler.CLOSE;
+         else if (invokable.isAnnotationPresent(Provides.class))
+            return Handler.PROVIDES;
+         else if (invokable.isAnnotationPresent(Delegate.class))
+            return Handler.DELEGATE;
+         return Handler.INVOKE;
+      }
+   });
+
    protected Object handle(Invocation invocation) {
-      Invokable<?, ?> invokable = invocation.getInvokable();
-      if (isCloseMethod(invokable)) {
+      switch (HANDLERS.get(invocation)) {
+      case CLOSE:
          try {
             injector.getInstance(Closer.class).close();
             return null;
          } catch (Throwable e) {
             throw propagate(e);
          }
-      } else if (invokable.isAnnotationPresent(Provides.class)) {
-         return lookupValueFromGuice(invokable);
-      } else if (invokable.isAnnotationPresent(Delegate.class)) {
+      case PROVIDES:
+         return lookupValueFromGuice(invocation.getInvokable());
+      case DELEGATE:
          return propagateContextToDelegate(invocation);
-      } else {
+      default:
          return methodInvoker.apply(invocation);
       }
    }
@@ -178,6 +201,7 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
    protected final SetCaller setCaller;
    protected final Function<InvocationSuccess, Optional<Object>> optionalConverter;
    protected final F methodInvoker;
+   private final MethodTable<S> methods;
 
    @Inject
    DelegatesToInvocationFunction(Injector injector, SetCaller setCaller, 
@@ -187,6 +211,7 @@ public class DelegatesToInvocationFunction<S, F extends Function<Invocation, Obj
       this.setCaller = checkNotNull(setCaller, "setCaller");
       this.optionalConverter = checkNotNull(optionalConverter, "optionalConverter");
       this.methodInvoker = checkNotNull(methodInvoker, "methodInvoker");
+      this.methods = MethodTable.of(ownerType);
    }
 
    private Object propagateContextToDelegate(Invocation caller) {
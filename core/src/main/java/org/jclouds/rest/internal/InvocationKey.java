@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.net.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+
+import java.net.URI;
+
+import org.jclouds.http.HttpRequest;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.reflect.Invokable;
+
+/**
+ * Identifies the result of a read: the invoked method, and the endpoint and headers of its request before filters
+ * add credentials or signatures, and without conditional headers.
+ */
+final class InvocationKey {
+
+   private static final Predicate<String> NOT_CONDITIONAL = new Predicate<String>() {
+      @Override
+      public boolean apply(String header) {
+         return !IF_NONE_MATCH.equalsIgnoreCase(header) && !IF_MODIFIED_SINCE.equalsIgnoreCase(header);
+      }
+   };
+
+   private final Invokable<?, ?> invokable;
+   private final URI endpoint;
+   private final Multimap<String, String> headers;
+
+   InvocationKey(Invokable<?, ?> invokable, HttpRequest request) {
+      this.invokable = invokable;
+      this.endpoint = request.getEndpoint();
+      this.headers = ImmutableMultimap.copyOf(Multimaps.filterKeys(request.getHeaders(), NOT_CONDITIONAL));
+   }
+
+   URI getEndpoint() {
+      return endpoint;
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(invokable, endpoint, headers);
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof InvocationKey))
+         return false;
+      InvocationKey that = InvocationKey.class.cast(obj);
+      return invokable.equals(that.invokable) && endpoint.equals(that.endpoint) && headers.equals(that.headers);
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("invokable", invokable).add("endpoint", endpoint)
+            .add("headers", headers).toString();
+   }
+}
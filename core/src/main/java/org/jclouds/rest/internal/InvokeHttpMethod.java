@@ -22,14 +22,20 @@ import static com.google.common.base.Throwables.propagate;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.Constants;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.logging.Logger;
 import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.InvocationContext;
@@ -39,7 +45,15 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.FutureFallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
 
@@ -51,23 +65,35 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
    private final TimeLimiter timeLimiter;
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
+   private final Instrumentation instrumentation;
+   private final ListeningExecutorService userExecutor;
+   private final ResponseCache responseCache;
+   private final RequestCoalescer coalescer;
 
    @Inject
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
          HttpCommandExecutorService http, Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest,
-         TimeLimiter timeLimiter, InvocationConfig config) {
+         TimeLimiter timeLimiter, InvocationConfig config, Instrumentation instrumentation,
+         @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ResponseCache responseCache,
+         RequestCoalescer coalescer) {
       this.annotationProcessor = annotationProcessor;
       this.http = http;
       this.timeLimiter = timeLimiter;
       this.transformerForRequest = transformerForRequest;
       this.config = config;
+      this.instrumentation = instrumentation;
+      this.userExecutor = userExecutor;
+      this.responseCache = responseCache;
+      this.coalescer = coalescer;
    }
 
    @Override
    public Object apply(Invocation in) {
       Optional<Long> timeoutNanos = config.getTimeoutNanos(in);
       if (timeoutNanos.isPresent()) {
+         if (http instanceof AsyncHttpCommandExecutorService)
+            return submitWithTimeout(in, timeoutNanos.get());
          return invokeWithTimeout(in, timeoutNanos.get());
       }
       return invoke(in);
@@ -80,6 +106,7 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
     * if a {@code Throwable} is encountered.
     */
    public Object invoke(Invocation invocation) {
+      long start = System.nanoTime();
       String commandName = config.getCommandName(invocation);
       HttpCommand command = toCommand(commandName, invocation);
       Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
@@ -87,8 +114,11 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       logger.debug(">> invoking %s", commandName);
       try {
-         return transformer.apply(http.invoke(command));
+         Object result = invokeAndTransform(invocation, command, transformer);
+         instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, false);
+         return result;
       } catch (Throwable t) {
+         instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, true);
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
@@ -117,15 +147,19 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
     * @see TimeLimiter#callWithTimeout(Callable, long, TimeUnit, boolean)
     */
    public Object invokeWithTimeout(final Invocation invocation, final long limitNanos) {
+      long start = System.nanoTime();
       String commandName = config.getCommandName(invocation);
       HttpCommand command = toCommand(commandName, invocation);
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> blocking on %s for %s", invocation, limitNanos);
       try {
-         return timeLimiter
-               .callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos, NANOSECONDS, true);
+         Object result = timeLimiter.callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos,
+               NANOSECONDS, true);
+         instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, false);
+         return result;
       } catch (Throwable t) {
+         instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, true);
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
@@ -134,6 +168,136 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   /**
+    * like {@link #invokeWithTimeout(Invocation, long)}, but waits on the
+    * future returned by {@link #submit(Invocation)} instead of running the
+    * call on another thread. With an {@link AsyncHttpCommandExecutorService},
+    * the caller is then the only thread waiting for the response. On timeout,
+    * the command is cancelled and the fallback is applied to an
+    * {@link UncheckedTimeoutException}.
+    */
+   private Object submitWithTimeout(Invocation invocation, long limitNanos) {
+      String commandName = config.getCommandName(invocation);
+      HttpCommand command = toCommand(commandName, invocation);
+      org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
+
+      logger.debug(">> blocking on %s for %s", invocation, limitNanos);
+      ListenableFuture<Object> result = submit(commandName, invocation, command, fallback);
+      try {
+         return result.get(limitNanos, NANOSECONDS);
+      } catch (TimeoutException e) {
+         result.cancel(true);
+         try {
+            return fallback.createOrPropagate(new UncheckedTimeoutException(e));
+         } catch (Exception fallbackException) {
+            throw propagate(fallbackException);
+         }
+      } catch (InterruptedException e) {
+         result.cancel(true);
+         Thread.currentThread().interrupt();
+         throw propagate(e);
+      } catch (ExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+
+   /**
+    * submits the {@linkplain HttpCommand} associated with {@code invocation}
+    * and returns a future for its parsed response, applying the
+    * {@link #getFallback(String, Invocation, HttpCommand) fallback} if the
+    * command fails.
+    * <p>
+    * When the http driver is an {@link AsyncHttpCommandExecutorService}, no
+    * thread waits on the server; otherwise the command is invoked on the user
+    * executor. Parsing and fallbacks run on the user executor. Timeouts from
+    * {@link InvocationConfig} are not applied; bound the wait with
+    * {@link java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit)}.
+    */
+   public ListenableFuture<Object> submit(Invocation invocation) {
+      String commandName = config.getCommandName(invocation);
+      HttpCommand command = toCommand(commandName, invocation);
+      return submit(commandName, invocation, command, getFallback(commandName, invocation, command));
+   }
+
+   private ListenableFuture<Object> submit(String commandName, final Invocation invocation,
+         final HttpCommand command, final org.jclouds.Fallback<?> fallback) {
+      final long start = System.nanoTime();
+      final Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
+
+      logger.debug(">> submitting %s", commandName);
+      ListenableFuture<Object> result;
+      if (coalescer.isCoalesced(invocation, command.getCurrentRequest())) {
+         result = coalescer.submit(invocation, command.getCurrentRequest(),
+               new Supplier<ListenableFuture<Object>>() {
+                  @Override
+                  public ListenableFuture<Object> get() {
+                     return submitAndTransform(invocation, command, transformer);
+                  }
+               });
+      } else {
+         result = submitAndTransform(invocation, command, transformer);
+      }
+      Futures.addCallback(result, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(Object value) {
+            instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, false);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            instrumentation.invocationCompleted(invocation.getInvokable(), System.nanoTime() - start, true);
+         }
+      });
+      return Futures.withFallback(result, new FutureFallback<Object>() {
+         @Override
+         public ListenableFuture<Object> create(Throwable t) throws Exception {
+            return Futures.<Object> immediateFuture(fallback.createOrPropagate(t));
+         }
+      }, userExecutor);
+   }
+
+   /**
+    * submits the command and parses its response, unless the {@link ResponseCache} holds a result of the invocation
+    * that is still fresh or that the server confirms was not modified.
+    */
+   private ListenableFuture<Object> submitAndTransform(final Invocation invocation, final HttpCommand command,
+         final Function<HttpResponse, ?> transformer) {
+      final HttpRequest request = command.getCurrentRequest();
+      final ResponseCache.Entry cached = responseCache.lookup(invocation, command);
+      if (cached != null && responseCache.isFresh(cached))
+         return Futures.immediateFuture(cached.getResult());
+
+      ListenableFuture<HttpResponse> response;
+      if (http instanceof AsyncHttpCommandExecutorService) {
+         response = AsyncHttpCommandExecutorService.class.cast(http).submit(command);
+      } else {
+         response = userExecutor.submit(new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() {
+               return http.invoke(command);
+            }
+         });
+      }
+      ListenableFuture<Object> result = Futures.transform(response, new Function<HttpResponse, Object>() {
+         @Override
+         public Object apply(HttpResponse input) {
+            return responseCache.put(invocation, request, input, transform(invocation.getInvokable(), transformer,
+                  input));
+         }
+      }, userExecutor);
+      if (cached != null) {
+         result = Futures.withFallback(result, new FutureFallback<Object>() {
+            @Override
+            public ListenableFuture<Object> create(Throwable t) {
+               if (ResponseCache.isNotModified(t))
+                  return Futures.immediateFuture(responseCache.notModified(cached));
+               return Futures.immediateFailedFuture(t);
+            }
+         });
+      }
+      return result;
+   }
+
    private org.jclouds.Fallback<?> getFallback(String commandName, Invocation invocation, HttpCommand command) {
       HttpRequest request = command.getCurrentRequest();
       org.jclouds.Fallback<?> fallback = config.getFallback(invocation);
@@ -157,7 +321,10 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
       @Override
       public Object call() throws Exception {
-         return transformer.apply(http.invoke(command));
+         HttpRequest request = command.getCurrentRequest();
+         if (request instanceof GeneratedHttpRequest)
+            return invokeAndTransform(GeneratedHttpRequest.class.cast(request).getInvocation(), command, transformer);
+         return transform(null, transformer, http.invoke(command));
       }
 
       @Override
@@ -183,6 +350,52 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   /**
+    * invokes the command and parses its response, or waits for the result of an identical invocation in flight if
+    * the method is {@link org.jclouds.rest.annotations.Coalesce coalesced}.
+    */
+   private Object invokeAndTransform(final Invocation invocation, final HttpCommand command,
+         final Function<HttpResponse, ?> transformer) throws Exception {
+      HttpRequest request = command.getCurrentRequest();
+      if (!coalescer.isCoalesced(invocation, request))
+         return invokeOrLookup(invocation, command, transformer);
+      return coalescer.invoke(invocation, request, new Callable<Object>() {
+         @Override
+         public Object call() {
+            return invokeOrLookup(invocation, command, transformer);
+         }
+      });
+   }
+
+   /**
+    * invokes the command and parses its response, unless the {@link ResponseCache} holds a result of the invocation
+    * that is still fresh or that the server confirms was not modified.
+    */
+   private Object invokeOrLookup(Invocation invocation, HttpCommand command, Function<HttpResponse, ?> transformer) {
+      HttpRequest request = command.getCurrentRequest();
+      ResponseCache.Entry cached = responseCache.lookup(invocation, command);
+      if (cached != null && responseCache.isFresh(cached))
+         return cached.getResult();
+      HttpResponse response;
+      try {
+         response = http.invoke(command);
+      } catch (RuntimeException e) {
+         if (cached != null && ResponseCache.isNotModified(e))
+            return responseCache.notModified(cached);
+         throw e;
+      }
+      return responseCache.put(invocation, request, response, transform(invocation.getInvokable(), transformer,
+            response));
+   }
+
+   private Object transform(Invokable<?, ?> method, Function<HttpResponse, ?> transformer, HttpResponse response) {
+      long start = System.nanoTime();
+      Object result = transformer.apply(response);
+      if (method != null)
+         instrumentation.responseParsed(method, System.nanoTime() - start);
+      return result;
+   }
+
    private HttpCommand toCommand(String commandName, Invocation invocation) {
       logger.trace(">> converting %s", commandName);
       HttpRequest request = annotationProcessor.apply(invocation);
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfPossible;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.reflect.MethodTable.Memo;
+import org.jclouds.rest.annotations.Coalesce;
+import org.jclouds.rest.annotations.NotCoalesced;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Shares one in-flight call between concurrent identical invocations of the methods annotated with
+ * {@link Coalesce}, or of an api annotated with it, unless they are annotated with {@link NotCoalesced}.
+ * <p/>
+ * Invocations are identical when they invoke the same method with the same endpoint and headers, before filters
+ * sign the request. The first one runs; the ones made while it is in flight wait for its result, or its exception,
+ * instead of sending the same request again.
+ */
+@Beta
+@Singleton
+public class RequestCoalescer {
+
+   private static final Set<String> METHODS = ImmutableSet.of("GET", "HEAD");
+
+   private static final Memo<Boolean> COALESCED = new Memo<Boolean>(new Function<Invokable<?, ?>, Boolean>() {
+      @Override
+      public Boolean apply(Invokable<?, ?> invokable) {
+         if (invokable.isAnnotationPresent(NotCoalesced.class))
+            return false;
+         return invokable.isAnnotationPresent(Coalesce.class)
+               || invokable.getOwnerType().getRawType().isAnnotationPresent(Coalesce.class);
+      }
+   });
+
+   private final ConcurrentMap<InvocationKey, ListenableFuture<Object>> inFlight = Maps.newConcurrentMap();
+   private final AtomicLong shared = new AtomicLong();
+
+   /**
+    * @return true if identical concurrent calls of the invocation share their request
+    */
+   boolean isCoalesced(Invocation invocation, HttpRequest request) {
+      return METHODS.contains(request.getMethod()) && COALESCED.get(invocation);
+   }
+
+   /**
+    * Runs the call, unless an identical invocation is in flight, in which case blocks until its result is ready.
+    */
+   Object invoke(Invocation invocation, HttpRequest request, Callable<Object> call) throws Exception {
+      InvocationKey key = new InvocationKey(invocation.getInvokable(), request);
+      SettableFuture<Object> flight = SettableFuture.create();
+      ListenableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+      if (existing != null) {
+         shared.incrementAndGet();
+         try {
+            return existing.get();
+         } catch (ExecutionException e) {
+            propagateIfPossible(e.getCause(), Exception.class);
+            throw propagate(e.getCause());
+         }
+      }
+      try {
+         Object result = call.call();
+         flight.set(result);
+         return result;
+      } catch (Exception e) {
+         flight.setException(e);
+         throw e;
+      } catch (Error e) {
+         flight.setException(e);
+         throw e;
+      } finally {
+         inFlight.remove(key, flight);
+      }
+   }
+
+   /**
+    * Submits the call, unless an identical invocation is in flight, in which case returns a future for its result.
+    * Cancelling the returned future does not affect the other callers.
+    */
+   ListenableFuture<Object> submit(Invocation invocation, HttpRequest request,
+         Supplier<ListenableFuture<Object>> call) {
+      final InvocationKey key = new InvocationKey(invocation.getInvokable(), request);
+      final SettableFuture<Object> flight = SettableFuture.create();
+      ListenableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+      if (existing != null) {
+         shared.incrementAndGet();
+         return nonCancelling(existing);
+      }
+      flight.addListener(new Runnable() {
+         @Override
+         public void run() {
+            inFlight.remove(key, flight);
+         }
+      }, sameThreadExecutor());
+      try {
+         forward(call.get(), flight);
+      } catch (RuntimeException e) {
+         flight.setException(e);
+      }
+      return nonCancelling(flight);
+   }
+
+   /**
+    * @return how many invocations were served by the call of an identical one
+    */
+   public long getSharedCount() {
+      return shared.get();
+   }
+
+   private static ListenableFuture<Object> nonCancelling(ListenableFuture<Object> future) {
+      SettableFuture<Object> view = SettableFuture.create();
+      forward(future, view);
+      return view;
+   }
+
+   private static void forward(ListenableFuture<Object> from, final SettableFuture<Object> to) {
+      Futures.addCallback(from, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(Object result) {
+            to.set(result);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            to.setException(t);
+         }
+      });
+   }
+}
@@ -0,0 +1,498 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Iterables.get;
+import static java.util.Arrays.asList;
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.reflect.MethodTable.Memo;
+import org.jclouds.rest.Binder;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Endpoint;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.ParamParser;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.PayloadParams;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+import org.jclouds.rest.binders.BindMapToStringPayload;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * Everything {@link RestAnnotationProcessor} needs to know about an {@link Invokable} that does not depend on the
+ * arguments of a particular invocation. Annotations on the method and its owner type are resolved once, when the
+ * template is first requested, so that building a request only has to substitute argument values.
+ * <p/>
+ * Instances are immutable and shared across all processors.
+ */
+final class RequestTemplate {
+
+   private static final Memo<RequestTemplate> templates = new Memo<RequestTemplate>(
+         new Function<Invokable<?, ?>, RequestTemplate>() {
+            @Override
+            public RequestTemplate apply(Invokable<?, ?> invokable) {
+               return new RequestTemplate(invokable);
+            }
+         });
+
+   /**
+    * returns the template for the invoked method, compiling it on first use.
+    */
+   static RequestTemplate of(Invocation invocation) {
+      return templates.get(checkNotNull(invocation, "invocation"));
+   }
+
+   static RequestTemplate of(Invokable<?, ?> invokable) {
+      return templates.get(checkNotNull(invokable, "invokable"));
+   }
+
+   /**
+    * A parameter bound to a name through {@link PathParam}, {@link FormParam}, {@link QueryParam},
+    * {@link PayloadParam} or {@link HeaderParam}.
+    */
+   static final class NamedParam {
+      final int position;
+      final String name;
+      @Nullable
+      final Class<? extends Function<Object, String>> parser;
+
+      private NamedParam(int position, String name, @Nullable ParamParser parser) {
+         this.position = position;
+         this.name = name;
+         this.parser = parser != null ? parser.value() : null;
+      }
+   }
+
+   /**
+    * A parameter annotated with {@link PartParam}.
+    */
+   static final class PartSpec {
+      final int position;
+      final String name;
+      @Nullable
+      final String contentType;
+      @Nullable
+      final String filename;
+
+      private PartSpec(int position, PartParam partParam) {
+         this.position = position;
+         this.name = partParam.name();
+         this.contentType = PartParam.NO_CONTENT_TYPE.equals(partParam.contentType()) ? null : partParam
+               .contentType();
+         this.filename = PartParam.NO_FILENAME.equals(partParam.filename()) ? null : partParam.filename();
+      }
+   }
+
+   /**
+    * A parameter annotated with {@link BinderParam} or {@link WrapWith}. Exactly one of {@code binder} and
+    * {@code wrapWith} is set.
+    */
+   static final class BinderSpec {
+      final int position;
+      final boolean isArray;
+      final Class<?> rawType;
+      final boolean nullable;
+      @Nullable
+      final Class<? extends Binder> binder;
+      @Nullable
+      final String wrapWith;
+
+      private BinderSpec(Parameter param) {
+         this.position = param.hashCode(); // guava issue 1243
+         this.rawType = param.getType().getRawType();
+         this.isArray = param.getType().isArray();
+         this.nullable = param.isAnnotationPresent(Nullable.class);
+         if (param.isAnnotationPresent(BinderParam.class)) {
+            this.binder = param.getAnnotation(BinderParam.class).value();
+            this.wrapWith = null;
+         } else {
+            this.binder = null;
+            this.wrapWith = param.getAnnotation(WrapWith.class).value();
+         }
+      }
+   }
+
+   /**
+    * Flattened key/value pairs of {@link FormParams}, {@link QueryParams}, {@link Headers} or {@link PayloadParams}
+    * annotations, owner type first. Annotation array members are copied on every access, so they are read only
+    * once here.
+    */
+   static final class KeyValues {
+      static final KeyValues EMPTY = new KeyValues(new String[0], new String[0]);
+
+      final String[] keys;
+      final String[] values;
+
+      private KeyValues(String[] keys, String[] values) {
+         this.keys = keys;
+         this.values = values;
+      }
+
+      int size() {
+         return keys.length;
+      }
+
+      private static KeyValues concat(List<String[]> keys, List<String[]> values) {
+         ImmutableList.Builder<String> k = ImmutableList.builder();
+         ImmutableList.Builder<String> v = ImmutableList.builder();
+         for (int i = 0; i < keys.size(); i++) {
+            k.addAll(asList(keys.get(i)));
+            v.addAll(asList(values.get(i)));
+         }
+         List<String> builtKeys = k.build();
+         return builtKeys.isEmpty() ? EMPTY : new KeyValues(builtKeys.toArray(new String[0]), v.build().toArray(
+               new String[0]));
+      }
+   }
+
+   private final Invokable<?, ?> invokable;
+   private final ImmutableList<Parameter> parameters;
+   private final boolean[] nullableParameters;
+   private final ImmutableSet<String> httpMethods;
+   private final ImmutableList<String> paths;
+   private final Optional<ImmutableList<Character>> skipPathEncoding;
+   private final ImmutableList<Class<? extends HttpRequestFilter>> filters;
+   private final KeyValues formParams;
+   private final KeyValues queryParams;
+   private final KeyValues headers;
+   private final KeyValues payloadParams;
+   private final Optional<ImmutableList<String>> produces;
+   private final boolean virtualHost;
+   private final Optional<Class<? extends Annotation>> endpoint;
+   private final ImmutableList<Parameter> endpointParams;
+   private final ImmutableList<NamedParam> pathParams;
+   private final ImmutableList<NamedParam> formParamArgs;
+   private final ImmutableList<NamedParam> queryParamArgs;
+   private final ImmutableList<NamedParam> payloadParamArgs;
+   private final ImmutableList<NamedParam> headerParamArgs;
+   private final ImmutableList<PartSpec> parts;
+   private final ImmutableList<BinderSpec> binders;
+   private final ImmutableSet<Integer> optionsPositions;
+   private final Optional<Class<? extends org.jclouds.rest.MapBinder>> mapBinder;
+   private final Optional<String> wrapWith;
+
+   private RequestTemplate(Invokable<?, ?> invokable) {
+      this.invokable = invokable;
+      Class<?> owner = invokable.getOwnerType().getRawType();
+      this.parameters = ImmutableList.copyOf(getInvokableParameters(invokable));
+
+      ImmutableSet.Builder<String> httpMethods = ImmutableSet.builder();
+      for (Annotation annotation : invokable.getAnnotations()) {
+         HttpMethod http = annotation.annotationType().getAnnotation(HttpMethod.class);
+         if (http != null)
+            httpMethods.add(http.value());
+      }
+      this.httpMethods = httpMethods.build();
+
+      ImmutableList.Builder<String> paths = ImmutableList.builder();
+      if (owner.isAnnotationPresent(Path.class))
+         paths.add(owner.getAnnotation(Path.class).value());
+      if (invokable.isAnnotationPresent(Path.class))
+         paths.add(invokable.getAnnotation(Path.class).value());
+      this.paths = paths.build();
+
+      // the method annotation replaces the one on the type
+      SkipEncoding skip = invokable.isAnnotationPresent(SkipEncoding.class) ? invokable
+            .getAnnotation(SkipEncoding.class) : owner.getAnnotation(SkipEncoding.class);
+      this.skipPathEncoding = skip != null ? Optional.of(ImmutableList.copyOf(Chars.asList(skip.value())))
+            : Optional.<ImmutableList<Character>> absent();
+
+      ImmutableList.Builder<Class<? extends HttpRequestFilter>> filters = ImmutableList.builder();
+      if (owner.isAnnotationPresent(RequestFilters.class)
+            && !(invokable.isAnnotationPresent(RequestFilters.class) && invokable
+                  .isAnnotationPresent(OverrideRequestFilters.class)))
+         filters.add(owner.getAnnotation(RequestFilters.class).value());
+      if (invokable.isAnnotationPresent(RequestFilters.class))
+         filters.add(invokable.getAnnotation(RequestFilters.class).value());
+      this.filters = filters.build();
+
+      List<String[]> keys = Lists.newArrayList();
+      List<String[]> values = Lists.newArrayList();
+      for (FormParams form : asList(owner.getAnnotation(FormParams.class), invokable.getAnnotation(FormParams.class)))
+         if (form != null) {
+            keys.add(form.keys());
+            values.add(form.values());
+         }
+      this.formParams = KeyValues.concat(keys, values);
+
+      keys = Lists.newArrayList();
+      values = Lists.newArrayList();
+      for (QueryParams query : asList(owner.getAnnotation(QueryParams.class),
+            invokable.getAnnotation(QueryParams.class)))
+         if (query != null) {
+            keys.add(query.keys());
+            values.add(query.values());
+         }
+      this.queryParams = KeyValues.concat(keys, values);
+
+      keys = Lists.newArrayList();
+      values = Lists.newArrayList();
+      for (Headers header : asList(owner.getAnnotation(Headers.class), invokable.getAnnotation(Headers.class)))
+         if (header != null) {
+            keys.add(header.keys());
+            values.add(header.values());
+         }
+      this.headers = KeyValues.concat(keys, values);
+
+      PayloadParams payload = invokable.getAnnotation(PayloadParams.class);
+      this.payloadParams = payload != null ? new KeyValues(payload.keys(), payload.values()) : null;
+
+      Produces produces = invokable.isAnnotationPresent(Produces.class) ? invokable.getAnnotation(Produces.class)
+            : owner.getAnnotation(Produces.class);
+      this.produces = produces != null ? Optional.of(ImmutableList.copyOf(produces.value())) : Optional
+            .<ImmutableList<String>> absent();
+
+      this.virtualHost = owner.isAnnotationPresent(VirtualHost.class)
+            || invokable.isAnnotationPresent(VirtualHost.class);
+
+      Endpoint endpoint = invokable.isAnnotationPresent(Endpoint.class) ? invokable.getAnnotation(Endpoint.class)
+            : owner.getAnnotation(Endpoint.class);
+      this.endpoint = endpoint != null ? Optional.<Class<? extends Annotation>> of(endpoint.value()) : Optional
+            .<Class<? extends Annotation>> absent();
+
+      if (invokable.isAnnotationPresent(MapBinder.class)) {
+         this.mapBinder = Optional.<Class<? extends org.jclouds.rest.MapBinder>> of(invokable.getAnnotation(
+               MapBinder.class).value());
+         this.wrapWith = Optional.absent();
+      } else if (invokable.isAnnotationPresent(org.jclouds.rest.annotations.Payload.class)) {
+         this.mapBinder = Optional.<Class<? extends org.jclouds.rest.MapBinder>> of(BindMapToStringPayload.class);
+         this.wrapWith = Optional.absent();
+      } else {
+         this.mapBinder = Optional.absent();
+         this.wrapWith = invokable.isAnnotationPresent(WrapWith.class) ? Optional.of(invokable.getAnnotation(
+               WrapWith.class).value()) : Optional.<String> absent();
+      }
+
+      this.nullableParameters = new boolean[parameters.size()];
+      ImmutableList.Builder<Parameter> endpointParams = ImmutableList.builder();
+      ImmutableList.Builder<NamedParam> pathParams = ImmutableList.builder();
+      ImmutableList.Builder<NamedParam> formParamArgs = ImmutableList.builder();
+      ImmutableList.Builder<NamedParam> queryParamArgs = ImmutableList.builder();
+      ImmutableList.Builder<NamedParam> payloadParamArgs = ImmutableList.builder();
+      ImmutableList.Builder<NamedParam> headerParamArgs = ImmutableList.builder();
+      ImmutableList.Builder<PartSpec> parts = ImmutableList.builder();
+      ImmutableList.Builder<BinderSpec> binderParams = ImmutableList.builder();
+      ImmutableList.Builder<BinderSpec> wrapWithParams = ImmutableList.builder();
+      ImmutableSet.Builder<Integer> optionsPositions = ImmutableSet.builder();
+      for (Parameter param : parameters) {
+         int position = param.hashCode(); // guava issue 1243
+         nullableParameters[position] = param.isAnnotationPresent(Nullable.class);
+         ParamParser parser = param.getAnnotation(ParamParser.class);
+         if (param.isAnnotationPresent(EndpointParam.class))
+            endpointParams.add(param);
+         if (param.isAnnotationPresent(PathParam.class))
+            pathParams.add(new NamedParam(position, param.getAnnotation(PathParam.class).value(), parser));
+         if (param.isAnnotationPresent(FormParam.class))
+            formParamArgs.add(new NamedParam(position, param.getAnnotation(FormParam.class).value(), parser));
+         if (param.isAnnotationPresent(QueryParam.class))
+            queryParamArgs.add(new NamedParam(position, param.getAnnotation(QueryParam.class).value(), parser));
+         if (param.isAnnotationPresent(PayloadParam.class))
+            payloadParamArgs.add(new NamedParam(position, param.getAnnotation(PayloadParam.class).value(), parser));
+         if (param.isAnnotationPresent(HeaderParam.class))
+            headerParamArgs.add(new NamedParam(position, param.getAnnotation(HeaderParam.class).value(), null));
+         if (param.isAnnotationPresent(PartParam.class))
+            parts.add(new PartSpec(position, param.getAnnotation(PartParam.class)));
+         if (param.isAnnotationPresent(BinderParam.class))
+            binderParams.add(new BinderSpec(param));
+         else if (param.isAnnotationPresent(WrapWith.class))
+            wrapWithParams.add(new BinderSpec(param));
+         Class<?> type = param.getType().getRawType();
+         if (HttpRequestOptions.class.isAssignableFrom(type) || HttpRequestOptions[].class.isAssignableFrom(type))
+            optionsPositions.add(position);
+      }
+      this.endpointParams = endpointParams.build();
+      this.pathParams = pathParams.build();
+      this.formParamArgs = formParamArgs.build();
+      this.queryParamArgs = queryParamArgs.build();
+      this.payloadParamArgs = payloadParamArgs.build();
+      this.headerParamArgs = headerParamArgs.build();
+      this.parts = parts.build();
+      // binders are applied before wrappers
+      this.binders = ImmutableList.<BinderSpec> builder().addAll(binderParams.build()).addAll(wrapWithParams.build())
+            .build();
+      this.optionsPositions = optionsPositions.build();
+   }
+
+   Invokable<?, ?> getInvokable() {
+      return invokable;
+   }
+
+   List<Parameter> getParameters() {
+      return parameters;
+   }
+
+   boolean isNullable(int position) {
+      return nullableParameters[position];
+   }
+
+   /**
+    * @throws IllegalStateException
+    *            if more than one {@link HttpMethod} annotation is present
+    */
+   Optional<String> getHttpMethod() {
+      switch (httpMethods.size()) {
+      case 0:
+         return Optional.absent();
+      case 1:
+         return Optional.of(get(httpMethods, 0));
+      default:
+         throw new IllegalStateException("You must specify at most one HttpMethod annotation on: " + invokable);
+      }
+   }
+
+   /**
+    * {@link Path} values of the owner type and then the method.
+    */
+   List<String> getPaths() {
+      return paths;
+   }
+
+   Optional<ImmutableList<Character>> getSkipPathEncoding() {
+      return skipPathEncoding;
+   }
+
+   /**
+    * request filters in application order, already accounting for {@link OverrideRequestFilters}.
+    */
+   List<Class<? extends HttpRequestFilter>> getFilters() {
+      return filters;
+   }
+
+   KeyValues getFormParams() {
+      return formParams;
+   }
+
+   KeyValues getQueryParams() {
+      return queryParams;
+   }
+
+   KeyValues getHeaders() {
+      return headers;
+   }
+
+   /**
+    * {@link PayloadParams} of the method, or null if not annotated.
+    */
+   @Nullable
+   KeyValues getPayloadParams() {
+      return payloadParams;
+   }
+
+   Optional<ImmutableList<String>> getProduces() {
+      return produces;
+   }
+
+   boolean isVirtualHost() {
+      return virtualHost;
+   }
+
+   Optional<Class<? extends Annotation>> getEndpoint() {
+      return endpoint;
+   }
+
+   List<Parameter> getEndpointParams() {
+      return endpointParams;
+   }
+
+   List<NamedParam> getPathParams() {
+      return pathParams;
+   }
+
+   List<NamedParam> getFormParamArgs() {
+      return formParamArgs;
+   }
+
+   List<NamedParam> getQueryParamArgs() {
+      return queryParamArgs;
+   }
+
+   List<NamedParam> getPayloadParamArgs() {
+      return payloadParamArgs;
+   }
+
+   List<NamedParam> getHeaderParamArgs() {
+      return headerParamArgs;
+   }
+
+   List<PartSpec> getParts() {
+      return parts;
+   }
+
+   List<BinderSpec> getBinders() {
+      return binders;
+   }
+
+   /**
+    * positions of {@link HttpRequestOptions} parameters.
+    */
+   ImmutableSet<Integer> getOptionsPositions() {
+      return optionsPositions;
+   }
+
+   /**
+    * map binder declared via {@link MapBinder} or {@link org.jclouds.rest.annotations.Payload}.
+    */
+   Optional<Class<? extends org.jclouds.rest.MapBinder>> getMapBinder() {
+      return mapBinder;
+   }
+
+   /**
+    * {@link WrapWith} value on the method, when no other map binder is declared.
+    */
+   Optional<String> getWrapWith() {
+      return wrapWith;
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("invokable", invokable).toString();
+   }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_MODIFIED_SINCE;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
+import static org.jclouds.Constants.PROPERTY_RESPONSE_CACHE_SIZE;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.reflect.MethodTable.Memo;
+import org.jclouds.rest.annotations.Cacheable;
+import org.jclouds.rest.annotations.NotCacheable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
+import com.google.inject.Inject;
+
+/**
+ * Keeps the parsed results of the {@code GET} methods annotated with {@link Cacheable}, so that repeated reads of the
+ * same resource neither download nor parse its representation again while it did not change.
+ * <p/>
+ * Results are keyed on the invoked method, the endpoint and the headers of the request, before filters add
+ * credentials. A result younger than its {@link Cacheable#maxAge() max age} is returned without contacting the
+ * server. An older one is revalidated by a conditional request, and is returned again when the server answers
+ * {@code 304 Not Modified}. Requests with other methods drop the results of their parent path and everything below
+ * it, as they most likely changed them.
+ * 
+ * @see org.jclouds.Constants#PROPERTY_RESPONSE_CACHE_SIZE
+ */
+@Beta
+@Singleton
+public class ResponseCache {
+
+   private static final Set<String> SAFE_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS");
+
+   private static final Memo<Optional<Long>> MAX_AGES = new Memo<Optional<Long>>(
+         new Function<Invokable<?, ?>, Optional<Long>>() {
+            @Override
+            public Optional<Long> apply(Invokable<?, ?> invokable) {
+               return maxAgeNanos(invokable);
+            }
+         });
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RESPONSE_CACHE_SIZE)
+   @VisibleForTesting
+   int maxSize = 0;
+
+   private final Ticker ticker;
+   private final Supplier<Cache<InvocationKey, Entry>> entries = Suppliers
+         .memoize(new Supplier<Cache<InvocationKey, Entry>>() {
+            @Override
+            public Cache<InvocationKey, Entry> get() {
+               return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+            }
+         });
+
+   @Inject
+   ResponseCache() {
+      this(Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   ResponseCache(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Looks up the result of an invocation. When the result is too old to be returned as is, the current request of
+    * the command is made conditional on it.
+    * 
+    * @return the cached result, or null if there is none or the invocation is not cacheable
+    */
+   @Nullable
+   Entry lookup(Invocation invocation, HttpCommand command) {
+      if (maxSize <= 0)
+         return null;
+      HttpRequest request = command.getCurrentRequest();
+      if (!"GET".equals(request.getMethod())) {
+         if (!SAFE_METHODS.contains(request.getMethod()))
+            invalidate(request.getEndpoint());
+         return null;
+      }
+      if (!MAX_AGES.get(invocation).isPresent())
+         return null;
+      Entry entry = entries.get().getIfPresent(new InvocationKey(invocation.getInvokable(), request));
+      if (entry == null || entry.isFresh(ticker.read()))
+         return entry;
+      HttpRequest.Builder<?> conditional = request.toBuilder();
+      if (entry.eTag != null)
+         conditional.replaceHeader(IF_NONE_MATCH, entry.eTag);
+      if (entry.lastModified != null)
+         conditional.replaceHeader(IF_MODIFIED_SINCE, entry.lastModified);
+      command.setCurrentRequest(conditional.build());
+      return entry;
+   }
+
+   /**
+    * @return true if the result can be returned without asking the server
+    */
+   boolean isFresh(Entry entry) {
+      return entry.isFresh(ticker.read());
+   }
+
+   /**
+    * Keeps the result parsed from the response to an invocation, if it is cacheable.
+    * 
+    * @param request
+    *           the request of the invocation, as it was before {@link #lookup(Invocation, HttpCommand)}
+    * @return the result
+    */
+   Object put(Invocation invocation, HttpRequest request, HttpResponse response, @Nullable Object result) {
+      if (maxSize <= 0 || result == null || !"GET".equals(request.getMethod()))
+         return result;
+      Optional<Long> maxAge = MAX_AGES.get(invocation);
+      if (!maxAge.isPresent())
+         return result;
+      String cacheControl = response.getFirstHeaderOrNull(CACHE_CONTROL);
+      if (cacheControl != null && cacheControl.contains("no-store"))
+         return result;
+      String eTag = response.getFirstHeaderOrNull(ETAG);
+      if (eTag == null)
+         eTag = response.getFirstHeaderOrNull("Etag");
+      String lastModified = response.getFirstHeaderOrNull(LAST_MODIFIED);
+      if (maxAge.get() == 0 && eTag == null && lastModified == null)
+         return result;
+      entries.get().put(new InvocationKey(invocation.getInvokable(), request),
+            new Entry(result, eTag, lastModified, maxAge.get(), ticker.read()));
+      return result;
+   }
+
+   /**
+    * Marks a result as confirmed by the server, after a {@code 304 Not Modified} response.
+    * 
+    * @return the result
+    */
+   Object notModified(Entry entry) {
+      entry.validatedAt = ticker.read();
+      return entry.result;
+   }
+
+   /**
+    * @return true if the server answered a conditional request with {@code 304 Not Modified}
+    */
+   static boolean isNotModified(Throwable t) {
+      HttpResponseException e = getFirstThrowableOfType(t, HttpResponseException.class);
+      return e != null && e.getResponse() != null && e.getResponse().getStatusCode() == 304;
+   }
+
+   /**
+    * Drops the cached results below the parent of the endpoint.
+    */
+   public void invalidate(URI endpoint) {
+      Cache<InvocationKey, Entry> cache = entries.get();
+      if (cache.size() == 0)
+         return;
+      String path = endpoint.getPath() != null ? endpoint.getPath() : "";
+      String parent = path.substring(0, Math.max(0, path.lastIndexOf('/')));
+      for (Iterator<InvocationKey> keys = cache.asMap().keySet().iterator(); keys.hasNext();) {
+         URI cached = keys.next().getEndpoint();
+         String cachedPath = cached.getPath() != null ? cached.getPath() : "";
+         if (Objects.equal(cached.getAuthority(), endpoint.getAuthority())
+               && (cachedPath.equals(parent) || cachedPath.startsWith(parent + "/")))
+            keys.remove();
+      }
+   }
+
+   /**
+    * Drops all cached results.
+    */
+   public void invalidateAll() {
+      entries.get().invalidateAll();
+   }
+
+   /**
+    * @return hits and misses of the cache; hits include results that had to be revalidated
+    */
+   public CacheStats getStats() {
+      return entries.get().stats();
+   }
+
+   private static Optional<Long> maxAgeNanos(Invokable<?, ?> invokable) {
+      if (invokable.isAnnotationPresent(NotCacheable.class))
+         return Optional.absent();
+      Cacheable cacheable = invokable.getAnnotation(Cacheable.class);
+      if (cacheable == null)
+         cacheable = invokable.getOwnerType().getRawType().getAnnotation(Cacheable.class);
+      if (cacheable == null)
+         return Optional.absent();
+      return Optional.of(cacheable.timeUnit().toNanos(cacheable.maxAge()));
+   }
+
+   static final class Entry {
+      private final Object result;
+      private final String eTag;
+      private final String lastModified;
+      private final long maxAgeNanos;
+      private volatile long validatedAt;
+
+      Entry(Object result, @Nullable String eTag, @Nullable String lastModified, long maxAgeNanos, long now) {
+         this.result = result;
+         this.eTag = eTag;
+         this.lastModified = lastModified;
+         this.maxAgeNanos = maxAgeNanos;
+         this.validatedAt = now;
+      }
+
+      boolean isFresh(long now) {
+         return now - validatedAt < maxAgeNanos;
+      }
+
+      Object getResult() {
+         return result;
+      }
+   }
+}
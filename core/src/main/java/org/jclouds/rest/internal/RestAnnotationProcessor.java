@@ -21,7 +21,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.instanceOf;
-import static com.google.common.collect.Collections2.filter;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.transform;
@@ -33,12 +32,9 @@ import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.HttpHeaders.HOST;
 import static java.lang.String.format;
-import static java.util.Arrays.asList;
 import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
-import static org.jclouds.http.HttpUtils.tryFindHttpMethod;
 import static org.jclouds.http.Uris.uriBuilder;
 import static org.jclouds.io.Payloads.newPayload;
-import static org.jclouds.reflect.Reflection2.getInvokableParameters;
 import static org.jclouds.util.Strings2.replaceTokens;
 
 import java.lang.annotation.Annotation;
@@ -53,12 +49,6 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import javax.annotation.Resource;
 import javax.inject.Named;
-import javax.ws.rs.FormParam;
-import javax.ws.rs.HeaderParam;
-import javax.ws.rs.Path;
-import javax.ws.rs.PathParam;
-import javax.ws.rs.Produces;
-import javax.ws.rs.QueryParam;
 
 import org.jclouds.Constants;
 import org.jclouds.http.HttpRequest;
@@ -80,45 +70,30 @@ import org.jclouds.reflect.Invocation;
 import org.jclouds.rest.Binder;
 import org.jclouds.rest.InputParamValidator;
 import org.jclouds.rest.annotations.ApiVersion;
-import org.jclouds.rest.annotations.BinderParam;
 import org.jclouds.rest.annotations.BuildVersion;
-import org.jclouds.rest.annotations.Endpoint;
 import org.jclouds.rest.annotations.EndpointParam;
 import org.jclouds.rest.annotations.FormParams;
-import org.jclouds.rest.annotations.Headers;
-import org.jclouds.rest.annotations.MapBinder;
-import org.jclouds.rest.annotations.OverrideRequestFilters;
-import org.jclouds.rest.annotations.ParamParser;
-import org.jclouds.rest.annotations.PartParam;
-import org.jclouds.rest.annotations.PayloadParam;
 import org.jclouds.rest.annotations.PayloadParams;
 import org.jclouds.rest.annotations.QueryParams;
-import org.jclouds.rest.annotations.RequestFilters;
-import org.jclouds.rest.annotations.SkipEncoding;
-import org.jclouds.rest.annotations.VirtualHost;
-import org.jclouds.rest.annotations.WrapWith;
-import org.jclouds.rest.binders.BindMapToStringPayload;
 import org.jclouds.rest.binders.BindToJsonPayloadWrappedWith;
+import org.jclouds.rest.internal.RequestTemplate.BinderSpec;
+import org.jclouds.rest.internal.RequestTemplate.KeyValues;
+import org.jclouds.rest.internal.RequestTemplate.NamedParam;
+import org.jclouds.rest.internal.RequestTemplate.PartSpec;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.primitives.Chars;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.Parameter;
 import com.google.inject.Inject;
@@ -176,7 +151,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
    @Override
    public GeneratedHttpRequest apply(Invocation invocation) {
       checkNotNull(invocation, "invocation");
-      inputParamValidator.validateMethodParametersOrThrow(invocation, getInvokableParameters(invocation.getInvokable()));
+      RequestTemplate template = RequestTemplate.of(invocation);
+      RequestTemplate callerTemplate = caller != null ? RequestTemplate.of(caller) : null;
+      inputParamValidator.validateMethodParametersOrThrow(invocation, template.getParameters());
 
       Optional<URI> endpoint = Optional.absent();
       HttpRequest r = findOrNull(invocation.getArgs(), HttpRequest.class);
@@ -203,11 +180,11 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          requestMethod = r.getMethod();
          requestBuilder.fromHttpRequest(r);
       } else {
-         requestMethod = tryFindHttpMethod(invocation.getInvokable()).get();
+         requestMethod = template.getHttpMethod().get();
          requestBuilder.method(requestMethod);
       }
 
-      requestBuilder.filters(getFiltersIfAnnotated(invocation));
+      requestBuilder.filters(getFiltersIfAnnotated(template));
       if (stripExpectHeader) {
          requestBuilder.filter(new StripExpectHeader());
       }
@@ -219,33 +196,34 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       // URI template in rfc6570 form
       UriBuilder uriBuilder = uriBuilder(endpoint.get().toString());
 
-      overridePathEncoding(uriBuilder, invocation);
+      if (template.getSkipPathEncoding().isPresent())
+         uriBuilder.skipPathEncoding(template.getSkipPathEncoding().get());
 
       if (caller != null)
-         tokenValues.putAll(addPathAndGetTokens(caller, uriBuilder));
-      tokenValues.putAll(addPathAndGetTokens(invocation, uriBuilder));
+         tokenValues.putAll(addPathAndGetTokens(callerTemplate, caller, uriBuilder));
+      tokenValues.putAll(addPathAndGetTokens(template, invocation, uriBuilder));
       Multimap<String, Object> formParams;
       if (caller != null) {
-         formParams = addFormParams(tokenValues, caller);
-         formParams.putAll(addFormParams(tokenValues, invocation));
+         formParams = addFormParams(tokenValues, callerTemplate, caller);
+         formParams.putAll(addFormParams(tokenValues, template, invocation));
       } else {
-         formParams = addFormParams(tokenValues, invocation);
+         formParams = addFormParams(tokenValues, template, invocation);
       }
 
-      Multimap<String, Object> queryParams = addQueryParams(tokenValues, invocation);
+      Multimap<String, Object> queryParams = addQueryParams(tokenValues, template, invocation);
 
       Multimap<String, String> headers;
       if (caller != null) {
-         headers = buildHeaders(tokenValues, caller);
-         headers.putAll(buildHeaders(tokenValues, invocation));
+         headers = buildHeaders(tokenValues, callerTemplate, caller);
+         headers.putAll(buildHeaders(tokenValues, template, invocation));
       } else {
-         headers = buildHeaders(tokenValues, invocation);
+         headers = buildHeaders(tokenValues, template, invocation);
       }
 
       if (r != null)
          headers.putAll(r.getHeaders());
 
-      if (shouldAddHostHeader(invocation)) {
+      if (template.isVirtualHost()) {
          StringBuilder hostHeader = new StringBuilder(endpoint.get().getHost());
          if (endpoint.get().getPort() != -1)
             hostHeader.append(":").append(endpoint.get().getPort());
@@ -253,7 +231,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
 
       Payload payload = null;
-      for (HttpRequestOptions options : findOptionsIn(invocation)) {
+      for (HttpRequestOptions options : findOptionsIn(template, invocation)) {
          injector.injectMembers(options);  // TODO test case
          for (Entry<String, String> header : options.buildRequestHeaders().entries()) {
             headers.put(header.getKey(), replaceTokens(header.getValue(), tokenValues));
@@ -288,7 +266,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
                Payload.class);
       }
 
-      List<? extends Part> parts = getParts(invocation, ImmutableMultimap.<String, Object> builder()
+      List<? extends Part> parts = getParts(template, invocation, ImmutableMultimap.<String, Object> builder()
             .putAll(tokenValues).putAll(formParams).build());
 
       if (!parts.isEmpty()) {
@@ -308,22 +286,21 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
       GeneratedHttpRequest request = requestBuilder.build();
 
-      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(invocation);
+      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(template, invocation);
       if (mapBinder != null) {
          Map<String, Object> mapParams;
          if (caller != null) {
-            mapParams = buildPayloadParams(caller);
-            mapParams.putAll(buildPayloadParams(invocation));
+            mapParams = buildPayloadParams(callerTemplate, caller);
+            mapParams.putAll(buildPayloadParams(template, invocation));
          } else {
-            mapParams = buildPayloadParams(invocation);
+            mapParams = buildPayloadParams(template, invocation);
          }
-         if (invocation.getInvokable().isAnnotationPresent(PayloadParams.class)) {
-            PayloadParams params = invocation.getInvokable().getAnnotation(PayloadParams.class);
-            addMapPayload(mapParams, params, headers);
+         if (template.getPayloadParams() != null) {
+            addMapPayload(mapParams, template.getPayloadParams(), headers);
          }
          request = mapBinder.bindToRequest(request, mapParams);
       } else {
-         request = decorateRequest(request);
+         request = decorateRequest(template, request);
       }
 
       if (request.getPayload() != null) {
@@ -345,16 +322,6 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return ImmutableMap.copyOf(out);
    }
 
-   private void overridePathEncoding(UriBuilder uriBuilder, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(SkipEncoding.class).value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getAnnotation(SkipEncoding.class).value()));
-      }
-   }
-
    // different than guava as accepts null
    private static enum NullableToStringFunction implements Function<Object, String> {
       INSTANCE;
@@ -380,110 +347,73 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return endpoint;
    }
 
-   private Multimap<String, Object> addPathAndGetTokens(Invocation invocation, UriBuilder uriBuilder) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Path.class).value());
-      if (invocation.getInvokable().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getAnnotation(Path.class).value());
-      return getPathParamKeyValues(invocation);
+   private Multimap<String, Object> addPathAndGetTokens(RequestTemplate template, Invocation invocation,
+         UriBuilder uriBuilder) {
+      for (String path : template.getPaths())
+         uriBuilder.appendPath(path);
+      return getParamKeyValues(template.getPathParams(), template, invocation);
    }
 
-   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, RequestTemplate template,
+         Invocation invocation) {
       Multimap<String, Object> formMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(FormParams.class);
-         addForm(formMap, form, tokenValues);
-      }
-
-      if (invocation.getInvokable().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getAnnotation(FormParams.class);
-         addForm(formMap, form, tokenValues);
-      }
-
-      for (Entry<String, Object> form : getFormParamKeyValues(invocation).entries()) {
+      addKeyValues(formMap, template.getFormParams(), FormParams.NULL, tokenValues);
+      for (Entry<String, Object> form : getParamKeyValues(template.getFormParamArgs(), template, invocation)
+            .entries()) {
          formMap.put(form.getKey(), replaceTokens(form.getValue().toString(), tokenValues));
       }
       return formMap;
    }
 
-   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, RequestTemplate template,
+         Invocation invocation) {
       Multimap<String, Object> queryMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(QueryParams.class);
-         addQuery(queryMap, query, tokenValues);
-      }
-
-      if (invocation.getInvokable().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getAnnotation(QueryParams.class);
-         addQuery(queryMap, query, tokenValues);
-      }
-
-      for (Entry<String, Object> query : getQueryParamKeyValues(invocation).entries()) {
+      addKeyValues(queryMap, template.getQueryParams(), QueryParams.NULL, tokenValues);
+      for (Entry<String, Object> query : getQueryParamKeyValues(template, invocation).entries()) {
          queryMap.put(query.getKey(), replaceTokens(query.getValue().toString(), tokenValues));
       }
       return queryMap;
    }
 
-   private void addForm(Multimap<String, Object> formParams, FormParams form, Multimap<String, ?> tokenValues) {
-      for (int i = 0; i < form.keys().length; i++) {
-         if (form.values()[i].equals(FormParams.NULL)) {
-            formParams.removeAll(form.keys()[i]);
-            formParams.put(form.keys()[i], null);
-         } else {
-            formParams.put(form.keys()[i], replaceTokens(form.values()[i], tokenValues));
-         }
-      }
-   }
-
-   private void addQuery(Multimap<String, Object> queryParams, QueryParams query, Multimap<String, ?> tokenValues) {
-      for (int i = 0; i < query.keys().length; i++) {
-         if (query.values()[i].equals(QueryParams.NULL)) {
-            queryParams.removeAll(query.keys()[i]);
-            queryParams.put(query.keys()[i], null);
+   /**
+    * applies {@link FormParams} or {@link QueryParams} defaults, where {@code nullValue} marks a key without value.
+    */
+   private static void addKeyValues(Multimap<String, Object> params, KeyValues keyValues, String nullValue,
+         Multimap<String, ?> tokenValues) {
+      for (int i = 0; i < keyValues.size(); i++) {
+         if (keyValues.values[i].equals(nullValue)) {
+            params.removeAll(keyValues.keys[i]);
+            params.put(keyValues.keys[i], null);
          } else {
-            queryParams.put(query.keys()[i], replaceTokens(query.values()[i], tokenValues));
+            params.put(keyValues.keys[i], replaceTokens(keyValues.values[i], tokenValues));
          }
       }
    }
 
-   private void addMapPayload(Map<String, Object> postParams, PayloadParams mapDefaults,
+   private static void addMapPayload(Map<String, Object> postParams, KeyValues mapDefaults,
          Multimap<String, String> headers) {
-      for (int i = 0; i < mapDefaults.keys().length; i++) {
-         if (mapDefaults.values()[i].equals(PayloadParams.NULL)) {
-            postParams.put(mapDefaults.keys()[i], null);
+      for (int i = 0; i < mapDefaults.size(); i++) {
+         if (mapDefaults.values[i].equals(PayloadParams.NULL)) {
+            postParams.put(mapDefaults.keys[i], null);
          } else {
-            postParams.put(mapDefaults.keys()[i], replaceTokens(mapDefaults.values()[i], headers));
+            postParams.put(mapDefaults.keys[i], replaceTokens(mapDefaults.values[i], headers));
          }
       }
    }
 
-   private List<HttpRequestFilter> getFiltersIfAnnotated(Invocation invocation) {
+   private List<HttpRequestFilter> getFiltersIfAnnotated(RequestTemplate template) {
       List<HttpRequestFilter> filters = newArrayList();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(RequestFilters.class)) {
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(RequestFilters.class).value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getOwnerType()
-                  .getRawType().getName());
-         }
-      }
-      if (invocation.getInvokable().isAnnotationPresent(RequestFilters.class)) {
-         if (invocation.getInvokable().isAnnotationPresent(OverrideRequestFilters.class))
-            filters.clear();
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getAnnotation(RequestFilters.class)
-               .value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getName());
-         }
+      for (Class<? extends HttpRequestFilter> clazz : template.getFilters()) {
+         HttpRequestFilter instance = injector.getInstance(clazz);
+         filters.add(instance);
+         logger.trace("adding filter %s from annotation on %s", instance, template.getInvokable());
       }
       return filters;
    }
 
    @VisibleForTesting
    static URI getEndpointInParametersOrNull(Invocation invocation, Injector injector) {
-      Collection<Parameter> endpointParams = parametersWithAnnotation(invocation.getInvokable(), EndpointParam.class);
+      Collection<Parameter> endpointParams = RequestTemplate.of(invocation).getEndpointParams();
       if (endpointParams.isEmpty())
          return null;
       checkState(endpointParams.size() == 1, "invocation.getInvoked() %s has too many EndpointParam annotations",
@@ -502,31 +432,18 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private static Collection<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
-         final Class<? extends Annotation> annotationType) {
-      return filter(getInvokableParameters(invokable), new Predicate<Parameter>() {
-         public boolean apply(Parameter in) {
-            return in.isAnnotationPresent(annotationType);
-         }
-      });
-   }
-
    private static final TypeLiteral<Supplier<URI>> uriSupplierLiteral = new TypeLiteral<Supplier<URI>>() {
    };
 
    protected Optional<URI> getEndpointFor(Invocation invocation) {
       URI endpoint = getEndpointInParametersOrNull(invocation, injector);
       if (endpoint == null) {
-         Endpoint annotation;
-         if (invocation.getInvokable().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getAnnotation(Endpoint.class);
-         } else if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Endpoint.class);
-         } else {
+         Optional<Class<? extends Annotation>> qualifier = RequestTemplate.of(invocation).getEndpoint();
+         if (!qualifier.isPresent()) {
             logger.trace("no annotations on class or invocation.getInvoked(): %s", invocation.getInvokable());
             return Optional.absent();
          }
-         endpoint = injector.getInstance(Key.get(uriSupplierLiteral, annotation.value())).get();
+         endpoint = injector.getInstance(Key.get(uriSupplierLiteral, qualifier.get())).get();
       }
       URI provider = injector.getInstance(Key.get(uriSupplierLiteral, org.jclouds.location.Provider.class)).get();
       return Optional.fromNullable(addHostIfMissing(endpoint, provider));
@@ -543,7 +460,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return withHost.resolve(original);
    }
 
-   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(Invocation invocation) {
+   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(RequestTemplate template, Invocation invocation) {
       if (invocation.getArgs() != null) {
          for (Object arg : invocation.getArgs()) {
             if (arg instanceof Object[]) {
@@ -569,45 +486,35 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             }
          }
       }
-      if (invocation.getInvokable().isAnnotationPresent(MapBinder.class)) {
-         return injector.getInstance(invocation.getInvokable().getAnnotation(MapBinder.class).value());
-      } else if (invocation.getInvokable().isAnnotationPresent(org.jclouds.rest.annotations.Payload.class)) {
-         return injector.getInstance(BindMapToStringPayload.class);
-      } else if (invocation.getInvokable().isAnnotationPresent(WrapWith.class)) {
-         return injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
-               invocation.getInvokable().getAnnotation(WrapWith.class).value());
+      if (template.getMapBinder().isPresent()) {
+         return injector.getInstance(template.getMapBinder().get());
+      } else if (template.getWrapWith().isPresent()) {
+         return injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(template.getWrapWith().get());
       }
       return null;
    }
 
-   private boolean shouldAddHostHeader(Invocation invocation) {
-      return invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(VirtualHost.class) || invocation
-            .getInvokable().isAnnotationPresent(VirtualHost.class);
-   }
-
-   private GeneratedHttpRequest decorateRequest(GeneratedHttpRequest request) throws NegativeArraySizeException {
+   private GeneratedHttpRequest decorateRequest(RequestTemplate template, GeneratedHttpRequest request)
+         throws NegativeArraySizeException {
       Invocation invocation = request.getInvocation();
       List<Object> args = request.getInvocation().getArgs();
-      Set<Parameter> binderOrWrapWith = ImmutableSet.copyOf(concat(
-            parametersWithAnnotation(invocation.getInvokable(), BinderParam.class),
-            parametersWithAnnotation(invocation.getInvokable(), WrapWith.class)));
-      OUTER: for (Parameter entry : binderOrWrapWith) {
-         int position = entry.hashCode();
+      int parameterCount = template.getParameters().size();
+      OUTER: for (BinderSpec entry : template.getBinders()) {
+         int position = entry.position;
          boolean shouldBreak = false;
          Binder binder;
-         if (entry.isAnnotationPresent(BinderParam.class))
-            binder = injector.getInstance(entry.getAnnotation(BinderParam.class).value());
+         if (entry.binder != null)
+            binder = injector.getInstance(entry.binder);
          else
-            binder = injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
-                  entry.getAnnotation(WrapWith.class).value());
+            binder = injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(entry.wrapWith);
          Object arg = args.size() >= position + 1 ? args.get(position) : null;
          if (args.size() >= position + 1 && arg != null) {
-            Class<?> parameterType = entry.getType().getRawType();
+            Class<?> parameterType = entry.rawType;
             Class<? extends Object> argType = arg.getClass();
             if (!argType.isArray() && parameterType.isArray()) {// TODO: &&
                                                                 // invocation.getInvokable().isVarArgs())
                                                                 // {
-               int arrayLength = args.size() - getInvokableParameters(invocation.getInvokable()).size() + 1;
+               int arrayLength = args.size() - parameterCount + 1;
                if (arrayLength == 0)
                   break OUTER;
                arg = (Object[]) Array.newInstance(arg.getClass(), arrayLength);
@@ -629,12 +536,12 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             if (shouldBreak)
                break OUTER;
          } else {
-            if (position + 1 == getInvokableParameters(invocation.getInvokable()).size() && entry.getType().isArray())// TODO:
-                                                                                                              // &&
-                                                                                                              // invocation.getInvokable().isVarArgs())
+            if (position + 1 == parameterCount && entry.isArray)// TODO:
+                                                                // &&
+                                                                // invocation.getInvokable().isVarArgs())
                continue OUTER;
 
-            if (entry.isAnnotationPresent(Nullable.class)) {
+            if (entry.nullable) {
                continue OUTER;
             }
             checkNotNull(arg, invocation.getInvokable().getName() + " parameter " + (position + 1));
@@ -643,24 +550,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return request;
    }
 
-   private static final LoadingCache<Invokable<?, ?>, Set<Integer>> invokableToIndexesOfOptions = CacheBuilder
-         .newBuilder().build(new CacheLoader<Invokable<?, ?>, Set<Integer>>() {
-            @Override
-            public Set<Integer> load(Invokable<?, ?> invokable) {
-               Builder<Integer> toReturn = ImmutableSet.builder();
-               for (Parameter param : getInvokableParameters(invokable)) {
-                  Class<?> type = param.getType().getRawType();
-                  if (HttpRequestOptions.class.isAssignableFrom(type)
-                        || HttpRequestOptions[].class.isAssignableFrom(type))
-                     toReturn.add(param.hashCode());
-               }
-               return toReturn.build();
-            }
-         });
-
-   private Set<HttpRequestOptions> findOptionsIn(Invocation invocation) {
+   private Set<HttpRequestOptions> findOptionsIn(RequestTemplate template, Invocation invocation) {
       ImmutableSet.Builder<HttpRequestOptions> result = ImmutableSet.builder();
-      for (int index : invokableToIndexesOfOptions.getUnchecked(invocation.getInvokable())) {
+      for (int index : template.getOptionsPositions()) {
          if (invocation.getArgs().size() >= index + 1) {// accommodate
                                                         // varinvocation.getArgs()
             if (invocation.getArgs().get(index) instanceof Object[]) {
@@ -681,16 +573,20 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return result.build();
    }
 
-   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, RequestTemplate template,
+         Invocation invocation) {
       Multimap<String, String> headers = LinkedHashMultimap.create();
-      addHeaderIfAnnotationPresentOnMethod(headers, invocation, tokenValues);
-      for (Parameter headerParam : parametersWithAnnotation(invocation.getInvokable(), HeaderParam.class)) {
-         Annotation key = headerParam.getAnnotation(HeaderParam.class);
-         String value = invocation.getArgs().get(headerParam.hashCode()).toString();
+      KeyValues headerDefaults = template.getHeaders();
+      for (int i = 0; i < headerDefaults.size(); i++) {
+         headers.put(headerDefaults.keys[i], replaceTokens(headerDefaults.values[i], tokenValues));
+      }
+      for (NamedParam headerParam : template.getHeaderParamArgs()) {
+         String value = invocation.getArgs().get(headerParam.position).toString();
          value = replaceTokens(value, tokenValues);
-         headers.put(((HeaderParam) key).value(), value);
+         headers.put(headerParam.name, value);
       }
-      addProducesIfPresentOnTypeOrMethod(headers, invocation);
+      if (template.getProduces().isPresent())
+         headers.replaceValues(CONTENT_TYPE, template.getProduces().get());
       addConsumesIfPresentOnTypeOrMethod(headers, invocation);
       return headers;
    }
@@ -701,126 +597,74 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          headers.replaceValues(ACCEPT, accept);
    }
 
-   private void addProducesIfPresentOnTypeOrMethod(Multimap<String, String> headers, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-   }
-
-   private void addHeaderIfAnnotationPresentOnMethod(Multimap<String, String> headers, Invocation invocation,
+   private static List<Part> getParts(RequestTemplate template, Invocation invocation,
          Multimap<String, ?> tokenValues) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-   }
-
-   private static void addHeader(Multimap<String, String> headers, Headers header, Multimap<String, ?> tokenValues) {
-      for (int i = 0; i < header.keys().length; i++) {
-         String value = header.values()[i];
-         value = replaceTokens(value, tokenValues);
-         headers.put(header.keys()[i], value);
-      }
-   }
-
-   private static List<Part> getParts(Invocation invocation, Multimap<String, ?> tokenValues) {
       ImmutableList.Builder<Part> parts = ImmutableList.<Part> builder();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PartParam.class)) {
-         PartParam partParam = param.getAnnotation(PartParam.class);
+      for (PartSpec partParam : template.getParts()) {
          PartOptions options = new PartOptions();
-         if (!PartParam.NO_CONTENT_TYPE.equals(partParam.contentType()))
-            options.contentType(partParam.contentType());
-         if (!PartParam.NO_FILENAME.equals(partParam.filename()))
-            options.filename(replaceTokens(partParam.filename(), tokenValues));
-         Object arg = invocation.getArgs().get(param.hashCode());
-         checkNotNull(arg, partParam.name());
-         Part part = Part.create(partParam.name(), newPayload(arg), options);
+         if (partParam.contentType != null)
+            options.contentType(partParam.contentType);
+         if (partParam.filename != null)
+            options.filename(replaceTokens(partParam.filename, tokenValues));
+         Object arg = invocation.getArgs().get(partParam.position);
+         checkNotNull(arg, partParam.name);
+         Part part = Part.create(partParam.name, newPayload(arg), options);
          parts.add(part);
       }
       return parts.build();
    }
 
-   private Multimap<String, Object> getPathParamKeyValues(Invocation invocation) {
-      Multimap<String, Object> pathParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PathParam.class)) {
-         PathParam pathParam = param.getAnnotation(PathParam.class);
-         String paramKey = pathParam.value();
-         Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
-               paramKey);
+   private Multimap<String, Object> getParamKeyValues(List<NamedParam> params, RequestTemplate template,
+         Invocation invocation) {
+      Multimap<String, Object> paramValues = LinkedHashMultimap.create();
+      for (NamedParam param : params) {
+         Optional<?> paramValue = getParamValue(template, invocation, param);
          if (paramValue.isPresent())
-            pathParamValues.put(paramKey, paramValue.get().toString());
+            paramValues.put(param.name, paramValue.get().toString());
       }
-      return pathParamValues;
+      return paramValues;
    }
 
-   private Optional<?> getParamValue(Invocation invocation, @Nullable ParamParser extractor, int argIndex,
-         String paramKey) {
-      Object arg = invocation.getArgs().get(argIndex);
-      if (extractor != null && checkPresentOrNullable(invocation, paramKey, argIndex, arg)) {
+   private Optional<?> getParamValue(RequestTemplate template, Invocation invocation, NamedParam param) {
+      Object arg = invocation.getArgs().get(param.position);
+      if (param.parser != null && checkPresentOrNullable(template, invocation, param.name, param.position, arg)) {
          // ParamParsers can deal with nullable parameters
-         arg = injector.getInstance(extractor.value()).apply(arg);
+         arg = injector.getInstance(param.parser).apply(arg);
       }
-      checkPresentOrNullable(invocation, paramKey, argIndex, arg);
+      checkPresentOrNullable(template, invocation, param.name, param.position, arg);
       return Optional.fromNullable(arg);
    }
 
-   private boolean checkPresentOrNullable(Invocation invocation, String paramKey, int argIndex, Object arg) {
-      if (arg == null && !getInvokableParameters(invocation.getInvokable()).get(argIndex).isAnnotationPresent(Nullable.class))
+   private static boolean checkPresentOrNullable(RequestTemplate template, Invocation invocation, String paramKey,
+         int argIndex, Object arg) {
+      if (arg == null && !template.isNullable(argIndex))
          throw new NullPointerException(format("param{%s} for invocation %s.%s", paramKey, invocation.getInvokable()
                .getOwnerType().getRawType().getSimpleName(), invocation.getInvokable().getName()));
       return true;
    }
 
-   private Multimap<String, Object> getFormParamKeyValues(Invocation invocation) {
-      Multimap<String, Object> formParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), FormParam.class)) {
-         FormParam formParam = param.getAnnotation(FormParam.class);
-         String paramKey = formParam.value();
-         Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
-               paramKey);
-         if (paramValue.isPresent())
-            formParamValues.put(paramKey, paramValue.get().toString());
-      }
-      return formParamValues;
-   }
-
-   private Multimap<String, Object> getQueryParamKeyValues(Invocation invocation) {
+   private Multimap<String, Object> getQueryParamKeyValues(RequestTemplate template, Invocation invocation) {
       Multimap<String, Object> queryParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), QueryParam.class)) {
-         QueryParam queryParam = param.getAnnotation(QueryParam.class);
-         String paramKey = queryParam.value();
-         Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
-               paramKey);
+      for (NamedParam param : template.getQueryParamArgs()) {
+         Optional<?> paramValue = getParamValue(template, invocation, param);
          if (paramValue.isPresent())
             if (paramValue.get() instanceof Iterable) {
                @SuppressWarnings("unchecked")
                Iterable<String> iterableStrings = transform(Iterable.class.cast(paramValue.get()), toStringFunction());
-               queryParamValues.putAll(paramKey, iterableStrings);
+               queryParamValues.putAll(param.name, iterableStrings);
             } else {
-               queryParamValues.put(paramKey, paramValue.get().toString());
+               queryParamValues.put(param.name, paramValue.get().toString());
             }
       }
       return queryParamValues;
    }
 
-   private Map<String, Object> buildPayloadParams(Invocation invocation) {
+   private Map<String, Object> buildPayloadParams(RequestTemplate template, Invocation invocation) {
       Map<String, Object> payloadParamValues = Maps.newLinkedHashMap();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PayloadParam.class)) {
-         PayloadParam payloadParam = param.getAnnotation(PayloadParam.class);
-         String paramKey = payloadParam.value();
-         Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
-               paramKey);
+      for (NamedParam param : template.getPayloadParamArgs()) {
+         Optional<?> paramValue = getParamValue(template, invocation, param);
          if (paramValue.isPresent())
-            payloadParamValues.put(paramKey, paramValue.get());
+            payloadParamValues.put(param.name, paramValue.get());
       }
       return payloadParamValues;
    }
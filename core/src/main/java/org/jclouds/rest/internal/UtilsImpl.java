@@ -23,6 +23,7 @@ import javax.inject.Inject;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.date.DateService;
 import org.jclouds.domain.Credentials;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.json.Json;
 import org.jclouds.logging.Logger.LoggerFactory;
 import org.jclouds.rest.HttpClient;
@@ -46,10 +47,12 @@ public class UtilsImpl implements Utils {
    private final LoggerFactory loggerFactory;
    private Injector injector;
    private XMLParser xml;
+   private final Instrumentation instrumentation;
 
    @Inject
    protected UtilsImpl(Injector injector, Json json, XMLParser xml, HttpClient simpleClient, Crypto encryption,
-         DateService date, EventBus eventBus, Map<String, Credentials> credentialStore, LoggerFactory loggerFactory) {
+         DateService date, EventBus eventBus, Map<String, Credentials> credentialStore, LoggerFactory loggerFactory,
+         Instrumentation instrumentation) {
       this.injector = injector;
       this.json = json;
       this.simpleClient = simpleClient;
@@ -59,6 +62,7 @@ public class UtilsImpl implements Utils {
       this.credentialStore = credentialStore;
       this.loggerFactory = loggerFactory;
       this.xml = xml;
+      this.instrumentation = instrumentation;
    }
 
    @Override
@@ -107,4 +111,10 @@ public class UtilsImpl implements Utils {
       return credentialStore;
    }
 
+   @Override
+   @Beta
+   public Instrumentation instrumentation() {
+      return instrumentation;
+   }
+
 }
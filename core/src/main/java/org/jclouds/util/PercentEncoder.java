@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Percent-encodes strings the way {@link Strings2#urlEncode(String, char...)} always did, as
+ * {@link java.net.URLEncoder} with {@code UTF-8} followed by {@code %20} for spaces and {@code %2A} for {@code *}, but
+ * from a precomputed table of the characters that are left as is, and without intermediate strings.
+ * <p/>
+ * Input that already contains a percent-encoded octet is returned unchanged, and input that needs no encoding is
+ * returned without copying. Instances are immutable and thread safe, and {@link #skipping(char...)} returns the same
+ * one for the same characters skipped, so encoding does not rebuild the table each call.
+ */
+@Beta
+public final class PercentEncoder {
+
+   private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+   /**
+    * the longest a char encodes to: three octets. A surrogate pair encodes to four octets, six chars per char.
+    */
+   private static final int MAX_ENCODED_LENGTH = 9;
+
+   private static final int SURROGATE_PAIR_ENCODED_LENGTH = 12;
+
+   private static final int BUFFER_LENGTH = 1024;
+
+   /**
+    * scratch space for {@link #encode(String)} and {@link #appendEncoded(StringBuilder, String)}, so that encoding
+    * only allocates the result. Input that could encode to more than this is encoded a chunk at a time.
+    */
+   private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+      @Override
+      protected char[] initialValue() {
+         return new char[BUFFER_LENGTH];
+      }
+   };
+
+   /**
+    * the most input encoded into the buffer at once
+    */
+   private static final int CHUNK_LENGTH = BUFFER_LENGTH / MAX_ENCODED_LENGTH;
+
+   private static final PercentEncoder NO_SKIPS = new PercentEncoder(new char[0]);
+
+   /**
+    * encoders by the characters they skip, in the order given. Skip sets are almost always constants, so this stays
+    * small; the bound only guards against callers that build them from input.
+    */
+   private static final LoadingCache<String, PercentEncoder> ENCODERS = CacheBuilder.newBuilder().maximumSize(256)
+         .build(new CacheLoader<String, PercentEncoder>() {
+            @Override
+            public PercentEncoder load(String skipEncode) {
+               return new PercentEncoder(skipEncode.toCharArray());
+            }
+         });
+
+   /**
+    * @param skipEncode
+    *           characters to leave as is; as before, spaces and {@code *} are always encoded
+    */
+   public static PercentEncoder skipping(char... skipEncode) {
+      return skipEncode.length == 0 ? NO_SKIPS : ENCODERS.getUnchecked(String.valueOf(skipEncode));
+   }
+
+   public static PercentEncoder skipping(Iterable<Character> skipEncode) {
+      StringBuilder skips = new StringBuilder();
+      for (Character c : checkNotNull(skipEncode, "skipEncode"))
+         skips.append(c.charValue());
+      return skips.length() == 0 ? NO_SKIPS : ENCODERS.getUnchecked(skips.toString());
+   }
+
+   private final boolean[] safe = new boolean[128];
+   private final String nonAsciiSkips;
+
+   private PercentEncoder(char[] skipEncode) {
+      for (char c = 'a'; c <= 'z'; c++)
+         safe[c] = true;
+      for (char c = 'A'; c <= 'Z'; c++)
+         safe[c] = true;
+      for (char c = '0'; c <= '9'; c++)
+         safe[c] = true;
+      safe['.'] = safe['-'] = safe['_'] = true;
+      StringBuilder nonAscii = new StringBuilder();
+      for (char c : skipEncode) {
+         // URLEncoder turns spaces into + and leaves * as is, so the %20 and %2A fixups always won over skipping them
+         if (c == ' ' || c == '*' || isSurrogate(c))
+            continue;
+         if (c < 128)
+            safe[c] = true;
+         else
+            nonAscii.append(c);
+      }
+      this.nonAsciiSkips = nonAscii.toString();
+   }
+
+   /**
+    * @return the encoded input, or the input itself if it needs no encoding or is already encoded
+    */
+   public String encode(String in) {
+      int first = firstToEncode(in);
+      if (first == in.length() || Strings2.isUrlEncoded(in))
+         return in;
+      char[] buffer = BUFFER.get();
+      if (first + (in.length() - first) * MAX_ENCODED_LENGTH <= buffer.length) {
+         in.getChars(0, first, buffer, 0);
+         return new String(buffer, 0, encode(in, first, in.length(), buffer, first));
+      }
+      return appendEncoded(new StringBuilder(first + (in.length() - first) * 3), in, first, buffer).toString();
+   }
+
+   /**
+    * Appends the encoded input to the builder, or the input itself if it is already encoded.
+    * 
+    * @return the builder
+    */
+   public StringBuilder appendEncoded(StringBuilder out, String in) {
+      int first = firstToEncode(in);
+      if (first == in.length() || Strings2.isUrlEncoded(in))
+         return out.append(in);
+      return appendEncoded(out, in, first, BUFFER.get());
+   }
+
+   /**
+    * appends the input to the builder, encoding from the first char that needs it a chunk at a time
+    */
+   private StringBuilder appendEncoded(StringBuilder out, String in, int first, char[] buffer) {
+      out.append(in, 0, first);
+      for (int from = first; from < in.length();) {
+         int to = Math.min(from + CHUNK_LENGTH, in.length());
+         // leave a high surrogate to the next chunk, so that it is encoded together with its low surrogate
+         if (to < in.length() && Character.isHighSurrogate(in.charAt(to - 1)))
+            to--;
+         out.append(buffer, 0, encode(in, from, to, buffer, 0));
+         from = to;
+      }
+      return out;
+   }
+
+   private int firstToEncode(String in) {
+      for (int i = 0; i < in.length(); i++) {
+         if (!isSafe(in.charAt(i)))
+            return i;
+      }
+      return in.length();
+   }
+
+   private boolean isSafe(char c) {
+      return c < 128 ? safe[c] : nonAsciiSkips.length() > 0 && nonAsciiSkips.indexOf(c) != -1;
+   }
+
+   /**
+    * writes the chars of the input from {@code from} to {@code to} to the buffer, encoding those that need it
+    * 
+    * @return the position in the buffer after the last char written
+    */
+   private int encode(String in, int from, int to, char[] out, int position) {
+      for (int i = from; i < to; i++) {
+         char c = in.charAt(i);
+         if (isSafe(c)) {
+            out[position++] = c;
+         } else {
+            int length = encode(in, i, to, c, out, position);
+            if (length == SURROGATE_PAIR_ENCODED_LENGTH) // consumed a surrogate pair
+               i++;
+            position += length;
+         }
+      }
+      return position;
+   }
+
+   /**
+    * writes the percent-encoded {@code UTF-8} octets of the char at {@code index}, including its low surrogate if it
+    * starts a pair that ends before {@code end}. Unpaired surrogates become {@code ?}, like
+    * {@link String#getBytes(java.nio.charset.Charset)} does.
+    * 
+    * @return the number of chars written
+    */
+   private static int encode(String in, int index, int end, char c, char[] out, int position) {
+      if (c < 0x80)
+         return octet(c, out, position);
+      if (c < 0x800)
+         return octet(0xC0 | (c >> 6), out, position) + octet(0x80 | (c & 0x3F), out, position + 3);
+      if (Character.isHighSurrogate(c) && index + 1 < end && Character.isLowSurrogate(in.charAt(index + 1))) {
+         int codePoint = Character.toCodePoint(c, in.charAt(index + 1));
+         octet(0xF0 | (codePoint >> 18), out, position);
+         octet(0x80 | ((codePoint >> 12) & 0x3F), out, position + 3);
+         octet(0x80 | ((codePoint >> 6) & 0x3F), out, position + 6);
+         return octet(0x80 | (codePoint & 0x3F), out, position + 9) * 4;
+      }
+      if (isSurrogate(c))
+         return octet('?', out, position);
+      octet(0xE0 | (c >> 12), out, position);
+      octet(0x80 | ((c >> 6) & 0x3F), out, position + 3);
+      return octet(0x80 | (c & 0x3F), out, position + 6) * 3;
+   }
+
+   private static int octet(int b, char[] out, int position) {
+      out[position] = '%';
+      out[position + 1] = HEX[(b >> 4) & 0xF];
+      out[position + 2] = HEX[b & 0xF];
+      return 3;
+   }
+
+   private static boolean isSurrogate(char c) {
+      return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+   }
+}
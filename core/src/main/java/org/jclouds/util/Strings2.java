@@ -26,22 +26,16 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.net.URLEncoder;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.jclouds.javax.annotation.Nullable;
 
 import com.google.common.base.Charsets;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Multimap;
 import com.google.common.io.CharStreams;
-import com.google.common.primitives.Chars;
 
 public class Strings2 {
 
@@ -49,39 +43,13 @@ public class Strings2 {
     * Web browsers do not always handle '+' characters well, use the well-supported '%20' instead.
     */
    public static String urlEncode(String in, char... skipEncode) {
-      return urlEncode(in, Chars.asList(skipEncode));
+      return PercentEncoder.skipping(skipEncode).encode(in);
    }
 
    public static String urlEncode(String in, Iterable<Character> skipEncode) {
-      if (isUrlEncoded(in))
-         return in;
-      try {
-         String returnVal = URLEncoder.encode(in, "UTF-8");
-         returnVal = returnVal.replace("+", "%20");
-         returnVal = returnVal.replace("*", "%2A");
-         for (char c : skipEncode) {
-            returnVal = returnVal.replace(CHAR_TO_ENCODED.get(c), c + "");
-         }
-         return returnVal;
-      } catch (UnsupportedEncodingException e) {
-         throw new IllegalStateException("Bad encoding on input: " + in, e);
-      } catch (ExecutionException e) {
-         throw new IllegalStateException("error creating pattern: " + in, e);
-      }
+      return PercentEncoder.skipping(skipEncode).encode(in);
    }
-   
-   private static final LoadingCache<Character, String> CHAR_TO_ENCODED = CacheBuilder.newBuilder()
-         .<Character, String> build(new CacheLoader<Character, String>() {
-            @Override
-            public String load(Character plain) throws ExecutionException {
-               try {
-                  return URLEncoder.encode(plain + "", "UTF-8");
-               } catch (UnsupportedEncodingException e) {
-                  throw new ExecutionException("Bad encoding on input: " + plain, e);
-               }
-            }
-         });
-   
+
    private static final String IP_ADDRESS = "(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})";
    private static final String SLASH_FORMAT = IP_ADDRESS + "/(\\d{1,3})";
    private static final Pattern ADDRESS_PATTERN = Pattern.compile(IP_ADDRESS);
@@ -91,10 +59,31 @@ public class Strings2 {
       return CIDR_PATTERN.matcher(in).matches();
    }
       
-   private static final Pattern URL_ENCODED_PATTERN = Pattern.compile(".*%[a-fA-F0-9][a-fA-F0-9].*");
-
+   /**
+    * @return true if the input contains a percent-encoded octet. As when this matched
+    *         {@code .*%[a-fA-F0-9][a-fA-F0-9].*}, input spanning several lines is never considered encoded.
+    */
    public static boolean isUrlEncoded(String in) {
-      return URL_ENCODED_PATTERN.matcher(in).matches();
+      boolean encoded = false;
+      for (int i = 0; i < in.length(); i++) {
+         switch (in.charAt(i)) {
+         case '%':
+            encoded |= i + 2 < in.length() && isHexDigit(in.charAt(i + 1)) && isHexDigit(in.charAt(i + 2));
+            break;
+         case '\n':
+         case '\r':
+         case '\u0085':
+         case '\u2028':
+         case '\u2029':
+            return false;
+         default:
+         }
+      }
+      return encoded;
+   }
+
+   private static boolean isHexDigit(char c) {
+      return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
    }
 
    /**
@@ -19,19 +19,32 @@ package org.jclouds;
 import static com.google.common.base.Suppliers.ofInstance;
 import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
+import javax.xml.parsers.SAXParserFactory;
+
+import org.jclouds.apis.JcloudsTestYetAnotherComputeApiMetadata;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.domain.Credentials;
 import org.jclouds.events.config.EventBusModule;
 import org.jclouds.http.IntegrationTestClient;
 import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
 import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.jclouds.lifecycle.Closer;
 import org.jclouds.location.Provider;
 import org.jclouds.logging.config.LoggingModule;
 import org.jclouds.logging.config.NullLoggingModule;
@@ -41,13 +54,20 @@ import org.jclouds.rest.annotations.ApiVersion;
 import org.jclouds.rest.config.CredentialStoreModule;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.gson.Gson;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 
 /**
  * Tests behavior of modules configured in ContextBuilder
@@ -65,6 +85,28 @@ public class ContextBuilderTest {
       return ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"));
    }
 
+   @Test
+   public void testNewBuilderFindsIndexedApiWithoutScanningProviders() throws IOException {
+      File dir = Files.createTempDir();
+      ClassLoader original = Thread.currentThread().getContextClassLoader();
+      try {
+         // a provider that cannot be loaded makes any ServiceLoader scan fail
+         File services = new File(dir, "META-INF/services/" + ProviderMetadata.class.getName());
+         Files.createParentDirs(services);
+         Files.write("org.jclouds.providers.MissingProviderMetadata\n", services, Charsets.UTF_8);
+         Thread.currentThread().setContextClassLoader(
+               new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader()));
+
+         ContextBuilder builder = ContextBuilder.newBuilder("test-yet-another-compute-api");
+         assertEquals(builder.getApiMetadata(), new JcloudsTestYetAnotherComputeApiMetadata());
+      } finally {
+         Thread.currentThread().setContextClassLoader(original);
+         for (File file : Files.fileTreeTraverser().postOrderTraversal(dir)) {
+            file.delete();
+         }
+      }
+   }
+
    @Test
    public void testVariablesReplaceOnEndpoint() {
       ContextBuilder withVariablesToReplace = testContextBuilder().endpoint("http://${jclouds.identity}.service.com")
@@ -228,4 +270,59 @@ public class ContextBuilderTest {
       builder.modules(Arrays.asList(module1, module2));
 
    }
+
+   @Test
+   public void testSharedParentSharesCredentialIndependentSingletons() throws IOException {
+      Injector parent = testContextBuilder().credentials("parent", "secret").buildInjector();
+      Injector child = testContextBuilder().credentials("child", "secret").sharedParent(parent).buildInjector();
+
+      Key<Supplier<Credentials>> creds = Key.get(new TypeLiteral<Supplier<Credentials>>() {
+      }, Provider.class);
+      assertEquals(child.getInstance(creds).get(), new Credentials("child", "secret"));
+      assertSame(child.getInstance(Gson.class), parent.getInstance(Gson.class));
+      assertSame(child.getInstance(SAXParserFactory.class), parent.getInstance(SAXParserFactory.class));
+
+      Key<ListeningExecutorService> userExecutor = Key.get(ListeningExecutorService.class,
+            Names.named(Constants.PROPERTY_USER_THREADS));
+      child.getInstance(Closer.class).close();
+      assertFalse(parent.getInstance(userExecutor).isShutdown());
+      assertFalse(child.getInstance(userExecutor).isShutdown());
+
+      parent.getInstance(Closer.class).close();
+      assertTrue(child.getInstance(userExecutor).isShutdown());
+   }
+
+   static class OptionalCredentials {
+      @Inject(optional = true)
+      @Provider
+      Supplier<Credentials> creds;
+   }
+
+   @Test
+   public void testSharedParentLeavesJustInTimeBindingsToEachChild() throws IOException {
+      Injector parent = testContextBuilder().credentials("parent", "secret").buildInjector();
+      Injector child1 = testContextBuilder().credentials("child1", "secret").sharedParent(parent).buildInjector();
+      Injector child2 = testContextBuilder().credentials("child2", "secret").sharedParent(parent).buildInjector();
+
+      assertEquals(child1.getInstance(OptionalCredentials.class).creds.get().identity, "child1");
+      assertEquals(child2.getInstance(OptionalCredentials.class).creds.get().identity, "child2");
+      assertSame(child1.getParent(), child2.getParent());
+      assertNull(child1.getParent().getExistingBinding(Key.get(OptionalCredentials.class)));
+      parent.getInstance(Closer.class).close();
+   }
+
+   interface OtherApi extends Closeable {
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class,
+         expectedExceptionsMessageRegExp = "the shared parent was built for .*")
+   public void testSharedParentBuiltForAnotherApiIsRejected() throws IOException {
+      Injector parent = testContextBuilder().credentials("parent", "secret").buildInjector();
+      try {
+         ContextBuilder.newBuilder(forApiOnEndpoint(OtherApi.class, "http://localhost")).credentials("child", "secret")
+               .sharedParent(parent).buildInjector();
+      } finally {
+         parent.getInstance(Closer.class).close();
+      }
+   }
 }
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+@Test(groups = "unit", testName = "RegionFanOutTest")
+public class RegionFanOutTest {
+
+   private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+   private final List<String> regions = ImmutableList.of("us-east-1", "us-west-1", "eu-west-1", "ap-southeast-1");
+
+   @AfterClass
+   void shutdown() {
+      executor.shutdownNow();
+   }
+
+   private RegionFanOut fanOut(int parallelism, long timeoutMillis) {
+      RegionFanOut fanOut = new RegionFanOut(executor);
+      fanOut.parallelism = parallelism;
+      fanOut.timeoutMillis = timeoutMillis;
+      return fanOut;
+   }
+
+   public void testCallsRegionsConcurrently() {
+      final CountDownLatch allStarted = new CountDownLatch(regions.size());
+      Function<String, String> perRegion = new Function<String, String>() {
+         @Override
+         public String apply(String region) {
+            allStarted.countDown();
+            // only returns in time if every region was called at once
+            assertTrue(Uninterruptibles.awaitUninterruptibly(allStarted, 5, TimeUnit.SECONDS));
+            return region.toUpperCase();
+         }
+      };
+      RegionFanOut.Results<String> results = fanOut(10, 0).apply(regions, perRegion);
+      assertEquals(results.getErrors().size(), 0);
+      assertEquals(ImmutableList.copyOf(results.getValues().keySet()), regions);
+      assertEquals(results.getValues().get("eu-west-1"), "EU-WEST-1");
+   }
+
+   public void testParallelismLimitsConcurrentCalls() {
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      Function<String, String> perRegion = new Function<String, String>() {
+         @Override
+         public String apply(String region) {
+            int now = running.incrementAndGet();
+            synchronized (maxRunning) {
+               maxRunning.set(Math.max(now, maxRunning.get()));
+            }
+            Uninterruptibles.sleepUninterruptibly(50, TimeUnit.MILLISECONDS);
+            running.decrementAndGet();
+            return region;
+         }
+      };
+      RegionFanOut.Results<String> results = fanOut(2, 0).apply(regions, perRegion);
+      assertEquals(ImmutableList.copyOf(results.getValues().keySet()), regions);
+      assertTrue(maxRunning.get() <= 2, "ran " + maxRunning + " regions at once");
+   }
+
+   public void testParallelismOfOneRunsInCallingThread() {
+      final Thread caller = Thread.currentThread();
+      Function<String, Boolean> perRegion = new Function<String, Boolean>() {
+         @Override
+         public Boolean apply(String region) {
+            return Thread.currentThread() == caller;
+         }
+      };
+      RegionFanOut.Results<Boolean> results = fanOut(1, 0).apply(regions, perRegion);
+      assertEquals(ImmutableSet.copyOf(results.getValues().values()), ImmutableSet.of(true));
+   }
+
+   public void testFailedAndSlowRegionsAreReportedNextToPartialResults() {
+      Function<String, String> perRegion = new Function<String, String>() {
+         @Override
+         public String apply(String region) {
+            if (region.equals("us-west-1"))
+               throw new IllegalStateException("down");
+            if (region.equals("ap-southeast-1"))
+               Uninterruptibles.sleepUninterruptibly(5, TimeUnit.SECONDS);
+            return region;
+         }
+      };
+      RegionFanOut.Results<String> results = fanOut(10, 200).apply(regions, perRegion);
+      assertEquals(ImmutableList.copyOf(results.getValues().keySet()), ImmutableList.of("us-east-1", "eu-west-1"));
+      assertEquals(ImmutableList.copyOf(results.getErrors().keySet()),
+            ImmutableList.of("us-west-1", "ap-southeast-1"));
+      assertTrue(results.getErrors().get("us-west-1") instanceof IllegalStateException);
+      assertTrue(results.getErrors().get("ap-southeast-1") instanceof TimeoutException);
+   }
+
+   public void testTimeoutDoesNotHoldAThreadPerRegion() {
+      final AtomicInteger calls = new AtomicInteger();
+      Function<String, String> perRegion = new Function<String, String>() {
+         @Override
+         public String apply(String region) {
+            calls.incrementAndGet();
+            Uninterruptibles.sleepUninterruptibly(20, TimeUnit.MILLISECONDS);
+            return region;
+         }
+      };
+      ListeningExecutorService single = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      try {
+         RegionFanOut fanOut = new RegionFanOut(single);
+         fanOut.parallelism = 2;
+         fanOut.timeoutMillis = 5000;
+         // with a time limiter on the same executor, each call would wait for a thread that its caller holds
+         RegionFanOut.Results<String> results = fanOut.apply(regions, perRegion);
+         assertEquals(ImmutableList.copyOf(results.getValues().keySet()), regions);
+         assertEquals(calls.get(), regions.size());
+      } finally {
+         single.shutdownNow();
+      }
+   }
+
+   public void testConcat() {
+      Function<String, Iterable<String>> perRegion = new Function<String, Iterable<String>>() {
+         @Override
+         public Iterable<String> apply(String region) {
+            return ImmutableList.of(region + "/a");
+         }
+      };
+      assertEquals(ImmutableList.copyOf(fanOut(10, 0).concat(regions.subList(0, 2), perRegion)),
+            ImmutableList.of("us-east-1/a", "us-west-1/a"));
+   }
+
+   public void testConcatReportsPartialResultsWithErrors() {
+      Function<String, Iterable<String>> perRegion = new Function<String, Iterable<String>>() {
+         @Override
+         public Iterable<String> apply(String region) {
+            if (region.startsWith("us-"))
+               throw new IllegalStateException("down");
+            return ImmutableList.of(region + "/a", region + "/b");
+         }
+      };
+      try {
+         fanOut(10, 0).concat(regions, perRegion);
+         fail("expected TransformParallelException");
+      } catch (TransformParallelException e) {
+         assertEquals(e.getSuccessfulToValue().keySet(), ImmutableSet.of("eu-west-1", "ap-southeast-1"));
+         assertEquals(Futures.getUnchecked(e.getSuccessfulToValue().get("eu-west-1")),
+               ImmutableList.of("eu-west-1/a", "eu-west-1/b"));
+         assertEquals(e.getFromToException().keySet(), ImmutableSet.of("us-east-1", "us-west-1"));
+         assertTrue(e.getCause() instanceof IllegalStateException);
+      }
+   }
+
+   public void testConcatPropagatesAuthorizationExceptionWhenAllRegionsFail() {
+      Function<String, Iterable<String>> perRegion = new Function<String, Iterable<String>>() {
+         @Override
+         public Iterable<String> apply(String region) {
+            throw new AuthorizationException("denied in " + region);
+         }
+      };
+      try {
+         fanOut(10, 0).concat(regions, perRegion);
+         fail("expected AuthorizationException");
+      } catch (AuthorizationException e) {
+         assertTrue(e.getMessage().startsWith("denied in"));
+      }
+   }
+
+   public void testNoRegions() {
+      RegionFanOut.Results<String> results = fanOut(10, 0).apply(ImmutableList.<String> of(),
+            Functions.<String> identity()).throwIfAllFailed();
+      assertEquals(results.getValues().size(), 0);
+   }
+}
@@ -272,4 +272,43 @@ public class DateServiceTest extends PerformanceTest {
       executeMultiThreadedPerformanceTest("testParseIso8601DatePerformanceInParallel", tasks);
    }
 
+   @Test
+   void testFormatRfc822DatePerformanceInParallel() throws Throwable {
+      List<Runnable> tasks = Lists.newArrayListWithCapacity(testData.length);
+      for (final TestData myData : testData) {
+         tasks.add(new Runnable() {
+            public void run() {
+               dateService.rfc822DateFormat(myData.date);
+            }
+         });
+      }
+      executeMultiThreadedPerformanceTest("testFormatRfc822DatePerformanceInParallel", tasks);
+   }
+
+   @Test
+   void testParseRfc822DateCorrectnessInParallel() throws Throwable {
+      List<Runnable> tasks = Lists.newArrayListWithCapacity(testData.length);
+      for (final TestData myData : testData) {
+         tasks.add(new Runnable() {
+            public void run() {
+               assertEquals(dateService.rfc822DateParse(myData.rfc822DateString), myData.date);
+            }
+         });
+      }
+      executeMultiThreadedCorrectnessTest(tasks);
+   }
+
+   @Test
+   void testParseRfc822DatePerformanceInParallel() throws Throwable {
+      List<Runnable> tasks = Lists.newArrayListWithCapacity(testData.length);
+      for (final TestData myData : testData) {
+         tasks.add(new Runnable() {
+            public void run() {
+               dateService.rfc822DateParse(myData.rfc822DateString);
+            }
+         });
+      }
+      executeMultiThreadedPerformanceTest("testParseRfc822DatePerformanceInParallel", tasks);
+   }
+
 }
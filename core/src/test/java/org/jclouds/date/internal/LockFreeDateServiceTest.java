@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.date.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.Date;
+
+import org.jclouds.date.DateService;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "LockFreeDateServiceTest")
+public class LockFreeDateServiceTest {
+   private final DateService lockFree = new LockFreeDateService();
+   private final DateService reference = new SimpleDateFormatDateService();
+
+   private static final long[] INSTANTS = { 0l, 1236823207000l, 1306339941656l, 951782400000l, 4107542399999l,
+         -2208988800000l, 253402300799999l };
+
+   public void testFormatsMatchSimpleDateFormat() {
+      for (long instant : INSTANTS) {
+         Date date = new Date(instant);
+         assertEquals(lockFree.rfc822DateFormat(date), reference.rfc822DateFormat(date));
+         assertEquals(lockFree.cDateFormat(date), reference.cDateFormat(date));
+         assertEquals(lockFree.iso8601DateFormat(date), reference.iso8601DateFormat(date));
+         assertEquals(lockFree.iso8601SecondsDateFormat(date), reference.iso8601SecondsDateFormat(date));
+      }
+   }
+
+   public void testParsesRoundTrip() {
+      for (long instant : INSTANTS) {
+         Date date = new Date(instant);
+         Date seconds = new Date(instant - instant % 1000);
+         assertEquals(lockFree.rfc822DateParse(reference.rfc822DateFormat(date)), seconds);
+         assertEquals(lockFree.cDateParse(reference.cDateFormat(date)), seconds);
+         assertEquals(lockFree.iso8601DateParse(reference.iso8601DateFormat(date)), date);
+         assertEquals(lockFree.iso8601SecondsDateParse(reference.iso8601SecondsDateFormat(date)), seconds);
+      }
+   }
+
+   public void testIso8601Offsets() {
+      assertEquals(lockFree.iso8601DateParse("2011-05-25 16:12:21.656+0000").getTime(), 1306339941656l);
+      assertEquals(lockFree.iso8601DateParse("2011-05-25T21:42:21.656+05:30").getTime(), 1306339941656l);
+      assertEquals(lockFree.iso8601SecondsDateParse("2011-05-26T02:14:13-04:00").getTime(), 1306390453000l);
+      assertEquals(lockFree.iso8601SecondsDateParse("2009-03-12T06:00:07+0400").getTime(), 1236823207000l);
+   }
+
+   public void testNonCanonicalInputFallsBack() {
+      assertEquals(lockFree.iso8601DateParse("2011-11-07T11:19:13.38225Z"),
+            reference.iso8601DateParse("2011-11-07T11:19:13.38225Z"));
+      assertEquals(lockFree.iso8601SecondsDateParse("2012-11-26T17:32:31UTC+0000"),
+            reference.iso8601SecondsDateParse("2012-11-26T17:32:31UTC+0000"));
+      assertEquals(lockFree.iso8601DateOrSecondsDateParse("2009-03-12T02:00:07Z").getTime(), 1236823207000l);
+   }
+
+   public void testLenientRfc822MatchesSimpleDateFormat() {
+      assertEquals(lockFree.rfc822DateParse("Thu, 32 Mar 2009 02:00:07 GMT"),
+            reference.rfc822DateParse("Thu, 32 Mar 2009 02:00:07 GMT"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testIso8601GarbageIsRejected() {
+      lockFree.iso8601DateParse("-1");
+   }
+
+   public void testCurrentRfc822IsCachedWithinASecond() {
+      String first = lockFree.rfc822DateFormat();
+      String second = lockFree.rfc822DateFormat();
+      if (first.equals(second))
+         assertSame(first, second);
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import javax.inject.Provider;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests behavior of {@code ParseStax}
+ */
+// NOTE:without testName, this will not call @Before* and fail w/NPE during surefire
+@Test(groups = "unit", testName = "ParseStaxTest")
+public class ParseStaxTest extends BaseHandlerTest {
+
+   static final String LIST = "<ListResult><Name>bucket</Name><Contents><Key>a</Key></Contents>"
+         + "<Contents><Key>b</Key></Contents><Contents><Key>c</Key></Contents></ListResult>";
+
+   /** Reads the key of each {@code Contents} entry. */
+   static class KeyReader extends ParseStax.ElementReader<String> {
+      @Override
+      public boolean isElement(String parent, String localName) {
+         return "ListResult".equals(parent) && "Contents".equals(localName);
+      }
+
+      @Override
+      public String read(XMLStreamReader parser) throws XMLStreamException {
+         String key = null;
+         while (parser.nextTag() != XMLStreamReader.END_ELEMENT || !"Contents".equals(parser.getLocalName())) {
+            if (parser.isStartElement() && "Key".equals(parser.getLocalName()))
+               key = parser.getElementText();
+         }
+         return key;
+      }
+   }
+
+   static class Collect<T> implements ParseStax.Callback<T> {
+      final List<T> elements = Lists.newArrayList();
+      final int limit;
+
+      Collect(int limit) {
+         this.limit = limit;
+      }
+
+      @Override
+      public boolean onElement(T element) {
+         elements.add(element);
+         return elements.size() < limit;
+      }
+   }
+
+   public void testEntriesArePassedInDocumentOrder() {
+      Collect<String> keys = new Collect<String>(Integer.MAX_VALUE);
+      int count = streamFactory().create(new KeyReader(), keys).parse(stream(LIST));
+      assertEquals(count, 3);
+      assertEquals(keys.elements, ImmutableList.of("a", "b", "c"));
+   }
+
+   public void testCallbackStopsReading() {
+      Collect<String> keys = new Collect<String>(2);
+      assertEquals(streamFactory().create(new KeyReader(), keys).parse(stream(LIST)), 2);
+      assertEquals(keys.elements, ImmutableList.of("a", "b"));
+   }
+
+   public void testApplyReleasesThePayload() {
+      Collect<String> keys = new Collect<String>(Integer.MAX_VALUE);
+      HttpResponse response = HttpResponse.builder().statusCode(200).payload(stream(LIST)).build();
+      assertEquals(streamFactory().create(new KeyReader(), keys).apply(response), Integer.valueOf(3));
+      assertEquals(keys.elements, ImmutableList.of("a", "b", "c"));
+   }
+
+   public void testErrorsIncludeTheRequest() {
+      HttpRequest request = HttpRequest.builder().method("GET").endpoint("http://foohost").build();
+      HttpResponse response = HttpResponse.builder().statusCode(200).payload("<ListResult><Contents>").build();
+      try {
+         streamFactory().create(new KeyReader(), new Collect<String>(Integer.MAX_VALUE)).setContext(request)
+               .apply(response);
+         fail("expected an exception");
+      } catch (RuntimeException e) {
+         assertTrue(e.getMessage().startsWith("request: GET http://foohost HTTP/1.1; response: HTTP/1.1 200"),
+               e.getMessage());
+         assertTrue(e.getCause() instanceof XMLStreamException, e.toString());
+      }
+   }
+
+   /** A sax handler for a single entry, as {@link ParseSax} would report it. */
+   static class ItemHandler extends ParseSax.HandlerWithResult<String> {
+      private final StringBuilder result = new StringBuilder();
+      private final StringBuilder currentText = new StringBuilder();
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+         if (qName.equals("ns:item") && result.length() == 0)
+            result.append(attributes.getValue("id")).append('=');
+         currentText.setLength(0);
+      }
+
+      @Override
+      public void endElement(String uri, String localName, String qName) {
+         if (qName.equals("ns:name"))
+            result.append(currentText.toString().trim());
+      }
+
+      @Override
+      public void characters(char[] ch, int start, int length) {
+         currentText.append(ch, start, length);
+      }
+
+      @Override
+      public String getResult() {
+         return result.toString();
+      }
+   }
+
+   public void testSaxElementReaderReplaysEachEntryToANewHandler() {
+      String xml = "<ns:response xmlns:ns=\"urn:test\"><ns:set>"
+            + "<ns:item id=\"1\"><ns:name>a</ns:name><ns:set><ns:item id=\"x\"/></ns:set></ns:item>"
+            + "<ns:item id=\"2\"><ns:name><![CDATA[b&c]]></ns:name></ns:item>"
+            + "</ns:set></ns:response>";
+      Provider<ItemHandler> handlers = new Provider<ItemHandler>() {
+         public ItemHandler get() {
+            return new ItemHandler();
+         }
+      };
+      Collect<String> items = new Collect<String>(Integer.MAX_VALUE);
+      streamFactory().create(new SaxElementReader<String>("set", "item", handlers), items).parse(stream(xml));
+      assertEquals(items.elements, ImmutableList.of("1=a", "2=b&c"));
+   }
+
+   private ParseStax.Factory streamFactory() {
+      return injector.getInstance(ParseStax.Factory.class);
+   }
+
+   private static ByteArrayInputStream stream(String xml) {
+      return new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8));
+   }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+@Test(groups = "unit", testName = "XMLReaderPoolTest")
+public class XMLReaderPoolTest {
+
+   private final XMLReaderPool pool = new XMLReaderPool(SAXParserFactory.newInstance());
+
+   public void testReleasedReaderIsReused() throws Exception {
+      XMLReader reader = pool.acquire();
+      reader.parse(new InputSource(new StringReader("<a/>")));
+      pool.release(reader);
+      assertSame(pool.acquire(), reader);
+   }
+
+   public void testReaderInUseIsNotHandedOutAgain() {
+      XMLReader reader = pool.acquire();
+      assertNotSame(pool.acquire(), reader);
+      pool.release(reader);
+   }
+
+   public void testReleaseDropsTheHandler() {
+      XMLReader reader = pool.acquire();
+      DefaultHandler handler = new DefaultHandler();
+      reader.setContentHandler(handler);
+      pool.release(reader);
+      assertNotSame(pool.acquire().getContentHandler(), handler);
+   }
+
+   public void testReadersAreConfinedToTheirThread() throws Exception {
+      final XMLReader reader = pool.acquire();
+      pool.release(reader);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         assertNotSame(executor.submit(new Callable<XMLReader>() {
+            public XMLReader call() {
+               return pool.acquire();
+            }
+         }).get(), reader);
+      } finally {
+         executor.shutdownNow();
+      }
+      assertSame(pool.acquire(), reader);
+   }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.date.internal.DateServiceDateCodecFactory;
+import org.jclouds.date.internal.SimpleDateFormatDateService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.handlers.RetryBudgetTest.FakeTicker;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HttpHeaders;
+
+@Test(groups = "unit", testName = "AdaptiveRateLimiterTest")
+public class AdaptiveRateLimiterTest {
+
+   interface ServerApi {
+      void list();
+   }
+
+   private final HttpRequest request = HttpRequest.builder().method("GET").endpoint("https://host/servers").build();
+   private final HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+   private final HttpResponse tooManyRequests = HttpResponse.builder().statusCode(429).build();
+
+   private AdaptiveRateLimiter limiter(FakeTicker ticker) {
+      return new AdaptiveRateLimiter(new DateServiceDateCodecFactory(new SimpleDateFormatDateService()), ticker);
+   }
+
+   public void testKeyIsHostAndApi() {
+      assertEquals(AdaptiveRateLimiter.keyOf(request), "host:443");
+      GeneratedHttpRequest generated = GeneratedHttpRequest.builder()
+            .invocation(Invocation.create(method(ServerApi.class, "list"), ImmutableList.<Object> of()))
+            .method("GET").endpoint("https://host/servers").build();
+      assertEquals(AdaptiveRateLimiter.keyOf(generated), "host:443/ServerApi");
+   }
+
+   public void testUnlimitedUntilThrottled() throws InterruptedException {
+      AdaptiveRateLimiter limiter = limiter(new FakeTicker());
+      limiter.acquire(request);
+      limiter.received(request, ok);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 0.0);
+   }
+
+   public void testThrottlingHalvesTheObservedRate() throws InterruptedException {
+      FakeTicker ticker = new FakeTicker();
+      AdaptiveRateLimiter limiter = limiter(ticker);
+      for (int i = 0; i < 100; i++)
+         limiter.acquire(request);
+      limiter.received(request, tooManyRequests);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 5.0);
+
+      // rejections of the requests already in flight count once
+      limiter.received(request, tooManyRequests);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 5.0);
+
+      ticker.advance(1);
+      limiter.throttled(request, 0);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 2.5);
+      assertEquals(limiter.getStats().get("host:443").getThrottled(), 3);
+   }
+
+   public void testRateNeverDropsBelowMinimum() {
+      AdaptiveRateLimiter limiter = limiter(new FakeTicker());
+      limiter.throttled(request, 0);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 1.0);
+   }
+
+   public void testRetryAfterPausesRequests() {
+      FakeTicker ticker = new FakeTicker();
+      AdaptiveRateLimiter limiter = limiter(ticker);
+      limiter.received(request, HttpResponse.builder().statusCode(503).build());
+      assertTrue(limiter.getStats().isEmpty());
+
+      limiter.received(request, HttpResponse.builder().statusCode(503).addHeader(HttpHeaders.RETRY_AFTER, "2").build());
+      assertEquals(limiter.getStats().get("host:443").getPausedMillis(), 2000);
+      ticker.advance(1);
+      assertEquals(limiter.getStats().get("host:443").getPausedMillis(), 1000);
+   }
+
+   public void testRetryAfterIsCapped() {
+      AdaptiveRateLimiter limiter = limiter(new FakeTicker());
+      limiter.throttled(request, AdaptiveRateLimiter.MAX_PAUSE_MILLIS * 2);
+      assertEquals(limiter.getStats().get("host:443").getPausedMillis(), AdaptiveRateLimiter.MAX_PAUSE_MILLIS);
+   }
+
+   public void testRetryAfterDate() {
+      AdaptiveRateLimiter limiter = limiter(new FakeTicker());
+      assertEquals(limiter.retryAfterMillis("Fri, 31 Dec 1999 23:59:59 GMT"), 0);
+      assertEquals(limiter.retryAfterMillis("soon"), 0);
+   }
+
+   public void testRateRecoversEverySecondUpToMaximum() throws InterruptedException {
+      FakeTicker ticker = new FakeTicker();
+      AdaptiveRateLimiter limiter = limiter(ticker);
+      limiter.maxRate = 6;
+      limiter.acquire(request);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 6.0);
+
+      limiter.throttled(request, 0);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 3.0);
+      limiter.received(request, ok);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 3.0);
+
+      ticker.advance(1);
+      limiter.received(request, ok);
+      assertEquals(limiter.getStats().get("host:443").getRate(), 4.0);
+      for (int i = 0; i < 5; i++) {
+         ticker.advance(1);
+         limiter.received(request, ok);
+      }
+      assertEquals(limiter.getStats().get("host:443").getRate(), 6.0);
+   }
+
+   public void testTryAcquireReturnsTheRetryAfterDelay() {
+      FakeTicker ticker = new FakeTicker();
+      AdaptiveRateLimiter limiter = limiter(ticker);
+      assertEquals(limiter.tryAcquire(request), 0);
+
+      limiter.throttled(request, 2000);
+      assertEquals(limiter.tryAcquire(request), TimeUnit.SECONDS.toNanos(2));
+      ticker.advance(2);
+      assertEquals(limiter.tryAcquire(request), 0);
+   }
+
+   public void testTryAcquireAtTheRateLimitAsksToWait() {
+      AdaptiveRateLimiter limiter = limiter(new FakeTicker());
+      limiter.maxRate = 1;
+      assertEquals(limiter.tryAcquire(request), 0);
+      long wait = limiter.tryAcquire(request);
+      assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), String.valueOf(wait));
+   }
+}
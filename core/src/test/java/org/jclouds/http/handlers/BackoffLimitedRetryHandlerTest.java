@@ -152,6 +152,49 @@ public class BackoffLimitedRetryHandlerTest {
       assertEquals(response.getPayload().openStream().read(), 0);
    }
 
+   @Test
+   void testDeferredBackoffIsRecordedInsteadOfSlept() throws NoSuchMethodException {
+      HttpCommand command = createCommand();
+      command.deferBackoff();
+
+      long startTime = System.nanoTime();
+      handler.imposeBackoffExponentialDelay(command, 5, "TEST FAILURE: 5");
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+
+      assertTrue(elapsedTime < 500, "slept " + elapsedTime);
+      // 50 * 5^2 capped at ten times the start delay
+      assertEquals(command.takeDeferredBackoff(), 500);
+      assertEquals(command.takeDeferredBackoff(), 0);
+   }
+
+   @Test
+   void testDeferredBackoffOfCustomPeriodIsRecordedInsteadOfSlept() throws NoSuchMethodException {
+      HttpCommand command = createCommand();
+      command.deferBackoff();
+
+      long startTime = System.nanoTime();
+      handler.imposeBackoffExponentialDelay(command, 100L, 3, 2, 5, "TEST FAILURE: 2");
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+
+      assertTrue(elapsedTime < 800, "slept " + elapsedTime);
+      // 100 * 2^3, plus up to a tenth of it
+      long backoff = command.takeDeferredBackoff();
+      assertTrue(backoff >= 800 && backoff < 880, "backoff " + backoff);
+   }
+
+   @Test
+   void testFixedBackoffIsRecordedWhenDeferred() throws NoSuchMethodException {
+      HttpCommand command = createCommand();
+      command.deferBackoff();
+
+      long startTime = System.nanoTime();
+      BackoffLimitedRetryHandler.imposeBackoff(command, 5000);
+      long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+
+      assertTrue(elapsedTime < 5000, "slept " + elapsedTime);
+      assertEquals(command.takeDeferredBackoff(), 5000);
+   }
+
    private final Function<Invocation, HttpRequest> processor = ContextBuilder
          .newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"))
          .buildInjector().getInstance(RestAnnotationProcessor.class);
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.jclouds.http.handlers.CircuitBreaker.State;
+import org.jclouds.http.handlers.RetryBudgetTest.FakeTicker;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "CircuitBreakerTest")
+public class CircuitBreakerTest {
+
+   private final URI endpoint = URI.create("http://host/path");
+
+   private CircuitBreaker circuitBreaker(FakeTicker ticker) {
+      CircuitBreaker circuitBreaker = new CircuitBreaker(ticker);
+      circuitBreaker.minRequests = 4;
+      circuitBreaker.failureRate = 0.5;
+      circuitBreaker.openTime = 10000;
+      return circuitBreaker;
+   }
+
+   public void testStaysClosedBelowMinimumRequests() {
+      CircuitBreaker circuitBreaker = circuitBreaker(new FakeTicker());
+      circuitBreaker.recordFailure(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.CLOSED);
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+   }
+
+   public void testStaysClosedBelowFailureRate() {
+      CircuitBreaker circuitBreaker = circuitBreaker(new FakeTicker());
+      circuitBreaker.recordSuccess(endpoint);
+      circuitBreaker.recordSuccess(endpoint);
+      circuitBreaker.recordSuccess(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.CLOSED);
+   }
+
+   public void testOpensAndFailsFast() {
+      CircuitBreaker circuitBreaker = circuitBreaker(new FakeTicker());
+      circuitBreaker.recordSuccess(endpoint);
+      circuitBreaker.recordSuccess(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.OPEN);
+      assertFalse(circuitBreaker.allowRequest(endpoint));
+      assertTrue(circuitBreaker.allowRequest(URI.create("http://other/path")));
+      assertEquals(circuitBreaker.getStates().get("host:80"), State.OPEN);
+   }
+
+   public void testSuccessfulProbeClosesTheCircuit() {
+      FakeTicker ticker = new FakeTicker();
+      CircuitBreaker circuitBreaker = circuitBreaker(ticker);
+      for (int i = 0; i < 4; i++)
+         circuitBreaker.recordFailure(endpoint);
+      ticker.advance(10);
+
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+      assertEquals(circuitBreaker.getState(endpoint), State.HALF_OPEN);
+      assertFalse(circuitBreaker.allowRequest(endpoint));
+
+      circuitBreaker.recordSuccess(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.CLOSED);
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+      // the failures that opened the circuit are forgotten
+      circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.CLOSED);
+   }
+
+   public void testFailedProbeReopensTheCircuit() {
+      FakeTicker ticker = new FakeTicker();
+      CircuitBreaker circuitBreaker = circuitBreaker(ticker);
+      for (int i = 0; i < 4; i++)
+         circuitBreaker.recordFailure(endpoint);
+      ticker.advance(10);
+
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+      circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.OPEN);
+      ticker.advance(5);
+      assertFalse(circuitBreaker.allowRequest(endpoint));
+      ticker.advance(5);
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+   }
+
+   public void testZeroFailureRateDisablesTheCircuitBreaker() {
+      CircuitBreaker circuitBreaker = circuitBreaker(new FakeTicker());
+      circuitBreaker.failureRate = 0;
+      for (int i = 0; i < 10; i++)
+         circuitBreaker.recordFailure(endpoint);
+      assertEquals(circuitBreaker.getState(endpoint), State.CLOSED);
+      assertTrue(circuitBreaker.allowRequest(endpoint));
+   }
+}
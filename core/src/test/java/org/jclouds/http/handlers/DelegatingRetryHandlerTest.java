@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.handlers.RetryBudgetTest.FakeTicker;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "DelegatingRetryHandlerTest")
+public class DelegatingRetryHandlerTest {
+
+   private final URI endpoint = URI.create("http://host/path");
+   private final HttpResponse serverError = HttpResponse.builder().statusCode(503).build();
+
+   private DelegatingRetryHandler retryHandler(CircuitBreaker circuitBreaker, RetryBudget retryBudget) {
+      BackoffLimitedRetryHandler backOff = new BackoffLimitedRetryHandler();
+      return new DelegatingRetryHandler(backOff, new RedirectionRetryHandler(backOff), circuitBreaker, retryBudget);
+   }
+
+   private HttpCommand command() {
+      return new HttpCommand(HttpRequest.builder().method("GET").endpoint(endpoint).build());
+   }
+
+   public void testRetriesServerErrorsWithinBudget() {
+      DelegatingRetryHandler retryHandler = retryHandler(new CircuitBreaker(new FakeTicker()), new RetryBudget(
+            new FakeTicker()));
+      HttpCommand command = command();
+
+      assertTrue(retryHandler.shouldRetryRequest(command, serverError));
+      assertEquals(command.getFailureCount(), 1);
+   }
+
+   public void testDoesNotRetryWhileCircuitIsOpen() {
+      CircuitBreaker circuitBreaker = new CircuitBreaker(new FakeTicker());
+      circuitBreaker.failureRate = 0.5;
+      circuitBreaker.minRequests = 4;
+      for (int i = 0; i < circuitBreaker.minRequests; i++)
+         circuitBreaker.recordFailure(endpoint);
+      DelegatingRetryHandler retryHandler = retryHandler(circuitBreaker, new RetryBudget(new FakeTicker()));
+      HttpCommand command = command();
+
+      assertFalse(retryHandler.shouldRetryRequest(command, serverError));
+      // the server error handler was not consulted
+      assertEquals(command.getFailureCount(), 0);
+   }
+
+   public void testDoesNotRetryOnceBudgetIsExhausted() {
+      RetryBudget retryBudget = new RetryBudget(new FakeTicker());
+      retryBudget.ratio = 0;
+      retryBudget.minRetriesPerSecond = 0;
+      DelegatingRetryHandler retryHandler = retryHandler(new CircuitBreaker(new FakeTicker()), retryBudget);
+
+      assertFalse(retryHandler.shouldRetryRequest(command(), serverError));
+      assertEquals(retryBudget.getStats().get("host:80").getRetries(), 0);
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+@Test(groups = "unit", testName = "RetryBudgetTest")
+public class RetryBudgetTest {
+
+   static class FakeTicker extends Ticker {
+      long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+
+      void advance(long seconds) {
+         nanos += TimeUnit.SECONDS.toNanos(seconds);
+      }
+   }
+
+   private final URI endpoint = URI.create("https://host/path");
+
+   public void testMinimumRetriesAreAlwaysAllowed() {
+      RetryBudget budget = new RetryBudget(new FakeTicker());
+      budget.minRetriesPerSecond = 1;
+      for (int i = 0; i < 10; i++)
+         assertTrue(budget.tryRetry(endpoint), "retry " + i);
+      assertFalse(budget.tryRetry(endpoint));
+      assertEquals(budget.getStats().get("host:443").getRetries(), 10);
+   }
+
+   public void testSuccessesAddToTheBudget() {
+      RetryBudget budget = new RetryBudget(new FakeTicker());
+      budget.minRetriesPerSecond = 0;
+      assertFalse(budget.tryRetry(endpoint));
+      for (int i = 0; i < 10; i++)
+         budget.recordSuccess(endpoint);
+      assertTrue(budget.tryRetry(endpoint));
+      assertTrue(budget.tryRetry(endpoint));
+      assertFalse(budget.tryRetry(endpoint));
+      assertEquals(budget.getStats().get("host:443").getAllowedRetries(), 2);
+   }
+
+   public void testBudgetIsPerHost() {
+      RetryBudget budget = new RetryBudget(new FakeTicker());
+      budget.minRetriesPerSecond = 0;
+      budget.recordSuccess(URI.create("http://other/path"));
+      budget.recordSuccess(URI.create("http://other/path"));
+      budget.recordSuccess(URI.create("http://other/path"));
+      budget.recordSuccess(URI.create("http://other/path"));
+      budget.recordSuccess(URI.create("http://other/path"));
+      assertFalse(budget.tryRetry(endpoint));
+      assertTrue(budget.tryRetry(URI.create("http://other/another")));
+   }
+
+   public void testOldRequestsLeaveTheWindow() {
+      FakeTicker ticker = new FakeTicker();
+      RetryBudget budget = new RetryBudget(ticker);
+      budget.minRetriesPerSecond = 0;
+      for (int i = 0; i < 5; i++)
+         budget.recordSuccess(endpoint);
+      ticker.advance(5);
+      assertTrue(budget.tryRetry(endpoint));
+      ticker.advance(6);
+      assertEquals(budget.getStats().get("host:443").getSuccesses(), 0);
+      assertFalse(budget.tryRetry(endpoint));
+   }
+
+   public void testNegativeRatioDisablesTheBudget() {
+      RetryBudget budget = new RetryBudget(new FakeTicker());
+      budget.ratio = -1;
+      budget.minRetriesPerSecond = 0;
+      assertTrue(budget.tryRetry(endpoint));
+      assertTrue(budget.getStats().isEmpty());
+   }
+}
@@ -31,6 +31,7 @@ import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 
@@ -41,10 +42,15 @@ import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
 import org.testng.annotations.Test;
@@ -234,6 +240,35 @@ public class BaseHttpCommandExecutorServiceTest {
       verify(ioRetryHandler);
    }
 
+   public void testWaitsForRateLimitBeforeFiltering() throws Exception {
+      final AtomicBoolean filtered = new AtomicBoolean();
+      HttpRequestFilter filter = new HttpRequestFilter() {
+         @Override
+         public HttpRequest filter(HttpRequest request) throws HttpException {
+            filtered.set(true);
+            return request;
+         }
+      };
+      HttpCommand command = new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("GET")
+            .filter(filter).build());
+
+      AdaptiveRateLimiter rateLimiter = EasyMock.createMock(AdaptiveRateLimiter.class);
+      rateLimiter.acquire(command.getCurrentRequest());
+      expectLastCall().andThrow(new InterruptedException());
+      replay(rateLimiter);
+
+      BaseHttpCommandExecutorService<?> service = mockHttpCommandExecutorService(rateLimiter);
+      try {
+         service.invoke(command);
+         fail("Expected to fail due to interrupted rate limiter");
+      } catch (HttpResponseException e) {
+         assertTrue(Thread.interrupted(), "interrupt flag should be restored");
+      }
+
+      verify(rateLimiter);
+      assertFalse(filtered.get(), "request should not be filtered before the rate limit is acquired");
+   }
+
    private HttpCommand mockHttpCommand() {
       return new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("mock").build());
    }
@@ -266,6 +301,19 @@ public class BaseHttpCommandExecutorServiceTest {
       return injector.getInstance(BaseHttpCommandExecutorService.class);
    }
 
+   private BaseHttpCommandExecutorService<?> mockHttpCommandExecutorService(final AdaptiveRateLimiter rateLimiter) {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(AdaptiveRateLimiter.class).toInstance(rateLimiter);
+            bind(BaseHttpCommandExecutorService.class).to(MockHttpCommandExecutorService.class);
+         }
+      });
+
+      return injector.getInstance(BaseHttpCommandExecutorService.class);
+   }
+
    private static class MockInputStream extends InputStream {
       boolean isOpen = true;
       int count;
@@ -307,8 +355,11 @@ public class BaseHttpCommandExecutorServiceTest {
       @Inject
       MockHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
             DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
-            DelegatingErrorHandler errorHandler, HttpWire wire) {
-         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire);
+            DelegatingErrorHandler errorHandler, HttpWire wire, HostConnectionLimiter connectionLimiter,
+            AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RetryBudget retryBudget,
+            Instrumentation instrumentation) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, connectionLimiter,
+               rateLimiter, circuitBreaker, retryBudget, instrumentation);
       }
 
       @Override
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.internal.HostConnectionLimiter.HostStats;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "HostConnectionLimiterTest")
+public class HostConnectionLimiterTest {
+   private static final URI EAST = URI.create("https://east.example.com/bucket/key");
+   private static final URI WEST = URI.create("https://west.example.com/bucket/key");
+
+   public void testHostKeyUsesDefaultPortOfScheme() {
+      assertEquals(HostConnectionLimiter.hostKey(URI.create("http://host/path")), "host:80");
+      assertEquals(HostConnectionLimiter.hostKey(URI.create("https://host/path")), "host:443");
+      assertEquals(HostConnectionLimiter.hostKey(URI.create("https://host:8443/path")), "host:8443");
+   }
+
+   public void testZeroLimitDisablesAdmissionControl() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(0);
+      for (int i = 0; i < 100; i++)
+         assertNull(limiter.acquire(EAST));
+      limiter.release(null);
+      assertTrue(limiter.getStats().isEmpty());
+   }
+
+   public void testHostsAreLimitedIndependently() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      limiter.queueTimeout = 10;
+      String east = limiter.acquire(EAST);
+      String west = limiter.acquire(WEST);
+      assertEquals(east, "east.example.com:443");
+      assertEquals(west, "west.example.com:443");
+      assertEquals(limiter.getStats().get(east).getInFlight(), 1);
+      assertEquals(limiter.getStats().get(west).getInFlight(), 1);
+      limiter.release(east);
+      limiter.release(west);
+      assertEquals(limiter.getStats().get(east).getInFlight(), 0);
+   }
+
+   public void testQueuedRequestIsAdmittedOnRelease() throws Exception {
+      final HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      String host = limiter.acquire(EAST);
+      final CountDownLatch started = new CountDownLatch(1);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<String> queued = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+               started.countDown();
+               return limiter.acquire(EAST);
+            }
+         });
+         started.await();
+         while (limiter.getStats().get(host).getQueueDepth() == 0)
+            Thread.sleep(1);
+         assertFalse(queued.isDone());
+
+         limiter.release(host);
+         assertEquals(queued.get(1, TimeUnit.SECONDS), host);
+         HostStats stats = limiter.getStats().get(host);
+         assertEquals(stats.getQueueDepth(), 0);
+         assertEquals(stats.getInFlight(), 1);
+         assertEquals(stats.getAcquired(), 2);
+         assertEquals(stats.getWaits(), 1);
+         limiter.release(host);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testQueueTimeout() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      limiter.queueTimeout = 20;
+      String host = limiter.acquire(EAST);
+      try {
+         limiter.acquire(EAST);
+         throw new AssertionError("expected a timeout");
+      } catch (TimeoutException expected) {
+      }
+      HostStats stats = limiter.getStats().get(host);
+      assertEquals(stats.getTimedOut(), 1);
+      assertEquals(stats.getAcquired(), 1);
+      assertTrue(stats.getMaxWaitMillis() >= 10, stats.toString());
+      limiter.release(host);
+      assertEquals(limiter.acquire(EAST), host);
+   }
+
+   public void testResponseWithoutPayloadReleasesAtOnce() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      String host = limiter.acquire(EAST);
+      HttpResponse response = HttpResponse.builder().statusCode(204).build();
+      assertTrue(limiter.releaseWithPayload(host, response) == response);
+      assertEquals(limiter.getStats().get(host).getInFlight(), 0);
+   }
+
+   public void testPayloadHoldsPlaceUntilStreamClosed() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      String host = limiter.acquire(EAST);
+      HttpResponse response = limiter.releaseWithPayload(host,
+            HttpResponse.builder().statusCode(200).payload("content").build());
+      assertEquals(limiter.getStats().get(host).getInFlight(), 1);
+      InputStream in = response.getPayload().openStream();
+      in.read();
+      assertEquals(limiter.getStats().get(host).getInFlight(), 1);
+      in.close();
+      assertEquals(limiter.getStats().get(host).getInFlight(), 0);
+      // releasing the payload afterwards must not hand out a second place
+      response.getPayload().release();
+      assertEquals(limiter.getStats().get(host).getInFlight(), 0);
+   }
+
+   public void testPayloadReleaseReleasesPlace() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      String host = limiter.acquire(EAST);
+      HttpResponse response = limiter.releaseWithPayload(host,
+            HttpResponse.builder().statusCode(500).payload("error").build());
+      assertEquals(response.getStatusCode(), 500);
+      response.getPayload().release();
+      assertEquals(limiter.getStats().get(host).getInFlight(), 0);
+   }
+
+   public void testAsyncAcquireCompletesOnRelease() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      ListenableFuture<String> first = limiter.acquireAsync(EAST, null);
+      assertEquals(first.get(), "east.example.com:443");
+      ListenableFuture<String> second = limiter.acquireAsync(EAST, null);
+      assertFalse(second.isDone());
+      assertEquals(limiter.getStats().get(first.get()).getQueueDepth(), 1);
+
+      limiter.release(first.get());
+      assertEquals(second.get(), first.get());
+      HostStats stats = limiter.getStats().get(first.get());
+      assertEquals(stats.getQueueDepth(), 0);
+      assertEquals(stats.getInFlight(), 1);
+      assertEquals(stats.getAcquired(), 2);
+      limiter.release(second.get());
+      assertEquals(limiter.getStats().get(first.get()).getInFlight(), 0);
+   }
+
+   public void testCancelledAsyncAcquireGivesUpItsPlace() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      String host = limiter.acquire(EAST);
+      ListenableFuture<String> cancelled = limiter.acquireAsync(EAST, null);
+      ListenableFuture<String> next = limiter.acquireAsync(EAST, null);
+      cancelled.cancel(false);
+      assertEquals(limiter.getStats().get(host).getQueueDepth(), 1);
+
+      limiter.release(host);
+      assertEquals(next.get(), host);
+      assertEquals(limiter.getStats().get(host).getInFlight(), 1);
+   }
+
+   public void testAsyncQueueTimeout() throws Exception {
+      HostConnectionLimiter limiter = new HostConnectionLimiter(1);
+      limiter.queueTimeout = 20;
+      String host = limiter.acquire(EAST);
+      ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+      try {
+         limiter.acquireAsync(EAST, timer).get(1, TimeUnit.SECONDS);
+         throw new AssertionError("expected a timeout");
+      } catch (ExecutionException expected) {
+         assertTrue(expected.getCause() instanceof TimeoutException, expected.toString());
+      } finally {
+         // the counters are updated on the timer thread once the future has failed
+         timer.shutdown();
+         timer.awaitTermination(1, TimeUnit.SECONDS);
+      }
+      HostStats stats = limiter.getStats().get(host);
+      assertEquals(stats.getTimedOut(), 1);
+      assertEquals(stats.getQueueDepth(), 0);
+      limiter.release(host);
+      assertEquals(limiter.getStats().get(host).getInFlight(), 0);
+   }
+}
@@ -31,8 +31,12 @@ import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 
@@ -85,11 +89,14 @@ public class TrackingJavaUrlHttpCommandExecutorService extends JavaUrlHttpComman
    @Inject
    public TrackingJavaUrlHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
             DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
-            DelegatingErrorHandler errorHandler, HttpWire wire, @Named("untrusted") HostnameVerifier verifier,
+            DelegatingErrorHandler errorHandler, HttpWire wire, HostConnectionLimiter connectionLimiter,
+            AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RetryBudget retryBudget,
+            Instrumentation instrumentation, @Named("untrusted") HostnameVerifier verifier,
             @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider, Function<URI, Proxy> proxyForURI,
             List<HttpCommand> commandsInvoked) throws SecurityException, NoSuchFieldException {
-      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, verifier,
-            untrustedSSLContextProvider, proxyForURI);
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, connectionLimiter,
+            rateLimiter, circuitBreaker, retryBudget, instrumentation, verifier, untrustedSSLContextProvider,
+            proxyForURI);
       this.commandsInvoked = commandsInvoked;
    }
 
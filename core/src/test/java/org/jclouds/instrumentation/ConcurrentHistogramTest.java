@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "ConcurrentHistogramTest")
+public class ConcurrentHistogramTest {
+
+   public void testBucketsCoverEveryValueOnce() {
+      for (long value = 0; value < 100000; value++) {
+         int index = HistogramSnapshot.bucketIndex(value);
+         assertTrue(HistogramSnapshot.lowestEquivalentValue(index) <= value, "value " + value);
+         assertTrue(HistogramSnapshot.highestEquivalentValue(index) >= value, "value " + value);
+      }
+      for (int index = 1; index < HistogramSnapshot.bucketIndex(ConcurrentHistogram.MAX_VALUE); index++) {
+         assertEquals(HistogramSnapshot.lowestEquivalentValue(index),
+               HistogramSnapshot.highestEquivalentValue(index - 1) + 1, "index " + index);
+      }
+   }
+
+   public void testEmptySnapshot() {
+      HistogramSnapshot snapshot = new ConcurrentHistogram().snapshot();
+      assertEquals(snapshot.getCount(), 0);
+      assertEquals(snapshot.getMin(), 0);
+      assertEquals(snapshot.getMax(), 0);
+      assertEquals(snapshot.getMean(), 0.0);
+      assertEquals(snapshot.getValueAtPercentile(99), 0);
+   }
+
+   public void testSmallValuesAreExact() {
+      ConcurrentHistogram histogram = new ConcurrentHistogram();
+      for (int i = 1; i <= 10; i++)
+         histogram.record(i);
+      HistogramSnapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getCount(), 10);
+      assertEquals(snapshot.getMin(), 1);
+      assertEquals(snapshot.getMax(), 10);
+      assertEquals(snapshot.getMean(), 5.5);
+      assertEquals(snapshot.getValueAtPercentile(50), 5);
+      assertEquals(snapshot.getValueAtPercentile(90), 9);
+      assertEquals(snapshot.getValueAtPercentile(100), 10);
+   }
+
+   public void testPercentilesWithinPrecision() {
+      ConcurrentHistogram histogram = new ConcurrentHistogram();
+      Random random = new Random(0);
+      for (int i = 0; i < 100000; i++)
+         histogram.record(1000000 + random.nextInt(1000000));
+      HistogramSnapshot snapshot = histogram.snapshot();
+      assertEquals(snapshot.getValueAtPercentile(50), 1500000, 1500000 / 32);
+      assertEquals(snapshot.getValueAtPercentile(99), 1990000, 1990000 / 32);
+   }
+
+   public void testValuesAboveMaximumAreClamped() {
+      ConcurrentHistogram histogram = new ConcurrentHistogram();
+      histogram.record(Long.MAX_VALUE);
+      assertEquals(histogram.snapshot().getMax(), ConcurrentHistogram.MAX_VALUE);
+      assertEquals(histogram.snapshot().getValueAtPercentile(100), ConcurrentHistogram.MAX_VALUE);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testNegativeValueRejected() {
+      new ConcurrentHistogram().record(-1);
+   }
+}
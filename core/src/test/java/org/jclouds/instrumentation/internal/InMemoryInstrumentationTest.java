@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.instrumentation.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.jclouds.instrumentation.MethodMetrics;
+import org.testng.annotations.Test;
+
+import com.google.common.reflect.Invokable;
+
+@Test(groups = "unit", testName = "InMemoryInstrumentationTest")
+public class InMemoryInstrumentationTest {
+
+   interface Api {
+      String get();
+
+      void put(String value);
+   }
+
+   public void testMetricsAreKeyedOnMethod() {
+      Invokable<?, ?> get = method(Api.class, "get");
+      Invokable<?, ?> put = method(Api.class, "put", String.class);
+      InMemoryInstrumentation instrumentation = new InMemoryInstrumentation();
+
+      instrumentation.requestFiltered(get, 10);
+      instrumentation.bytesTransferred(get, 0, 100);
+      instrumentation.requestRetried(get);
+      instrumentation.bytesTransferred(get, 0, 100);
+      instrumentation.responseParsed(get, 20);
+      instrumentation.invocationCompleted(get, 1000, false);
+      instrumentation.bytesTransferred(put, 50, 0);
+      instrumentation.invocationCompleted(put, 2000, true);
+
+      Map<Invokable<?, ?>, MethodMetrics> metrics = instrumentation.getMetrics();
+      assertEquals(metrics.size(), 2);
+
+      MethodMetrics getMetrics = metrics.get(get);
+      assertEquals(getMetrics.getInvocations(), 1);
+      assertEquals(getMetrics.getFailures(), 0);
+      assertEquals(getMetrics.getRetries(), 1);
+      assertEquals(getMetrics.getBytesSent(), 0);
+      assertEquals(getMetrics.getBytesReceived(), 200);
+      assertEquals(getMetrics.getFilterTime().getMax(), 10);
+      assertEquals(getMetrics.getParseTime().getMax(), 20);
+      assertEquals(getMetrics.getLatency().getMax(), 1000, 1000 / 32);
+
+      MethodMetrics putMetrics = metrics.get(put);
+      assertEquals(putMetrics.getInvocations(), 1);
+      assertEquals(putMetrics.getFailures(), 1);
+      assertEquals(putMetrics.getBytesSent(), 50);
+      assertEquals(putMetrics.getParseTime().getCount(), 0);
+   }
+
+   public void testSnapshotIsImmutable() {
+      Invokable<?, ?> get = method(Api.class, "get");
+      InMemoryInstrumentation instrumentation = new InMemoryInstrumentation();
+      instrumentation.invocationCompleted(get, 1000, false);
+      MethodMetrics before = instrumentation.getMetrics().get(get);
+      instrumentation.invocationCompleted(get, 1000, false);
+      assertEquals(before.getInvocations(), 1);
+      assertEquals(instrumentation.getMetrics().get(get).getInvocations(), 2);
+      assertTrue(instrumentation.getMetrics().get(get).toString().contains("p99"));
+   }
+}
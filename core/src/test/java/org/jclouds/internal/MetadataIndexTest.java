@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.jclouds.apis.ApiMetadata;
+import org.jclouds.apis.Apis;
+import org.jclouds.apis.JcloudsTestComputeApiMetadata;
+import org.jclouds.providers.JcloudsTestBlobStoreProviderMetadata;
+import org.jclouds.providers.ProviderMetadata;
+import org.jclouds.providers.Providers;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "MetadataIndexTest")
+public class MetadataIndexTest {
+
+   private final MetadataIndex<ProviderMetadata> providers = MetadataIndex.create(ProviderMetadata.class,
+         Providers.idFunction());
+
+   public void testFindsIndexedProvider() {
+      Optional<ProviderMetadata> provider = providers.find("test-blobstore-api");
+      assertTrue(provider.isPresent());
+      assertEquals(provider.get(), new JcloudsTestBlobStoreProviderMetadata());
+   }
+
+   public void testFindsIndexedApi() {
+      Optional<ApiMetadata> api = MetadataIndex.create(ApiMetadata.class, Apis.idFunction()).find("test-compute-api");
+      assertEquals(api, Optional.of(new JcloudsTestComputeApiMetadata()));
+   }
+
+   public void testAbsentWhenNotIndexed() {
+      assertFalse(providers.find("fake-id").isPresent());
+   }
+
+   public void testIgnoresStaleEntries() throws IOException {
+      File dir = Files.createTempDir();
+      try {
+         File index = new File(dir, MetadataIndex.INDEX_DIRECTORY + ProviderMetadata.class.getName());
+         Files.createParentDirs(index);
+         Files.write("renamed-id=" + JcloudsTestBlobStoreProviderMetadata.class.getName() + "\n"
+               + "missing-id=org.jclouds.providers.MissingProviderMetadata\n", index, Charsets.UTF_8);
+         ClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+
+         assertFalse(providers.find(loader, "renamed-id").isPresent());
+         assertFalse(providers.find(loader, "missing-id").isPresent());
+         assertTrue(providers.find(loader, "test-blobstore-api").isPresent());
+      } finally {
+         for (File file : Files.fileTreeTraverser().postOrderTraversal(dir)) {
+            file.delete();
+         }
+      }
+   }
+
+   public void testParseSkipsCommentsAndMalformedLines() throws IOException {
+      assertEquals(MetadataIndex.parse(new StringReader("# comment\n\n a = b.C \nnoseparator\n=x\n")),
+            ImmutableMap.of("a", "b.C"));
+   }
+}
@@ -21,18 +21,22 @@ import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.io.payloads.FileRegionPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Charsets;
 import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
 
 @Test
 public class BasePayloadSlicerTest {
@@ -111,4 +115,53 @@ public class BasePayloadSlicerTest {
 
       assertFalse(iter.hasNext());
    }
+
+   @Test
+   public void testFileSlicesAreFileRegions() throws IOException {
+      PayloadSlicer slicer = new BasePayloadSlicer();
+      File file = File.createTempFile("BasePayloadSlicerTest", "txt");
+      try {
+         Files.write("aaaaaaaaaabbbbbbbbbbccccc", file, Charsets.US_ASCII);
+         Payload part = slicer.slice(new FilePayload(file), 10, 10);
+         assertTrue(part instanceof FileRegionPayload, part.getClass().getName());
+         assertEquals(((FileRegionPayload) part).getPosition(), 10);
+         assertEquals(part.getContentMetadata().getContentLength(), Long.valueOf(10));
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "bbbbbbbbbb");
+
+         // slicing a region is relative to the region, not the file
+         Payload nested = slicer.slice(part, 5, 5);
+         assertEquals(((FileRegionPayload) nested).getPosition(), 15);
+         assertEquals(Strings2.toStringAndClose(nested.openStream()), "bbbbb");
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testIterableSliceOfFile() throws IOException {
+      PayloadSlicer slicer = new BasePayloadSlicer();
+      File file = File.createTempFile("BasePayloadSlicerTest", "txt");
+      try {
+         Files.write("aaaaaaaaaabbbbbbbbbbccccc", file, Charsets.US_ASCII);
+         Iterator<Payload> iter = slicer.slice(new FilePayload(file), 10).iterator();
+         Payload part;
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         part = iter.next();
+         assertTrue(part instanceof FileRegionPayload, part.getClass().getName());
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "aaaaaaaaaa");
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         assertEquals(Strings2.toStringAndClose(iter.next().openStream()), "bbbbbbbbbb");
+
+         assertTrue(iter.hasNext(), "Not enough results");
+         part = iter.next();
+         assertEquals(Strings2.toStringAndClose(part.openStream()), "ccccc");
+         assertEquals(part.getContentMetadata().getContentLength(), Long.valueOf(5));
+
+         assertFalse(iter.hasNext());
+      } finally {
+         file.delete();
+      }
+   }
 }
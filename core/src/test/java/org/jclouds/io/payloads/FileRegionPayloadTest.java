@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+
+import org.jclouds.util.Strings2;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "FileRegionPayloadTest")
+public class FileRegionPayloadTest {
+   private File file;
+
+   @BeforeClass
+   void createFile() throws IOException {
+      file = File.createTempFile("FileRegionPayloadTest", "txt");
+      Files.write("aaaaaaaaaabbbbbbbbbbccccc", file, Charsets.US_ASCII);
+   }
+
+   @AfterClass
+   void deleteFile() {
+      file.delete();
+   }
+
+   public void testStreamsOnlyTheRegion() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 10, 10);
+      assertEquals(payload.getContentMetadata().getContentLength(), Long.valueOf(10));
+      assertEquals(Strings2.toStringAndClose(payload.openStream()), "bbbbbbbbbb");
+      assertTrue(payload.isRepeatable());
+      assertEquals(Strings2.toStringAndClose(payload.openStream()), "bbbbbbbbbb");
+   }
+
+   public void testReleaseLeavesOpenStreamsToTheirCaller() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 0, 10);
+      InputStream in = payload.openStream();
+      payload.release();
+      assertEquals(Strings2.toStringAndClose(in), "aaaaaaaaaa");
+   }
+
+   public void testRawContentIsTheRegion() throws IOException {
+      FileRegionPayload payload = new FileRegionPayload(file, 20, 5);
+      assertEquals(payload.getRawContent().read(), "ccccc".getBytes(Charsets.US_ASCII));
+   }
+
+   public void testTransferTo() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertEquals(new FileRegionPayload(file, 5, 10).transferTo(Channels.newChannel(out)), 10);
+      assertEquals(out.toString("US-ASCII"), "aaaaabbbbb");
+   }
+
+   public void testFilePayloadTransfersWholeFile() throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FilePayload payload = new FilePayload(file);
+      assertEquals(payload.getPosition(), 0);
+      assertEquals(payload.getLength(), 25);
+      assertEquals(payload.transferTo(Channels.newChannel(out)), 25);
+      assertEquals(out.toString("US-ASCII"), "aaaaaaaaaabbbbbbbbbbccccc");
+   }
+}
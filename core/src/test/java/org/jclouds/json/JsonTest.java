@@ -21,6 +21,7 @@ import static com.google.common.primitives.Bytes.asList;
 import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -99,6 +100,13 @@ public class JsonTest {
       assertEquals(json.toJson(obj2), json.toJson(obj));
    }
 
+   public void testObjectNoDefaultConstructorFromReader() {
+      ObjectNoDefaultConstructor obj = new ObjectNoDefaultConstructor("foo", 1);
+      ObjectNoDefaultConstructor obj2 = StreamingJson.class.cast(json).fromJson(new StringReader(json.toJson(obj)),
+            ObjectNoDefaultConstructor.class);
+      assertEquals(obj2, obj);
+   }
+
    static class ExcludeStringValue implements DefaultExclusionStrategy {
       public boolean shouldSkipClass(Class<?> clazz) {
         return false;
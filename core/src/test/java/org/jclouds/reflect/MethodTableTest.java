@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.reflect;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.reflect.MethodTable.Memo;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.Invokable;
+
+@Test(groups = "unit", testName = "MethodTableTest")
+public class MethodTableTest {
+
+   interface Api extends Closeable {
+      String get(String id);
+
+      String get(String id, int version);
+
+      void delete(String id);
+   }
+
+   public void testTableIsCachedPerInterface() {
+      assertSame(MethodTable.of(Api.class), MethodTable.of(Api.class));
+   }
+
+   public void testIndexesInheritedAndOverloadedMethods() throws Exception {
+      MethodTable<Api> table = MethodTable.of(Api.class);
+      assertEquals(table.size(), 4);
+
+      int get = table.indexOf(Api.class.getMethod("get", String.class));
+      int getVersion = table.indexOf(Api.class.getMethod("get", String.class, int.class));
+      int close = table.indexOf(Api.class.getMethod("close"));
+      assertNotEquals(get, getVersion);
+      assertEquals(table.getInvokable(get), method(Api.class, "get", String.class));
+      assertEquals(table.getInvokable(getVersion), method(Api.class, "get", String.class, int.class));
+      assertEquals(table.getInvokable(close), method(Api.class, "close"));
+   }
+
+   public void testResolvesMethodsPassedToProxies() {
+      final AtomicReference<Method> invoked = new AtomicReference<Method>();
+      Api proxy = (Api) Proxy.newProxyInstance(Api.class.getClassLoader(), new Class<?>[] { Api.class },
+            new InvocationHandler() {
+               public Object invoke(Object proxy, Method method, Object[] args) {
+                  invoked.set(method);
+                  return null;
+               }
+            });
+      proxy.delete("foo");
+
+      MethodTable<Api> table = MethodTable.of(Api.class);
+      Invokable<Api, Object> delete = table.getInvokable(invoked.get());
+      assertEquals(delete, method(Api.class, "delete", String.class));
+      assertSame(table.getInvokable(table.indexOf(invoked.get())), delete);
+   }
+
+   public void testMethodsOutsideTheInterfaceAreNotIndexed() throws Exception {
+      assertEquals(MethodTable.of(Api.class).indexOf(Object.class.getMethod("toString")), -1);
+   }
+
+   public void testMemoComputesOncePerMethod() throws Exception {
+      final AtomicInteger computed = new AtomicInteger();
+      Memo<String> names = new Memo<String>(new Function<Invokable<?, ?>, String>() {
+         @Override
+         public String apply(Invokable<?, ?> invokable) {
+            computed.incrementAndGet();
+            return invokable.getName();
+         }
+      });
+      MethodTable<Api> table = MethodTable.of(Api.class);
+      int delete = table.indexOf(Api.class.getMethod("delete", String.class));
+      List<Object> args = ImmutableList.<Object> of("foo");
+
+      assertEquals(names.get(Invocation.create(table, delete, args)), "delete");
+      assertEquals(names.get(Invocation.create(table, delete, args)), "delete");
+      assertEquals(computed.get(), 1);
+
+      assertEquals(names.get(Invocation.create(method(Api.class, "get", String.class), args)), "get");
+      assertEquals(names.get(Invocation.create(method(Api.class, "get", String.class), args)), "get");
+      assertEquals(computed.get(), 2);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsClasses() {
+      MethodTable.of(Object.class);
+   }
+}
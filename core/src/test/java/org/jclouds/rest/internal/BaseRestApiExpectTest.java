@@ -55,10 +55,15 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
 import org.jclouds.http.internal.BaseHttpCommandExecutorService;
+import org.jclouds.http.internal.HostConnectionLimiter;
 import org.jclouds.http.internal.HttpWire;
+import org.jclouds.instrumentation.Instrumentation;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.io.ContentMetadataCodec.DefaultContentMetadataCodec;
 import org.jclouds.io.Payload;
@@ -191,8 +196,11 @@ public abstract class BaseRestApiExpectTest<S> {
       @Inject
       public ExpectHttpCommandExecutorService(Function<HttpRequest, HttpResponse> fn, HttpUtils utils,
             ContentMetadataCodec contentMetadataCodec, IOExceptionRetryHandler ioRetryHandler,
-            DelegatingRetryHandler retryHandler, DelegatingErrorHandler errorHandler, HttpWire wire) {
-         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire);
+            DelegatingRetryHandler retryHandler, DelegatingErrorHandler errorHandler, HttpWire wire,
+            HostConnectionLimiter connectionLimiter, AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker,
+            RetryBudget retryBudget, Instrumentation instrumentation) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, connectionLimiter,
+               rateLimiter, circuitBreaker, retryBudget, instrumentation);
          this.fn = checkNotNull(fn, "fn");
       }
 
@@ -16,22 +16,30 @@
  */
 package org.jclouds.rest.internal;
 
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.instrumentation.internal.InMemoryInstrumentation;
 import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.Cacheable;
 import org.jclouds.rest.config.InvocationConfig;
 import org.jclouds.rest.internal.InvokeHttpMethod.InvokeAndTransform;
 import org.testng.annotations.AfterMethod;
@@ -44,13 +52,17 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 @Test(groups = "unit", singleThreaded = true)
 public class InvokeHttpMethodTest {
 
    public interface ThingApi {
       @Named("ns:get")
+      @Cacheable
       HttpResponse get();
    }
 
@@ -85,7 +97,9 @@ public class InvokeHttpMethodTest {
       timeLimiter = createMock(TimeLimiter.class);
       fallback = createMock(org.jclouds.Fallback.class);
       config = createMock(InvocationConfig.class);
-      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config);
+      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config,
+            new InMemoryInstrumentation(), sameThreadExecutor(), new ResponseCache(),
+            new RequestCoalescer());
       expect(config.getCommandName(get)).andReturn("ns:get");
       expect(config.getFallback(get)).andReturn(fallback);
    }
@@ -130,4 +144,93 @@ public class InvokeHttpMethodTest {
       replay(http, timeLimiter, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
    }
+
+   public void testSubmitInvokesOnExecutorWhenDriverIsNotAsync() throws Exception {
+      expect(http.invoke(new HttpCommand(getRequest))).andReturn(response);
+      replay(http, timeLimiter, fallback, config);
+      assertEquals(invokeHttpMethod.submit(get).get(), response);
+   }
+
+   public void testSubmitUsesAsyncDriver() throws Exception {
+      AsyncHttpCommandExecutorService async = createMock(AsyncHttpCommandExecutorService.class);
+      expect(async.submit(new HttpCommand(getRequest))).andReturn(Futures.immediateFuture(response));
+      replay(async, http, timeLimiter, fallback, config);
+      InvokeHttpMethod invokeAsync = new InvokeHttpMethod(toRequest, async, transformerForRequest, timeLimiter, config,
+            new InMemoryInstrumentation(), sameThreadExecutor(), new ResponseCache(),
+            new RequestCoalescer());
+      assertEquals(invokeAsync.submit(get).get(), response);
+      verify(async);
+   }
+
+   private InvokeHttpMethod asyncInvokeHttpMethod(AsyncHttpCommandExecutorService async) {
+      return new InvokeHttpMethod(toRequest, async, transformerForRequest, timeLimiter, config,
+            new InMemoryInstrumentation(), sameThreadExecutor(), new ResponseCache(), new RequestCoalescer());
+   }
+
+   public void testMethodWithTimeoutWaitsOnAsyncDriverWithoutTimeLimiter() throws Exception {
+      AsyncHttpCommandExecutorService async = createMock(AsyncHttpCommandExecutorService.class);
+      expect(config.getTimeoutNanos(get)).andReturn(Optional.of(250000000l));
+      expect(async.submit(new HttpCommand(getRequest))).andReturn(Futures.immediateFuture(response));
+      replay(async, http, timeLimiter, fallback, config);
+      assertEquals(asyncInvokeHttpMethod(async).apply(get), response);
+      verify(async);
+   }
+
+   public void testAsyncTimeoutCancelsCommandAndRunsFallback() throws Exception {
+      AsyncHttpCommandExecutorService async = createMock(AsyncHttpCommandExecutorService.class);
+      SettableFuture<HttpResponse> pending = SettableFuture.create();
+      expect(config.getTimeoutNanos(get)).andReturn(Optional.of(1000000l));
+      expect(async.submit(new HttpCommand(getRequest))).andReturn(pending);
+      expect(fallback.createOrPropagate(isA(UncheckedTimeoutException.class))).andReturn(fallbackResponse);
+      replay(async, http, timeLimiter, fallback, config);
+      assertEquals(asyncInvokeHttpMethod(async).apply(get), fallbackResponse);
+      assertTrue(pending.isCancelled());
+      verify(async);
+   }
+
+   public void testSubmitRunsFallbackCreateOrPropagate() throws Exception {
+      IllegalStateException exception = new IllegalStateException();
+      expect(http.invoke(new HttpCommand(getRequest))).andThrow(exception);
+      expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
+      replay(http, timeLimiter, fallback, config);
+      assertEquals(invokeHttpMethod.submit(get).get(), fallbackResponse);
+   }
+
+   private HttpResponse tagged = HttpResponse.builder().statusCode(200).addHeader("ETag", "\"1\"").build();
+   private HttpRequest conditionalRequest = getRequest.toBuilder().addHeader("If-None-Match", "\"1\"").build();
+
+   private InvokeHttpMethod cachingInvokeHttpMethod() {
+      ResponseCache cache = new ResponseCache();
+      cache.maxSize = 10;
+      return new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config,
+            new InMemoryInstrumentation(), sameThreadExecutor(), cache,
+            new RequestCoalescer());
+   }
+
+   public void testCachedResultIsReturnedWhenNotModified() throws Exception {
+      expect(config.getCommandName(get)).andReturn("ns:get");
+      expect(config.getFallback(get)).andReturn(fallback);
+      expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent()).times(2);
+      expect(http.invoke(new HttpCommand(getRequest))).andReturn(tagged);
+      HttpCommand conditional = new HttpCommand(conditionalRequest);
+      expect(http.invoke(conditional)).andThrow(
+            new HttpResponseException(conditional, HttpResponse.builder().statusCode(304).build()));
+      replay(http, timeLimiter, fallback, config);
+      InvokeHttpMethod caching = cachingInvokeHttpMethod();
+      assertSame(caching.apply(get), tagged);
+      assertSame(caching.apply(get), tagged);
+   }
+
+   public void testSubmitReturnsCachedResultWhenNotModified() throws Exception {
+      expect(config.getCommandName(get)).andReturn("ns:get");
+      expect(config.getFallback(get)).andReturn(fallback);
+      expect(http.invoke(new HttpCommand(getRequest))).andReturn(tagged);
+      HttpCommand conditional = new HttpCommand(conditionalRequest);
+      expect(http.invoke(conditional)).andThrow(
+            new HttpResponseException(conditional, HttpResponse.builder().statusCode(304).build()));
+      replay(http, timeLimiter, fallback, config);
+      InvokeHttpMethod caching = cachingInvokeHttpMethod();
+      assertSame(caching.submit(get).get(), tagged);
+      assertSame(caching.submit(get).get(), tagged);
+   }
 }
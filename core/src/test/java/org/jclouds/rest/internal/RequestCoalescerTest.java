@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.Coalesce;
+import org.jclouds.rest.annotations.NotCoalesced;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+@Test(groups = "unit", testName = "RequestCoalescerTest")
+public class RequestCoalescerTest {
+
+   @Coalesce
+   interface ImageApi {
+      String get(String id);
+
+      @NotCoalesced
+      String download(String id);
+   }
+
+   interface FlavorApi {
+      String get(String id);
+   }
+
+   private final Invocation get = Invocation.create(method(ImageApi.class, "get", String.class),
+         ImmutableList.<Object> of("1"));
+   private final HttpRequest getRequest = HttpRequest.builder().method("GET").endpoint("http://host/images/1").build();
+   private final ExecutorService executor = Executors.newCachedThreadPool();
+
+   @AfterClass
+   void shutdown() {
+      executor.shutdownNow();
+   }
+
+   public void testOnlyAnnotatedReadsAreCoalesced() {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      assertTrue(coalescer.isCoalesced(get, getRequest));
+      assertFalse(coalescer.isCoalesced(get, getRequest.toBuilder().method("DELETE").build()));
+      assertFalse(coalescer.isCoalesced(
+            Invocation.create(method(ImageApi.class, "download", String.class), ImmutableList.<Object> of("1")),
+            getRequest));
+      assertFalse(coalescer.isCoalesced(
+            Invocation.create(method(FlavorApi.class, "get", String.class), ImmutableList.<Object> of("1")),
+            getRequest));
+   }
+
+   public void testConcurrentCallsShareTheResult() throws Exception {
+      final RequestCoalescer coalescer = new RequestCoalescer();
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger calls = new AtomicInteger();
+      Callable<Object> call = new Callable<Object>() {
+         @Override
+         public Object call() throws Exception {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "image";
+         }
+      };
+      Future<Object> first = executor.submit(invoke(coalescer, call));
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      Future<Object> second = executor.submit(invoke(coalescer, call));
+      while (coalescer.getSharedCount() == 0)
+         Thread.sleep(10);
+      release.countDown();
+
+      assertEquals(first.get(10, TimeUnit.SECONDS), "image");
+      assertEquals(second.get(10, TimeUnit.SECONDS), "image");
+      assertEquals(calls.get(), 1);
+
+      // the next call is not in flight with any other
+      assertEquals(coalescer.invoke(get, getRequest, call), "image");
+      assertEquals(calls.get(), 2);
+   }
+
+   public void testConcurrentCallsShareTheException() throws Exception {
+      final RequestCoalescer coalescer = new RequestCoalescer();
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      executor.submit(invoke(coalescer, new Callable<Object>() {
+         @Override
+         public Object call() throws Exception {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("not found");
+         }
+      }));
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      ListenableFuture<Object> second = coalescer.submit(get, getRequest, new Supplier<ListenableFuture<Object>>() {
+         @Override
+         public ListenableFuture<Object> get() {
+            throw new AssertionError("should have joined the call in flight");
+         }
+      });
+      release.countDown();
+      try {
+         second.get(10, TimeUnit.SECONDS);
+         fail("should have failed");
+      } catch (ExecutionException e) {
+         assertEquals(e.getCause().getMessage(), "not found");
+      }
+   }
+
+   public void testCancellingOneCallerDoesNotCancelTheOthers() throws Exception {
+      RequestCoalescer coalescer = new RequestCoalescer();
+      final SettableFuture<Object> response = SettableFuture.create();
+      Supplier<ListenableFuture<Object>> call = new Supplier<ListenableFuture<Object>>() {
+         @Override
+         public ListenableFuture<Object> get() {
+            return response;
+         }
+      };
+      ListenableFuture<Object> first = coalescer.submit(get, getRequest, call);
+      ListenableFuture<Object> second = coalescer.submit(get, getRequest, call);
+      assertEquals(coalescer.getSharedCount(), 1);
+
+      first.cancel(true);
+      assertFalse(response.isCancelled());
+      response.set("image");
+      assertEquals(second.get(), "image");
+   }
+
+   private Callable<Object> invoke(final RequestCoalescer coalescer, final Callable<Object> call) {
+      return new Callable<Object>() {
+         @Override
+         public Object call() throws Exception {
+            return coalescer.invoke(get, getRequest, call);
+         }
+      };
+   }
+}
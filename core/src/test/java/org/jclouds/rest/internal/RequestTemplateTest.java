@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.filters.StripExpectHeader;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Invokable;
+
+@Test(groups = "unit", testName = "RequestTemplateTest")
+public class RequestTemplateTest {
+
+   @Path("/owner")
+   @SkipEncoding('/')
+   @Headers(keys = "x-owner", values = "true")
+   @QueryParams(keys = "owner", values = "1")
+   @RequestFilters(StripExpectHeader.class)
+   @Produces("text/plain")
+   interface Annotated {
+      @GET
+      @Path("/{id}")
+      @VirtualHost
+      @Headers(keys = "x-method", values = "{id}")
+      @QueryParams(keys = "method", values = "2")
+      @Produces("application/json")
+      String get(@PathParam("id") String id, @Nullable @QueryParam("q") String q, @HeaderParam("x-h") String h,
+            HttpRequestOptions... options);
+
+      @POST
+      @SkipEncoding({ '/', ':' })
+      @RequestFilters(StripExpectHeader.class)
+      @OverrideRequestFilters
+      void post();
+
+      @GET
+      @POST
+      void twoMethods();
+   }
+
+   public void testTemplateIsCachedPerInvokable() {
+      Invokable<?, ?> get = method(Annotated.class, "get", String.class, String.class, String.class,
+            HttpRequestOptions[].class);
+      assertSame(RequestTemplate.of(get), RequestTemplate.of(get));
+   }
+
+   public void testResolvesTypeAndMethodAnnotations() {
+      RequestTemplate template = RequestTemplate.of(method(Annotated.class, "get", String.class, String.class,
+            String.class, HttpRequestOptions[].class));
+      assertEquals(template.getHttpMethod(), Optional.of("GET"));
+      assertEquals(template.getPaths(), ImmutableList.of("/owner", "/{id}"));
+      assertEquals(template.getSkipPathEncoding(), Optional.of(ImmutableList.of('/')));
+      assertTrue(template.isVirtualHost());
+      assertEquals(template.getProduces(), Optional.of(ImmutableList.of("application/json")));
+      assertEquals(ImmutableList.copyOf(template.getHeaders().keys), ImmutableList.of("x-owner", "x-method"));
+      assertEquals(ImmutableList.copyOf(template.getQueryParams().keys), ImmutableList.of("owner", "method"));
+      assertEquals(template.getFormParams().size(), 0);
+      assertNull(template.getPayloadParams());
+      assertEquals(template.getFilters(), ImmutableList.of(StripExpectHeader.class));
+
+      assertEquals(template.getPathParams().size(), 1);
+      assertEquals(template.getPathParams().get(0).name, "id");
+      assertEquals(template.getQueryParamArgs().get(0).position, 1);
+      assertEquals(template.getHeaderParamArgs().get(0).name, "x-h");
+      assertFalse(template.isNullable(0));
+      assertTrue(template.isNullable(1));
+      assertEquals(template.getOptionsPositions(), ImmutableSet.of(3));
+   }
+
+   public void testMethodOverridesTypeLevelSettings() {
+      RequestTemplate template = RequestTemplate.of(method(Annotated.class, "post"));
+      assertEquals(template.getHttpMethod(), Optional.of("POST"));
+      assertEquals(template.getSkipPathEncoding(), Optional.of(ImmutableList.of('/', ':')));
+      assertEquals(template.getFilters(), ImmutableList.of(StripExpectHeader.class));
+      assertFalse(template.isVirtualHost());
+      assertEquals(template.getProduces(), Optional.of(ImmutableList.of("text/plain")));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testTwoHttpMethodsFailsOnUse() {
+      RequestTemplate.of(method(Annotated.class, "twoMethods")).getHttpMethod();
+   }
+}
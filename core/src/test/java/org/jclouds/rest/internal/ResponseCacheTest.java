@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.annotations.Cacheable;
+import org.jclouds.rest.annotations.NotCacheable;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ResponseCacheTest")
+public class ResponseCacheTest {
+
+   @Cacheable(maxAge = 60)
+   interface ImageApi {
+      String list();
+
+      String get(String id);
+
+      @NotCacheable
+      String download(String id);
+   }
+
+   interface FlavorApi {
+      String list();
+   }
+
+   private static class FakeTicker extends Ticker {
+      long nanos;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
+
+   private final Invocation list = Invocation.create(method(ImageApi.class, "list"), ImmutableList.of());
+   private final Invocation get = Invocation.create(method(ImageApi.class, "get", String.class),
+         ImmutableList.<Object> of("1"));
+   private final Invocation download = Invocation.create(method(ImageApi.class, "download", String.class),
+         ImmutableList.<Object> of("1"));
+   private final Invocation flavors = Invocation.create(method(FlavorApi.class, "list"), ImmutableList.of());
+
+   private final HttpRequest listRequest = get("http://host/v2/t/images/detail");
+   private final HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+   private final HttpResponse tagged = HttpResponse.builder().statusCode(200).addHeader("ETag", "\"1\"")
+         .addHeader("Last-Modified", "Sat, 17 Oct 2026 10:00:00 GMT").build();
+
+   private static HttpRequest get(String endpoint) {
+      return HttpRequest.builder().method("GET").endpoint(endpoint).build();
+   }
+
+   private ResponseCache cache(Ticker ticker) {
+      ResponseCache cache = new ResponseCache(ticker);
+      cache.maxSize = 10;
+      return cache;
+   }
+
+   public void testDisabledByDefault() {
+      ResponseCache cache = new ResponseCache();
+      cache.put(list, listRequest, tagged, "images");
+      assertNull(cache.lookup(list, new HttpCommand(listRequest)));
+   }
+
+   public void testFreshResultIsReturnedAsIs() {
+      FakeTicker ticker = new FakeTicker();
+      ResponseCache cache = cache(ticker);
+      assertSame(cache.put(list, listRequest, ok, "images"), "images");
+
+      HttpCommand command = new HttpCommand(listRequest);
+      ResponseCache.Entry entry = cache.lookup(list, command);
+      assertTrue(cache.isFresh(entry));
+      assertEquals(entry.getResult(), "images");
+      assertSame(command.getCurrentRequest(), listRequest);
+   }
+
+   public void testStaleResultIsRevalidated() {
+      FakeTicker ticker = new FakeTicker();
+      ResponseCache cache = cache(ticker);
+      cache.put(list, listRequest, tagged, "images");
+      ticker.nanos = TimeUnit.SECONDS.toNanos(60);
+
+      HttpCommand command = new HttpCommand(listRequest);
+      ResponseCache.Entry entry = cache.lookup(list, command);
+      assertFalse(cache.isFresh(entry));
+      assertEquals(command.getCurrentRequest().getFirstHeaderOrNull("If-None-Match"), "\"1\"");
+      assertEquals(command.getCurrentRequest().getFirstHeaderOrNull("If-Modified-Since"),
+            "Sat, 17 Oct 2026 10:00:00 GMT");
+
+      assertEquals(cache.notModified(entry), "images");
+      assertTrue(cache.isFresh(entry));
+      // the conditional headers are not part of the key
+      assertSame(cache.lookup(list, command), entry);
+   }
+
+   public void testStaleResultWithoutValidatorIsNotRevalidated() {
+      FakeTicker ticker = new FakeTicker();
+      ResponseCache cache = cache(ticker);
+      cache.put(list, listRequest, ok, "images");
+      ticker.nanos = TimeUnit.SECONDS.toNanos(60);
+
+      HttpCommand command = new HttpCommand(listRequest);
+      assertFalse(cache.isFresh(cache.lookup(list, command)));
+      assertNull(command.getCurrentRequest().getFirstHeaderOrNull("If-None-Match"));
+   }
+
+   public void testOnlyAnnotatedMethodsAreCached() {
+      ResponseCache cache = cache(new FakeTicker());
+      HttpRequest getRequest = get("http://host/v2/t/images/1");
+      cache.put(download, getRequest, tagged, "bytes");
+      cache.put(flavors, listRequest, tagged, "flavors");
+      assertNull(cache.lookup(download, new HttpCommand(getRequest)));
+      assertNull(cache.lookup(flavors, new HttpCommand(listRequest)));
+   }
+
+   public void testResultIsKeyedOnMethodAndRequest() {
+      ResponseCache cache = cache(new FakeTicker());
+      cache.put(get, get("http://host/v2/t/images/1"), ok, "one");
+      assertNull(cache.lookup(get, new HttpCommand(get("http://host/v2/t/images/2"))));
+      assertNull(cache.lookup(list, new HttpCommand(get("http://host/v2/t/images/1"))));
+      assertNull(cache.lookup(get, new HttpCommand(get("http://host/v2/t/images/1").toBuilder()
+            .addHeader("Accept", "application/xml").build())));
+      assertEquals(cache.lookup(get, new HttpCommand(get("http://host/v2/t/images/1"))).getResult(), "one");
+   }
+
+   public void testNoStoreIsHonored() {
+      ResponseCache cache = cache(new FakeTicker());
+      cache.put(list, listRequest, tagged.toBuilder().addHeader("Cache-Control", "private, no-store").build(),
+            "images");
+      assertNull(cache.lookup(list, new HttpCommand(listRequest)));
+   }
+
+   public void testChangesDropResultsBelowTheParentPath() {
+      ResponseCache cache = cache(new FakeTicker());
+      HttpRequest image = get("http://host/v2/t/images/1");
+      HttpRequest other = get("http://host/v2/t/images2");
+      cache.put(list, listRequest, ok, "images");
+      cache.put(get, image, ok, "one");
+      cache.put(get, other, ok, "other");
+
+      cache.lookup(get, new HttpCommand(HttpRequest.builder().method("HEAD").endpoint("http://host/v2/t/images/1")
+            .build()));
+      assertEquals(cache.getStats().hitCount(), 0);
+      assertEquals(cache.lookup(list, new HttpCommand(listRequest)).getResult(), "images");
+
+      cache.lookup(get, new HttpCommand(HttpRequest.builder().method("DELETE")
+            .endpoint("http://host/v2/t/images/1").build()));
+      assertNull(cache.lookup(list, new HttpCommand(listRequest)));
+      assertNull(cache.lookup(get, new HttpCommand(image)));
+      assertEquals(cache.lookup(get, new HttpCommand(other)).getResult(), "other");
+   }
+
+   public void testNotModified() {
+      HttpCommand command = new HttpCommand(listRequest);
+      assertTrue(ResponseCache.isNotModified(new RuntimeException(new HttpResponseException(command, HttpResponse
+            .builder().statusCode(304).build()))));
+      assertFalse(ResponseCache.isNotModified(new HttpResponseException(command, HttpResponse.builder()
+            .statusCode(404).build())));
+      assertFalse(ResponseCache.isNotModified(new IllegalStateException()));
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.google.common.primitives.Chars;
+
+@Test(groups = "unit", testName = "PercentEncoderTest")
+public class PercentEncoderTest {
+
+   /**
+    * the implementation of {@link Strings2#urlEncode(String, char...)} before it used the encoder
+    */
+   private static String urlEncoder(String in, char... skipEncode) throws UnsupportedEncodingException {
+      if (in.matches(".*%[a-fA-F0-9][a-fA-F0-9].*"))
+         return in;
+      String returnVal = URLEncoder.encode(in, "UTF-8");
+      returnVal = returnVal.replace("+", "%20");
+      returnVal = returnVal.replace("*", "%2A");
+      for (char c : skipEncode) {
+         returnVal = returnVal.replace(URLEncoder.encode(c + "", "UTF-8"), c + "");
+      }
+      return returnVal;
+   }
+
+   public void testMatchesUrlEncoder() throws UnsupportedEncodingException {
+      char[][] skips = { {}, { '/' }, { '/', ',' }, { '/', ':', ';', '=' }, { ' ', '*', '+', '%' }, { '\u00e9' } };
+      char[] alphabet = ("aZ09.-_*~ /:;=,+&?%#()[]{}'\""
+            + "\u00e9\u00ff\u0100\u07ff\u0800\u20ac\uffff\ud83d\ude00\n").toCharArray();
+      Random random = new Random(42);
+      for (int i = 0; i < 5000; i++) {
+         char[] in = new char[random.nextInt(20)];
+         for (int j = 0; j < in.length; j++)
+            in[j] = alphabet[random.nextInt(alphabet.length)];
+         String input = new String(in);
+         for (char[] skip : skips)
+            assertEquals(PercentEncoder.skipping(skip).encode(input), urlEncoder(input, skip),
+                  input + " skipping " + Chars.asList(skip));
+      }
+   }
+
+   public void testLongInputMatchesUrlEncoder() throws UnsupportedEncodingException {
+      // long enough to be encoded in chunks, with surrogate pairs landing on the chunk boundaries
+      char[] alphabet = "a /\u00e9\u20ac\ud83d\ude00\ud83d\ude00".toCharArray();
+      Random random = new Random(42);
+      for (int i = 0; i < 200; i++) {
+         char[] in = new char[100 + random.nextInt(1000)];
+         for (int j = 0; j < in.length; j++)
+            in[j] = alphabet[random.nextInt(alphabet.length)];
+         String input = new String(in);
+         assertEquals(PercentEncoder.skipping('/').encode(input), urlEncoder(input, '/'), input);
+         assertEquals(PercentEncoder.skipping('/').appendEncoded(new StringBuilder("x"), input).toString(),
+               "x" + urlEncoder(input, '/'), input);
+      }
+   }
+
+   public void testSurrogatePairs() {
+      assertEquals(PercentEncoder.skipping().encode("\ud83d\ude00"), "%F0%9F%98%80");
+      assertEquals(PercentEncoder.skipping().encode("a\ud83d"), "a%3F");
+      assertEquals(PercentEncoder.skipping().encode("\ude00b"), "%3Fb");
+   }
+
+   public void testPlainInputIsNotCopied() {
+      String plain = "photos-2015.holiday_pictures/beach";
+      assertSame(PercentEncoder.skipping('/').encode(plain), plain);
+   }
+
+   public void testEncodedInputIsNotEncodedAgain() {
+      assertEquals(PercentEncoder.skipping('/').encode("/a b/%20"), "/a b/%20");
+      assertEquals(PercentEncoder.skipping('/').encode("/a b/%2"), "/a%20b/%252");
+   }
+
+   public void testEncodersAreSharedPerSkipSet() {
+      assertSame(PercentEncoder.skipping('/', ','), PercentEncoder.skipping('/', ','));
+      assertSame(PercentEncoder.skipping(Chars.asList('/', ',')), PercentEncoder.skipping('/', ','));
+      assertSame(PercentEncoder.skipping(Chars.asList()), PercentEncoder.skipping());
+   }
+
+   public void testAppendEncoded() {
+      StringBuilder builder = new StringBuilder("https://host");
+      PercentEncoder.skipping('/').appendEncoded(builder, "/a b/c");
+      PercentEncoder.skipping('/').appendEncoded(builder, "/d");
+      assertEquals(builder.toString(), "https://host/a%20b/c/d");
+   }
+
+   public void testLongInput() {
+      StringBuilder in = new StringBuilder();
+      for (int i = 0; i < 2000; i++)
+         in.append("\u20ac ");
+      String encoded = PercentEncoder.skipping().encode(in.toString());
+      assertEquals(encoded.length(), 2000 * 12);
+      assertTrue(encoded.startsWith("%E2%82%AC%20"));
+   }
+
+   public void testIsUrlEncoded() {
+      assertTrue(Strings2.isUrlEncoded("%aF"));
+      assertFalse(Strings2.isUrlEncoded("%a"));
+      assertFalse(Strings2.isUrlEncoded("%ag"));
+      // the regular expression this replaced did not match across lines
+      assertFalse(Strings2.isUrlEncoded("%20\n"));
+   }
+}
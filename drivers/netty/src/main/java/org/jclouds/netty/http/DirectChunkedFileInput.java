@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+/**
+ * Reads a region of a file into direct buffers, which the ssl engine encrypts without first copying them out of the
+ * heap. Closes the file when the region is written or the write fails.
+ */
+final class DirectChunkedFileInput implements ChunkedInput {
+   private final FileChannel file;
+   private final long end;
+   private final int chunkSize;
+   private long offset;
+
+   DirectChunkedFileInput(FileChannel file, long position, long length, int chunkSize) {
+      this.file = file;
+      this.offset = position;
+      this.end = position + length;
+      this.chunkSize = chunkSize;
+   }
+
+   @Override
+   public boolean hasNextChunk() {
+      return offset < end && file.isOpen();
+   }
+
+   @Override
+   public Object nextChunk() throws Exception {
+      if (offset >= end)
+         return null;
+      ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(chunkSize, end - offset));
+      while (buffer.hasRemaining()) {
+         if (file.read(buffer, offset + buffer.position()) < 0)
+            throw new EOFException("file ended " + (end - offset - buffer.position()) + " bytes before the payload");
+      }
+      buffer.flip();
+      offset += buffer.remaining();
+      return ChannelBuffers.wrappedBuffer(buffer);
+   }
+
+   @Override
+   public boolean isEndOfInput() {
+      return !hasNextChunk();
+   }
+
+   @Override
+   public void close() throws Exception {
+      file.close();
+   }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+/**
+ * Wraps a {@link ChunkedInput} of {@link ChannelBuffer}s as http chunks, ending with the last chunk, for requests
+ * sent with {@code Transfer-Encoding: chunked}.
+ */
+final class HttpChunkedInput implements ChunkedInput {
+   private final ChunkedInput input;
+   private boolean lastChunkSent;
+
+   HttpChunkedInput(ChunkedInput input) {
+      this.input = input;
+   }
+
+   @Override
+   public boolean hasNextChunk() throws Exception {
+      return !lastChunkSent;
+   }
+
+   @Override
+   public Object nextChunk() throws Exception {
+      if (lastChunkSent)
+         return null;
+      if (input.hasNextChunk()) {
+         ChannelBuffer buffer = (ChannelBuffer) input.nextChunk();
+         if (buffer != null)
+            return new DefaultHttpChunk(buffer);
+      }
+      if (input.isEndOfInput()) {
+         lastChunkSent = true;
+         return HttpChunk.LAST_CHUNK;
+      }
+      return null;
+   }
+
+   @Override
+   public boolean isEndOfInput() throws Exception {
+      return lastChunkSent;
+   }
+
+   @Override
+   public void close() throws Exception {
+      input.close();
+   }
+}
@@ -0,0 +1,527 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
+import static com.google.common.net.HttpHeaders.EXPECT;
+import static com.google.common.net.HttpHeaders.HOST;
+import static com.google.common.net.HttpHeaders.TRANSFER_ENCODING;
+import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
+import static org.jclouds.http.internal.JavaUrlHttpCommandExecutorService.DEFAULT_USER_AGENT;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandler.Sharable;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.DefaultFileRegion;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.ClientSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.stream.ChunkedStream;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
+import org.jboss.netty.handler.timeout.ReadTimeoutHandler;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timer;
+import org.jclouds.Constants;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.handlers.AdaptiveRateLimiter;
+import org.jclouds.http.handlers.CircuitBreaker;
+import org.jclouds.http.handlers.DelegatingErrorHandler;
+import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryBudget;
+import org.jclouds.http.internal.BaseAsyncHttpCommandExecutorService;
+import org.jclouds.http.internal.HostConnectionLimiter;
+import org.jclouds.http.internal.HttpWire;
+import org.jclouds.instrumentation.Instrumentation;
+import org.jclouds.io.ContentMetadataCodec;
+import org.jclouds.io.FileChannelPayload;
+import org.jclouds.io.MutableContentMetadata;
+import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.DelegatingPayload;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+/**
+ * Non-blocking http driver built on Netty.
+ * <p>
+ * Requests are written from Netty's I/O threads and the returned future completes when the response headers arrive;
+ * the body streams through a {@link ResponseInputStream}. Keep-alive connections are pooled per scheme, host and port.
+ * Proxies are not supported.
+ */
+@Singleton
+public class NettyHttpCommandExecutorService extends BaseAsyncHttpCommandExecutorService<HttpRequest> {
+
+   private static final int CHUNK_SIZE = 8192;
+   private static final int FILE_CHUNK_SIZE = 64 * 1024;
+
+   private final Supplier<SSLContext> untrustedSSLContextProvider;
+   @Inject(optional = true)
+   protected Supplier<SSLContext> sslContextSupplier;
+
+   private final ClientSocketChannelFactory channelFactory;
+   private final Timer timer;
+   private final ResponseHandler responseHandler = new ResponseHandler();
+   private final ConcurrentMap<String, Queue<Channel>> idleChannels = Maps.newConcurrentMap();
+   private final ChannelGroup openChannels = new DefaultChannelGroup(getClass().getSimpleName());
+
+   @Inject
+   public NettyHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+         DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+         DelegatingErrorHandler errorHandler, HttpWire wire, HostConnectionLimiter connectionLimiter,
+         AdaptiveRateLimiter rateLimiter, CircuitBreaker circuitBreaker, RetryBudget retryBudget,
+         Instrumentation instrumentation, @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         @Named("untrusted") Supplier<SSLContext> untrustedSSLContextProvider) {
+      super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, connectionLimiter,
+            rateLimiter, circuitBreaker, retryBudget, instrumentation, userExecutor);
+      this.untrustedSSLContextProvider = checkNotNull(untrustedSSLContextProvider, "untrustedSSLContextProvider");
+      this.channelFactory = new NioClientSocketChannelFactory(
+            Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("netty-boss-%d").setDaemon(true)
+                  .build()),
+            Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("netty-worker-%d")
+                  .setDaemon(true).build()));
+      this.timer = new HashedWheelTimer(new ThreadFactoryBuilder().setNameFormat("netty-timer-%d").setDaemon(true)
+            .build());
+   }
+
+   @Override
+   protected HttpRequest convert(HttpRequest request) {
+      return request;
+   }
+
+   @Override
+   protected void cleanup(HttpRequest request) {
+   }
+
+   @Override
+   protected ListenableFuture<HttpResponse> invokeAsync(final HttpRequest request) {
+      final URI endpoint = request.getEndpoint();
+      final Exchange exchange = new Exchange(poolKey(endpoint));
+      Channel idle = pollIdleChannel(exchange.poolKey);
+      if (idle != null) {
+         send(idle, request, exchange);
+      } else {
+         connect(endpoint, exchange);
+         exchange.connected.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+               if (future.isSuccess())
+                  send(future.getChannel(), request, exchange);
+               else
+                  exchange.fail(future.getCause());
+            }
+         });
+      }
+      exchange.response.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (exchange.response.isCancelled() && exchange.channel != null)
+               exchange.channel.close();
+         }
+      }, sameThreadExecutor());
+      return exchange.response;
+   }
+
+   private void connect(URI endpoint, final Exchange exchange) {
+      boolean ssl = "https".equalsIgnoreCase(endpoint.getScheme());
+      String host = endpoint.getHost();
+      int port = port(endpoint);
+      ChannelPipeline pipeline = Channels.pipeline();
+      if (utils.getSocketOpenTimeout() > 0)
+         pipeline.addLast("timeout", new ReadTimeoutHandler(timer, utils.getSocketOpenTimeout(), MILLISECONDS));
+      final SslHandler sslHandler;
+      try {
+         sslHandler = ssl ? new SslHandler(sslEngine(host, port)) : null;
+      } catch (GeneralSecurityException e) {
+         throw new IllegalStateException("could not create an ssl engine for " + endpoint, e);
+      }
+      if (sslHandler != null)
+         pipeline.addLast("ssl", sslHandler);
+      pipeline.addLast("codec", new HttpClientCodec());
+      pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
+      pipeline.addLast("handler", responseHandler);
+
+      Channel channel = channelFactory.newChannel(pipeline);
+      openChannels.add(channel);
+      channel.getConfig().setConnectTimeoutMillis(utils.getConnectionTimeout());
+      exchange.channel = channel;
+      ChannelFuture connected = channel.connect(new InetSocketAddress(host, port));
+      if (sslHandler == null) {
+         exchange.connected = connected;
+         return;
+      }
+      final ChannelFuture handshaken = Channels.future(channel);
+      exchange.connected = handshaken;
+      connected.addListener(new ChannelFutureListener() {
+         @Override
+         public void operationComplete(ChannelFuture future) {
+            if (!future.isSuccess()) {
+               handshaken.setFailure(future.getCause());
+               return;
+            }
+            sslHandler.handshake().addListener(new ChannelFutureListener() {
+               @Override
+               public void operationComplete(ChannelFuture future) {
+                  if (future.isSuccess())
+                     handshaken.setSuccess();
+                  else
+                     handshaken.setFailure(future.getCause());
+               }
+            });
+         }
+      });
+   }
+
+   private SSLEngine sslEngine(String host, int port) throws GeneralSecurityException {
+      SSLContext context;
+      if (sslContextSupplier != null) {
+         // used for providers which e.g. use certs for authentication (like FGCP)
+         context = sslContextSupplier.get();
+      } else if (utils.trustAllCerts()) {
+         context = untrustedSSLContextProvider.get();
+      } else {
+         context = SSLContext.getDefault();
+      }
+      SSLEngine engine = context.createSSLEngine(host, port);
+      engine.setUseClientMode(true);
+      if (!utils.relaxHostname())
+         enableHostnameVerification(engine);
+      return engine;
+   }
+
+   /**
+    * {@link SSLEngine} only checks the server hostname when asked to through
+    * {@code SSLParameters.setEndpointIdentificationAlgorithm}, which is not available before Java 7.
+    */
+   private static void enableHostnameVerification(SSLEngine engine) {
+      SSLParameters parameters = engine.getSSLParameters();
+      try {
+         SSLParameters.class.getMethod("setEndpointIdentificationAlgorithm", String.class).invoke(parameters,
+               "HTTPS");
+      } catch (Exception e) {
+         throw new IllegalStateException("Verifying the server hostname requires Java 7 or later. Set "
+               + Constants.PROPERTY_RELAX_HOSTNAME + " to skip verification.", e);
+      }
+      engine.setSSLParameters(parameters);
+   }
+
+   private void send(Channel channel, HttpRequest request, final Exchange exchange) {
+      exchange.channel = channel;
+      channel.setAttachment(exchange);
+      ChannelFuture written;
+      try {
+         written = write(channel, request);
+      } catch (IOException e) {
+         exchange.fail(e);
+         channel.close();
+         return;
+      }
+      written.addListener(new ChannelFutureListener() {
+         @Override
+         public void operationComplete(ChannelFuture future) {
+            if (future.isSuccess()) {
+               exchange.requestWritten();
+            } else {
+               exchange.fail(future.getCause());
+               future.getChannel().close();
+            }
+         }
+      });
+   }
+
+   private ChannelFuture write(Channel channel, HttpRequest request) throws IOException {
+      URI endpoint = request.getEndpoint();
+      String uri = endpoint.getRawPath() == null || endpoint.getRawPath().isEmpty() ? "/" : endpoint.getRawPath();
+      if (endpoint.getRawQuery() != null)
+         uri += "?" + endpoint.getRawQuery();
+      org.jboss.netty.handler.codec.http.HttpRequest nativeRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+            HttpMethod.valueOf(request.getMethod()), uri);
+      for (Map.Entry<String, String> entry : request.getHeaders().entries()) {
+         nativeRequest.addHeader(entry.getKey(), entry.getValue());
+      }
+      // the response to an expectation would arrive before the body is written, which this driver does not handle
+      nativeRequest.removeHeader(EXPECT);
+      String host = endpoint.getHost();
+      if (endpoint.getPort() != -1)
+         host += ":" + endpoint.getPort();
+      nativeRequest.setHeader(HOST, host);
+      if (!nativeRequest.containsHeader(USER_AGENT))
+         nativeRequest.setHeader(USER_AGENT, DEFAULT_USER_AGENT);
+
+      Payload payload = request.getPayload();
+      if (payload == null) {
+         if (!HttpRequest.NON_PAYLOAD_METHODS.contains(request.getMethod()))
+            nativeRequest.setHeader(CONTENT_LENGTH, "0");
+         return channel.write(nativeRequest);
+      }
+      MutableContentMetadata md = payload.getContentMetadata();
+      for (Map.Entry<String, String> entry : contentMetadataCodec.toHeaders(md).entries()) {
+         nativeRequest.setHeader(entry.getKey(), entry.getValue());
+      }
+      if ("chunked".equals(request.getFirstHeaderOrNull(TRANSFER_ENCODING))) {
+         nativeRequest.setChunked(true);
+         channel.write(nativeRequest);
+         return channel.write(new HttpChunkedInput(new ChunkedStream(payload.openStream(), CHUNK_SIZE)));
+      }
+      Long length = checkNotNull(md.getContentLength(), "payload.getContentLength");
+      nativeRequest.setHeader(CONTENT_LENGTH, length.toString());
+      if (length == 0)
+         return channel.write(nativeRequest);
+      Payload unwrapped = payload instanceof DelegatingPayload ? DelegatingPayload.class.cast(payload).getDelegate()
+            : payload;
+      if (unwrapped instanceof FileChannelPayload)
+         return writeFile(channel, nativeRequest, FileChannelPayload.class.cast(unwrapped), length);
+      InputStream in = payload.openStream();
+      channel.write(nativeRequest);
+      return channel.write(new ChunkedStream(in, CHUNK_SIZE));
+   }
+
+   /**
+    * Plain connections send the file with {@link FileChannel#transferTo}, so its bytes never enter the heap. TLS has
+    * to encrypt them, so they are read into direct buffers instead.
+    */
+   private ChannelFuture writeFile(Channel channel, org.jboss.netty.handler.codec.http.HttpRequest nativeRequest,
+         FileChannelPayload payload, long length) throws IOException {
+      FileChannel file = payload.openChannel();
+      channel.write(nativeRequest);
+      if (channel.getPipeline().get(SslHandler.class) == null)
+         return channel.write(new DefaultFileRegion(file, payload.getPosition(), length, true));
+      return channel.write(new DirectChunkedFileInput(file, payload.getPosition(), length, FILE_CHUNK_SIZE));
+   }
+
+   private HttpResponse toResponse(org.jboss.netty.handler.codec.http.HttpResponse nativeResponse, InputStream in) {
+      HttpResponse.Builder<?> builder = HttpResponse.builder();
+      builder.statusCode(nativeResponse.getStatus().getCode());
+      builder.message(nativeResponse.getStatus().getReasonPhrase());
+      ImmutableMultimap.Builder<String, String> headerBuilder = ImmutableMultimap.builder();
+      for (Map.Entry<String, String> entry : nativeResponse.getHeaders()) {
+         headerBuilder.put(entry.getKey(), entry.getValue());
+      }
+      ImmutableMultimap<String, String> headers = headerBuilder.build();
+      if (nativeResponse.getStatus().getCode() != 204) {
+         Payload payload = newInputStreamPayload(in);
+         contentMetadataCodec.fromHeaders(payload.getContentMetadata(), headers);
+         builder.payload(payload);
+      }
+      builder.headers(filterOutContentHeaders(headers));
+      return builder.build();
+   }
+
+   private Channel pollIdleChannel(String poolKey) {
+      Queue<Channel> channels = idleChannels.get(poolKey);
+      if (channels == null)
+         return null;
+      Channel channel;
+      while ((channel = channels.poll()) != null) {
+         if (channel.isConnected())
+            return channel;
+      }
+      return null;
+   }
+
+   private void release(String poolKey, Channel channel) {
+      channel.setAttachment(null);
+      if (!channel.isReadable())
+         channel.setReadable(true);
+      Queue<Channel> channels = idleChannels.get(poolKey);
+      if (channels == null) {
+         Queue<Channel> created = new ConcurrentLinkedQueue<Channel>();
+         channels = idleChannels.putIfAbsent(poolKey, created);
+         if (channels == null)
+            channels = created;
+      }
+      channels.add(channel);
+   }
+
+   private static String poolKey(URI endpoint) {
+      return endpoint.getScheme().toLowerCase() + "://" + endpoint.getHost() + ":" + port(endpoint);
+   }
+
+   private static int port(URI endpoint) {
+      if (endpoint.getPort() != -1)
+         return endpoint.getPort();
+      return "https".equalsIgnoreCase(endpoint.getScheme()) ? 443 : 80;
+   }
+
+   @PreDestroy
+   public void close() {
+      idleChannels.clear();
+      openChannels.close().awaitUninterruptibly();
+      channelFactory.releaseExternalResources();
+      timer.stop();
+   }
+
+   /**
+    * State of one request and response on a channel, attached to the channel while in flight.
+    */
+   private final class Exchange {
+      private final String poolKey;
+      private final SettableFuture<HttpResponse> response = SettableFuture.create();
+      private volatile Channel channel;
+      private ChannelFuture connected;
+      private ResponseInputStream body;
+      private boolean keepAlive;
+      private boolean requestWritten;
+      private boolean responseReceived;
+
+      private Exchange(String poolKey) {
+         this.poolKey = poolKey;
+      }
+
+      void headersReceived(org.jboss.netty.handler.codec.http.HttpResponse nativeResponse) {
+         keepAlive = HttpHeaders.isKeepAlive(nativeResponse);
+         if (nativeResponse.isChunked()) {
+            body = new ResponseInputStream(channel);
+            response.set(toResponse(nativeResponse, body));
+         } else {
+            response.set(toResponse(nativeResponse, new ChannelBufferInputStream(nativeResponse.getContent())));
+            responseReceived();
+         }
+      }
+
+      void chunkReceived(HttpChunk chunk) {
+         if (body == null)
+            return;
+         body.append(chunk.getContent());
+         if (chunk.isLast()) {
+            body.finish();
+            responseReceived();
+         }
+      }
+
+      void requestWritten() {
+         boolean done;
+         synchronized (this) {
+            requestWritten = true;
+            done = responseReceived;
+         }
+         if (done)
+            complete();
+      }
+
+      private void responseReceived() {
+         boolean done;
+         synchronized (this) {
+            responseReceived = true;
+            done = requestWritten;
+         }
+         if (done)
+            complete();
+      }
+
+      private void complete() {
+         if (keepAlive && channel.isConnected())
+            release(poolKey, channel);
+         else
+            channel.close();
+      }
+
+      void fail(Throwable cause) {
+         IOException e = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+         if (!response.setException(e) && body != null)
+            body.fail(e);
+      }
+   }
+
+   @Sharable
+   private final class ResponseHandler extends SimpleChannelUpstreamHandler {
+
+      @Override
+      public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange == null)
+            return;
+         Object message = e.getMessage();
+         if (message instanceof org.jboss.netty.handler.codec.http.HttpResponse) {
+            org.jboss.netty.handler.codec.http.HttpResponse nativeResponse =
+                  (org.jboss.netty.handler.codec.http.HttpResponse) message;
+            // interim response; the final one follows
+            if (nativeResponse.getStatus().getCode() == 100)
+               return;
+            exchange.headersReceived(nativeResponse);
+         } else if (message instanceof HttpChunk) {
+            exchange.chunkReceived((HttpChunk) message);
+         }
+      }
+
+      @Override
+      public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange != null)
+            exchange.fail(e.getCause());
+         else
+            logger.trace("closing idle channel %s: %s", ctx.getChannel(), e.getCause());
+         ctx.getChannel().close();
+      }
+
+      @Override
+      public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+         Exchange exchange = (Exchange) ctx.getChannel().getAttachment();
+         if (exchange != null)
+            exchange.fail(new IOException("connection to " + exchange.poolKey + " closed"));
+      }
+   }
+}
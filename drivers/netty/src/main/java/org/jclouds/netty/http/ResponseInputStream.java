@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+
+/**
+ * Response body fed by the I/O thread as chunks arrive and drained by the caller.
+ * <p>
+ * Reading from the channel is suspended while more than {@link #HIGH_WATER_MARK} bytes are buffered and resumed once
+ * the caller drains below {@link #LOW_WATER_MARK}, so a slow consumer does not buffer the whole body in memory.
+ * Closing the stream before the body is complete closes the connection.
+ */
+final class ResponseInputStream extends InputStream {
+   static final int HIGH_WATER_MARK = 1024 * 1024;
+   static final int LOW_WATER_MARK = 256 * 1024;
+
+   private final Channel channel;
+   private final Deque<ChannelBuffer> buffers = new ArrayDeque<ChannelBuffer>();
+   private long buffered;
+   private boolean finished;
+   private boolean closed;
+   private IOException failure;
+
+   ResponseInputStream(Channel channel) {
+      this.channel = channel;
+   }
+
+   void append(ChannelBuffer buffer) {
+      if (!buffer.readable())
+         return;
+      boolean suspend;
+      synchronized (this) {
+         if (closed || finished)
+            return;
+         buffers.add(buffer);
+         buffered += buffer.readableBytes();
+         suspend = buffered > HIGH_WATER_MARK;
+         notifyAll();
+      }
+      if (suspend)
+         channel.setReadable(false);
+   }
+
+   synchronized void finish() {
+      finished = true;
+      notifyAll();
+   }
+
+   synchronized void fail(IOException e) {
+      if (finished)
+         return;
+      failure = e;
+      finished = true;
+      notifyAll();
+   }
+
+   @Override
+   public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0)
+         return 0;
+      int n;
+      boolean resume;
+      synchronized (this) {
+         while (buffers.isEmpty()) {
+            if (closed)
+               throw new IOException("stream closed");
+            if (failure != null)
+               throw failure;
+            if (finished)
+               return -1;
+            try {
+               wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new InterruptedIOException("interrupted reading response from " + channel.getRemoteAddress());
+            }
+         }
+         ChannelBuffer head = buffers.peek();
+         n = Math.min(len, head.readableBytes());
+         head.readBytes(b, off, n);
+         if (!head.readable())
+            buffers.poll();
+         buffered -= n;
+         resume = !finished && buffered < LOW_WATER_MARK;
+      }
+      if (resume && !channel.isReadable())
+         channel.setReadable(true);
+      return n;
+   }
+
+   @Override
+   public synchronized int available() {
+      return (int) Math.min(buffered, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public void close() {
+      boolean abort;
+      synchronized (this) {
+         if (closed)
+            return;
+         closed = true;
+         abort = !finished;
+         buffers.clear();
+         buffered = 0;
+         notifyAll();
+      }
+      if (abort)
+         channel.close();
+   }
+}
@@ -16,20 +16,15 @@
  */
 package org.jclouds.netty.io;
 
-import java.io.File;
-
 import javax.inject.Singleton;
 
-import org.jclouds.io.Payload;
-import org.jclouds.io.Payloads;
 import org.jclouds.io.internal.BasePayloadSlicer;
 
+/**
+ * Slices files into {@link org.jclouds.io.payloads.FileRegionPayload}s, which the netty http driver sends as file
+ * regions rather than streaming them through {@link ChunkedFileInputStream}.
+ */
 @Singleton
 public class NettyPayloadSlicer extends BasePayloadSlicer {
 
-   @Override
-   protected Payload doSlice(File content, long offset, long length) {
-      return Payloads.newInputStreamPayload(new ChunkedFileInputStream(content, offset, length));
-   }
-
 }
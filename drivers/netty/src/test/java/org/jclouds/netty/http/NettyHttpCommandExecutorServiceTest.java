@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.netty.http;
+
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+import static org.jclouds.Constants.PROPERTY_RELAX_HOSTNAME;
+import static org.jclouds.Constants.PROPERTY_TRUST_ALL_CERTS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.util.Closeables2.closeQuietly;
+import static org.jclouds.util.Strings2.toStringAndClose;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.concurrent.config.ScheduledExecutorServiceModule;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.BaseHttpCommandExecutorServiceIntegrationTest;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.io.payloads.FileRegionPayload;
+import org.jclouds.netty.config.NettyHttpCommandExecutorServiceModule;
+import org.jclouds.providers.AnonymousProviderMetadata;
+import org.jclouds.utils.TestUtils;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Tests the functionality of the {@link NettyHttpCommandExecutorService}
+ */
+@Test
+public class NettyHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorServiceIntegrationTest {
+
+   @Override
+   protected Module createConnectionModule() {
+      return new NettyHttpCommandExecutorServiceModule();
+   }
+
+   @Override
+   protected void addOverrideProperties(final Properties props) {
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT, 50 + "");
+      props.setProperty(PROPERTY_MAX_CONNECTIONS_PER_HOST, 0 + "");
+      props.setProperty(PROPERTY_USER_THREADS, 5 + "");
+   }
+
+   private Injector injector(String url, Module... modules) {
+      Properties properties = new Properties();
+      properties.setProperty(PROPERTY_TRUST_ALL_CERTS, "true");
+      properties.setProperty(PROPERTY_RELAX_HOSTNAME, "true");
+      addOverrideProperties(properties);
+      return ContextBuilder.newBuilder(AnonymousProviderMetadata.forApiOnEndpoint(IntegrationTestClient.class, url))
+            .modules(ImmutableList.<Module> builder().add(createConnectionModule()).add(modules).build())
+            .overrides(properties).buildInjector();
+   }
+
+   @Test
+   public void testSyncAndAsyncServicesAreTheSameDriver() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse());
+      try {
+         Injector injector = injector(server.getUrl("/").toString());
+         assertSame(injector.getInstance(HttpCommandExecutorService.class),
+               injector.getInstance(AsyncHttpCommandExecutorService.class));
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testSubmitRetriesAndReusesConnection() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500), new MockResponse().setBody("foo"),
+            new MockResponse().setBody("bar"));
+      try {
+         AsyncHttpCommandExecutorService http = injector(server.getUrl("/").toString()).getInstance(
+               AsyncHttpCommandExecutorService.class);
+         HttpRequest request = HttpRequest.builder().method("GET").endpoint(server.getUrl("/objects").toURI())
+               .build();
+         HttpResponse response = http.submit(new HttpCommand(request)).get();
+         assertEquals(toStringAndClose(response.getPayload().openStream()), "foo");
+         response = http.submit(new HttpCommand(request)).get();
+         assertEquals(toStringAndClose(response.getPayload().openStream()), "bar");
+         assertEquals(server.getRequestCount(), 3);
+         assertEquals(server.takeRequest().getSequenceNumber(), 0);
+         assertEquals(server.takeRequest().getSequenceNumber(), 1);
+         assertEquals(server.takeRequest().getSequenceNumber(), 2);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testSubmitSchedulesBackoffOnScheduler() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(503),
+            new MockResponse().setResponseCode(503), new MockResponse().setBody("foo"));
+      try {
+         AsyncHttpCommandExecutorService http = injector(server.getUrl("/").toString(),
+               new ScheduledExecutorServiceModule()).getInstance(AsyncHttpCommandExecutorService.class);
+         HttpRequest request = HttpRequest.builder().method("GET").endpoint(server.getUrl("/objects").toURI())
+               .build();
+         HttpCommand command = new HttpCommand(request);
+         HttpResponse response = http.submit(command).get();
+         assertEquals(toStringAndClose(response.getPayload().openStream()), "foo");
+         assertTrue(command.isBackoffDeferred());
+         assertEquals(command.getFailureCount(), 2);
+         assertEquals(server.getRequestCount(), 3);
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testSubmitRetriesOffTheUserExecutorWhenSchedulerIsBound() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(503),
+            new MockResponse().setResponseCode(503), new MockResponse().setBody("foo"));
+      final AtomicInteger userTasks = new AtomicInteger();
+      ExecutorService userExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>()) {
+         @Override
+         protected void beforeExecute(Thread t, Runnable r) {
+            userTasks.incrementAndGet();
+         }
+      };
+      try {
+         AsyncHttpCommandExecutorService http = injector(server.getUrl("/").toString(),
+               new ExecutorServiceModule(userExecutor), new ScheduledExecutorServiceModule()).getInstance(
+               AsyncHttpCommandExecutorService.class);
+         HttpRequest request = HttpRequest.builder().method("GET").endpoint(server.getUrl("/objects").toURI())
+               .build();
+         HttpCommand command = new HttpCommand(request);
+         HttpResponse response = http.submit(command).get();
+         assertEquals(toStringAndClose(response.getPayload().openStream()), "foo");
+         assertEquals(command.getFailureCount(), 2);
+         assertEquals(userTasks.get(), 0);
+      } finally {
+         userExecutor.shutdownNow();
+         server.shutdown();
+      }
+   }
+
+   @Test
+   public void testSubmitFansOutWithoutBlocking() throws Exception {
+      int requests = 20;
+      MockWebServer server = mockWebServer();
+      for (int i = 0; i < requests; i++) {
+         server.enqueue(new MockResponse().setBody("response" + i));
+      }
+      try {
+         AsyncHttpCommandExecutorService http = injector(server.getUrl("/").toString()).getInstance(
+               AsyncHttpCommandExecutorService.class);
+         ImmutableList.Builder<ListenableFuture<HttpResponse>> futures = ImmutableList.builder();
+         for (int i = 0; i < requests; i++) {
+            futures.add(http.submit(new HttpCommand(HttpRequest.builder().method("GET")
+                  .endpoint(server.getUrl("/" + i).toURI()).build())));
+         }
+         List<ListenableFuture<HttpResponse>> responses = futures.build();
+         for (ListenableFuture<HttpResponse> response : responses) {
+            assertEquals(response.get().getStatusCode(), 200);
+            response.get().getPayload().release();
+         }
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   @Test(expectedExceptions = HttpResponseException.class, expectedExceptionsMessageRegExp = ".*404.*")
+   public void testSubmitFailsWithErrorHandlerException() throws Throwable {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(404));
+      try {
+         AsyncHttpCommandExecutorService http = injector(server.getUrl("/").toString()).getInstance(
+               AsyncHttpCommandExecutorService.class);
+         HttpRequest request = HttpRequest.builder().method("GET").endpoint(server.getUrl("/missing").toURI())
+               .build();
+         try {
+            http.submit(new HttpCommand(request)).get();
+         } catch (ExecutionException e) {
+            throw e.getCause();
+         }
+      } finally {
+         server.shutdown();
+      }
+   }
+
+   @Test(expectedExceptions = HttpResponseException.class)
+   public void testConnectionRefusedFails() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse());
+      String url = server.getUrl("/").toString();
+      server.shutdown();
+      IntegrationTestClient client = api(IntegrationTestClient.class, url);
+      try {
+         client.download("");
+      } finally {
+         client.close();
+      }
+   }
+
+   @Test
+   public void testUploadFileRegion() throws Exception {
+      assertUploadsFileRegion(false);
+   }
+
+   @Test
+   public void testUploadFileRegionOverTls() throws Exception {
+      assertUploadsFileRegion(true);
+   }
+
+   private void assertUploadsFileRegion(boolean https) throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse());
+      if (https)
+         server.useHttps(sslContext.getSocketFactory(), false);
+      File file = File.createTempFile("jclouds", "tmp");
+      IntegrationTestClient client = api(IntegrationTestClient.class, server.getUrl("/").toString());
+      try {
+         ByteSource source = TestUtils.randomByteSource().slice(0, 1024 * 1024 + 17);
+         source.copyTo(Files.asByteSink(file));
+         long position = 4096 + 3;
+         long length = 512 * 1024 + 5;
+         client.postPayloadAndReturnHeaders("", new FileRegionPayload(file, position, length));
+         RecordedRequest request = server.takeRequest();
+         assertEquals(request.getHeader("Content-Length"), String.valueOf(length));
+         assertEquals(request.getBody(), source.slice(position, length).read());
+      } finally {
+         closeQuietly(client);
+         file.delete();
+         server.shutdown();
+      }
+   }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * Writes the {@code org.jclouds.internal.MetadataIndex} resources for the {@code ApiMetadata} and
+ * {@code ProviderMetadata} implementations registered with {@code @AutoService}.
+ * <p/>
+ * Ids are set inside builder constructors rather than declared on the class, so they are read from the {@code id(...)}
+ * calls in the syntax tree of each registered class, including its nested builder. The argument must be a string
+ * literal or a compile-time constant. Classes whose id cannot be determined that way, or that are compiled by a
+ * compiler without the {@link Trees} API, are left out of the index and are still found by the
+ * {@link java.util.ServiceLoader} scan at runtime.
+ * <p/>
+ * {@code AutoServiceProcessor} claims {@code @AutoService}, so this processor asks for every round and looks for the
+ * annotation itself; it never claims anything.
+ * <p/>
+ * This processor is only on the compile classpath of modules that declare an optional dependency on this artifact; it
+ * is not shipped in jclouds-core.
+ */
+@SupportedAnnotationTypes("*")
+public class MetadataIndexProcessor extends AbstractProcessor {
+
+   static final String AUTO_SERVICE = "com.google.auto.service.AutoService";
+
+   /**
+    * Same as {@code org.jclouds.internal.MetadataIndex#INDEX_DIRECTORY}, which this artifact cannot depend on.
+    */
+   static final String INDEX_DIRECTORY = "META-INF/jclouds/index/";
+
+   static final Set<String> INDEXED_SERVICES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+         "org.jclouds.apis.ApiMetadata", "org.jclouds.providers.ProviderMetadata")));
+
+   private final Map<String, Map<String, String>> idsByService = new TreeMap<String, Map<String, String>>();
+
+   @Override
+   public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      if (roundEnv.processingOver()) {
+         for (Map.Entry<String, Map<String, String>> entry : idsByService.entrySet()) {
+            writeIndex(entry.getKey(), entry.getValue());
+         }
+         return false;
+      }
+      for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+         if (type.getKind() != ElementKind.CLASS)
+            continue;
+         for (String service : servicesOf(type)) {
+            if (!INDEXED_SERVICES.contains(service))
+               continue;
+            String id = idOf(type);
+            if (id == null) {
+               processingEnv.getMessager().printMessage(Kind.NOTE,
+                     "no constant id found; " + type + " will not be indexed", type);
+               continue;
+            }
+            Map<String, String> ids = idsByService.get(service);
+            if (ids == null) {
+               ids = new TreeMap<String, String>();
+               idsByService.put(service, ids);
+            }
+            ids.put(id, processingEnv.getElementUtils().getBinaryName(type).toString());
+         }
+      }
+      return false;
+   }
+
+   private static Set<String> servicesOf(TypeElement type) {
+      Set<String> services = new TreeSet<String>();
+      for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+         if (!AUTO_SERVICE.equals(TypeElement.class.cast(mirror.getAnnotationType().asElement()).getQualifiedName()
+               .toString()))
+            continue;
+         for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues()
+               .entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals("value"))
+               addServices(value.getValue().getValue(), services);
+         }
+      }
+      return services;
+   }
+
+   private static void addServices(Object value, Set<String> services) {
+      if (value instanceof DeclaredType) {
+         services.add(TypeElement.class.cast(((DeclaredType) value).asElement()).getQualifiedName().toString());
+      } else if (value instanceof List) {
+         for (Object element : (List<?>) value) {
+            if (element instanceof AnnotationValue)
+               addServices(((AnnotationValue) element).getValue(), services);
+         }
+      }
+   }
+
+   /**
+    * Returns the single constant id set in the given class or its nested classes, or null if there isn't exactly one.
+    */
+   private String idOf(TypeElement type) {
+      final Trees trees;
+      try {
+         trees = Trees.instance(processingEnv);
+      } catch (IllegalArgumentException e) {
+         return null;
+      }
+      TreePath path = trees.getPath(type);
+      if (path == null)
+         return null;
+      final Set<String> ids = new TreeSet<String>();
+      new TreePathScanner<Void, Void>() {
+         @Override
+         public Void visitMethodInvocation(MethodInvocationTree node, Void unused) {
+            ExpressionTree method = node.getMethodSelect();
+            if (method.getKind() == Tree.Kind.IDENTIFIER
+                  && IdentifierTree.class.cast(method).getName().contentEquals("id")
+                  && node.getArguments().size() == 1) {
+               Object id = constantValue(trees, new TreePath(getCurrentPath(), node.getArguments().get(0)));
+               // a call with a computed id makes the class ambiguous
+               ids.add(id instanceof String ? (String) id : "");
+            }
+            return super.visitMethodInvocation(node, unused);
+         }
+      }.scan(path, null);
+      return ids.size() == 1 && !ids.contains("") ? ids.iterator().next() : null;
+   }
+
+   private static Object constantValue(Trees trees, TreePath argument) {
+      Tree tree = argument.getLeaf();
+      if (tree.getKind() == Tree.Kind.STRING_LITERAL)
+         return LiteralTree.class.cast(tree).getValue();
+      Element element = trees.getElement(argument);
+      return element instanceof VariableElement ? VariableElement.class.cast(element).getConstantValue() : null;
+   }
+
+   private void writeIndex(String service, Map<String, String> ids) {
+      String resource = INDEX_DIRECTORY + service;
+      Map<String, String> merged = new TreeMap<String, String>();
+      // keep entries from classes compiled in an earlier, incremental build
+      try {
+         FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resource);
+         for (Map.Entry<String, String> entry : parse(existing.openReader(true)).entrySet()) {
+            if (!ids.containsValue(entry.getValue())
+                  && processingEnv.getElementUtils().getTypeElement(entry.getValue().replace('$', '.')) != null)
+               merged.put(entry.getKey(), entry.getValue());
+         }
+      } catch (IOException e) {
+         // no index from an earlier build
+      }
+      merged.putAll(ids);
+      Writer writer = null;
+      try {
+         writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource).openWriter();
+         writer.write("# generated by " + getClass().getName() + "\n");
+         for (Map.Entry<String, String> entry : merged.entrySet()) {
+            writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+         }
+      } catch (IOException e) {
+         processingEnv.getMessager().printMessage(Kind.ERROR, "could not write " + resource + ": " + e);
+      } finally {
+         if (writer != null) {
+            try {
+               writer.close();
+            } catch (IOException ignored) {
+            }
+         }
+      }
+   }
+
+   /**
+    * Parses {@code id=className} lines as {@code org.jclouds.internal.MetadataIndex} does, and closes the reader.
+    */
+   private static Map<String, String> parse(Reader reader) throws IOException {
+      Map<String, String> classNamesById = new TreeMap<String, String>();
+      BufferedReader lines = new BufferedReader(reader);
+      try {
+         for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            line = line.trim();
+            int separator = line.indexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator <= 0)
+               continue;
+            classNamesById.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+         }
+      } finally {
+         lines.close();
+      }
+      return classNamesById;
+   }
+}
@@ -62,8 +62,8 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
 
    @Override
    protected Iterable<? extends RunningInstance> pollRunningInstances() {
-      Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(regions.get(),
-                                                                                       allSpotInstancesInRegion())),
+      Iterable<? extends AWSRunningInstance> spots = filter(transform(regionFanOut.concat(regions.get(),
+                                                                                          allSpotInstancesInRegion()),
                                                                       spotConverter), notNull());
 
       return concat(super.pollRunningInstances(), spots);
@@ -71,8 +71,8 @@ public class AWSEC2ListNodesStrategy extends EC2ListNodesStrategy {
 
    @Override
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
-      Iterable<? extends AWSRunningInstance> spots = filter(transform(concat(transform(idsByRegions.keySet(),
-                                                                                       spotInstancesByIdInRegion(idsByRegions))),
+      Iterable<? extends AWSRunningInstance> spots = filter(transform(regionFanOut.concat(idsByRegions.keySet(),
+                                                                                          spotInstancesByIdInRegion(idsByRegions)),
 
                                                                       spotConverter), notNull());
       Iterable<? extends RunningInstance> superInsts = super.pollRunningInstancesByRegionsAndIds(idsByRegions);
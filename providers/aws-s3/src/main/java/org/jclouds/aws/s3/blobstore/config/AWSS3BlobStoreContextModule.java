@@ -16,13 +16,17 @@
  */
 package org.jclouds.aws.s3.blobstore.config;
 
+import org.jclouds.aws.s3.AWSS3Client;
 import org.jclouds.aws.s3.blobstore.AWSS3BlobRequestSigner;
 import org.jclouds.aws.s3.blobstore.AWSS3BlobStore;
 import org.jclouds.blobstore.BlobRequestSigner;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
 import org.jclouds.s3.blobstore.S3BlobStore;
 import org.jclouds.s3.blobstore.config.S3BlobStoreContextModule;
+import org.jclouds.s3.blobstore.strategy.internal.S3SubmitBlobRequestStrategy;
 
 import com.google.inject.Scopes;
+import com.google.inject.TypeLiteral;
 
 public class AWSS3BlobStoreContextModule extends S3BlobStoreContextModule {
 
@@ -36,4 +40,10 @@ public class AWSS3BlobStoreContextModule extends S3BlobStoreContextModule {
    protected void bindRequestSigner() {
       bind(BlobRequestSigner.class).to(AWSS3BlobRequestSigner.class);
    }
+
+   @Override
+   protected void bindSubmitBlobRequestStrategy() {
+      bind(SubmitBlobRequestStrategy.class).to(new TypeLiteral<S3SubmitBlobRequestStrategy<AWSS3Client>>() {
+      });
+   }
 }
@@ -74,7 +74,7 @@ public class AzureStorageClientErrorRetryHandler implements HttpRetryHandler {
                AzureStorageError error = utils.parseAzureStorageErrorFromContent(command, response,
                         new ByteArrayInputStream(content));
                if ("ContainerBeingDeleted".equals(error.getCode())) {
-                  backoffHandler.imposeBackoffExponentialDelay(100L, 3, retryCountLimit, command
+                  backoffHandler.imposeBackoffExponentialDelay(command, 100L, 3, retryCountLimit, command
                            .getFailureCount(), command.toString());
                   return true;
                }
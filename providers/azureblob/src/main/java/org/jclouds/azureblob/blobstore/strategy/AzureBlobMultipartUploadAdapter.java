@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azureblob.blobstore.strategy;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.jclouds.azureblob.AzureBlobClient;
+import org.jclouds.azureblob.blobstore.functions.BlobToAzureBlob;
+import org.jclouds.azureblob.domain.AzureBlob;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUploadSession;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.BlobImpl;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.strategy.MultipartUploadAdapter;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteSource;
+
+/**
+ * Uploads each part through PutBlock and assembles them through PutBlockList.
+ */
+public class AzureBlobMultipartUploadAdapter implements MultipartUploadAdapter {
+
+   private final AzureBlobClient client;
+   private final BlobToAzureBlob blobToAzureBlob;
+
+   @Inject
+   AzureBlobMultipartUploadAdapter(AzureBlobClient client, BlobToAzureBlob blobToAzureBlob) {
+      this.client = checkNotNull(client, "client");
+      this.blobToAzureBlob = checkNotNull(blobToAzureBlob, "blobToAzureBlob");
+   }
+
+   @Override
+   public long getMinimumPartSize() {
+      return 1;
+   }
+
+   @Override
+   public long getMaximumPartSize() {
+      return MultipartUploadStrategy.MAX_BLOCK_SIZE;
+   }
+
+   @Override
+   public int getMaximumNumberOfParts() {
+      return MultipartUploadStrategy.MAX_NUMBER_OF_BLOCKS;
+   }
+
+   @Override
+   public boolean isPartETagContentMD5() {
+      return false;
+   }
+
+   @Override
+   public MultipartUploadSession initiate(String container, BlobMetadata blobMetadata) {
+      return MultipartUploadSession.create(container, blobMetadata.getName(), null, blobMetadata);
+   }
+
+   @Override
+   public MultipartPart uploadPart(MultipartUploadSession mpu, int partNumber, Payload part) {
+      // block ids must all have the same length
+      String blockName = mpu.blobName() + "-" + UUID.randomUUID().toString();
+      byte blockIdBytes[] = Hashing.md5().hashBytes(blockName.getBytes(UTF_8)).asBytes();
+      String blockId = BaseEncoding.base64().encode(blockIdBytes);
+      client.putBlock(mpu.containerName(), mpu.blobName(), blockId, part);
+      return MultipartPart.create(partNumber, part.getContentMetadata().getContentLength(), blockId);
+   }
+
+   @Override
+   public String complete(MultipartUploadSession mpu, List<MultipartPart> parts) {
+      List<String> blockIds = Lists.newArrayListWithCapacity(parts.size());
+      for (MultipartPart part : parts) {
+         blockIds.add(part.partETag());
+      }
+      return client.putBlockList(mpu.containerName(), blockList(mpu), blockIds);
+   }
+
+   /**
+    * Azure has no call that discards uncommitted blocks. When no blob of that name exists, committing an empty block
+    * list discards them, and the empty blob is then deleted. Otherwise committing would replace the existing blob, so
+    * the blocks are left for its next commit, or for Azure to discard after a week.
+    */
+   @Override
+   public void abort(MultipartUploadSession mpu) {
+      if (client.blobExists(mpu.containerName(), mpu.blobName()))
+         return;
+      client.putBlockList(mpu.containerName(), blockList(mpu), ImmutableList.<String> of());
+      client.deleteBlob(mpu.containerName(), mpu.blobName());
+   }
+
+   private AzureBlob blockList(MultipartUploadSession mpu) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl(mpu.blobMetadata());
+      Payload empty = Payloads.newByteSourcePayload(ByteSource.empty());
+      empty.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(metadata.getContentMetadata()));
+      empty.getContentMetadata().setContentMD5((HashCode) null);
+      Blob blob = new BlobImpl(metadata);
+      blob.setPayload(empty);
+      return blobToAzureBlob.apply(blob);
+   }
+}
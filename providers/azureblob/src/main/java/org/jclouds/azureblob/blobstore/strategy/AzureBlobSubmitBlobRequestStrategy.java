@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azureblob.blobstore.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.reflect.Reflection2.method;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.azureblob.AzureBlobClient;
+import org.jclouds.azureblob.blobstore.functions.BlobPropertiesToBlobMetadata;
+import org.jclouds.azureblob.domain.BlobProperties;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.InvokeHttpMethod;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.Invokable;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Submits {@link AzureBlobClient#getBlobProperties} and {@link AzureBlobClient#deleteBlob} without waiting on a user
+ * thread for their response.
+ */
+@Singleton
+public class AzureBlobSubmitBlobRequestStrategy implements SubmitBlobRequestStrategy {
+   private static final Invokable<?, ?> GET_BLOB_PROPERTIES = method(AzureBlobClient.class, "getBlobProperties",
+            String.class, String.class);
+   private static final Invokable<?, ?> DELETE_BLOB = method(AzureBlobClient.class, "deleteBlob", String.class,
+            String.class);
+
+   private final InvokeHttpMethod invoker;
+   private final BlobPropertiesToBlobMetadata blob2BlobMd;
+
+   @Inject
+   AzureBlobSubmitBlobRequestStrategy(InvokeHttpMethod invoker, BlobPropertiesToBlobMetadata blob2BlobMd) {
+      this.invoker = checkNotNull(invoker, "invoker");
+      this.blob2BlobMd = checkNotNull(blob2BlobMd, "blob2BlobMd");
+   }
+
+   @Override
+   public ListenableFuture<BlobMetadata> blobMetadata(String container, String name) {
+      return Futures.transform(invoker.submit(Invocation.create(GET_BLOB_PROPERTIES,
+               ImmutableList.<Object> of(container, name))), new Function<Object, BlobMetadata>() {
+         @Override
+         public BlobMetadata apply(Object input) {
+            return blob2BlobMd.apply(BlobProperties.class.cast(input));
+         }
+      });
+   }
+
+   @Override
+   public ListenableFuture<Void> removeBlob(String container, String name) {
+      return Futures.transform(invoker.submit(Invocation.create(DELETE_BLOB, ImmutableList.<Object> of(container,
+               name))), Functions.<Void> constant(null));
+   }
+}
@@ -18,8 +18,8 @@
 package org.jclouds.azureblob.blobstore.strategy;
 
 import com.google.common.base.Charsets;
-import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.easymock.EasyMock;
 import org.jclouds.azureblob.AzureBlobClient;
 import org.jclouds.azureblob.blobstore.functions.BlobToAzureBlob;
@@ -28,12 +28,13 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.internal.BlobImpl;
 import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.blobstore.strategy.MultipartUploadEngine;
+import org.jclouds.blobstore.strategy.internal.ParallelMultipartUploadEngine;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
-import org.jclouds.io.PayloadSlicer;
 import org.jclouds.io.Payloads;
+import org.jclouds.io.internal.BasePayloadSlicer;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
-import org.jclouds.io.payloads.ByteSourcePayload;
 import org.testng.annotations.Test;
 
 import java.util.List;
@@ -55,7 +56,6 @@ public class AzureBlobBlockUploadStrategyTest {
       String blobName = "test-blob";
       byte[] blobData = "ABCD".getBytes(Charsets.UTF_8);
       AzureBlobClient client = createMock(AzureBlobClient.class);
-      PayloadSlicer slicer = createMock(PayloadSlicer.class);
       BlobToAzureBlob blobToAzureBlob = createMock(BlobToAzureBlob.class);
       MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
       MutableContentMetadata contentMetadata = new BaseMutableContentMetadata();
@@ -68,21 +68,11 @@ public class AzureBlobBlockUploadStrategyTest {
       payload.setContentMetadata(contentMetadata);
       blob.setPayload(payload);
 
-      List<Payload> payloads = ImmutableList.of(
-            createBlockPayload(new byte[]{blobData[0]}),
-            createBlockPayload(new byte[]{blobData[1]}),
-            createBlockPayload(new byte[]{blobData[2]}),
-            createBlockPayload(new byte[]{blobData[3]}));
-
-      expect(slicer.slice(payload, MultipartUploadStrategy.MAX_BLOCK_SIZE)).andReturn(payloads);
-      client.putBlock(eq(container), eq(blobName), anyObject(String.class), eq(payloads.get(0)));
-      client.putBlock(eq(container), eq(blobName), anyObject(String.class), eq(payloads.get(1)));
-      client.putBlock(eq(container), eq(blobName), anyObject(String.class), eq(payloads.get(2)));
-      client.putBlock(eq(container), eq(blobName), anyObject(String.class), eq(payloads.get(3)));
+      client.putBlock(eq(container), eq(blobName), anyObject(String.class), anyObject(Payload.class));
       expect(client.putBlockList(eq(container), anyObject(AzureBlob.class), EasyMock.<List<String>>anyObject())).andReturn("Fake ETAG");
 
-      AzureBlobBlockUploadStrategy strat = new AzureBlobBlockUploadStrategy(client, slicer, blobToAzureBlob);
-      replay(slicer, client);
+      AzureBlobBlockUploadStrategy strat = newStrategy(client, blobToAzureBlob);
+      replay(client);
       String etag = strat.execute(container, blob);
       assertEquals(etag, "Fake ETAG");
 
@@ -95,7 +85,6 @@ public class AzureBlobBlockUploadStrategyTest {
       String blobName = "test-blob";
 
       AzureBlobClient client = createNiceMock(AzureBlobClient.class);
-      PayloadSlicer slicer = createNiceMock(PayloadSlicer.class);
       BlobToAzureBlob blobToAzureBlob = createMock(BlobToAzureBlob.class);
 
       MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
@@ -109,15 +98,13 @@ public class AzureBlobBlockUploadStrategyTest {
       payload.setContentMetadata(contentMetadata);
       blob.setPayload(payload);
 
-      AzureBlobBlockUploadStrategy strat = new AzureBlobBlockUploadStrategy(client, slicer, blobToAzureBlob);
+      AzureBlobBlockUploadStrategy strat = newStrategy(client, blobToAzureBlob);
       strat.execute(container, blob);
    }
 
-   private Payload createBlockPayload(byte[] blockData) {
-      ByteSourcePayload payload = Payloads.newByteSourcePayload(ByteSource.wrap(blockData));
-      MutableContentMetadata contentMetadata = new BaseMutableContentMetadata();
-      contentMetadata.setContentLength((long) blockData.length);
-      payload.setContentMetadata(contentMetadata);
-      return payload;
+   private static AzureBlobBlockUploadStrategy newStrategy(AzureBlobClient client, BlobToAzureBlob blobToAzureBlob) {
+      MultipartUploadEngine engine = new ParallelMultipartUploadEngine(new BasePayloadSlicer(),
+            MoreExecutors.sameThreadExecutor());
+      return new AzureBlobBlockUploadStrategy(engine, new AzureBlobMultipartUploadAdapter(client, blobToAzureBlob));
    }
 }
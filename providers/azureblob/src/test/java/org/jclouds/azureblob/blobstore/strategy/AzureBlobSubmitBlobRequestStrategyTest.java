@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.azureblob.blobstore.strategy;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+
+import org.jclouds.azureblob.AzureBlobClient;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.strategy.SubmitBlobRequestStrategy;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.rest.internal.BaseRestApiExpectTest;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests behavior of {@code AzureBlobSubmitBlobRequestStrategy}
+ */
+// NOTE:without testName, this will not call @Before* and fail w/NPE during surefire
+@Test(groups = "unit", testName = "AzureBlobSubmitBlobRequestStrategyTest")
+public class AzureBlobSubmitBlobRequestStrategyTest extends BaseRestApiExpectTest<AzureBlobClient> {
+
+   public AzureBlobSubmitBlobRequestStrategyTest() {
+      provider = "azureblob";
+      // this is base64 decoded in the signer;
+      credential = "aaaabbbb";
+   }
+
+   public void testBlobMetadataIsSubmittedAsGetBlobProperties() throws Exception {
+      RecordingResponses responses = new RecordingResponses(HttpResponse.builder().statusCode(200)
+               .addHeader("Last-Modified", "Sun, 11 Jan 2015 14:00:00 GMT").addHeader("ETag", "\"abcd\"").build());
+      BlobMetadata md = submitter(responses).blobMetadata("container", "name").get();
+
+      assertEquals(responses.requests.get(0), "HEAD /container/name");
+      assertEquals(md.getName(), "name");
+      assertEquals(md.getContainer(), "container");
+      assertEquals(md.getETag(), "\"abcd\"");
+   }
+
+   public void testBlobMetadataOfMissingBlobIsNull() throws Exception {
+      RecordingResponses responses = new RecordingResponses(HttpResponse.builder().statusCode(404).build());
+      assertNull(submitter(responses).blobMetadata("container", "name").get());
+      assertEquals(responses.requests, Lists.newArrayList("HEAD /container/name"));
+   }
+
+   public void testRemoveBlobIsSubmittedAsDeleteBlob() throws Exception {
+      RecordingResponses responses = new RecordingResponses(HttpResponse.builder().statusCode(202).build());
+      assertNull(submitter(responses).removeBlob("container", "name").get());
+      assertEquals(responses.requests, Lists.newArrayList("DELETE /container/name"));
+   }
+
+   private SubmitBlobRequestStrategy submitter(RecordingResponses responses) {
+      return createInjector(responses, createModule(), setupProperties()).getInstance(SubmitBlobRequestStrategy.class);
+   }
+
+   /**
+    * answers requests for the blob with a fixed response and anything else, such as the container acl, with 200.
+    */
+   private static class RecordingResponses implements Function<HttpRequest, HttpResponse> {
+      private final HttpResponse blobResponse;
+      private final List<String> requests = Lists.newCopyOnWriteArrayList();
+
+      private RecordingResponses(HttpResponse blobResponse) {
+         this.blobResponse = blobResponse;
+      }
+
+      @Override
+      public HttpResponse apply(HttpRequest input) {
+         if (!input.getEndpoint().getPath().equals("/container/name"))
+            return HttpResponse.builder().statusCode(200).build();
+         requests.add(input.getMethod() + " " + input.getEndpoint().getPath());
+         return blobResponse;
+      }
+   }
+}